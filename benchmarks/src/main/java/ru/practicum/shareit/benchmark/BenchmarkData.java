@@ -0,0 +1,181 @@
+package ru.practicum.shareit.benchmark;
+
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.OwnerItemView;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Синтетические данные для бенчмарков. Генератор инициализируется фиксированным значением,
+// чтобы наборы данных совпадали между запусками и результаты можно было сравнивать
+final class BenchmarkData {
+    static final int OWNER_ID = 1;
+    static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static User user(int id) {
+        return new User(id, "User" + id, "user" + id + "@mail.ru");
+    }
+
+    static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            items.add(new Item(id, "Вещь " + id, "Описание вещи номер " + id, true, OWNER_ID));
+        }
+        return items;
+    }
+
+    // бронирования вещи, равномерно разбросанные на год вокруг NOW, в случайном порядке
+    static List<Booking> bookings(Item item, int count, Random random) {
+        List<Booking> bookings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = NOW.plusHours(random.nextInt(24 * 365) - 24 * 182);
+            bookings.add(new Booking(item.getId() * 100_000 + i, item, user(2 + random.nextInt(100)), start,
+                    start.plusHours(1 + random.nextInt(72)), Status.APPROVED));
+        }
+        Collections.shuffle(bookings, random);
+        return bookings;
+    }
+
+    static List<Comment> comments(Item item, int count) {
+        List<Comment> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            comments.add(new Comment(item.getId() * 1_000 + i, "Комментарий " + i, NOW.minusDays(i), item,
+                    user(2 + i)));
+        }
+        return comments;
+    }
+
+    // те же комментарии в виде строк запроса-проекции CommentRepository
+    static List<CommentDto> commentDtos(Item item, int count) {
+        List<CommentDto> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            comments.add(new CommentDto(item.getId() * 1_000 + i, item.getId(), "Комментарий " + i,
+                    user(2 + i).getName(), NOW.minusDays(i)));
+        }
+        return comments;
+    }
+
+    // строки списка вещей владельца в том виде, в котором их возвращает ItemRepository: у каждой второй вещи
+    // есть последнее бронирование, у каждой третьей - следующее
+    static List<OwnerItemView> ownerItemViews(List<Item> items) {
+        List<OwnerItemView> views = new ArrayList<>(items.size());
+        for (Item item : items) {
+            int id = item.getId();
+            boolean hasLast = id % 2 == 0;
+            boolean hasNext = id % 3 == 0;
+            views.add(new SyntheticOwnerItemView(item,
+                    hasLast ? id * 10 : null, hasLast ? 2 : null, hasLast ? NOW.minusDays(3) : null,
+                    hasLast ? NOW.minusDays(2) : null,
+                    hasNext ? id * 10 + 1 : null, hasNext ? 3 : null, hasNext ? NOW.plusDays(2) : null,
+                    hasNext ? NOW.plusDays(3) : null));
+        }
+        return views;
+    }
+
+    private static class SyntheticOwnerItemView implements OwnerItemView {
+        private final Item item;
+        private final Integer lastBookingId;
+        private final Integer lastBookerId;
+        private final LocalDateTime lastStart;
+        private final LocalDateTime lastEnd;
+        private final Integer nextBookingId;
+        private final Integer nextBookerId;
+        private final LocalDateTime nextStart;
+        private final LocalDateTime nextEnd;
+
+        SyntheticOwnerItemView(Item itemArg, Integer lastBookingIdArg, Integer lastBookerIdArg,
+                               LocalDateTime lastStartArg, LocalDateTime lastEndArg, Integer nextBookingIdArg,
+                               Integer nextBookerIdArg, LocalDateTime nextStartArg, LocalDateTime nextEndArg) {
+            item = itemArg;
+            lastBookingId = lastBookingIdArg;
+            lastBookerId = lastBookerIdArg;
+            lastStart = lastStartArg;
+            lastEnd = lastEndArg;
+            nextBookingId = nextBookingIdArg;
+            nextBookerId = nextBookerIdArg;
+            nextStart = nextStartArg;
+            nextEnd = nextEndArg;
+        }
+
+        @Override
+        public Integer getId() {
+            return item.getId();
+        }
+
+        @Override
+        public String getName() {
+            return item.getName();
+        }
+
+        @Override
+        public String getDescription() {
+            return item.getDescription();
+        }
+
+        @Override
+        public Boolean getAvailable() {
+            return item.getIsAvailable();
+        }
+
+        @Override
+        public Integer getRequestId() {
+            return null;
+        }
+
+        @Override
+        public Integer getLastBookingId() {
+            return lastBookingId;
+        }
+
+        @Override
+        public Integer getLastBookerId() {
+            return lastBookerId;
+        }
+
+        @Override
+        public LocalDateTime getLastStart() {
+            return lastStart;
+        }
+
+        @Override
+        public LocalDateTime getLastEnd() {
+            return lastEnd;
+        }
+
+        @Override
+        public Integer getNextBookingId() {
+            return nextBookingId;
+        }
+
+        @Override
+        public Integer getNextBookerId() {
+            return nextBookerId;
+        }
+
+        @Override
+        public LocalDateTime getNextStart() {
+            return nextStart;
+        }
+
+        @Override
+        public LocalDateTime getNextEnd() {
+            return nextEnd;
+        }
+
+        @Override
+        public LocalDateTime getSummaryValidUntil() {
+            return nextStart;
+        }
+    }
+}
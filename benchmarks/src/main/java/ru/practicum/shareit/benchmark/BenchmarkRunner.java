@@ -0,0 +1,20 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Точка входа benchmarks.jar: принимает обычные аргументы JMH (например, имя бенчмарка или -p size=100)
+// и всегда подключает GC-профилировщик, чтобы вместе со временем выводилась скорость выделения памяти
+// (gc.alloc.rate.norm - байт на одну операцию)
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingMapperImpl;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemMapperImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.dto.UserMapperImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Преобразование страницы бронирований в ответ API: на каждое бронирование создаются DTO бронирования,
+// вещи и пользователя
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingMapperBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    private BookingMapper bookingMapper;
+    private List<Booking> bookings;
+
+    @Setup
+    public void setUp() {
+        ItemMapperImpl itemMapper = new ItemMapperImpl(Repositories.stub(ItemRequestRepository.class, Map.of()));
+        bookingMapper = new BookingMapperImpl(new UserMapperImpl(), itemMapper);
+        Item item = BenchmarkData.items(1).get(0);
+        bookings = BenchmarkData.bookings(item, size, new Random(42));
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> toBookingDtoList() {
+        return bookingMapper.toBookingDtoList(bookings);
+    }
+}
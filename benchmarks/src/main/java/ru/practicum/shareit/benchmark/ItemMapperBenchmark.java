@@ -0,0 +1,69 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentMapperImpl;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemMapperImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.OwnerItemView;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сборка карточки вещи с последним и следующим бронированием и комментариями: из сущностей (просмотр одной вещи)
+// и из строки запроса списка вещей владельца
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemMapperBenchmark {
+    @Param({"0", "10", "100"})
+    private int comments;
+
+    private ItemMapper itemMapper;
+    private Item item;
+    private Booking lastBooking;
+    private Booking nextBooking;
+    private OwnerItemView ownerItemView;
+    private List<CommentDto> commentDtoList;
+
+    @Setup
+    public void setUp() {
+        itemMapper = new ItemMapperImpl(Repositories.stub(ItemRequestRepository.class, Map.of()));
+        List<Item> items = BenchmarkData.items(6);
+        item = items.get(5);
+        List<Booking> bookings = BenchmarkData.bookings(item, 2, new Random(42));
+        lastBooking = bookings.get(0);
+        nextBooking = bookings.get(1);
+        ownerItemView = BenchmarkData.ownerItemViews(items).get(5); // у шестой вещи есть оба бронирования
+        commentDtoList = new CommentMapperImpl().toCommentDtoList(BenchmarkData.comments(item, comments));
+    }
+
+    @Benchmark
+    public ItemDtoWithBookingAndComment fromEntities() {
+        return itemMapper.toItemDtoWithBookingAndComment(item, lastBooking, nextBooking, commentDtoList);
+    }
+
+    @Benchmark
+    public ItemDtoWithBookingAndComment fromOwnerItemView() {
+        return itemMapper.toItemDtoWithBookingAndComment(ownerItemView, commentDtoList);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingCountView;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Подсказки названий ItemSuggestions.suggest по дереву из names названий. Режим SampleTime выводит
+// распределение времени отдельных вызовов (p0.99 и другие процентили), а не только среднее.
+// Префиксы - начала существующих названий длиной prefixLength, каждый вызов берет следующий префикс
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ItemSuggestBenchmark {
+    private static final String[] NOUNS = {"Дрель", "Пила", "Перфоратор", "Шуруповерт", "Нивелир", "Лестница",
+        "Палатка", "Велосипед", "Сапборд", "Проектор", "Генератор", "Компрессор", "Мойка", "Болгарка", "Рубанок"};
+    private static final String[] MODIFIERS = {"ударная", "аккумуляторная", "сетевая", "лазерный", "складная",
+        "туристическая", "горный", "детский", "портативный", "бензиновый", "профессиональная", "компактная"};
+    private static final String[] BRANDS = {"Bosch", "Makita", "DeWalt", "Интерскол", "Зубр", "Stels", "Karcher",
+        "Hilti", "Metabo", "Ryobi"};
+    private static final int PREFIXES = 1 << 12;
+    private static final int LIMIT = 10;
+
+    @Param({"1000000"})
+    private int names;
+
+    @Param({"1", "3", "8", "15"})
+    private int prefixLength;
+
+    private ItemSuggestions itemSuggestions;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Item> items = new ArrayList<>(names);
+        List<ItemBookingCountView> counts = new ArrayList<>(names);
+        for (int id = 1; id <= names; id++) {
+            String name = NOUNS[random.nextInt(NOUNS.length)] + " " + MODIFIERS[random.nextInt(MODIFIERS.length)] +
+                    " " + BRANDS[random.nextInt(BRANDS.length)] + " " + random.nextInt(100_000);
+            items.add(new Item(id, name, name, true, BenchmarkData.OWNER_ID));
+            counts.add(new BookingCount(id, random.nextInt(1_000)));
+        }
+        ItemRepository itemRepository = Repositories.stub(ItemRepository.class, Map.of("findAll", args -> items));
+        BookingRepository bookingRepository = Repositories.stub(BookingRepository.class,
+                Map.of("countBookingsByItem", args -> counts));
+        itemSuggestions = new ItemSuggestions(itemRepository, bookingRepository, LIMIT);
+
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String name = items.get(random.nextInt(names)).getName();
+            prefixes[i] = name.substring(0, Math.min(prefixLength, name.length()));
+        }
+        itemSuggestions.suggest(prefixes[0], LIMIT); // дерево строится при первом обращении
+    }
+
+    @Benchmark
+    public List<ItemSuggestionDto> suggest() {
+        next = (next + 1) & (PREFIXES - 1);
+        return itemSuggestions.suggest(prefixes[next], LIMIT);
+    }
+
+    private static final class BookingCount implements ItemBookingCountView {
+        private final Integer itemId;
+        private final Long bookingCount;
+
+        private BookingCount(int itemIdArg, long bookingCountArg) {
+            itemId = itemIdArg;
+            bookingCount = bookingCountArg;
+        }
+
+        @Override
+        public Integer getItemId() {
+            return itemId;
+        }
+
+        @Override
+        public Long getBookingCount() {
+            return bookingCount;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.CommentMapperImpl;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
+import ru.practicum.shareit.item.dto.ItemMapperImpl;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.FutureBookingComparator;
+import ru.practicum.shareit.util.PastBookingComparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Выбор последнего и следующего бронирования вещи. Раньше ItemServiceImpl.getItem собирал прошедшие (или будущие)
+// бронирования в список, сортировал его PastBookingComparator (FutureBookingComparator) и брал первый элемент;
+// бенчмарки sortThenTakeFirst и singlePass измеряют этот прием и поиск минимума за один проход тем же
+// компаратором. Теперь последнее и следующее бронирование рассчитываются при записи (ItemBookingSummaries),
+// и getItem измеряет весь метод сервиса без БД: его время не должно зависеть от числа бронирований вещи
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LastAndNextBookingBenchmark {
+    private static final PastBookingComparator PAST = new PastBookingComparator();
+    private static final FutureBookingComparator FUTURE = new FutureBookingComparator();
+
+    @Param({"10", "100", "1000", "10000"})
+    private int bookings;
+
+    private List<Booking> itemBookings;
+    private ItemServiceImpl itemService;
+    private Item item;
+
+    @Setup
+    public void setUp() {
+        item = BenchmarkData.items(1).get(0);
+        itemBookings = BenchmarkData.bookings(item, bookings, new Random(42));
+
+        ItemRepository itemRepository = Repositories.stub(ItemRepository.class,
+                Map.of("findById", args -> Optional.of(item)));
+        Booking last = Collections.min(itemBookings, PAST);
+        Booking next = Collections.min(itemBookings, FUTURE);
+        ItemBookingSummary summary = new ItemBookingSummary(item.getId(), last, next, next.getStartBookingDate());
+        ItemBookingSummaryRepository summaryRepository = Repositories.stub(ItemBookingSummaryRepository.class,
+                Map.of("findSummaryByItemId", args -> Optional.of(summary)));
+        CommentRepository commentRepository = Repositories.stub(CommentRepository.class,
+                Map.of("findCommentDtosByItemId", args -> BenchmarkData.commentDtos(item, 3)));
+        itemService = new ItemServiceImpl(Repositories.stub(UserRepository.class, Map.of()), itemRepository,
+                new ItemMapperImpl(Repositories.stub(ItemRequestRepository.class, Map.of())),
+                Repositories.stub(BookingRepository.class, Map.of()), commentRepository, new CommentMapperImpl(),
+                new ItemSearchIndex(itemRepository, Repositories.stub(BookingRepository.class, Map.of()),
+                        new SimpleMeterRegistry(), 10000, 30),
+                new ItemBookingSummaries(summaryRepository),
+                new BookingIntervalIndex(Repositories.stub(BookingRepository.class, Map.of())),
+                new ItemSuggestions(itemRepository, Repositories.stub(BookingRepository.class, Map.of()), 10));
+    }
+
+    @Benchmark
+    public Booking sortThenTakeFirst() {
+        List<Booking> copy = new ArrayList<>(itemBookings);
+        copy.sort(PAST);
+        Booking last = copy.get(0);
+        copy.sort(FUTURE);
+        return last.getId() > copy.get(0).getId() ? last : copy.get(0);
+    }
+
+    @Benchmark
+    public Booking singlePass() {
+        Booking last = Collections.min(itemBookings, PAST);
+        Booking next = Collections.min(itemBookings, FUTURE);
+        return last.getId() > next.getId() ? last : next;
+    }
+
+    @Benchmark
+    public ItemDtoWithBookingAndComment getItem() {
+        return itemService.getItem(item.getId(), BenchmarkData.OWNER_ID);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentMapperImpl;
+import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
+import ru.practicum.shareit.item.dto.ItemMapperImpl;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.OwnerItemView;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Полный цикл ItemServiceImpl.getItems для владельца с items вещами: группировка комментариев по вещам
+// и сборка карточек. Репозитории возвращают заранее подготовленные строки, поэтому измеряется только
+// работа приложения поверх результатов запросов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnerItemsBenchmark {
+    private static final int COMMENTS_PER_ITEM = 2;
+
+    @Param({"10", "100", "1000", "10000"})
+    private int items;
+
+    private ItemServiceImpl itemService;
+
+    @Setup
+    public void setUp() {
+        List<Item> ownerItems = BenchmarkData.items(items);
+        List<OwnerItemView> views = BenchmarkData.ownerItemViews(ownerItems);
+        List<CommentDto> comments = new ArrayList<>();
+        for (Item item : ownerItems) {
+            comments.addAll(BenchmarkData.commentDtos(item, COMMENTS_PER_ITEM));
+        }
+
+        ItemRepository itemRepository = Repositories.stub(ItemRepository.class,
+                Map.of("findOwnerItemsWithLastAndNextBookings", args -> {
+                    int offset = (Integer) args[1];
+                    int size = (Integer) args[2];
+                    return views.subList(Math.min(offset, views.size()), Math.min(offset + size, views.size()));
+                }));
+        CommentRepository commentRepository = Repositories.stub(CommentRepository.class,
+                Map.of("findCommentDtosByItemIdIn", args -> comments));
+        itemService = new ItemServiceImpl(Repositories.stub(UserRepository.class, Map.of()), itemRepository,
+                new ItemMapperImpl(Repositories.stub(ItemRequestRepository.class, Map.of())),
+                Repositories.stub(BookingRepository.class, Map.of()), commentRepository, new CommentMapperImpl(),
+                new ItemSearchIndex(itemRepository, Repositories.stub(BookingRepository.class, Map.of()),
+                        new SimpleMeterRegistry(), 10000, 30),
+                new ItemBookingSummaries(Repositories.stub(ItemBookingSummaryRepository.class, Map.of())),
+                new BookingIntervalIndex(Repositories.stub(BookingRepository.class, Map.of())),
+                new ItemSuggestions(itemRepository, Repositories.stub(BookingRepository.class, Map.of()), 10));
+    }
+
+    @Benchmark
+    public List<ItemDtoWithBookingAndComment> getItems() {
+        return itemService.getItems(BenchmarkData.OWNER_ID, 0, items);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+// Заглушки репозиториев для бенчмарков: методы, перечисленные в answers, возвращают заранее подготовленные
+// данные, остальные бросают исключение. Так измеряется код сервисов и мапперов без БД и без Mockito
+final class Repositories {
+    private Repositories() {
+    }
+
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (instance, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        switch (method.getName()) {
+                            case "hashCode":
+                                return System.identityHashCode(instance);
+                            case "equals":
+                                return instance == args[0];
+                            default:
+                                return type.getSimpleName() + " stub";
+                        }
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+                });
+        return type.cast(proxy);
+    }
+}
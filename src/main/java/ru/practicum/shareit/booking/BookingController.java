@@ -1,10 +1,14 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,26 +19,44 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.service.BookingExport;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingCreateRequestDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Validated
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_BATCH_SIZE = 500;
     private static final Logger log = LoggerFactory.getLogger(BookingController.class);
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BookingController(BookingService bookingServiceArg) {
+    public BookingController(BookingService bookingServiceArg, ObjectMapper objectMapperArg) {
         bookingService = bookingServiceArg;
+        objectMapper = objectMapperArg;
     }
 
     @PostMapping
@@ -48,6 +70,64 @@ public class BookingController {
         return createdBooking;
     }
 
+    // пакетное создание бронирований: результат (созданное бронирование или ошибка) возвращается для каждого
+    // элемента в порядке запроса, ошибка одного элемента не отменяет создание остальных
+    @PostMapping(path = "/batch")
+    public List<BookingBatchResultDto> createBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+            @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid BookingCreateRequestDto> bookingDtoList) {
+        log.info("Пришел POST /bookings/batch запрос с заголовком 'X-Sharer-User-Id' и {} бронированиями" +
+                '\n' + "Содержимое 'X-Sharer-User-Id': {}", bookingDtoList.size(), userId);
+        final List<BookingBatchResultDto> results = bookingService.createBookings(userId, bookingDtoList);
+        log.info("На POST /bookings/batch запрос отправлен ответ с {} результатами", results.size());
+        return results;
+    }
+
+    // удержание периода вещи на короткий срок без создания бронирования: пока удержание действует, период
+    // никто не может занять, а подтверждение превращает удержание в бронирование
+    @PostMapping(path = "/holds")
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public BookingHoldDto createHold(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+                                     @Valid @RequestBody BookingCreateRequestDto bookingDto) {
+        log.info("Пришел POST /bookings/holds запрос с заголовком 'X-Sharer-User-Id' и телом: " +
+                '\n' + "Содержимое 'X-Sharer-User-Id': {}" + '\n' + "Тело: {}", userId, bookingDto);
+        final BookingHoldDto hold = bookingService.createHold(userId, bookingDto);
+        log.info("На POST /bookings/holds запрос отправлен ответ с телом: {}", hold);
+        return hold;
+    }
+
+    @PostMapping(path = "/holds/{holdId}/confirm")
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public BookingResponseDto confirmHold(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+                                          @PathVariable long holdId) {
+        log.info("Пришел POST /bookings/holds/{}/confirm запрос с заголовком 'X-Sharer-User-Id'" +
+                '\n' + "Содержимое 'X-Sharer-User-Id': {}", holdId, userId);
+        final BookingResponseDto createdBooking = bookingService.confirmHold(userId, holdId);
+        log.info("На POST /bookings/holds/{}/confirm запрос отправлен ответ с телом: {}", holdId, createdBooking);
+        return createdBooking;
+    }
+
+    @DeleteMapping(path = "/holds/{holdId}")
+    public void releaseHold(@RequestHeader(value = "X-Sharer-User-Id") Integer userId, @PathVariable long holdId) {
+        log.info("Пришел DELETE /bookings/holds/{} запрос с заголовком 'X-Sharer-User-Id'" +
+                '\n' + "Содержимое 'X-Sharer-User-Id': {}", holdId, userId);
+        bookingService.releaseHold(userId, holdId);
+        log.info("На DELETE /bookings/holds/{} запрос удержание снято", holdId);
+    }
+
+    // решение владельца сразу по нескольким бронированиям: результат возвращается для каждого id
+    @PatchMapping(path = "/approve-batch")
+    public List<BookingDecisionResultDto> approveOrRejectBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+            @Valid @RequestBody BookingDecisionRequestDto decisionDto) {
+        log.info("Пришел PATCH /bookings/approve-batch запрос с заголовком 'X-Sharer-User-Id' и телом: " +
+                '\n' + "Содержимое 'X-Sharer-User-Id': {}" + '\n' + "Тело: {}", userId, decisionDto);
+        final List<BookingDecisionResultDto> results = bookingService.approveOrRejectBookings(userId,
+                decisionDto.getBookingIds(), decisionDto.getApproved());
+        log.info("На PATCH /bookings/approve-batch запрос отправлен ответ с {} результатами", results.size());
+        return results;
+    }
+
     @PatchMapping(path = "/{bookingId}")
     public BookingResponseDto approveOrRejectBooking(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
                                                      @PathVariable int bookingId, @RequestParam boolean approved) {
@@ -70,28 +150,94 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingResponseDto> getBookingsForBooker(
+    public ResponseEntity<List<BookingResponseDto>> getBookingsForBooker(
             @RequestHeader(value = "X-Sharer-User-Id") Integer userId,
             @RequestParam(required = false, defaultValue = "ALL") String state,
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(25) Integer size) {
-        log.info("Пришел GET /bookings?state={}&from={}&size={} запрос с заголовком 'X-Sharer-User-Id'. " +
-                '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}", state, from, size, userId);
-        final List<BookingResponseDto> bookingsList = bookingService.getBookingsForBooker(userId, state, from, size);
+            @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(25) Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.info("Пришел GET /bookings?state={}&from={}&size={}&cursor={} запрос с заголовком 'X-Sharer-User-Id'. " +
+                '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}", state, from, size, cursor, userId);
+        final List<BookingResponseDto> bookingsList;
+        if (cursor != null) {
+            bookingsList = bookingService.getBookingsForBookerByCursor(userId, state, cursor, size);
+        } else {
+            bookingsList = bookingService.getBookingsForBooker(userId, state, from, size);
+        }
         log.info("На GET /bookings запрос отправлен ответ c размером тела: {}", bookingsList.size());
-        return bookingsList;
+        return withNextCursor(bookingsList, size);
     }
 
     @GetMapping(path = "/owner")
-    public List<BookingResponseDto> getBookingsForOwner(
+    public ResponseEntity<List<BookingResponseDto>> getBookingsForOwner(
             @RequestHeader(value = "X-Sharer-User-Id") Integer userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(25) Integer size) {
-        log.info("Пришел GET /bookings/owner?state={}&from={}&size={} запрос с заголовком 'X-Sharer-User-Id'" +
-                '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}", state, from, size, userId);
-        final List<BookingResponseDto> bookingsList = bookingService.getBookingsForItemsOwner(userId, state, from, size);
+            @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(25) Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.info("Пришел GET /bookings/owner?state={}&from={}&size={}&cursor={} запрос с заголовком " +
+                "'X-Sharer-User-Id'" + '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}",
+                state, from, size, cursor, userId);
+        final List<BookingResponseDto> bookingsList;
+        if (cursor != null) {
+            bookingsList = bookingService.getBookingsForItemsOwnerByCursor(userId, state, cursor, size);
+        } else {
+            bookingsList = bookingService.getBookingsForItemsOwner(userId, state, from, size);
+        }
         log.info("На GET /bookings/owner запрос отправлен ответ с размером тела: {}", bookingsList.size());
-        return bookingsList;
+        return withNextCursor(bookingsList, size);
+    }
+
+    // выгрузка всех бронирований пользователя в роли арендатора (role=booker) или владельца (role=owner)
+    // в формате NDJSON: по одному бронированию в строке, в том же порядке, что и в постраничных списках.
+    // Ответ пишется по мере чтения из БД, поэтому выгрузка не ограничена размером страницы
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+            @RequestParam String role,
+            @RequestParam(required = false, defaultValue = "ALL") String state) {
+        log.info("Пришел GET /bookings/export?role={}&state={} запрос с заголовком 'X-Sharer-User-Id'" +
+                '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}", role, state, userId);
+        final BookingExport export = bookingService.exportBookings(userId, role, state);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream bufferedStream = new BufferedOutputStream(outputStream);
+            export.forEach(booking -> writeLine(bufferedStream, booking));
+            bufferedStream.flush();
+            log.info("На GET /bookings/export?role={}&state={} запрос выгрузка завершена", role, state);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // события бронирований пользователя (созданные бронирования и решения владельца) в формате Server-Sent Events:
+    // приходят сразу после сохранения изменений и заменяют периодический опрос списков бронирований
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingEvents(@RequestHeader(value = "X-Sharer-User-Id") Integer userId) {
+        log.info("Пришел GET /bookings/stream запрос с заголовком 'X-Sharer-User-Id'" +
+                '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}", userId);
+        final SseEmitter emitter = bookingService.subscribeToEvents(userId);
+        log.info("На GET /bookings/stream запрос открыта подписка пользователя с id={}", userId);
+        return emitter;
+    }
+
+    // если страница заполнена полностью, передаем курсор для запроса следующей страницы в заголовке ответа
+    private ResponseEntity<List<BookingResponseDto>> withNextCursor(List<BookingResponseDto> bookingsList, int size) {
+        if (bookingsList.size() < size) {
+            return ResponseEntity.ok(bookingsList);
+        }
+        BookingResponseDto lastBooking = bookingsList.get(bookingsList.size() - 1);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, BookingCursor.of(lastBooking).encode())
+                .body(bookingsList);
+    }
+
+    private void writeLine(OutputStream outputStream, BookingResponseDto booking) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(booking));
+            outputStream.write('\n');
+        } catch (IOException exc) {
+            throw new UncheckedIOException(exc);
+        }
     }
 }
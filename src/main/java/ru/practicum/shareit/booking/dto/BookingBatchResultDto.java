@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+
+// результат обработки одного бронирования из пакетного запроса: созданное бронирование или текст ошибки
+@Getter
+public class BookingBatchResultDto {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+
+    private final int index; // позиция бронирования в теле запроса
+    private final String result;
+    private final BookingResponseDto booking;
+    private final String error;
+
+    private BookingBatchResultDto(int indexArg, String resultArg, BookingResponseDto bookingArg, String errorArg) {
+        index = indexArg;
+        result = resultArg;
+        booking = bookingArg;
+        error = errorArg;
+    }
+
+    public static BookingBatchResultDto created(int index, BookingResponseDto booking) {
+        return new BookingBatchResultDto(index, CREATED, booking, null);
+    }
+
+    public static BookingBatchResultDto failed(int index, String error) {
+        return new BookingBatchResultDto(index, FAILED, null, error);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingBatchResultDto{" + "index=" + index + ", result='" + result + '\'' + ", booking=" + booking +
+                ", error='" + error + '\'' + "}";
+    }
+}
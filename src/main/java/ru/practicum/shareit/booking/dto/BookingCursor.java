@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Непрозрачный курсор для постраничного вывода бронирований: позиция последнего отданного бронирования
+// в порядке сортировки (startBookingDate DESC, id DESC)
+@Getter
+public class BookingCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime startBookingDate;
+    private final int id;
+
+    public BookingCursor(LocalDateTime startBookingDateArg, int idArg) {
+        startBookingDate = startBookingDateArg;
+        id = idArg;
+    }
+
+    public static BookingCursor of(BookingResponseDto booking) {
+        return new BookingCursor(booking.getStartBookingDate(), booking.getId());
+    }
+
+    public static BookingCursor decode(String cursor) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = text.lastIndexOf(SEPARATOR);
+            LocalDateTime startBookingDate = LocalDateTime.parse(text.substring(0, separatorIndex));
+            int id = Integer.parseInt(text.substring(separatorIndex + 1));
+            return new BookingCursor(startBookingDate, id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException exc) {
+            String message = String.format("Некорректное значение курсора: %s", cursor);
+            throw new InvalidCursorException(message);
+        }
+    }
+
+    public String encode() {
+        String text = startBookingDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String toString() {
+        return "BookingCursor{" + "startBookingDate=" + startBookingDate + ", id=" + id + "}";
+    }
+}
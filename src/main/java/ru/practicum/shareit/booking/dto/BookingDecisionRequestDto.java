@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+// решение владельца сразу по нескольким бронированиям его вещей
+@Getter
+@Setter
+public class BookingDecisionRequestDto {
+    public static final int MAX_BOOKINGS = 500;
+
+    @NotEmpty(message = "Список идентификаторов бронирований не может быть пустым!")
+    @Size(max = MAX_BOOKINGS, message = "За один запрос можно обработать не более {max} бронирований!")
+    private List<@NotNull Integer> bookingIds;
+
+    @NotNull(message = "Поле с решением владельца должно присутствовать!")
+    private Boolean approved;
+
+    public BookingDecisionRequestDto(List<Integer> bookingIdsArg, Boolean approvedArg) {
+        bookingIds = bookingIdsArg;
+        approved = approvedArg;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingDecisionRequestDto{" + "bookingIds=" + bookingIds + ", approved=" + approved + "}" + '\n';
+    }
+}
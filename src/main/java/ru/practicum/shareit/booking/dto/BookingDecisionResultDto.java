@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+
+// результат решения владельца по одному бронированию из пакетного запроса
+@Getter
+public class BookingDecisionResultDto {
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String NOT_OWNER = "NOT_OWNER";
+    public static final String NOT_WAITING = "NOT_WAITING"; // решение по бронированию уже принято
+
+    private final int bookingId;
+    private final String result;
+    private final String status; // статус бронирования после обработки запроса, null - бронирование не найдено
+
+    public BookingDecisionResultDto(int bookingIdArg, String resultArg, String statusArg) {
+        bookingId = bookingIdArg;
+        result = resultArg;
+        status = statusArg;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingDecisionResultDto{" + "bookingId=" + bookingId + ", result='" + result + '\'' +
+                ", status='" + status + '\'' + "}";
+    }
+}
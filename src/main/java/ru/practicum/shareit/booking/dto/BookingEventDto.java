@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+
+// событие бронирования для подписчиков GET /bookings/stream: его получают арендатор и владелец вещи
+@Getter
+public class BookingEventDto {
+    public static final String CREATED = "CREATED"; // создано новое бронирование
+    public static final String STATUS_CHANGED = "STATUS_CHANGED"; // владелец подтвердил или отклонил бронирование
+
+    private final String type;
+    private final int bookingId;
+    private final int itemId;
+    private final int bookerId;
+    private final int ownerId;
+    private final String status; // статус бронирования после события
+
+    public BookingEventDto(String typeArg, int bookingIdArg, int itemIdArg, int bookerIdArg, int ownerIdArg,
+                           String statusArg) {
+        type = typeArg;
+        bookingId = bookingIdArg;
+        itemId = itemIdArg;
+        bookerId = bookerIdArg;
+        ownerId = ownerIdArg;
+        status = statusArg;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingEventDto{" + "type='" + type + '\'' + ", bookingId=" + bookingId + ", itemId=" + itemId +
+                ", bookerId=" + bookerId + ", ownerId=" + ownerId + ", status='" + status + '\'' + "}";
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Getter;
+import ru.practicum.shareit.booking.hold.BookingHold;
+
+import java.time.LocalDateTime;
+
+// удержание периода вещи: подтверждается запросом POST /bookings/holds/{id}/confirm до наступления expiresAt
+@Getter
+public class BookingHoldDto {
+    private final long id;
+    private final int itemId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final LocalDateTime expiresAt;
+
+    public BookingHoldDto(long idArg, int itemIdArg, LocalDateTime startArg, LocalDateTime endArg,
+                          LocalDateTime expiresAtArg) {
+        id = idArg;
+        itemId = itemIdArg;
+        start = startArg;
+        end = endArg;
+        expiresAt = expiresAtArg;
+    }
+
+    public static BookingHoldDto of(BookingHold hold) {
+        return new BookingHoldDto(hold.getId(), hold.getItemId(), hold.getStart(), hold.getEnd(),
+                hold.getExpiresAt());
+    }
+
+    @Override
+    public String toString() {
+        return "BookingHoldDto{" + "id=" + id + ", itemId=" + itemId + ", start=" + start + ", end=" + end +
+                ", expiresAt=" + expiresAt + "}";
+    }
+}
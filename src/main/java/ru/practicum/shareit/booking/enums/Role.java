@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.enums;
+
+import ru.practicum.shareit.exception.UnknownStateException;
+
+public enum Role {
+    BOOKER, // бронирования, созданные пользователем
+    OWNER; // бронирования вещей, принадлежащих пользователю
+
+    public static Role convertToEnum(String role) {
+        String text = role.toUpperCase();
+        try {
+            return Role.valueOf(text);
+        } catch (IllegalArgumentException exc) {
+            String message = String.format("Unknown role: %s", text);
+            throw new UnknownStateException(message);
+        }
+    }
+}
@@ -8,7 +8,8 @@ public enum State {
     FUTURE,
     PAST,
     REJECTED,
-    WAITING;
+    WAITING,
+    EXPIRED;
 
     public static State convertToEnum(String state) {
         String text = state.toUpperCase();
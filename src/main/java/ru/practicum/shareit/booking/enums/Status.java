@@ -4,5 +4,6 @@ public enum Status {
     WAITING, // ожидание одобрения нового бронирования
     APPROVED, // бронирование подтверждено владельцем вещи
     REJECTED, // бронирование отклонено владельцем вещи
-    CANCELED // бронирование отменено создателем
+    CANCELED, // бронирование отменено создателем
+    EXPIRED // владелец не принял решение до начала бронирования (BookingExpirySweeper)
 }
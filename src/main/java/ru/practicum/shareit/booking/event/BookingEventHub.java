@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+// Рассылка событий бронирований подписчикам GET /bookings/stream вместо периодического опроса списков.
+// Событие получают все соединения арендатора и владельца вещи. Публикация не блокирует поток запроса: событие
+// кладется в ограниченную очередь соединения, а отправляет его пул фиксированного размера (delivery-threads).
+// Соединение с переполненной очередью или с отправкой дольше send-timeout-ms отключается сразу и больше не получает
+// событий - клиент переподключается и перечитывает список бронирований
+@Component
+public class BookingEventHub {
+    private static final Logger log = LoggerFactory.getLogger(BookingEventHub.class);
+
+    private final long timeoutMs;
+    private final int queueCapacity;
+    private final long sendTimeoutMs;
+    private final ExecutorService deliveryExecutor;
+    private final ScheduledExecutorService sendWatchdog = Executors.newSingleThreadScheduledExecutor();
+    private final ConcurrentMap<Integer, Set<BookingSubscriber>> subscribersByUserId = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingEventHub(@Value("${shareit.booking-stream.timeout-ms:1800000}") long timeoutMsArg,
+                           @Value("${shareit.booking-stream.queue-capacity:256}") int queueCapacityArg,
+                           @Value("${shareit.booking-stream.send-timeout-ms:10000}") long sendTimeoutMsArg,
+                           @Value("${shareit.booking-stream.delivery-threads:8}") int deliveryThreads) {
+        timeoutMs = timeoutMsArg;
+        queueCapacity = queueCapacityArg;
+        sendTimeoutMs = sendTimeoutMsArg;
+        deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads);
+    }
+
+    public SseEmitter subscribe(int userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(userId, emitter);
+        return emitter;
+    }
+
+    // подписывает уже созданное соединение; соединение отписывается само при завершении, таймауте или ошибке
+    public void register(int userId, SseEmitter emitter) {
+        BookingSubscriber subscriber = new BookingSubscriber(emitter, queueCapacity, deliveryExecutor, sendWatchdog,
+                sendTimeoutMs, stalled -> {
+                    log.warn("Подписчик пользователя с id={} не принял событие за {} мс и отключен", userId,
+                            sendTimeoutMs);
+                    unregister(userId, stalled);
+                });
+        subscribersByUserId.compute(userId, (id, subscribers) -> {
+            Set<BookingSubscriber> result = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        emitter.onCompletion(() -> unregister(userId, subscriber));
+        emitter.onTimeout(() -> unregister(userId, subscriber));
+        emitter.onError(error -> unregister(userId, subscriber));
+    }
+
+    public void publish(BookingEventDto event) {
+        Set<Integer> recipientIds = new LinkedHashSet<>();
+        recipientIds.add(event.getBookerId());
+        recipientIds.add(event.getOwnerId());
+        for (Integer userId : recipientIds) {
+            Set<BookingSubscriber> subscribers = subscribersByUserId.get(userId);
+            if (subscribers == null) {
+                continue;
+            }
+            for (BookingSubscriber subscriber : subscribers) {
+                if (!subscriber.offer(event)) {
+                    log.warn("Подписчик пользователя с id={} не успевает получать события и отключен", userId);
+                    unregister(userId, subscriber);
+                    subscriber.close();
+                }
+            }
+        }
+    }
+
+    public int countSubscribers(int userId) {
+        Set<BookingSubscriber> subscribers = subscribersByUserId.get(userId);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendWatchdog.shutdownNow();
+        deliveryExecutor.shutdownNow();
+    }
+
+    private void unregister(int userId, BookingSubscriber subscriber) {
+        subscribersByUserId.computeIfPresent(userId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+}
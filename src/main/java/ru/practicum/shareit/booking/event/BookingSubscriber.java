@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking.event;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Одно SSE-соединение: события ждут отправки в ограниченной очереди, а отправляет их не более одной задачи пула
+// одновременно, поэтому порядок событий сохраняется и медленный клиент занимает не больше одного потока.
+// Отправка события ограничена по времени: emitter.send - блокирующая запись в сокет без своего таймаута.
+// Завершает соединение только задача отправки: complete ждет монитор emitter, который держит зависшая запись,
+// поэтому ни поток публикации, ни сторож, ни другие потоки пула не ждут клиента
+class BookingSubscriber {
+    private final SseEmitter emitter;
+    private final BlockingQueue<BookingEventDto> queue;
+    private final Executor deliveryExecutor;
+    private final ScheduledExecutorService sendWatchdog;
+    private final long sendTimeoutMs;
+    private final Consumer<BookingSubscriber> stalledHandler;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean closed;
+    private volatile Exception closeCause; // null - соединение закрыто без ошибки
+
+    BookingSubscriber(SseEmitter emitterArg, int queueCapacity, Executor deliveryExecutorArg,
+                      ScheduledExecutorService sendWatchdogArg, long sendTimeoutMsArg,
+                      Consumer<BookingSubscriber> stalledHandlerArg) {
+        emitter = emitterArg;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        deliveryExecutor = deliveryExecutorArg;
+        sendWatchdog = sendWatchdogArg;
+        sendTimeoutMs = sendTimeoutMsArg;
+        stalledHandler = stalledHandlerArg;
+    }
+
+    // возвращает false, если очередь переполнена: клиент не успевает читать события
+    boolean offer(BookingEventDto event) {
+        if (closed) {
+            return true;
+        }
+        if (!queue.offer(event)) {
+            return false;
+        }
+        scheduleDelivery();
+        return true;
+    }
+
+    // соединение завершит задача отправки: текущая, когда вернется ее запись, или новая, если отправки нет
+    void close() {
+        closed = true;
+        queue.clear();
+        scheduleDelivery();
+    }
+
+    private void scheduleDelivery() {
+        if (draining.compareAndSet(false, true)) {
+            deliveryExecutor.execute(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        try {
+            BookingEventDto event = queue.poll();
+            while (!closed && event != null) {
+                send(event);
+                event = queue.poll();
+            }
+        } catch (IOException | IllegalStateException exc) { // клиент отключился или соединение уже завершено
+            if (!closed) {
+                closeCause = exc;
+                closed = true;
+            }
+            queue.clear();
+        } finally {
+            draining.set(false);
+        }
+        // closed проверяется после сброса draining: если соединение закрыли раньше, его завершит эта задача,
+        // если позже - задача, запущенная из close
+        if (closed) {
+            complete();
+        } else if (!queue.isEmpty()) { // событие добавили, пока задача завершалась
+            scheduleDelivery();
+        }
+    }
+
+    private void send(BookingEventDto event) throws IOException {
+        ScheduledFuture<?> deadline = sendWatchdog.schedule(this::abortStalledSend, sendTimeoutMs,
+                TimeUnit.MILLISECONDS);
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(event.getType())
+                    .data(event, MediaType.APPLICATION_JSON));
+        } finally {
+            deadline.cancel(false);
+        }
+    }
+
+    // клиент не принимает данные: подписчик отключается сразу, а соединение завершится, как только запись вернется
+    private void abortStalledSend() {
+        if (closed) {
+            return;
+        }
+        closeCause = new IOException("Событие не отправлено за " + sendTimeoutMs + " мс");
+        closed = true;
+        queue.clear();
+        stalledHandler.accept(this);
+    }
+
+    private void complete() {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        Exception cause = closeCause;
+        if (cause == null) {
+            emitter.complete();
+        } else {
+            emitter.completeWithError(cause);
+        }
+    }
+}
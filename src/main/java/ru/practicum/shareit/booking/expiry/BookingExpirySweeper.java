@@ -0,0 +1,143 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingStatusView;
+import ru.practicum.shareit.booking.timeline.BookingTimelines;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ru.practicum.shareit.util.Page.getPage;
+
+// Плановый перевод ожидающих подтверждения бронирований, которые уже начались, в статус EXPIRED: без него они
+// навсегда остаются в списках WAITING владельцев и занимают период вещи. Бронирования выбираются по индексу
+// (booking_status, start_booking_date) и обновляются пачками условным UPDATE, каждая пачка - отдельная короткая
+// транзакция. Очистка занимает не больше одного соединения, а время работы за запуск ограничено так, чтобы
+// доля времени соединений пула, отданная очистке, не превышала max-pool-share
+@Component
+public class BookingExpirySweeper {
+    public static final String LAG_METRIC = "bookings.expiry.lag";
+    public static final String EXPIRED_METRIC = "bookings.expired";
+    private static final Logger log = LoggerFactory.getLogger(BookingExpirySweeper.class);
+
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingSummaries itemBookingSummaries;
+    private final BookingEventHub bookingEventHub;
+    private final BookingTimelines bookingTimelines;
+    private final int chunkSize;
+    private final long budgetMs; // время работы за один запуск
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter expiredCounter;
+
+    @Autowired
+    public BookingExpirySweeper(BookingRepository bookingRepositoryArg,
+                                BookingIntervalIndex bookingIntervalIndexArg,
+                                ItemBookingSummaries itemBookingSummariesArg,
+                                BookingEventHub bookingEventHubArg,
+                                BookingTimelines bookingTimelinesArg,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit.booking-expiry.chunk-size:500}") int chunkSizeArg,
+                                @Value("${shareit.booking-expiry.delay-ms:10000}") long delayMs,
+                                @Value("${shareit.booking-expiry.max-pool-share:0.1}") double maxPoolShare,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        bookingRepository = bookingRepositoryArg;
+        bookingIntervalIndex = bookingIntervalIndexArg;
+        itemBookingSummaries = itemBookingSummariesArg;
+        bookingEventHub = bookingEventHubArg;
+        bookingTimelines = bookingTimelinesArg;
+        chunkSize = chunkSizeArg;
+        // одно соединение - это 1/poolSize пула: если разрешенная доля меньше, соединение занято только часть
+        // времени между запусками - работа budgetMs, затем пауза delayMs
+        double dutyCycle = Math.min(maxPoolShare * poolSize, 1.0);
+        budgetMs = dutyCycle >= 1.0 ? Long.MAX_VALUE : (long) (delayMs * dutyCycle / (1 - dutyCycle));
+        Gauge.builder(LAG_METRIC, lagSeconds, AtomicLong::get)
+                .description("Возраст самого старого начавшегося бронирования в статусе WAITING")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        expiredCounter = Counter.builder(EXPIRED_METRIC)
+                .description("Бронирования, переведенные очисткой в статус EXPIRED")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-expiry.delay-ms:10000}",
+            initialDelayString = "${shareit.booking-expiry.delay-ms:10000}")
+    public void sweep() {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        while (true) {
+            List<BookingStatusView> stale = bookingRepository.findStaleWaitingBookings(now, getPage(0, chunkSize));
+            if (stale.isEmpty()) {
+                break;
+            }
+            expired += expire(stale, now);
+            // бюджет запуска исчерпан: оставшиеся пачки обработает следующий запуск
+            if (stale.size() < chunkSize || System.currentTimeMillis() - startedAt >= budgetMs) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            log.info("Просрочено {} бронирований, ожидавших подтверждения", expired);
+        }
+        updateLag(LocalDateTime.now());
+    }
+
+    public long getLagSeconds() {
+        return lagSeconds.get();
+    }
+
+    private int expire(List<BookingStatusView> stale, LocalDateTime now) {
+        List<Integer> bookingIds = new ArrayList<>();
+        for (BookingStatusView view : stale) {
+            bookingIds.add(view.getId());
+        }
+        int updatedRows = bookingRepository.expireWaitingBookings(bookingIds, now);
+        List<BookingStatusView> expired = stale;
+        if (updatedRows < bookingIds.size()) { // по части бронирований владелец успел принять решение
+            expired = new ArrayList<>();
+            for (BookingStatusView view : bookingRepository.findBookingStatuses(bookingIds)) {
+                if (view.getStatus() == Status.EXPIRED) {
+                    expired.add(view);
+                }
+            }
+        }
+
+        Set<Integer> itemIds = new HashSet<>();
+        for (BookingStatusView view : expired) {
+            bookingIntervalIndex.release(view.getItemId(), view.getId());
+            itemIds.add(view.getItemId());
+            bookingTimelines.updateStatus(view.getId(), view.getBookerId(), view.getOwnerId(), Status.EXPIRED);
+            bookingEventHub.publish(new BookingEventDto(BookingEventDto.STATUS_CHANGED, view.getId(),
+                    view.getItemId(), view.getBookerId(), view.getOwnerId(), Status.EXPIRED.toString()));
+        }
+        itemBookingSummaries.refresh(itemIds);
+        expiredCounter.increment(expired.size());
+        return expired.size();
+    }
+
+    private void updateLag(LocalDateTime now) {
+        Optional<LocalDateTime> oldestStart = bookingRepository.findOldestStaleWaitingStart(now);
+        lagSeconds.set(oldestStart.map(start -> Duration.between(start, now).getSeconds()).orElse(0L));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.hold;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// удержание периода вещи пользователем: период занят до подтверждения, отмены или истечения срока удержания
+@Getter
+public class BookingHold {
+    private final long id;
+    private final int itemId;
+    private final int userId;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final LocalDateTime expiresAt;
+
+    public BookingHold(long idArg, int itemIdArg, int userIdArg, LocalDateTime startArg, LocalDateTime endArg,
+                       LocalDateTime expiresAtArg) {
+        id = idArg;
+        itemId = itemIdArg;
+        userId = userIdArg;
+        start = startArg;
+        end = endArg;
+        expiresAt = expiresAtArg;
+    }
+
+    @Override
+    public String toString() {
+        return "BookingHold{" + "id=" + id + ", itemId=" + itemId + ", userId=" + userId + ", start=" + start +
+                ", end=" + end + ", expiresAt=" + expiresAt + "}";
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking.hold;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.util.HierarchicalTimingWheel;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Действующие удержания периодов вещей. Удержание занимает период в BookingIntervalIndex и хранится только
+// в памяти; сроки удержаний отслеживает одно колесо таймеров, которое продвигает плановая задача, поэтому
+// удержание не требует ни отдельной задачи, ни записи в БД. Подтвержденное или отмененное удержание
+// удаляется из реестра сразу, а его таймер просто ничего не находит, когда срабатывает
+@Component
+public class BookingHolds {
+    private static final Logger log = LoggerFactory.getLogger(BookingHolds.class);
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4; // при такте 100 мс колесо охватывает больше полугода
+
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final long ttlSeconds;
+    private final HierarchicalTimingWheel<Long> expirations;
+    private final ConcurrentMap<Long, BookingHold> holdsById = new ConcurrentHashMap<>();
+    private final AtomicLong lastHoldId = new AtomicLong();
+
+    @Autowired
+    public BookingHolds(BookingIntervalIndex bookingIntervalIndexArg,
+                        @Value("${shareit.booking-holds.ttl-seconds:300}") long ttlSecondsArg,
+                        @Value("${shareit.booking-holds.tick-ms:100}") long tickMsArg) {
+        bookingIntervalIndex = bookingIntervalIndexArg;
+        ttlSeconds = ttlSecondsArg;
+        expirations = new HierarchicalTimingWheel<>(tickMsArg, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    // занимает период [start, end) вещи на ttlSeconds; если период занят, бросает BookingOverlapException
+    public BookingHold hold(int userId, int itemId, LocalDateTime start, LocalDateTime end) {
+        long holdId = lastHoldId.incrementAndGet();
+        long expiresAtMs = System.currentTimeMillis() + ttlSeconds * 1000;
+        BookingHold hold = new BookingHold(holdId, itemId, userId, start, end,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMs), ZoneId.systemDefault()));
+        bookingIntervalIndex.hold(itemId, holdId, start, end);
+        holdsById.put(holdId, hold);
+        expirations.add(expiresAtMs, holdId);
+        return hold;
+    }
+
+    // снимает действующее удержание пользователя и возвращает его; удержание другого пользователя не снимается
+    public Optional<BookingHold> take(int userId, long holdId) {
+        BookingHold hold = holdsById.get(holdId);
+        if (hold == null || hold.getUserId() != userId || !holdsById.remove(holdId, hold)) {
+            return Optional.empty();
+        }
+        // срок мог истечь между тактами колеса: такое удержание уже недействительно
+        if (hold.getExpiresAt().isBefore(LocalDateTime.now())) {
+            bookingIntervalIndex.releaseHold(hold.getItemId(), holdId);
+            return Optional.empty();
+        }
+        return Optional.of(hold);
+    }
+
+    // отменяет удержание пользователя и освобождает период; возвращает false, если удержания уже нет
+    public boolean release(int userId, long holdId) {
+        Optional<BookingHold> hold = take(userId, holdId);
+        hold.ifPresent(h -> bookingIntervalIndex.releaseHold(h.getItemId(), holdId));
+        return hold.isPresent();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-holds.tick-ms:100}")
+    public void expireHolds() {
+        expireHolds(System.currentTimeMillis());
+    }
+
+    // снимает удержания, срок которых наступил к моменту nowMs
+    public void expireHolds(long nowMs) {
+        List<Long> expiredIds = expirations.advance(nowMs);
+        int released = 0;
+        for (Long holdId : expiredIds) {
+            BookingHold hold = holdsById.remove(holdId);
+            if (hold != null) { // подтвержденные и отмененные удержания уже удалены из реестра
+                bookingIntervalIndex.releaseHold(hold.getItemId(), holdId);
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.debug("Истек срок {} удержаний периодов", released);
+        }
+    }
+
+    public int size() {
+        return holdsById.size();
+    }
+}
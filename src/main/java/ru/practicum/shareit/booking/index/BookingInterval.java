@@ -0,0 +1,38 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class BookingInterval {
+    // удержание периода (BookingHolds) еще не стало бронированием: идентификаторы бронирований начинаются с 1
+    public static final int HOLD_BOOKING_ID = 0;
+
+    private final int bookingId;
+    private final LocalDateTime start; // начало бронирования (включительно)
+    private final LocalDateTime end; // окончание бронирования (не включительно)
+
+    public BookingInterval(int bookingIdArg, LocalDateTime startArg, LocalDateTime endArg) {
+        bookingId = bookingIdArg;
+        start = startArg;
+        end = endArg;
+    }
+
+    public static BookingInterval hold(LocalDateTime start, LocalDateTime end) {
+        return new BookingInterval(HOLD_BOOKING_ID, start, end);
+    }
+
+    public boolean isHold() {
+        return bookingId == HOLD_BOOKING_ID;
+    }
+
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+
+    @Override
+    public String toString() {
+        return "BookingInterval{" + "bookingId=" + bookingId + ", start=" + start + ", end=" + end + "}";
+    }
+}
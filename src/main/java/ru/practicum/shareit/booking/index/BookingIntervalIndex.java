@@ -0,0 +1,250 @@
+package ru.practicum.shareit.booking.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.BookingOverlapException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+// Индекс занятых интервалов вещей в памяти: для каждой вещи хранятся бронирования в статусах WAITING и APPROVED
+// и действующие удержания периодов (удержания живут только в памяти и в БД не попадают).
+// Данные вещи загружаются из БД при первом обращении и далее поддерживаются при записи бронирований.
+// Бронирования одной вещи создаются последовательно под блокировкой вещи, разные вещи друг друга не блокируют
+@Component
+public class BookingIntervalIndex {
+    private static final List<Status> BLOCKING_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Integer, ItemIntervals> intervalsByItemId = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingRepositoryArg) {
+        bookingRepository = bookingRepositoryArg;
+    }
+
+    // проверяет, что период свободен, и сохраняет бронирование атомарно относительно других бронирований вещи
+    public Booking reserve(Booking booking, UnaryOperator<Booking> saveAction) {
+        int itemId = booking.getItem().getId();
+        LocalDateTime start = booking.getStartBookingDate();
+        LocalDateTime end = booking.getEndBookingDate();
+        ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+
+        synchronized (intervals) {
+            loadIfNecessary(itemId, intervals);
+            checkFree(itemId, intervals, start, end);
+            Booking savedBooking = saveAction.apply(booking);
+            intervals.add(new BookingInterval(savedBooking.getId(), start, end));
+            return savedBooking;
+        }
+    }
+
+    // занимает свободный период вещи удержанием holdId, не создавая бронирования
+    public void hold(int itemId, long holdId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+        synchronized (intervals) {
+            loadIfNecessary(itemId, intervals);
+            checkFree(itemId, intervals, start, end);
+            intervals.addHold(holdId, BookingInterval.hold(start, end));
+        }
+    }
+
+    // освобождает период удержания, срок которого истек или которое отменено пользователем
+    public void releaseHold(int itemId, long holdId) {
+        ItemIntervals intervals = intervalsByItemId.get(itemId);
+        if (intervals == null) {
+            return;
+        }
+        synchronized (intervals) {
+            intervals.removeHold(holdId);
+        }
+    }
+
+    // заменяет удержание holdId сохраненным бронированием того же периода: между снятием удержания и записью
+    // бронирования период не может занять никто другой
+    public Booking confirmHold(long holdId, Booking booking, UnaryOperator<Booking> saveAction) {
+        int itemId = booking.getItem().getId();
+        LocalDateTime start = booking.getStartBookingDate();
+        LocalDateTime end = booking.getEndBookingDate();
+        ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+
+        synchronized (intervals) {
+            loadIfNecessary(itemId, intervals);
+            intervals.removeHold(holdId); // удержание снимается, даже если бронирование не удастся сохранить
+            checkFree(itemId, intervals, start, end); // период мог быть занят до удержания, если индекс сброшен
+            Booking savedBooking = saveAction.apply(booking);
+            intervals.add(new BookingInterval(savedBooking.getId(), start, end));
+            return savedBooking;
+        }
+    }
+
+    // проверяет периоды пачки бронирований и сохраняет одним вызовом saveAllAction те из них, что не пересекаются
+    // ни с сохраненными бронированиями, ни с предыдущими бронированиями пачки. Возвращает список той же длины,
+    // что и bookings: сохраненное бронирование или null, если период занят. Вещи пачки блокируются в порядке
+    // возрастания id, поэтому пачки с общими вещами не могут заблокировать друг друга
+    public List<Booking> reserveAll(List<Booking> bookings, UnaryOperator<List<Booking>> saveAllAction) {
+        Map<Integer, ItemIntervals> intervalsOfBatch = new TreeMap<>();
+        for (Booking booking : bookings) {
+            int itemId = booking.getItem().getId();
+            intervalsOfBatch.put(itemId, intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals()));
+        }
+        List<ItemIntervals> lockOrder = new ArrayList<>(intervalsOfBatch.values());
+        return withLocks(lockOrder, 0, () -> reserveAllLocked(bookings, saveAllAction, intervalsOfBatch));
+    }
+
+    // освобождает период бронирования, например, после его отклонения владельцем вещи
+    public void release(int itemId, int bookingId) {
+        ItemIntervals intervals = intervalsByItemId.get(itemId);
+        if (intervals == null) { // данные вещи еще не загружены, отклоненное бронирование в индекс не попадет
+            return;
+        }
+        synchronized (intervals) {
+            intervals.remove(bookingId);
+        }
+    }
+
+    // занятые интервалы вещи в периоде [from, to) по возрастанию даты начала; отвечает из памяти,
+    // к БД обращается только при первом обращении к вещи
+    public List<BookingInterval> findOccupied(int itemId, LocalDateTime from, LocalDateTime to) {
+        ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+        synchronized (intervals) {
+            loadIfNecessary(itemId, intervals);
+            return intervals.between(from, to);
+        }
+    }
+
+    // вещи из itemIds, свободные весь период [start, end), в исходном порядке. Еще не загруженные вещи
+    // загружаются одним запросом на всю пачку, а не отдельным запросом на каждую вещь
+    public List<Integer> filterFree(List<Integer> itemIds, LocalDateTime start, LocalDateTime end) {
+        loadAllIfNecessary(itemIds);
+        List<Integer> result = new ArrayList<>();
+        for (Integer itemId : itemIds) {
+            ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+            synchronized (intervals) {
+                loadIfNecessary(itemId, intervals);
+                if (!intervals.overlaps(start, end)) {
+                    result.add(itemId);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void checkFree(int itemId, ItemIntervals intervals, LocalDateTime start, LocalDateTime end) {
+        if (intervals.overlaps(start, end)) {
+            String message = String.format("Вещь с id=%d уже забронирована на период с %s по %s!",
+                    itemId, start, end);
+            throw new BookingOverlapException(message);
+        }
+    }
+
+    private <T> T withLocks(List<ItemIntervals> lockOrder, int from, Supplier<T> action) {
+        if (from == lockOrder.size()) {
+            return action.get();
+        }
+        synchronized (lockOrder.get(from)) {
+            return withLocks(lockOrder, from + 1, action);
+        }
+    }
+
+    private List<Booking> reserveAllLocked(List<Booking> bookings, UnaryOperator<List<Booking>> saveAllAction,
+                                           Map<Integer, ItemIntervals> intervalsOfBatch) {
+        List<Booking> accepted = new ArrayList<>();
+        List<Integer> acceptedPositions = new ArrayList<>();
+        // принятые бронирования занимают период под временными отрицательными id, пока не станут известны настоящие
+        List<BookingInterval> tentative = new ArrayList<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            Booking booking = bookings.get(i);
+            int itemId = booking.getItem().getId();
+            ItemIntervals intervals = intervalsOfBatch.get(itemId);
+            loadIfNecessary(itemId, intervals);
+            if (intervals.overlaps(booking.getStartBookingDate(), booking.getEndBookingDate())) {
+                continue;
+            }
+            BookingInterval interval = new BookingInterval(-(i + 1), booking.getStartBookingDate(),
+                    booking.getEndBookingDate());
+            intervals.add(interval);
+            tentative.add(interval);
+            accepted.add(booking);
+            acceptedPositions.add(i);
+        }
+
+        List<Booking> savedBookings;
+        try {
+            savedBookings = accepted.isEmpty() ? accepted : saveAllAction.apply(accepted);
+        } finally {
+            for (int i = 0; i < tentative.size(); i++) {
+                intervalsOfBatch.get(accepted.get(i).getItem().getId()).remove(tentative.get(i).getBookingId());
+            }
+        }
+
+        List<Booking> result = new ArrayList<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            result.add(null);
+        }
+        for (int i = 0; i < savedBookings.size(); i++) {
+            Booking savedBooking = savedBookings.get(i);
+            intervalsOfBatch.get(savedBooking.getItem().getId()).add(new BookingInterval(savedBooking.getId(),
+                    savedBooking.getStartBookingDate(), savedBooking.getEndBookingDate()));
+            result.set(acceptedPositions.get(i), savedBooking);
+        }
+        return result;
+    }
+
+    // вещи блокируются в порядке возрастания id, как в reserveAll, и загружаются одним запросом
+    private void loadAllIfNecessary(List<Integer> itemIds) {
+        Map<Integer, ItemIntervals> notLoaded = new TreeMap<>();
+        for (Integer itemId : itemIds) {
+            ItemIntervals intervals = intervalsByItemId.computeIfAbsent(itemId, id -> new ItemIntervals());
+            if (!intervals.isLoaded()) {
+                notLoaded.put(itemId, intervals);
+            }
+        }
+        if (notLoaded.isEmpty()) {
+            return;
+        }
+        List<ItemIntervals> lockOrder = new ArrayList<>(notLoaded.values());
+        withLocks(lockOrder, 0, () -> {
+            loadAllLocked(notLoaded);
+            return null;
+        });
+    }
+
+    private void loadAllLocked(Map<Integer, ItemIntervals> notLoaded) {
+        notLoaded.values().removeIf(ItemIntervals::isLoaded); // вещь могли загрузить, пока ждали блокировки
+        if (notLoaded.isEmpty()) {
+            return;
+        }
+        List<Integer> itemIds = new ArrayList<>(notLoaded.keySet());
+        List<Booking> bookings = bookingRepository.findBookingsByItemIdInAndStatusIn(itemIds, BLOCKING_STATUSES);
+        for (Booking booking : bookings) {
+            notLoaded.get(booking.getItem().getId()).add(new BookingInterval(booking.getId(),
+                    booking.getStartBookingDate(), booking.getEndBookingDate()));
+        }
+        for (ItemIntervals intervals : notLoaded.values()) {
+            intervals.markLoaded();
+        }
+    }
+
+    private void loadIfNecessary(int itemId, ItemIntervals intervals) {
+        if (intervals.isLoaded()) {
+            return;
+        }
+        List<Booking> bookings = bookingRepository.findBookingsByItemIdAndStatusIn(itemId, BLOCKING_STATUSES);
+        for (Booking booking : bookings) {
+            intervals.add(new BookingInterval(booking.getId(), booking.getStartBookingDate(),
+                    booking.getEndBookingDate()));
+        }
+        intervals.markLoaded();
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.booking.index;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Интервалы бронирований одной вещи, отсортированные по дате начала. Новые интервалы с уже сохраненными не
+// пересекаются, но бронирования, созданные до появления индекса, могут пересекаться между собой, поэтому соседа
+// слева недостаточно: интервал, начавшийся раньше, может закончиться позже следующих. Слева просматриваются
+// интервалы, начавшиеся не раньше чем за самую большую длительность интервала вещи, - более ранние закончились
+// до проверяемого периода. Удержания периодов хранятся в том же множестве, что и бронирования, но ищутся
+// по идентификатору удержания.
+// Синхронизация выполняется в BookingIntervalIndex на уровне вещи
+class ItemIntervals {
+    private static final Comparator<BookingInterval> BY_START = Comparator
+            .comparing(BookingInterval::getStart)
+            .thenComparingInt(BookingInterval::getBookingId);
+
+    private final NavigableSet<BookingInterval> intervals = new TreeSet<>(BY_START);
+    private final Map<Integer, BookingInterval> intervalsByBookingId = new HashMap<>();
+    private final Map<Long, BookingInterval> holdsByHoldId = new HashMap<>();
+    private final NavigableMap<Duration, Integer> durationCounts = new TreeMap<>(); // длительность -> число интервалов
+    private boolean loaded;
+
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    void markLoaded() {
+        loaded = true;
+    }
+
+    boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        // интервалы, начавшиеся раньше окончания нового интервала, от ближайшего
+        for (BookingInterval previous : intervals.headSet(probe(end), false).descendingSet()) {
+            if (endsBefore(previous, start)) {
+                return false;
+            }
+            if (previous.overlaps(start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // интервалы, пересекающиеся с периодом [from, to), по возрастанию даты начала: начавшиеся раньше from
+    // ищутся так же, как в overlaps, остальные начинаются внутри периода
+    List<BookingInterval> between(LocalDateTime from, LocalDateTime to) {
+        List<BookingInterval> result = new ArrayList<>();
+        BookingInterval fromProbe = probe(from);
+        for (BookingInterval previous : intervals.headSet(fromProbe, false).descendingSet()) {
+            if (endsBefore(previous, from)) {
+                break;
+            }
+            if (previous.overlaps(from, to)) {
+                result.add(previous);
+            }
+        }
+        Collections.reverse(result);
+        for (BookingInterval interval : intervals.tailSet(fromProbe, true)) {
+            if (!interval.getStart().isBefore(to)) {
+                break;
+            }
+            result.add(interval);
+        }
+        return result;
+    }
+
+    void add(BookingInterval interval) {
+        remove(interval.getBookingId());
+        store(interval);
+        intervalsByBookingId.put(interval.getBookingId(), interval);
+    }
+
+    void remove(int bookingId) {
+        BookingInterval removed = intervalsByBookingId.remove(bookingId);
+        if (removed != null) {
+            discard(removed);
+        }
+    }
+
+    void addHold(long holdId, BookingInterval hold) {
+        removeHold(holdId);
+        store(hold);
+        holdsByHoldId.put(holdId, hold);
+    }
+
+    boolean removeHold(long holdId) {
+        BookingInterval removed = holdsByHoldId.remove(holdId);
+        if (removed == null) {
+            return false;
+        }
+        discard(removed);
+        return true;
+    }
+
+    int size() {
+        return intervals.size();
+    }
+
+    // интервал и все начавшиеся раньше него закончились не позже moment
+    private boolean endsBefore(BookingInterval interval, LocalDateTime moment) {
+        return durationCounts.isEmpty() || !interval.getStart().plus(durationCounts.lastKey()).isAfter(moment);
+    }
+
+    private void store(BookingInterval interval) {
+        intervals.add(interval);
+        durationCounts.merge(duration(interval), 1, Integer::sum);
+    }
+
+    private void discard(BookingInterval interval) {
+        intervals.remove(interval);
+        durationCounts.computeIfPresent(duration(interval), (duration, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static Duration duration(BookingInterval interval) {
+        return Duration.between(interval.getStart(), interval.getEnd());
+    }
+
+    private static BookingInterval probe(LocalDateTime moment) {
+        return new BookingInterval(Integer.MIN_VALUE, moment, moment);
+    }
+}
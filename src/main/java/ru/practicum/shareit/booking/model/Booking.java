@@ -13,9 +13,16 @@ import java.time.LocalDateTime;
 @Setter
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = "Booking.withItemAndBooker", attributeNodes = {
+        @NamedAttributeNode("item"),
+        @NamedAttributeNode("booker")
+})
 public class Booking {
+    // идентификаторы выдаются блоками из последовательности (оптимизатор pooled), а не столбцом IDENTITY:
+    // так id известен до вставки, и Hibernate может отправлять вставки JDBC-пакетами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private int id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +43,10 @@ public class Booking {
     @Enumerated(EnumType.STRING)
     private Status status; // текущий статус бронирования
 
+    @Version
+    @Column(name = "version")
+    private long version; // увеличивается при каждом изменении, устаревшее изменение отклоняется
+
     public Booking() { // конструктор без параметров для работы hibernate
     }
 
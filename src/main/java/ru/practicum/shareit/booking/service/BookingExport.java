@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+
+import java.util.function.Consumer;
+
+// Подготовленная выгрузка бронирований: параметры уже проверены, а бронирования читаются из БД
+// только при вызове forEach и передаются action по одному, не накапливаясь в памяти
+@FunctionalInterface
+public interface BookingExport {
+    void forEach(Consumer<BookingResponseDto> action);
+}
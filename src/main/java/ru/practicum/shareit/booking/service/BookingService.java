@@ -1,5 +1,9 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingCreateRequestDto;
 
@@ -8,11 +12,29 @@ import java.util.List;
 public interface BookingService {
     BookingResponseDto createNewBooking(int userId, BookingCreateRequestDto bookingDto);
 
+    List<BookingBatchResultDto> createBookings(int userId, List<BookingCreateRequestDto> bookingDtoList);
+
+    BookingHoldDto createHold(int userId, BookingCreateRequestDto bookingDto);
+
+    BookingResponseDto confirmHold(int userId, long holdId);
+
+    void releaseHold(int userId, long holdId);
+
     BookingResponseDto approveOrRejectBooking(int userId, int bookingId, boolean approved);
 
+    List<BookingDecisionResultDto> approveOrRejectBookings(int userId, List<Integer> bookingIds, boolean approved);
+
     BookingResponseDto getBooking(int userId, int bookingId);
 
     List<BookingResponseDto> getBookingsForBooker(int userId, String state, int from, int size);
 
     List<BookingResponseDto> getBookingsForItemsOwner(int ownerId, String state, int from, int size);
+
+    List<BookingResponseDto> getBookingsForBookerByCursor(int userId, String state, String cursor, int size);
+
+    List<BookingResponseDto> getBookingsForItemsOwnerByCursor(int ownerId, String state, String cursor, int size);
+
+    BookingExport exportBookings(int userId, String role, String state);
+
+    SseEmitter subscribeToEvents(int userId);
 }
@@ -2,42 +2,82 @@ package ru.practicum.shareit.booking.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.hold.BookingHold;
+import ru.practicum.shareit.booking.hold.BookingHolds;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.timeline.BookingTimelines;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingStatusView;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.BookingCreateRequestDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.enums.Role;
 import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
-import static ru.practicum.shareit.util.Page.getSortedPage;
+import static ru.practicum.shareit.util.Page.getPage;
 
 @Service
 public class BookingServiceImpl implements BookingService {
+    private static final int EXPORT_FETCH_SIZE = 500; // строк выгрузки за одно обращение к курсору БД
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final BookingMapper bookingMapper;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemBookingSummaries itemBookingSummaries;
+    private final BookingEventHub bookingEventHub;
+    private final BookingHolds bookingHolds;
+    private final BookingTimelines bookingTimelines;
+    private final ItemSuggestions itemSuggestions;
+    private final ItemSearchIndex itemSearchIndex;
 
     @Autowired
     public BookingServiceImpl(ItemRepository itemRepositoryArg, UserRepository userRepositoryArg,
-                              BookingRepository bookingRepositoryArg, BookingMapper bookingMapperArg) {
+                              BookingRepository bookingRepositoryArg, BookingMapper bookingMapperArg,
+                              BookingIntervalIndex bookingIntervalIndexArg,
+                              ItemBookingSummaries itemBookingSummariesArg, BookingEventHub bookingEventHubArg,
+                              BookingHolds bookingHoldsArg, BookingTimelines bookingTimelinesArg,
+                              ItemSuggestions itemSuggestionsArg, ItemSearchIndex itemSearchIndexArg) {
         itemRepository = itemRepositoryArg;
         userRepository = userRepositoryArg;
         bookingRepository = bookingRepositoryArg;
         bookingMapper = bookingMapperArg;
+        bookingIntervalIndex = bookingIntervalIndexArg;
+        itemBookingSummaries = itemBookingSummariesArg;
+        bookingEventHub = bookingEventHubArg;
+        bookingHolds = bookingHoldsArg;
+        bookingTimelines = bookingTimelinesArg;
+        itemSuggestions = itemSuggestionsArg;
+        itemSearchIndex = itemSearchIndexArg;
     }
 
     @Override
@@ -47,12 +87,211 @@ public class BookingServiceImpl implements BookingService {
         User savedUser = getUser(userId); // находим бронирующего вещь пользователя в БД
         Booking newBooking = bookingMapper.toBooking(bookingDto, savedItem, savedUser);
 
-        Booking createdBooking = bookingRepository.save(newBooking); // добавляем новую запись в таблицу booking
+        // проверяем, что период не пересекается с другими бронированиями вещи, и добавляем запись в таблицу booking
+        Booking createdBooking = bookingIntervalIndex.reserve(newBooking, bookingRepository::save);
+        // бронирование уже сохранено: ленты и события обновляются до пересчета карточки вещи, чтобы ошибка
+        // пересчета их не пропустила
+        afterWrite(BookingEventDto.CREATED, createdBooking);
+        itemBookingSummaries.refresh(List.of(itemId)); // новое бронирование может стать следующим для вещи
+        return bookingMapper.toBookingResponseDto(createdBooking);
+    }
+
+    @Override
+    public BookingHoldDto createHold(int userId, BookingCreateRequestDto bookingDto) {
+        Item savedItem = getItem(bookingDto.getItemId());
+        User savedUser = getUser(userId);
+        bookingMapper.toBooking(bookingDto, savedItem, savedUser); // те же проверки, что и при бронировании
+        BookingHold hold = bookingHolds.hold(userId, savedItem.getId(), bookingDto.getStart(), bookingDto.getEnd());
+        return BookingHoldDto.of(hold);
+    }
+
+    @Override
+    public BookingResponseDto confirmHold(int userId, long holdId) {
+        BookingHold hold = takeHold(userId, holdId);
+        Booking newBooking;
+        try { // вещь могли изменить или удалить, пока период был удержан
+            Item savedItem = getItem(hold.getItemId());
+            User savedUser = getUser(userId);
+            newBooking = bookingMapper.toBooking(new BookingCreateRequestDto(hold.getItemId(), hold.getStart(),
+                    hold.getEnd()), savedItem, savedUser);
+        } catch (RuntimeException exc) {
+            bookingIntervalIndex.releaseHold(hold.getItemId(), holdId);
+            throw exc;
+        }
+
+        // удержание заменяется бронированием под блокировкой вещи, период не освобождается ни на миг
+        Booking createdBooking = bookingIntervalIndex.confirmHold(holdId, newBooking, bookingRepository::save);
+        afterWrite(BookingEventDto.CREATED, createdBooking);
+        itemBookingSummaries.refresh(List.of(hold.getItemId()));
         return bookingMapper.toBookingResponseDto(createdBooking);
     }
 
+    @Override
+    public void releaseHold(int userId, long holdId) {
+        if (!bookingHolds.release(userId, holdId)) {
+            throw holdNotFound(holdId);
+        }
+    }
+
+    @Override
+    public List<BookingBatchResultDto> createBookings(int userId, List<BookingCreateRequestDto> bookingDtoList) {
+        User savedUser = getUser(userId); // все бронирования пачки создаются от имени одного пользователя
+        // загружаем все вещи пачки одним запросом
+        Set<Integer> itemIds = new HashSet<>();
+        for (BookingCreateRequestDto bookingDto : bookingDtoList) {
+            itemIds.add(bookingDto.getItemId());
+        }
+        Map<Integer, Item> itemsById = new HashMap<>();
+        for (Item item : itemRepository.findAllById(itemIds)) {
+            itemsById.put(item.getId(), item);
+        }
+
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtoList.size()];
+        List<Booking> newBookings = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < bookingDtoList.size(); i++) {
+            BookingCreateRequestDto bookingDto = bookingDtoList.get(i);
+            Item item = itemsById.get(bookingDto.getItemId());
+            if (item == null) {
+                results[i] = BookingBatchResultDto.failed(i,
+                        String.format("Вещь с id=%d не найдена в БД!", bookingDto.getItemId()));
+                continue;
+            }
+            try { // те же проверки дат, доступности и владельца, что и при создании одного бронирования
+                newBookings.add(bookingMapper.toBooking(bookingDto, item, savedUser));
+                positions.add(i);
+            } catch (DateTimeBookingException | ObjectNotAvailableException | BookingException exc) {
+                results[i] = BookingBatchResultDto.failed(i, exc.getMessage());
+            }
+        }
+
+        // бронирования с непересекающимися периодами сохраняются одним пакетом вставок
+        List<Booking> createdBookings = bookingIntervalIndex.reserveAll(newBookings, bookingRepository::saveAll);
+        Set<Integer> bookedItemIds = new HashSet<>();
+        for (int i = 0; i < createdBookings.size(); i++) {
+            int position = positions.get(i);
+            Booking createdBooking = createdBookings.get(i);
+            if (createdBooking == null) {
+                Booking newBooking = newBookings.get(i);
+                results[position] = BookingBatchResultDto.failed(position,
+                        String.format("Вещь с id=%d уже забронирована на период с %s по %s!",
+                                newBooking.getItem().getId(), newBooking.getStartBookingDate(),
+                                newBooking.getEndBookingDate()));
+            } else {
+                bookedItemIds.add(createdBooking.getItem().getId());
+                results[position] = BookingBatchResultDto.created(position,
+                        bookingMapper.toBookingResponseDto(createdBooking));
+            }
+        }
+        for (Booking createdBooking : createdBookings) {
+            if (createdBooking != null) {
+                afterWrite(BookingEventDto.CREATED, createdBooking);
+            }
+        }
+        itemBookingSummaries.refresh(bookedItemIds); // пересчет одним запросом для всех вещей пачки
+        return List.of(results);
+    }
+
     @Override
     public BookingResponseDto approveOrRejectBooking(int userId, int bookingId, boolean approved) {
+        Status newStatus = approved ? Status.APPROVED : Status.REJECTED;
+        // основной случай - решение по ожидающему подтверждения бронированию: статус меняется одной условной
+        // операцией, которая сама проверяет текущий статус и владельца вещи
+        int updatedRows = bookingRepository.updateStatusOfWaitingBookings(List.of(bookingId), userId, newStatus);
+        if (updatedRows == 0) { // бронирование не ожидает подтверждения или не может быть изменено пользователем
+            return changeStatusOfNotWaitingBooking(userId, bookingId, approved);
+        }
+        Booking updatedBooking = getBookingWithItemAndBooker(bookingId);
+        int itemId = updatedBooking.getItem().getId();
+        if (!approved) {
+            bookingIntervalIndex.release(itemId, bookingId); // период освобождается
+        }
+        afterWrite(BookingEventDto.STATUS_CHANGED, updatedBooking);
+        if (!approved) {
+            // ожидающие подтверждения бронирования уже учтены как последнее и следующее, влияет только отклонение
+            itemBookingSummaries.refresh(List.of(itemId));
+        }
+        return bookingMapper.toBookingResponseDto(updatedBooking);
+    }
+
+    @Override
+    public List<BookingDecisionResultDto> approveOrRejectBookings(int userId, List<Integer> bookingIds,
+                                                                  boolean approved) {
+        checkUserExistence(userId);
+        Status newStatus = approved ? Status.APPROVED : Status.REJECTED;
+        Set<Integer> requestedIds = new LinkedHashSet<>(bookingIds); // повторы обрабатываются один раз
+        Map<Integer, BookingStatusView> statusesById = new HashMap<>();
+        for (BookingStatusView view : bookingRepository.findBookingStatuses(requestedIds)) {
+            statusesById.put(view.getId(), view);
+        }
+
+        Map<Integer, BookingDecisionResultDto> resultsById = new HashMap<>();
+        List<Integer> waitingIds = new ArrayList<>();
+        for (Integer bookingId : requestedIds) {
+            BookingStatusView view = statusesById.get(bookingId);
+            if (view == null) {
+                resultsById.put(bookingId, new BookingDecisionResultDto(bookingId,
+                        BookingDecisionResultDto.NOT_FOUND, null));
+            } else if (view.getOwnerId() != userId) {
+                resultsById.put(bookingId, new BookingDecisionResultDto(bookingId,
+                        BookingDecisionResultDto.NOT_OWNER, view.getStatus().toString()));
+            } else if (view.getStatus() != Status.WAITING) {
+                resultsById.put(bookingId, new BookingDecisionResultDto(bookingId,
+                        BookingDecisionResultDto.NOT_WAITING, view.getStatus().toString()));
+            } else {
+                waitingIds.add(bookingId);
+            }
+        }
+
+        if (!waitingIds.isEmpty()) {
+            // счетчики условных обновлений показывают, какие бронирования изменил именно этот запрос, даже если
+            // параллельный запрос принял по части из них то же решение
+            Set<Integer> updatedIds = new HashSet<>(bookingRepository.decideWaitingBookings(waitingIds, userId,
+                    newStatus));
+            // остальные бронирования успели измениться после чтения статусов, перечитываем их текущий статус
+            Map<Integer, BookingStatusView> currentStatuses = statusesById;
+            if (updatedIds.size() < waitingIds.size()) {
+                currentStatuses = new HashMap<>();
+                for (BookingStatusView view : bookingRepository.findBookingStatuses(waitingIds)) {
+                    currentStatuses.put(view.getId(), view);
+                }
+            }
+            Set<Integer> rejectedItemIds = new HashSet<>();
+            for (Integer bookingId : waitingIds) {
+                boolean updated = updatedIds.contains(bookingId);
+                // вещь, арендатор и владелец у бронирования не меняются, меняется только статус
+                BookingStatusView view = updated ? statusesById.get(bookingId) : currentStatuses.get(bookingId);
+                if (view == null) { // бронирование удалено вместе с пользователем
+                    resultsById.put(bookingId, new BookingDecisionResultDto(bookingId,
+                            BookingDecisionResultDto.NOT_FOUND, null));
+                    continue;
+                }
+                String result = updated ? BookingDecisionResultDto.UPDATED : BookingDecisionResultDto.NOT_WAITING;
+                Status status = updated ? newStatus : view.getStatus();
+                resultsById.put(bookingId, new BookingDecisionResultDto(bookingId, result, status.toString()));
+                if (updated && !approved) {
+                    bookingIntervalIndex.release(view.getItemId(), bookingId);
+                    rejectedItemIds.add(view.getItemId());
+                }
+                if (updated) {
+                    bookingTimelines.updateStatus(bookingId, view.getBookerId(), view.getOwnerId(), newStatus);
+                    bookingEventHub.publish(new BookingEventDto(BookingEventDto.STATUS_CHANGED, bookingId,
+                            view.getItemId(), view.getBookerId(), view.getOwnerId(), newStatus.toString()));
+                }
+            }
+            itemBookingSummaries.refresh(rejectedItemIds);
+        }
+
+        List<BookingDecisionResultDto> results = new ArrayList<>();
+        for (Integer bookingId : requestedIds) {
+            results.add(resultsById.get(bookingId));
+        }
+        return results;
+    }
+
+    // медленный путь: выясняем, почему условное обновление не изменило бронирование, или меняем статус
+    // отклоненного бронирования, которое можно подтвердить повторно, если его период все еще свободен
+    private BookingResponseDto changeStatusOfNotWaitingBooking(int userId, int bookingId, boolean approved) {
         Booking savedBooking = getBooking(bookingId); // находим бронирование в БД
         Item item = savedBooking.getItem();
         int ownerId = item.getOwnerId();
@@ -71,13 +310,26 @@ public class BookingServiceImpl implements BookingService {
             String message = String.format("Бронирование с id=%d уже подтверждено!", bookingId);
             throw new BookingIsApprovedException(message);
         }
+        if (status == Status.EXPIRED) { // бронирование началось без решения владельца, его период уже освобожден
+            String message = String.format("Срок подтверждения бронирования с id=%d истек!", bookingId);
+            throw new BookingException(message);
+        }
 
+        Booking updatedBooking;
         if (approved) {
             savedBooking.setStatus(Status.APPROVED);
+            if (status == Status.REJECTED) { // отклоненное бронирование снова занимает период, проверяем пересечения
+                updatedBooking = bookingIntervalIndex.reserve(savedBooking, bookingRepository::save);
+            } else {
+                updatedBooking = bookingRepository.save(savedBooking);
+            }
         } else {
             savedBooking.setStatus(Status.REJECTED);
+            updatedBooking = bookingRepository.save(savedBooking);
+            bookingIntervalIndex.release(itemId, bookingId); // отклоненное бронирование освобождает период
         }
-        Booking updatedBooking = bookingRepository.save(savedBooking);
+        afterWrite(BookingEventDto.STATUS_CHANGED, updatedBooking);
+        itemBookingSummaries.refresh(List.of(itemId));
         return bookingMapper.toBookingResponseDto(updatedBooking);
     }
 
@@ -103,89 +355,128 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingResponseDto> getBookingsForBooker(int userId, String state, int from, int size) {
-        if (!userRepository.existsById(userId)) {
-            String message = String.format("Пользователь с id=%d не найден!", userId);
-            throw new ObjectNotFoundException(message);
+        checkUserExistence(userId);
+        return findBookings(Role.BOOKER, userId, state, null, getPage(from, size));
+    }
+
+    @Override
+    public List<BookingResponseDto> getBookingsForItemsOwner(int ownerId, String state, int from, int size) {
+        checkItemsOwner(ownerId);
+        return findBookings(Role.OWNER, ownerId, state, null, getPage(from, size));
+    }
+
+    @Override
+    public List<BookingResponseDto> getBookingsForBookerByCursor(int userId, String state, String cursor, int size) {
+        checkUserExistence(userId);
+        // выборка продолжается сразу после курсора, поэтому всегда запрашиваем первую страницу без смещения
+        return findBookings(Role.BOOKER, userId, state, BookingCursor.decode(cursor), getPage(0, size));
+    }
+
+    @Override
+    public List<BookingResponseDto> getBookingsForItemsOwnerByCursor(int ownerId, String state, String cursor,
+                                                                     int size) {
+        checkItemsOwner(ownerId);
+        return findBookings(Role.OWNER, ownerId, state, BookingCursor.decode(cursor), getPage(0, size));
+    }
+
+    @Override
+    public BookingExport exportBookings(int userId, String role, String state) {
+        // все проверки выполняются сразу, чтобы ошибка вернулась обычным ответом до начала выгрузки
+        Role exportRole = Role.convertToEnum(role);
+        State exportState = State.convertToEnum(state);
+        if (exportRole == Role.OWNER) {
+            checkItemsOwner(userId);
+        } else {
+            checkUserExistence(userId);
         }
+        LocalDateTime now = LocalDateTime.now();
+        return action -> bookingRepository.forEachBooking(exportRole, userId, exportState, now, EXPORT_FETCH_SIZE,
+                booking -> action.accept(bookingMapper.toBookingResponseDto(booking)));
+    }
+
+    @Override
+    public SseEmitter subscribeToEvents(int userId) {
+        checkUserExistence(userId);
+        return bookingEventHub.subscribe(userId);
+    }
+
+    // страница определяется по ленте пользователя в памяти, а из БД читаются только ее бронирования;
+    // ленты пользователей с очень большим числом бронирований не хранятся, их страницы выбирает БД
+    private List<BookingResponseDto> findBookings(Role role, int userId, String state, BookingCursor cursor,
+                                                  Pageable pageable) {
         State st = State.convertToEnum(state);
-        Sort sortedByStartBookingDate = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sortedByStartBookingDate);
+        LocalDateTime now = LocalDateTime.now();
+        Optional<List<Integer>> pageIds = bookingTimelines.findPage(role, userId, st, now, cursor,
+                (int) pageable.getOffset(), pageable.getPageSize());
         List<Booking> bookings;
-
-        switch (st) {
-            case ALL:
-                bookings = bookingRepository.findBookingsByBookerId(userId, pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository
-                        .findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(userId,
-                                LocalDateTime.now(), LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findBookingsByBookerIdAndStartBookingDateAfter(userId,
-                        LocalDateTime.now(), pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findBookingsByBookerIdAndEndBookingDateBefore(userId,
-                        LocalDateTime.now(), pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable);
-                break;
-            default:
-                bookings = new ArrayList<>();
+        if (pageIds.isPresent()) {
+            bookings = getBookingsInOrder(pageIds.get());
+        } else {
+            bookings = bookingRepository.findBookings(role, userId, st, now, cursor, pageable);
         }
         return bookingMapper.toBookingDtoList(bookings);
     }
 
-    @Override
-    public List<BookingResponseDto> getBookingsForItemsOwner(int ownerId, String state, int from, int size) {
-        if (!userRepository.existsById(ownerId)) {
-            String message = String.format("Пользователь с id=%d не найден!", ownerId);
+    private List<Booking> getBookingsInOrder(List<Integer> bookingIds) {
+        List<Booking> result = new ArrayList<>();
+        if (bookingIds.isEmpty()) {
+            return result;
+        }
+        Map<Integer, Booking> bookingsById = new HashMap<>();
+        for (Booking booking : bookingRepository.findBookingsByIdIn(bookingIds)) {
+            bookingsById.put(booking.getId(), booking);
+        }
+        for (Integer bookingId : bookingIds) {
+            Booking booking = bookingsById.get(bookingId);
+            if (booking != null) {
+                result.add(booking);
+            }
+        }
+        return result;
+    }
+
+    // изменения уже сохранены в БД: ленты арендатора и владельца и популярность вещи в подсказках и поиске
+    // обновляются сразу, подписчики получат событие асинхронно
+    private void afterWrite(String type, Booking booking) {
+        if (BookingEventDto.CREATED.equals(type)) {
+            bookingTimelines.add(booking);
+            itemSuggestions.addBooking(booking.getItem().getId());
+            itemSearchIndex.addBooking(booking.getItem().getId());
+        } else {
+            bookingTimelines.updateStatus(booking.getId(), booking.getBooker().getId(),
+                    booking.getItem().getOwnerId(), booking.getStatus());
+        }
+        Item item = booking.getItem();
+        bookingEventHub.publish(new BookingEventDto(type, booking.getId(), item.getId(), booking.getBooker().getId(),
+                item.getOwnerId(), booking.getStatus().toString()));
+    }
+
+    private BookingHold takeHold(int userId, long holdId) {
+        Optional<BookingHold> hold = bookingHolds.take(userId, holdId);
+        if (hold.isEmpty()) {
+            throw holdNotFound(holdId);
+        }
+        return hold.get();
+    }
+
+    private ObjectNotFoundException holdNotFound(long holdId) {
+        String message = String.format("Удержание с id=%d не найдено или его срок истек!", holdId);
+        return new ObjectNotFoundException(message);
+    }
+
+    private void checkUserExistence(int userId) {
+        if (!userRepository.existsById(userId)) {
+            String message = String.format("Пользователь с id=%d не найден!", userId);
             throw new ObjectNotFoundException(message);
         }
-        List<Item> items = itemRepository.findItemsByOwnerId(ownerId);
-        if (items.isEmpty()) {
+    }
+
+    private void checkItemsOwner(int ownerId) {
+        checkUserExistence(ownerId);
+        if (!itemRepository.existsByOwnerId(ownerId)) {
             String message = String.format("Пользователь с id=%d не является владельцем вещи", ownerId);
             throw new NotItemOwnerException(message);
         }
-        State st = State.convertToEnum(state);
-        Sort sortedByStartBookingDate = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sortedByStartBookingDate);
-        List<Booking> bookings;
-
-        switch (st) {
-            case ALL:
-                bookings = bookingRepository.findBookingsByItemOwnerId(ownerId, pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository
-                        .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-                                ownerId, LocalDateTime.now(), LocalDateTime.now(), pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository
-                        .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, LocalDateTime.now(), pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository
-                        .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, LocalDateTime.now(), pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository
-                        .findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository
-                        .findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
-                break;
-            default:
-                bookings = new ArrayList<>();
-        }
-        return bookingMapper.toBookingDtoList(bookings);
     }
 
     private User getUser(int userId) {
@@ -206,6 +497,15 @@ public class BookingServiceImpl implements BookingService {
         return optionalItem.get();
     }
 
+    private Booking getBookingWithItemAndBooker(int bookingId) {
+        Optional<Booking> optionalBooking = bookingRepository.findBookingById(bookingId);
+        if (optionalBooking.isEmpty()) {
+            String message = String.format("Бронирование с id=%d не найдено в БД!", bookingId);
+            throw new ObjectNotFoundException(message);
+        }
+        return optionalBooking.get();
+    }
+
     private Booking getBooking(int bookingId) {
         Optional<Booking> optionalBooking = bookingRepository.findById(bookingId);
         if (optionalBooking.isEmpty()) {
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.time.LocalDateTime;
+
+// период и статус бронирования без вещи и арендатора: строка ленты бронирований пользователя (BookingTimelines)
+public interface BookingPeriodView {
+    Integer getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    Status getStatus();
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface BookingQueryRepository {
+    // бронирования пользователя в роли арендатора или владельца вещей, отфильтрованные по состоянию
+    // относительно момента now; если cursor != null, выборка продолжается сразу после него
+    List<Booking> findBookings(Role role, int userId, State state, LocalDateTime now, BookingCursor cursor,
+                               Pageable pageable);
+
+    // та же выборка, что у findBookings, но целиком и без страниц: бронирования передаются action по одному
+    // по мере чтения курсора БД пачками по fetchSize строк, а после каждой пачки контекст persistence
+    // очищается, поэтому расход памяти не зависит от размера выборки
+    void forEachBooking(Role role, int userId, State state, LocalDateTime now, int fetchSize,
+                        Consumer<Booking> action);
+
+    // решение владельца по ожидающим подтверждения бронированиям из bookingIds: каждое такое бронирование
+    // получает статус newStatus условным обновлением, все обновления уходят в БД одним пакетом. Возвращает
+    // идентификаторы именно тех бронирований, которые изменил этот вызов, бронирования, решенные параллельным
+    // запросом, в результат не попадают
+    List<Integer> decideWaitingBookings(Collection<Integer> bookingIds, int ownerId, Status newStatus);
+}
@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+    private static final String SELECT = "SELECT b FROM Booking b JOIN FETCH b.item i JOIN FETCH b.booker u";
+    private static final String ORDER_BY = " ORDER BY b.startBookingDate DESC, b.id DESC";
+    // условие продолжения выборки после курсора при сортировке по startBookingDate DESC, id DESC
+    private static final String AFTER_CURSOR = "(b.startBookingDate < :cursorStart " +
+            "OR (b.startBookingDate = :cursorStart AND b.id < :cursorId))";
+    // версия увеличивается так же, как в BookingRepository.updateStatusOfWaitingBookings
+    private static final String DECIDE_WAITING_BOOKING = "UPDATE bookings SET booking_status = ?, " +
+            "version = version + 1 WHERE id = ? AND booking_status = ? " +
+            "AND item_id IN (SELECT id FROM items WHERE owner_id = ?)";
+
+    // текст запроса зависит только от роли, состояния и наличия курсора, значения передаются параметрами,
+    // поэтому для каждой формы строится один JPQL, и Hibernate с драйвером переиспользуют его план и statement
+    private final Map<String, String> statements = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> findBookings(Role role, int userId, State state, LocalDateTime now, BookingCursor cursor,
+                                      Pageable pageable) {
+        boolean hasCursor = cursor != null;
+        TypedQuery<Booking> query = entityManager.createQuery(getStatement(role, state, hasCursor), Booking.class);
+        setParameters(query, userId, state, now);
+        if (hasCursor) {
+            query.setParameter("cursorStart", cursor.getStartBookingDate());
+            query.setParameter("cursorId", cursor.getId());
+        }
+        return query.setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true) // в PostgreSQL курсор с fetchSize работает только внутри транзакции
+    public void forEachBooking(Role role, int userId, State state, LocalDateTime now, int fetchSize,
+                               Consumer<Booking> action) {
+        TypedQuery<Booking> query = entityManager.createQuery(getStatement(role, state, false), Booking.class)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true); // без снимков состояния для проверки изменений
+        setParameters(query, userId, state, now);
+        int processed = 0;
+        try (Stream<Booking> bookings = query.getResultStream()) { // курсор только вперед
+            Iterator<Booking> iterator = bookings.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                processed++;
+                if (processed % fetchSize == 0) {
+                    entityManager.clear(); // обработанные бронирования, вещи и пользователи больше не нужны
+                }
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> decideWaitingBookings(Collection<Integer> bookingIds, int ownerId, Status newStatus) {
+        // по условному UPDATE на каждое бронирование, все одним JDBC-пакетом: счетчик обновленных строк
+        // каждой команды показывает, изменил ли бронирование именно этот вызов, без блокирующего чтения
+        List<Integer> orderedIds = new ArrayList<>(bookingIds);
+        entityManager.flush();
+        int[] updateCounts = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DECIDE_WAITING_BOOKING)) {
+                for (Integer bookingId : orderedIds) {
+                    statement.setString(1, newStatus.name());
+                    statement.setInt(2, bookingId);
+                    statement.setString(3, Status.WAITING.name());
+                    statement.setInt(4, ownerId);
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+        entityManager.clear(); // загруженные копии бронирований могли устареть после обновления
+        List<Integer> updatedIds = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] > 0) {
+                updatedIds.add(orderedIds.get(i));
+            }
+        }
+        return updatedIds;
+    }
+
+    private String getStatement(Role role, State state, boolean hasCursor) {
+        String shape = role + ":" + state + ":" + hasCursor;
+        return statements.computeIfAbsent(shape, key -> buildStatement(role, state, hasCursor));
+    }
+
+    private void setParameters(TypedQuery<Booking> query, int userId, State state, LocalDateTime now) {
+        query.setParameter("userId", userId);
+        switch (state) {
+            case CURRENT:
+            case FUTURE:
+            case PAST:
+                query.setParameter("now", now);
+                break;
+            case REJECTED:
+                query.setParameter("status", Status.REJECTED);
+                break;
+            case WAITING:
+                query.setParameter("status", Status.WAITING);
+                break;
+            case EXPIRED:
+                query.setParameter("status", Status.EXPIRED);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private String buildStatement(Role role, State state, boolean hasCursor) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        if (role == Role.BOOKER) {
+            jpql.append(" WHERE u.id = :userId");
+        } else {
+            jpql.append(" WHERE i.ownerId = :userId");
+        }
+        switch (state) {
+            case CURRENT:
+                jpql.append(" AND b.startBookingDate < :now AND b.endBookingDate > :now");
+                break;
+            case FUTURE:
+                jpql.append(" AND b.startBookingDate > :now");
+                break;
+            case PAST:
+                jpql.append(" AND b.endBookingDate < :now");
+                break;
+            case REJECTED:
+            case WAITING:
+            case EXPIRED:
+                jpql.append(" AND b.status = :status");
+                break;
+            default:
+                break;
+        }
+        if (hasCursor) {
+            jpql.append(" AND ").append(AFTER_CURSOR);
+        }
+        return jpql.append(ORDER_BY).toString();
+    }
+}
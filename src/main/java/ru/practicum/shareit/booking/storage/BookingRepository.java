@@ -2,41 +2,91 @@ package ru.practicum.shareit.booking.storage;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
-    List<Booking> findBookingsByBookerIdAndStatus(int bookerId, Status status, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingQueryRepository {
+    // граф загрузки для списков бронирований: вещь и арендатор читаются тем же запросом, что и бронирования
+    String WITH_ITEM_AND_BOOKER = "Booking.withItemAndBooker";
 
-    List<Booking> findBookingsByBookerIdAndEndBookingDateBefore(
-            int bookerId, LocalDateTime currentDateTime, Pageable pageable);
+    @EntityGraph(WITH_ITEM_AND_BOOKER)
+    Optional<Booking> findBookingById(int bookingId);
 
-    List<Booking> findBookingsByBookerIdAndStartBookingDateAfter(
-            int bookerId, LocalDateTime currentDateTime, Pageable pageable);
+    // бронирования страницы, найденной по ленте пользователя, в произвольном порядке
+    @EntityGraph(WITH_ITEM_AND_BOOKER)
+    List<Booking> findBookingsByIdIn(Collection<Integer> bookingIds);
 
-    List<Booking> findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-            int bookerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @EntityGraph(WITH_ITEM_AND_BOOKER)
+    List<Booking> findBookingsByItemIdAndStatusNot(int itemId, Status status, Sort sort);
 
-    List<Booking> findBookingsByBookerId(int bookerId, Pageable pageable);
+    List<Booking> findBookingsByItemIdAndBookerIdAndStatus(int itemId, int bookerId, Status status);
 
-    List<Booking> findBookingsByItemOwnerIdAndStatus(int ownerId, Status status, Pageable pageable);
+    List<Booking> findBookingsByItemIdAndStatusIn(int itemId, Collection<Status> statuses);
 
-    List<Booking> findBookingsByItemOwnerIdAndEndBookingDateBefore(
-            int ownerId, LocalDateTime currentDateTime, Pageable pageable);
+    List<Booking> findBookingsByItemIdInAndStatusIn(Collection<Integer> itemIds, Collection<Status> statuses);
 
-    List<Booking> findBookingsByItemOwnerIdAndStartBookingDateAfter(
-            int ownerId, LocalDateTime currentDateTime, Pageable pageable);
+    // периоды и статусы всех бронирований арендатора или владельца вещей для построения их лент
+    @Query("SELECT b.id AS id, b.startBookingDate AS start, b.endBookingDate AS end, b.status AS status " +
+            "FROM Booking b WHERE b.booker.id = :bookerId")
+    List<BookingPeriodView> findBookerPeriods(int bookerId);
 
-    List<Booking> findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-            int ownerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    @Query("SELECT b.id AS id, b.startBookingDate AS start, b.endBookingDate AS end, b.status AS status " +
+            "FROM Booking b JOIN b.item i WHERE i.ownerId = :ownerId")
+    List<BookingPeriodView> findOwnerPeriods(int ownerId);
 
-    List<Booking> findBookingsByItemOwnerId(int ownerId, Pageable pageable);
+    // статусы бронирований вместе с вещью и ее владельцем, без загрузки сущностей
+    @Query("SELECT b.id AS id, b.status AS status, i.id AS itemId, i.ownerId AS ownerId, " +
+            "b.booker.id AS bookerId FROM Booking b JOIN b.item i WHERE b.id IN :bookingIds")
+    List<BookingStatusView> findBookingStatuses(Collection<Integer> bookingIds);
 
-    List<Booking> findBookingsByItemIdAndStatusNot(int itemId, Status status, Sort sort);
+    // условный переход из WAITING: статус меняется одной операцией и только у ожидающих подтверждения
+    // бронирований вещей владельца, поэтому два одновременных решения по одному бронированию не могут пройти оба.
+    // Версия увеличивается так же, как при сохранении сущности, чтобы устаревшие копии не перезаписали решение
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :newStatus, b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds AND b.status = ru.practicum.shareit.booking.enums.Status.WAITING " +
+            "AND b.item.id IN (SELECT i.id FROM Item i WHERE i.ownerId = :ownerId)")
+    int updateStatusOfWaitingBookings(Collection<Integer> bookingIds, int ownerId, Status newStatus);
 
-    List<Booking> findBookingsByItemIdAndBookerIdAndStatus(int itemId, int bookerId, Status status);
+    // ожидающие подтверждения бронирования, которые начались до now, в порядке даты начала
+    // (индекс idx_bookings_status_start)
+    @Query("SELECT b.id AS id, b.status AS status, i.id AS itemId, i.ownerId AS ownerId, " +
+            "b.booker.id AS bookerId FROM Booking b JOIN b.item i " +
+            "WHERE b.status = ru.practicum.shareit.booking.enums.Status.WAITING AND b.startBookingDate < :now " +
+            "ORDER BY b.startBookingDate")
+    List<BookingStatusView> findStaleWaitingBookings(LocalDateTime now, Pageable pageable);
+
+    // дата начала самого старого из таких бронирований: по ней видно отставание очистки
+    @Query("SELECT MIN(b.startBookingDate) FROM Booking b " +
+            "WHERE b.status = ru.practicum.shareit.booking.enums.Status.WAITING AND b.startBookingDate < :now")
+    Optional<LocalDateTime> findOldestStaleWaitingStart(LocalDateTime now);
+
+    // условный переход WAITING -> EXPIRED: бронирования, по которым владелец успел принять решение, не меняются
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = ru.practicum.shareit.booking.enums.Status.EXPIRED, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds AND b.status = ru.practicum.shareit.booking.enums.Status.WAITING " +
+            "AND b.startBookingDate < :now")
+    int expireWaitingBookings(Collection<Integer> bookingIds, LocalDateTime now);
+
+    // число бронирований по вещам, у которых они есть
+    @Query("SELECT b.item.id AS itemId, COUNT(b) AS bookingCount FROM Booking b GROUP BY b.item.id")
+    List<ItemBookingCountView> countBookingsByItem();
+
+    // то же по бронированиям, которые начинаются не раньше since: недавний спрос для ранжированного поиска
+    @Query("SELECT b.item.id AS itemId, COUNT(b) AS bookingCount FROM Booking b " +
+            "WHERE b.startBookingDate >= :since GROUP BY b.item.id")
+    List<ItemBookingCountView> countBookingsByItemSince(LocalDateTime since);
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.enums.Status;
+
+// статус бронирования, арендатор и владелец бронируемой вещи: все, что нужно для проверки решения владельца
+// и уведомления участников
+public interface BookingStatusView {
+    Integer getId();
+
+    Status getStatus();
+
+    Integer getItemId();
+
+    Integer getOwnerId();
+
+    Integer getBookerId();
+}
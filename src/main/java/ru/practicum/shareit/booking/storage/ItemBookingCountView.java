@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking.storage;
+
+// число бронирований вещи за все время: популярность вещи в подсказках названий
+public interface ItemBookingCountView {
+    Integer getItemId();
+
+    Long getBookingCount();
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking.timeline;
+
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Лента бронирований одного арендатора или владельца: все бронирования и отдельно бронирования каждого статуса.
+// ALL, FUTURE и состояния-статусы отвечаются двоичным поиском и отрезком массива. Для CURRENT и PAST после
+// двоичного поиска просматриваются только начавшиеся бронирования: текущие - не дальше самого длинного
+// бронирования ленты, прошедшие - с пропуском еще не закончившихся
+class BookingTimeline {
+    private final TimelineEntries all = new TimelineEntries();
+    private final Map<Status, TimelineEntries> byStatus = new EnumMap<>(Status.class);
+    private final Map<Integer, Long> startById = new HashMap<>();
+    private final Map<Integer, Status> statusById = new HashMap<>();
+    private long maxDuration;
+
+    static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1000;
+    }
+
+    synchronized int size() {
+        return all.size();
+    }
+
+    // добавляет бронирование или заменяет его прежнее состояние
+    synchronized void put(int bookingId, LocalDateTime start, LocalDateTime end, Status status) {
+        remove(bookingId);
+        long startKey = toKey(start);
+        long endKey = toKey(end);
+        all.insert(bookingId, startKey, endKey);
+        byStatus.computeIfAbsent(status, s -> new TimelineEntries()).insert(bookingId, startKey, endKey);
+        startById.put(bookingId, startKey);
+        statusById.put(bookingId, status);
+        maxDuration = Math.max(maxDuration, endKey - startKey);
+    }
+
+    synchronized void updateStatus(int bookingId, Status status) {
+        Status oldStatus = statusById.get(bookingId);
+        if (oldStatus == null || oldStatus == status) {
+            return;
+        }
+        long startKey = startById.get(bookingId);
+        int index = all.lowerBound(startKey, bookingId);
+        byStatus.get(oldStatus).remove(bookingId, startKey);
+        byStatus.computeIfAbsent(status, s -> new TimelineEntries()).insert(bookingId, startKey, all.end(index));
+        statusById.put(bookingId, status);
+    }
+
+    // идентификаторы страницы бронирований в состоянии state на момент now: после курсора (если он задан),
+    // с пропуском from бронирований, не больше size
+    synchronized List<Integer> findPage(State state, LocalDateTime now, LocalDateTime cursorStart, int cursorId,
+                                        int from, int size) {
+        long nowKey = toKey(now);
+        TimelineEntries entries = all;
+        int begin = 0;
+        int end = all.size();
+        switch (state) {
+            case FUTURE:
+                end = all.startedAtOrBefore(nowKey);
+                break;
+            case CURRENT:
+            case PAST:
+                begin = all.startedBefore(nowKey);
+                break;
+            case WAITING:
+            case REJECTED:
+            case EXPIRED:
+                entries = byStatus.getOrDefault(Status.valueOf(state.name()), new TimelineEntries());
+                end = entries.size();
+                break;
+            default:
+                break;
+        }
+        if (cursorStart != null) {
+            begin = Math.max(begin, entries.afterCursor(toKey(cursorStart), cursorId));
+        }
+
+        List<Integer> result = new ArrayList<>();
+        if (state == State.CURRENT || state == State.PAST) {
+            scan(state, nowKey, begin, from, size, result);
+            return result;
+        }
+        for (int i = begin + from; i < end && result.size() < size; i++) {
+            result.add(entries.id(i));
+        }
+        return result;
+    }
+
+    private void scan(State state, long nowKey, int begin, int from, int size, List<Integer> result) {
+        int skipped = 0;
+        for (int i = begin; i < all.size() && result.size() < size; i++) {
+            boolean current = all.end(i) > nowKey;
+            // бронирование, начавшееся раньше now - maxDuration, уже закончилось, как и все после него
+            if (state == State.CURRENT && all.start(i) + maxDuration <= nowKey) {
+                return;
+            }
+            boolean matches = state == State.CURRENT ? current : all.end(i) < nowKey;
+            if (!matches) {
+                continue;
+            }
+            if (skipped < from) {
+                skipped++;
+                continue;
+            }
+            result.add(all.id(i));
+        }
+    }
+
+    private void remove(int bookingId) {
+        Long startKey = startById.remove(bookingId);
+        if (startKey == null) {
+            return;
+        }
+        all.remove(bookingId, startKey);
+        byStatus.get(statusById.remove(bookingId)).remove(bookingId, startKey);
+    }
+}
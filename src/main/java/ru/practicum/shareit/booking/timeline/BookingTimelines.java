@@ -0,0 +1,99 @@
+package ru.practicum.shareit.booking.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingPeriodView;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Ленты бронирований арендаторов и владельцев в памяти: списки бронирований в любом состоянии отвечаются
+// по ленте, а из БД читается только страница по первичному ключу. Лента загружается одним запросом при первом
+// обращении к спискам пользователя и поддерживается при записи бронирований. Общий объем лент ограничен
+// количеством бронирований в них; пользователи с очень большим числом бронирований обслуживаются запросами к БД
+@Component
+public class BookingTimelines {
+    private final BookingRepository bookingRepository;
+    private final int maxTimelineSize;
+    // пустое значение - бронирований пользователя больше maxTimelineSize, его списки читаются из БД
+    private final Cache<Long, Optional<BookingTimeline>> timelines;
+
+    @Autowired
+    public BookingTimelines(BookingRepository bookingRepositoryArg,
+                            @Value("${shareit.booking-timelines.max-entries:2000000}") long maxEntries,
+                            @Value("${shareit.booking-timelines.max-timeline-size:100000}") int maxTimelineSizeArg) {
+        bookingRepository = bookingRepositoryArg;
+        maxTimelineSize = maxTimelineSizeArg;
+        timelines = Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((Long key, Optional<BookingTimeline> timeline) ->
+                        Math.max(timeline.map(BookingTimeline::size).orElse(1), 1))
+                .build();
+    }
+
+    // идентификаторы страницы бронирований пользователя в порядке списков (дата начала и id по убыванию);
+    // пустой результат - лента пользователя слишком велика и страницу нужно прочитать из БД
+    public Optional<List<Integer>> findPage(Role role, int userId, State state, LocalDateTime now,
+                                            BookingCursor cursor, int from, int size) {
+        Optional<BookingTimeline> timeline = timelines.get(key(role, userId), k -> load(role, userId));
+        if (timeline.isEmpty()) {
+            return Optional.empty();
+        }
+        LocalDateTime cursorStart = cursor == null ? null : cursor.getStartBookingDate();
+        int cursorId = cursor == null ? 0 : cursor.getId();
+        return Optional.of(timeline.get().findPage(state, now, cursorStart, cursorId, from, size));
+    }
+
+    // новое бронирование уже сохранено: попадает в загруженные ленты арендатора и владельца вещи.
+    // Изменение ждет загрузки ленты, которая могла прочитать БД до его сохранения
+    public void add(Booking booking) {
+        for (Long key : keys(booking.getBooker().getId(), booking.getItem().getOwnerId())) {
+            timelines.asMap().computeIfPresent(key, (k, timeline) -> {
+                timeline.ifPresent(t -> t.put(booking.getId(), booking.getStartBookingDate(),
+                        booking.getEndBookingDate(), booking.getStatus()));
+                return timeline;
+            });
+        }
+    }
+
+    public void updateStatus(int bookingId, int bookerId, int ownerId, Status status) {
+        for (Long key : keys(bookerId, ownerId)) {
+            timelines.asMap().computeIfPresent(key, (k, timeline) -> {
+                timeline.ifPresent(t -> t.updateStatus(bookingId, status));
+                return timeline;
+            });
+        }
+    }
+
+    private Optional<BookingTimeline> load(Role role, int userId) {
+        List<BookingPeriodView> periods = role == Role.BOOKER
+                ? bookingRepository.findBookerPeriods(userId)
+                : bookingRepository.findOwnerPeriods(userId);
+        if (periods.size() > maxTimelineSize) {
+            return Optional.empty();
+        }
+        BookingTimeline timeline = new BookingTimeline();
+        for (BookingPeriodView period : periods) {
+            timeline.put(period.getId(), period.getStart(), period.getEnd(), period.getStatus());
+        }
+        return Optional.of(timeline);
+    }
+
+    private List<Long> keys(int bookerId, int ownerId) {
+        return List.of(key(Role.BOOKER, bookerId), key(Role.OWNER, ownerId));
+    }
+
+    private long key(Role role, int userId) {
+        return ((long) role.ordinal() << Integer.SIZE) | (userId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking.timeline;
+
+import java.util.Arrays;
+
+// Бронирования в порядке списков бронирований (дата начала по убыванию, затем id по убыванию) в параллельных
+// массивах примитивов: позиция любой границы находится двоичным поиском, а страница - это отрезок массивов.
+// Даты хранятся в микросекундах от эпохи (см. BookingTimeline.toKey). Синхронизация - в BookingTimeline
+class TimelineEntries {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+
+    int size() {
+        return size;
+    }
+
+    int id(int index) {
+        return ids[index];
+    }
+
+    long start(int index) {
+        return starts[index];
+    }
+
+    long end(int index) {
+        return ends[index];
+    }
+
+    // первая позиция, запись на которой не стоит раньше (start, id): дата начала меньше start
+    // или равна ей при id не больше заданного
+    int lowerBound(long start, int id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] > start || (starts[middle] == start && ids[middle] > id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // позиция, с которой начинаются записи после курсора (startKey, id)
+    int afterCursor(long start, int id) {
+        return lowerBound(start, id - 1);
+    }
+
+    // позиция первой записи, начавшейся не позже момента time
+    int startedAtOrBefore(long time) {
+        return lowerBound(time, Integer.MAX_VALUE);
+    }
+
+    // позиция первой записи, начавшейся раньше момента time
+    int startedBefore(long time) {
+        return lowerBound(time, Integer.MIN_VALUE);
+    }
+
+    void insert(int id, long start, long end) {
+        int index = lowerBound(start, id);
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        ids[index] = id;
+        starts[index] = start;
+        ends[index] = end;
+        size++;
+    }
+
+    void remove(int id, long start) {
+        int index = lowerBound(start, id);
+        if (index == size || ids[index] != id || starts[index] != start) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        size--;
+    }
+}
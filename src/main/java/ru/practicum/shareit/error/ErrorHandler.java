@@ -2,6 +2,7 @@ package ru.practicum.shareit.error;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -27,6 +28,21 @@ public class ErrorHandler {
         return Map.of("Error", exc.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    public ErrorResponse handleBookingOverlapException(final BookingOverlapException exc) {
+        log.error('\n' + "Отловлена ошибка: " + exc.getMessage() + '\n');
+        return new ErrorResponse(exc.getMessage());
+    }
+
+    // запись изменена параллельным запросом между чтением и сохранением: клиент может перечитать данные и повторить
+    @ExceptionHandler
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException exc) {
+        log.error('\n' + "Отловлена ошибка: " + exc.getMessage() + '\n');
+        return new ErrorResponse("Данные были изменены другим запросом, повторите операцию");
+    }
+
     @ExceptionHandler
     @ResponseStatus(value = HttpStatus.NOT_FOUND)
     public Map<String, String> handleObjectNotFoundException(final ObjectNotFoundException exc) {
@@ -76,6 +92,13 @@ public class ErrorHandler {
         return new ErrorResponse(exc.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidCursorException(final InvalidCursorException exc) {
+        log.error('\n' + "Отловлена ошибка: " + exc.getMessage() + '\n');
+        return new ErrorResponse(exc.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public ErrorResponse handleConstraintViolationException(final ConstraintViolationException exc) {
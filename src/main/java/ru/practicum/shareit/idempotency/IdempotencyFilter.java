@@ -0,0 +1,150 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.error.ErrorResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Повторы запросов на создание бронирований, вещей и комментариев с заголовком Idempotency-Key: ключ действует
+// в пределах пользователя и адреса запроса. Первый запрос выполняется, а его ответ запоминается и возвращается
+// повторам байт в байт; повтор, пришедший во время выполнения первого запроса, ждет его ответа. Запрос с тем же
+// ключом, но другим телом отклоняется с кодом 422. Ответы хранятся ограниченное время и в ограниченном количестве;
+// ответы с ошибкой сервера не запоминаются, чтобы повтор мог пройти
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed"; // ответ взят из сохраненных
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final List<String> IDEMPOTENT_PATHS = List.of("/bookings", "/bookings/holds",
+            "/bookings/holds/*/confirm", "/items", "/items/*/comment");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ObjectMapper objectMapper;
+    private final long waitTimeoutMs;
+    private final Cache<String, StoredRequest> requests;
+
+    @Autowired
+    public IdempotencyFilter(ObjectMapper objectMapperArg,
+                             @Value("${shareit.idempotency.ttl-minutes:60}") long ttlMinutes,
+                             @Value("${shareit.idempotency.max-entries:100000}") long maxEntries,
+                             @Value("${shareit.idempotency.wait-timeout-ms:30000}") long waitTimeoutMsArg) {
+        objectMapper = objectMapperArg;
+        waitTimeoutMs = waitTimeoutMsArg;
+        requests = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || request.getHeader(USER_ID_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : IDEMPOTENT_PATHS) {
+            if (pathMatcher.match(pattern, path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, String.format("Заголовок %s должен содержать от 1 до %d " +
+                    "символов!", IDEMPOTENCY_KEY_HEADER, MAX_KEY_LENGTH));
+            return;
+        }
+        String key = request.getHeader(USER_ID_HEADER) + ':' + request.getRequestURI() + ':' + idempotencyKey;
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        StoredRequest ownRequest = new StoredRequest(body);
+        StoredRequest firstRequest = requests.asMap().putIfAbsent(key, ownRequest);
+        if (firstRequest != null) { // запрос с этим ключом уже выполнялся или выполняется сейчас
+            if (!firstRequest.hasSameBody(ownRequest)) {
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Ключ идемпотентности уже использован " +
+                        "для запроса с другим телом!");
+                return;
+            }
+            replay(firstRequest.getResponse(), response);
+            return;
+        }
+
+        CompletableFuture<StoredResponse> ownResponse = ownRequest.getResponse();
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new BufferedBodyRequest(request, body), cachingResponse);
+        } catch (IOException | ServletException | RuntimeException exc) {
+            requests.asMap().remove(key, ownRequest);
+            ownResponse.completeExceptionally(exc);
+            throw exc;
+        }
+        StoredResponse storedResponse = new StoredResponse(cachingResponse.getStatus(),
+                cachingResponse.getContentType(), cachingResponse.getContentAsByteArray());
+        if (storedResponse.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            requests.asMap().remove(key, ownRequest);
+        }
+        ownResponse.complete(storedResponse); // ожидающие повторы получают тот же ответ
+        cachingResponse.copyBodyToResponse();
+    }
+
+    private void replay(CompletableFuture<StoredResponse> firstResponse, HttpServletResponse response)
+            throws IOException {
+        StoredResponse storedResponse;
+        try {
+            storedResponse = firstResponse.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exc) {
+            writeError(response, HttpStatus.CONFLICT, "Запрос с этим ключом идемпотентности еще выполняется!");
+            return;
+        } catch (ExecutionException exc) {
+            writeError(response, HttpStatus.CONFLICT, "Запрос с этим ключом идемпотентности завершился ошибкой, " +
+                    "повторите его!");
+            return;
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            writeError(response, HttpStatus.CONFLICT, "Запрос с этим ключом идемпотентности еще выполняется!");
+            return;
+        }
+        response.setStatus(storedResponse.getStatus());
+        if (storedResponse.getContentType() != null) {
+            response.setContentType(storedResponse.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(storedResponse.getBody().length);
+        response.getOutputStream().write(storedResponse.getBody());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message));
+    }
+}
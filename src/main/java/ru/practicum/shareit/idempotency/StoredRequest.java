@@ -0,0 +1,32 @@
+package ru.practicum.shareit.idempotency;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+
+// первый запрос с ключом идемпотентности: хэш его тела и ответ, который получат повторы. Повтор с тем же ключом,
+// но другим телом - это другой запрос, и ответ первого ему не подходит
+class StoredRequest {
+    private final byte[] bodyHash;
+    private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+    StoredRequest(byte[] body) {
+        bodyHash = sha256(body);
+    }
+
+    boolean hasSameBody(StoredRequest other) {
+        return MessageDigest.isEqual(bodyHash, other.bodyHash);
+    }
+
+    CompletableFuture<StoredResponse> getResponse() {
+        return response;
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException exc) { // SHA-256 обязан поддерживать любой JRE
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", exc);
+        }
+    }
+}
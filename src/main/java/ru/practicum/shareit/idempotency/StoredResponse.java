@@ -0,0 +1,26 @@
+package ru.practicum.shareit.idempotency;
+
+// ответ на первый запрос с ключом идемпотентности, который возвращается повторным запросам без изменений
+class StoredResponse {
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+
+    StoredResponse(int statusArg, String contentTypeArg, byte[] bodyArg) {
+        status = statusArg;
+        contentType = contentTypeArg;
+        body = bodyArg;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+}
@@ -3,18 +3,22 @@ package ru.practicum.shareit.item;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Validated
@@ -72,18 +76,49 @@ public class ItemController {
         return item;
     }
 
+    // свободные и занятые отрезки календаря вещи; без параметров - на 30 дней от текущего момента
+    @GetMapping(path = "/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+            @PathVariable int itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Пришел GET /items/{}/availability?from={}&to={} запрос c заголовком 'X-Sharer-User-Id': " + '\n' +
+                "Содержимое заголовка 'X-Sharer-User-Id': {}", itemId, from, to, userId);
+        final ItemAvailabilityDto availability = itemService.getAvailability(userId, itemId, from, to);
+        log.info("На GET /items/{}/availability запрос отправлен ответ с {} отрезками", itemId,
+                availability.getIntervals().size());
+        return availability;
+    }
+
     @GetMapping(path = "/search")
     public List<ItemDto> searchItemsForUser(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
             @RequestParam String text,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false, defaultValue = "false") boolean ranked,
             @RequestParam(required = false, defaultValue = "0") @PositiveOrZero Integer from,
             @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(25) Integer size) {
-        log.info("Пришел GET /items/search?text={}&from={}&size={} запрос c заголовком 'X-Sharer-User-Id': " + '\n' +
-                "Содержимое заголовка 'X-Sharer-User-Id': {}", text, userId, from, size);
-        final List<ItemDto> itemsList = itemService.searchItems(userId, text, from, size);
+        log.info("Пришел GET /items/search?text={}&start={}&end={}&ranked={}&from={}&size={} запрос c заголовком " +
+                "'X-Sharer-User-Id': " + '\n' + "Содержимое заголовка 'X-Sharer-User-Id': {}",
+                text, start, end, ranked, from, size, userId);
+        final List<ItemDto> itemsList = itemService.searchItems(userId, text, start, end, ranked, from, size);
         log.info("На GET /items/search?text={} запрос отправлен ответ с размером тела: {}", text, itemsList.size());
         return itemsList;
     }
 
+    // подсказки для строки поиска: доступные вещи, название которых начинается с prefix, популярные первыми
+    @GetMapping(path = "/suggest")
+    public List<ItemSuggestionDto> suggestItems(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
+            @RequestParam String prefix,
+            @RequestParam(required = false, defaultValue = "10") @Min(1) @Max(10) Integer limit) {
+        log.info("Пришел GET /items/suggest?prefix={}&limit={} запрос c заголовком 'X-Sharer-User-Id': " + '\n' +
+                "Содержимое заголовка 'X-Sharer-User-Id': {}", prefix, limit, userId);
+        final List<ItemSuggestionDto> suggestions = itemService.suggestItems(userId, prefix, limit);
+        log.info("На GET /items/suggest?prefix={} запрос отправлен ответ с размером тела: {}", prefix,
+                suggestions.size());
+        return suggestions;
+    }
+
     @PostMapping(path = "/{itemId}/comment")
     public CommentDto createComment(@RequestHeader(value = "X-Sharer-User-Id") Integer userId,
                                     @PathVariable int itemId, @Valid @RequestBody CommentDto commentDto) {
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// свободный или занятый бронированием отрезок календаря вещи
+@Getter
+public class AvailabilityIntervalDto {
+    public static final String FREE = "FREE";
+    public static final String OCCUPIED = "OCCUPIED";
+
+    private final LocalDateTime start; // включительно
+    private final LocalDateTime end; // не включительно
+    private final String state;
+    private final Integer bookingId; // бронирование, занимающее отрезок; видно только владельцу вещи
+
+    public AvailabilityIntervalDto(LocalDateTime startArg, LocalDateTime endArg, String stateArg,
+                                   Integer bookingIdArg) {
+        start = startArg;
+        end = endArg;
+        state = stateArg;
+        bookingId = bookingIdArg;
+    }
+
+    @Override
+    public String toString() {
+        return "AvailabilityIntervalDto{" + "start=" + start + ", end=" + end + ", state='" + state + '\'' +
+                ", bookingId=" + bookingId + "}";
+    }
+}
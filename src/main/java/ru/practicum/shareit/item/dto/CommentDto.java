@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -16,8 +18,17 @@ public class CommentDto {
     private String authorName;
     private LocalDateTime created;
 
+    @JsonIgnore
+    private int itemId; // вещь комментария, по ней комментарии страницы вещей раскладываются по вещам
+
+    @JsonCreator // из тела запроса комментарий создается этим конструктором, идентификатора вещи в теле нет
     public CommentDto(Integer idArg, String textArg, String authorNameArg, LocalDateTime createdArg) {
+        this(idArg, 0, textArg, authorNameArg, createdArg);
+    }
+
+    public CommentDto(Integer idArg, int itemIdArg, String textArg, String authorNameArg, LocalDateTime createdArg) {
         id = idArg;
+        itemId = itemIdArg;
         text = textArg;
         authorName = authorNameArg;
         created = createdArg;
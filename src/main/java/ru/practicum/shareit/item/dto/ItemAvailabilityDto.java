@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// календарь вещи на период [from, to): отрезки идут подряд без пропусков и покрывают весь период
+@Getter
+public class ItemAvailabilityDto {
+    private final int itemId;
+    private final Boolean available; // если false, вещь недоступна для аренды независимо от календаря
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final List<AvailabilityIntervalDto> intervals;
+
+    public ItemAvailabilityDto(int itemIdArg, Boolean availableArg, LocalDateTime fromArg, LocalDateTime toArg,
+                               List<AvailabilityIntervalDto> intervalsArg) {
+        itemId = itemIdArg;
+        available = availableArg;
+        from = fromArg;
+        to = toArg;
+        intervals = intervalsArg;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemAvailabilityDto{" + "itemId=" + itemId + ", available=" + available + ", from=" + from +
+                ", to=" + to + ", intervals=" + intervals + "}";
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item.dto;
 
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.OwnerItemView;
 
 import java.util.List;
 
@@ -16,4 +17,6 @@ public interface ItemMapper {
                                                                 Booking lastBooking,
                                                                 Booking nextBooking,
                                                                 List<CommentDto> comments);
+
+    ItemDtoWithBookingAndComment toItemDtoWithBookingAndComment(OwnerItemView item, List<CommentDto> comments);
 }
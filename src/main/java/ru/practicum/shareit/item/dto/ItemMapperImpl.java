@@ -6,6 +6,7 @@ import ru.practicum.shareit.booking.dto.BookingDtoWithoutItemField;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.OwnerItemView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 
@@ -77,6 +78,23 @@ public class ItemMapperImpl implements ItemMapper {
                 item.getIsAvailable(), last, next, comments, requestId);
     }
 
+    @Override
+    public ItemDtoWithBookingAndComment toItemDtoWithBookingAndComment(OwnerItemView item, List<CommentDto> comments) {
+        BookingDtoWithoutItemField last = null;
+        BookingDtoWithoutItemField next = null;
+
+        if (item.getLastBookingId() != null) {
+            last = new BookingDtoWithoutItemField(item.getLastBookingId(), item.getLastBookerId(),
+                    item.getLastStart(), item.getLastEnd());
+        }
+        if (item.getNextBookingId() != null) {
+            next = new BookingDtoWithoutItemField(item.getNextBookingId(), item.getNextBookerId(),
+                    item.getNextStart(), item.getNextEnd());
+        }
+        return new ItemDtoWithBookingAndComment(item.getId(), item.getName(), item.getDescription(),
+                item.getAvailable(), last, next, comments, item.getRequestId());
+    }
+
     private ItemRequest getItemRequest(Integer requestId) {
         Optional<ItemRequest> itemRequestOptional = itemRequestRepository.findById(requestId);
         if (itemRequestOptional.isEmpty()) {
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Getter;
+
+// подсказка к строке поиска: доступная вещь, название которой начинается с введенного текста
+@Getter
+public class ItemSuggestionDto {
+    private final int id;
+    private final String name;
+
+    public ItemSuggestionDto(int idArg, String nameArg) {
+        id = idArg;
+        name = nameArg;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemSuggestionDto{" + "id=" + id + ", name='" + name + "'}";
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item.index;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Проиндексированное состояние вещи: тексты в нижнем регистре для точной проверки совпадения и
+// n-граммы, по которым вещь записана в индекс (нужны, чтобы убрать вещь из индекса при обновлении)
+class IndexedItem {
+    static final int MAX_GRAM_LENGTH = 3;
+
+    private final int id;
+    private final int ownerId;
+    private final boolean available;
+    private final String name;
+    private final String description;
+    private final Set<String> grams = new HashSet<>();
+
+    IndexedItem(int idArg, int ownerIdArg, boolean availableArg, String nameArg, String descriptionArg) {
+        id = idArg;
+        ownerId = ownerIdArg;
+        available = availableArg;
+        name = normalize(nameArg);
+        description = normalize(descriptionArg);
+        addGrams(name);
+        addGrams(description);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int getOwnerId() {
+        return ownerId;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    Set<String> getGrams() {
+        return grams;
+    }
+
+    // n-граммы совпали, проверяем, что текст запроса действительно входит в название или описание
+    boolean contains(String normalizedText) {
+        return name.contains(normalizedText) || description.contains(normalizedText);
+    }
+
+    // число вхождений текста запроса в название и в описание (без перекрытий) для оценки совпадения
+    int countInName(String normalizedText) {
+        return countOccurrences(name, normalizedText);
+    }
+
+    int countInDescription(String normalizedText) {
+        return countOccurrences(description, normalizedText);
+    }
+
+    private static int countOccurrences(String text, String part) {
+        int count = 0;
+        int index = text.indexOf(part);
+        while (index >= 0) {
+            count++;
+            index = text.indexOf(part, index + part.length());
+        }
+        return count;
+    }
+
+    // все подстроки длиной от 1 до MAX_GRAM_LENGTH: короткие запросы ищутся по своей n-грамме целиком
+    private void addGrams(String text) {
+        for (int start = 0; start < text.length(); start++) {
+            int maxEnd = Math.min(text.length(), start + MAX_GRAM_LENGTH);
+            for (int end = start + 1; end <= maxEnd; end++) {
+                grams.add(text.substring(start, end));
+            }
+        }
+    }
+}
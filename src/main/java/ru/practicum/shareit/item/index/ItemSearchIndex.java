@@ -0,0 +1,486 @@
+package ru.practicum.shareit.item.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingCountView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// Инвертированный индекс для поиска вещей по подстроке в названии и описании: для каждой n-граммы
+// (длиной до трех символов) хранятся отсортированные идентификаторы вещей, в тексте которых она встречается.
+// Запрос разбивается на n-граммы, множества пересекаются начиная с самого маленького, а кандидаты проверяются
+// на точное вхождение текста. Индекс строится из БД при первом обращении и далее поддерживается при записи вещей.
+// Страницы поиска только по тексту кэшируются; при записи вещи из кэша убираются лишь те запросы, выдачу которых
+// изменение вещи затрагивает, а проверяются только запросы, первая n-грамма которых есть в тексте вещи.
+// Ранжированный поиск упорядочивает совпадения по оценке релевантности, а не по id
+@Component
+public class ItemSearchIndex {
+    static final String RESULT_CACHE_NAME = "itemSearch";
+    private static final String HIT_RATIO_METRIC = "items.search.cache.hit.ratio";
+    // границы пачки кандидатов: фильтр блокирует вещи пачки одновременно, поэтому пачка не должна быть большой
+    private static final int MIN_CANDIDATE_BATCH = 64;
+    private static final int MAX_CANDIDATE_BATCH = 256;
+    // веса оценки ранжированного поиска: вхождение в название важнее вхождения в описание, недавние бронирования
+    // добавляют логарифм своего числа
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double POPULARITY_WEIGHT = 1.0;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final long popularityHalfLifeMs;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, NavigableSet<Integer>> itemIdsByGram = new HashMap<>();
+    private final Map<Integer, IndexedItem> itemsById = new HashMap<>();
+    private final Map<Integer, RecentBookings> recentBookingsByItem = new HashMap<>();
+    private final Cache<SearchResultKey, List<Integer>> resultCache;
+    // ключи закэшированных страниц по первой n-грамме текста запроса. Ключи, вытесненные из кэша, убираются
+    // при очистке под блокировкой записи, а не сразу, поэтому ключей здесь может быть больше, чем страниц в кэше
+    private final Map<String, Set<SearchResultKey>> cachedKeysByGram = new ConcurrentHashMap<>();
+    private final AtomicLong cachedKeyCount = new AtomicLong();
+    private final long cachedKeyLimit;
+    private long generation; // номер изменения индекса, меняется под блокировкой записи
+    private volatile boolean loaded;
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepositoryArg, BookingRepository bookingRepositoryArg,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.item-search.cache-max-entries:10000}") long cacheMaxEntries,
+                           @Value("${shareit.item-search.popularity-half-life-days:30}") long popularityHalfLifeDays) {
+        itemRepository = itemRepositoryArg;
+        bookingRepository = bookingRepositoryArg;
+        popularityHalfLifeMs = TimeUnit.DAYS.toMillis(popularityHalfLifeDays);
+        cachedKeyLimit = 2 * cacheMaxEntries;
+        resultCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .recordStats()
+                .build();
+        // попадания, промахи и вытеснения - стандартные метрики cache.* с тегом cache=itemSearch
+        CaffeineCacheMetrics.monitor(meterRegistry, resultCache, RESULT_CACHE_NAME);
+        Gauge.builder(HIT_RATIO_METRIC, resultCache, cache -> cache.stats().hitRate())
+                .description("Доля поисковых запросов, страница которых взята из кэша")
+                .register(meterRegistry);
+    }
+
+    // добавляет вещь в индекс или заменяет ее прежнее состояние после обновления
+    public void index(Item item) {
+        loadIfNecessary();
+        lock.writeLock().lock();
+        try {
+            IndexedItem previous = itemsById.get(item.getId());
+            put(item);
+            invalidateResults(previous, itemsById.get(item.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // убирает из индекса вещи владельца, например, после удаления пользователя вместе с его вещами
+    public void removeItemsOfOwner(int ownerId) {
+        loadIfNecessary();
+        lock.writeLock().lock();
+        try {
+            List<Integer> itemIds = new ArrayList<>();
+            for (IndexedItem item : itemsById.values()) {
+                if (item.getOwnerId() == ownerId) {
+                    itemIds.add(item.getId());
+                }
+            }
+            for (Integer itemId : itemIds) {
+                invalidateResults(remove(itemId), null);
+                recentBookingsByItem.remove(itemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // у вещи создано бронирование: она поднимается в ранжированном поиске
+    public void addBooking(int itemId) {
+        loadIfNecessary();
+        long nowMs = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            recentBookingsByItem.computeIfAbsent(itemId, id -> new RecentBookings(0, nowMs))
+                    .add(nowMs, popularityHalfLifeMs);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // возвращает идентификаторы доступных для аренды вещей, в названии или описании которых есть текст,
+    // по возрастанию идентификатора; from - количество пропускаемых вещей, size - размер страницы
+    public List<Integer> search(String text, int from, int size) {
+        String normalizedText = IndexedItem.normalize(text);
+        if (normalizedText.isEmpty() || size <= 0) {
+            return new ArrayList<>();
+        }
+        loadIfNecessary();
+        SearchResultKey key = new SearchResultKey(normalizedText, from, size);
+        List<Integer> cached = resultCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long searchGeneration;
+        lock.readLock().lock();
+        try {
+            searchGeneration = generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Integer> result = search(text, from, size, UnaryOperator.identity());
+        lock.readLock().lock();
+        try {
+            // вещи, измененные во время поиска, могли не попасть в страницу: такую страницу не кэшируем,
+            // а проверка и запись под блокировкой чтения не пересекаются с очисткой кэша при записи вещи
+            if (generation == searchGeneration) {
+                rememberCachedKey(key);
+                resultCache.put(key, List.copyOf(result));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (cachedKeyCount.get() > cachedKeyLimit) {
+            forgetEvictedKeys();
+        }
+        return result;
+    }
+
+    // то же, но найденные по тексту кандидаты дополнительно проходят через candidateFilter: фильтр получает пачку
+    // идентификаторов по возрастанию и возвращает подходящие из них. Пачки выбираются по курсору (последний id
+    // предыдущей пачки), а фильтр вызывается без блокировки индекса, поэтому может обращаться к БД.
+    // Результат зависит от фильтра, поэтому не кэшируется
+    public List<Integer> search(String text, int from, int size, UnaryOperator<List<Integer>> candidateFilter) {
+        List<Integer> result = new ArrayList<>();
+        String normalizedText = IndexedItem.normalize(text);
+        if (normalizedText.isEmpty() || size <= 0) {
+            return result;
+        }
+        loadIfNecessary();
+        // без отсева фильтром небольшая страница целиком помещается в первую пачку
+        int batchSize = Math.min(Math.max(from + size, MIN_CANDIDATE_BATCH), MAX_CANDIDATE_BATCH);
+        int skipped = 0;
+        int afterId = Integer.MIN_VALUE;
+        while (true) {
+            List<Integer> candidates = findMatches(normalizedText, afterId, batchSize);
+            if (candidates.isEmpty()) {
+                return result;
+            }
+            afterId = candidates.get(candidates.size() - 1);
+            for (Integer itemId : candidateFilter.apply(candidates)) {
+                if (skipped < from) {
+                    skipped++;
+                    continue;
+                }
+                result.add(itemId);
+                if (result.size() == size) {
+                    return result;
+                }
+            }
+            if (candidates.size() < batchSize) { // совпадений по тексту больше нет
+                return result;
+            }
+        }
+    }
+
+    // те же вещи, что и search, но по убыванию оценки релевантности (при равной оценке - по возрастанию id).
+    // Совпадения оцениваются за один проход под блокировкой чтения, в куче остаются только from + size лучших
+    public List<Integer> searchRanked(String text, int from, int size) {
+        String normalizedText = IndexedItem.normalize(text);
+        if (normalizedText.isEmpty() || size <= 0) {
+            return new ArrayList<>();
+        }
+        loadIfNecessary();
+        long nowMs = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<Integer>> postings = findPostings(normalizedText);
+            if (postings.isEmpty()) {
+                return new ArrayList<>();
+            }
+            NavigableSet<Integer> candidates = postings.get(0);
+            TopScoredIds top = new TopScoredIds((int) Math.min((long) from + size, candidates.size()));
+            for (Integer itemId : candidates) {
+                if (containsInAll(postings, itemId)) {
+                    offerIfMatches(top, itemsById.get(itemId), normalizedText, nowMs);
+                }
+            }
+            return top.toPage(from);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ранжированный поиск среди кандидатов, прошедших candidateFilter: пачки выбираются так же, как в search,
+    // но просматриваются все совпадения, а оцениваются только принятые фильтром вещи
+    public List<Integer> searchRanked(String text, int from, int size, UnaryOperator<List<Integer>> candidateFilter) {
+        String normalizedText = IndexedItem.normalize(text);
+        if (normalizedText.isEmpty() || size <= 0) {
+            return new ArrayList<>();
+        }
+        loadIfNecessary();
+        long nowMs = System.currentTimeMillis();
+        TopScoredIds top;
+        lock.readLock().lock();
+        try {
+            top = new TopScoredIds((int) Math.min((long) from + size, itemsById.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        int afterId = Integer.MIN_VALUE;
+        while (true) {
+            List<Integer> candidates = findMatches(normalizedText, afterId, MAX_CANDIDATE_BATCH);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            afterId = candidates.get(candidates.size() - 1);
+            List<Integer> accepted = candidateFilter.apply(candidates);
+            lock.readLock().lock();
+            try {
+                // пока работал фильтр, вещь могла измениться: оценивается ее текущее состояние
+                for (Integer itemId : accepted) {
+                    offerIfMatches(top, itemsById.get(itemId), normalizedText, nowMs);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (candidates.size() < MAX_CANDIDATE_BATCH) {
+                break;
+            }
+        }
+        return top.toPage(from);
+    }
+
+    // не более limit доступных вещей с текстом и идентификатором больше afterId, по возрастанию идентификатора
+    private List<Integer> findMatches(String normalizedText, int afterId, int limit) {
+        List<Integer> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<Integer>> postings = findPostings(normalizedText);
+            if (postings.isEmpty()) {
+                return result;
+            }
+            for (Integer itemId : postings.get(0).tailSet(afterId, false)) {
+                if (!containsInAll(postings, itemId)) {
+                    continue;
+                }
+                IndexedItem item = itemsById.get(itemId);
+                if (!item.isAvailable() || !item.contains(normalizedText)) {
+                    continue;
+                }
+                result.add(itemId);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // множества вещей для n-грамм запроса, начиная с самого маленького; пустой список, если какой-то n-граммы
+    // нет ни в одной вещи и совпадений быть не может. Вызывается под блокировкой
+    private List<NavigableSet<Integer>> findPostings(String normalizedText) {
+        List<NavigableSet<Integer>> postings = new ArrayList<>();
+        for (String gram : toQueryGrams(normalizedText)) {
+            NavigableSet<Integer> itemIds = itemIdsByGram.get(gram);
+            if (itemIds == null) {
+                return List.of();
+            }
+            postings.add(itemIds);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        return postings;
+    }
+
+    private void offerIfMatches(TopScoredIds top, IndexedItem item, String normalizedText, long nowMs) {
+        if (item == null || !item.isAvailable() || !item.contains(normalizedText)) {
+            return;
+        }
+        top.offer(item.getId(), score(item, normalizedText, nowMs));
+    }
+
+    // повторы текста дают убывающую прибавку (1 + ln tf), как и число недавних бронирований (ln(1 + n))
+    private double score(IndexedItem item, String normalizedText, long nowMs) {
+        double score = NAME_WEIGHT * termWeight(item.countInName(normalizedText)) +
+                DESCRIPTION_WEIGHT * termWeight(item.countInDescription(normalizedText));
+        RecentBookings recentBookings = recentBookingsByItem.get(item.getId());
+        if (recentBookings != null) {
+            score += POPULARITY_WEIGHT * Math.log1p(recentBookings.valueAt(nowMs, popularityHalfLifeMs));
+        }
+        return score;
+    }
+
+    private static double termWeight(int occurrences) {
+        return occurrences == 0 ? 0 : 1 + Math.log(occurrences);
+    }
+
+    private void loadIfNecessary() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                for (Item item : itemRepository.findAll()) {
+                    put(item);
+                }
+                // бронирования, начавшиеся за последний период полураспада или позже, считаются созданными сейчас
+                long nowMs = System.currentTimeMillis();
+                LocalDateTime since = LocalDateTime.now().minusSeconds(popularityHalfLifeMs / 1000);
+                for (ItemBookingCountView count : bookingRepository.countBookingsByItemSince(since)) {
+                    recentBookingsByItem.put(count.getItemId(), new RecentBookings(count.getBookingCount(), nowMs));
+                }
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Item item) {
+        remove(item.getId());
+        IndexedItem indexedItem = new IndexedItem(item.getId(), item.getOwnerId(),
+                Boolean.TRUE.equals(item.getIsAvailable()), item.getName(), item.getDescription());
+        itemsById.put(indexedItem.getId(), indexedItem);
+        for (String gram : indexedItem.getGrams()) {
+            itemIdsByGram.computeIfAbsent(gram, g -> new TreeSet<>()).add(indexedItem.getId());
+        }
+    }
+
+    private IndexedItem remove(int itemId) {
+        IndexedItem removed = itemsById.remove(itemId);
+        if (removed == null) {
+            return null;
+        }
+        for (String gram : removed.getGrams()) {
+            NavigableSet<Integer> itemIds = itemIdsByGram.get(gram);
+            itemIds.remove(itemId);
+            if (itemIds.isEmpty()) {
+                itemIdsByGram.remove(gram);
+            }
+        }
+        return removed;
+    }
+
+    // страница запроса меняется, только если вещь вошла в выдачу запроса или выпала из нее: остальные
+    // закэшированные страницы остаются верными. Запрос, в выдаче которого вещь была или стала, содержится в ее
+    // тексте вместе со своей первой n-граммой, поэтому проверяются только ключи с n-граммами вещи.
+    // Вызывается под блокировкой записи
+    private void invalidateResults(IndexedItem previous, IndexedItem current) {
+        generation++;
+        Set<String> grams = new HashSet<>();
+        if (previous != null) {
+            grams.addAll(previous.getGrams());
+        }
+        if (current != null) {
+            grams.addAll(current.getGrams());
+        }
+        for (String gram : grams) {
+            Set<SearchResultKey> keys = cachedKeysByGram.get(gram);
+            if (keys == null) {
+                continue;
+            }
+            Iterator<SearchResultKey> iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                SearchResultKey key = iterator.next();
+                boolean cached = resultCache.asMap().containsKey(key);
+                if (cached && matches(previous, key.getNormalizedText()) != matches(current, key.getNormalizedText())) {
+                    resultCache.invalidate(key);
+                    cached = false;
+                }
+                if (!cached) {
+                    iterator.remove();
+                    cachedKeyCount.decrementAndGet();
+                }
+            }
+            if (keys.isEmpty()) {
+                cachedKeysByGram.remove(gram);
+            }
+        }
+    }
+
+    // ключ запоминается до записи страницы в кэш и под блокировкой чтения, поэтому очистка под блокировкой
+    // записи видит ключи всех закэшированных страниц
+    private void rememberCachedKey(SearchResultKey key) {
+        String gram = toQueryGrams(key.getNormalizedText()).get(0);
+        if (cachedKeysByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key)) {
+            cachedKeyCount.incrementAndGet();
+        }
+    }
+
+    // убирает ключи страниц, вытесненных из кэша. Если индекс сейчас меняется, очистка откладывается
+    // до следующего поиска
+    private void forgetEvictedKeys() {
+        if (!lock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            long count = 0;
+            Iterator<Set<SearchResultKey>> iterator = cachedKeysByGram.values().iterator();
+            while (iterator.hasNext()) {
+                Set<SearchResultKey> keys = iterator.next();
+                keys.removeIf(key -> !resultCache.asMap().containsKey(key));
+                if (keys.isEmpty()) {
+                    iterator.remove();
+                }
+                count += keys.size();
+            }
+            cachedKeyCount.set(count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean matches(IndexedItem item, String normalizedText) {
+        return item != null && item.isAvailable() && item.contains(normalizedText);
+    }
+
+    // короткий запрос сам является n-граммой, длинный разбивается на n-граммы максимальной длины
+    private List<String> toQueryGrams(String normalizedText) {
+        List<String> grams = new ArrayList<>();
+        if (normalizedText.length() <= IndexedItem.MAX_GRAM_LENGTH) {
+            grams.add(normalizedText);
+            return grams;
+        }
+        for (int start = 0; start + IndexedItem.MAX_GRAM_LENGTH <= normalizedText.length(); start++) {
+            grams.add(normalizedText.substring(start, start + IndexedItem.MAX_GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private boolean containsInAll(List<NavigableSet<Integer>> postings, Integer itemId) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(itemId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.index;
+
+// Число недавних бронирований вещи с экспоненциальным затуханием: бронирование весит 1 в момент создания
+// и вдвое меньше после каждого периода полураспада. Хранится значение на момент последнего изменения,
+// поэтому старые бронирования не нужно отдельно исключать
+class RecentBookings {
+    private double count;
+    private long updatedAtMs;
+
+    RecentBookings(double countArg, long updatedAtMsArg) {
+        count = countArg;
+        updatedAtMs = updatedAtMsArg;
+    }
+
+    double valueAt(long nowMs, long halfLifeMs) {
+        return count * Math.pow(0.5, (double) Math.max(0, nowMs - updatedAtMs) / halfLifeMs);
+    }
+
+    void add(long nowMs, long halfLifeMs) {
+        count = valueAt(nowMs, halfLifeMs) + 1;
+        updatedAtMs = nowMs;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.item.index;
+
+import java.util.Objects;
+
+// Ключ кэша результатов поиска: текст запроса в нижнем регистре и запрошенная страница
+class SearchResultKey {
+    private final String normalizedText;
+    private final int from;
+    private final int size;
+
+    SearchResultKey(String normalizedTextArg, int fromArg, int sizeArg) {
+        normalizedText = normalizedTextArg;
+        from = fromArg;
+        size = sizeArg;
+    }
+
+    String getNormalizedText() {
+        return normalizedText;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchResultKey that = (SearchResultKey) o;
+        return from == that.from && size == that.size && normalizedText.equals(that.normalizedText);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(normalizedText, from, size);
+    }
+}
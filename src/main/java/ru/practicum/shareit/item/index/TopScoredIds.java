@@ -0,0 +1,87 @@
+package ru.practicum.shareit.item.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ограниченная куча лучших вещей по оценке: не более capacity пар (оценка, id) в параллельных массивах
+// без упаковки. В корне худшая из сохраненных пар, поэтому каждая новая сравнивается только с ним, а весь набор
+// совпадений никогда не сортируется. При равной оценке выше вещь с меньшим id
+class TopScoredIds {
+    private final double[] scores;
+    private final int[] ids;
+    private int size;
+
+    TopScoredIds(int capacity) {
+        scores = new double[capacity];
+        ids = new int[capacity];
+    }
+
+    void offer(int id, double score) {
+        if (size < scores.length) {
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (size > 0 && isWorse(scores[0], ids[0], score, id)) {
+            scores[0] = score;
+            ids[0] = id;
+            siftDown(0, size);
+        }
+    }
+
+    // идентификаторы по убыванию оценки без первых from: куча сортируется на месте, худшие уходят в конец
+    List<Integer> toPage(int from) {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        List<Integer> page = new ArrayList<>(Math.max(size - from, 0));
+        for (int i = from; i < size; i++) {
+            page.add(ids[i]);
+        }
+        size = 0;
+        return page;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(scores[index], ids[index], scores[parent], ids[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int worst = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && isWorse(scores[left], ids[left], scores[worst], ids[worst])) {
+                worst = left;
+            }
+            if (right < heapSize && isWorse(scores[right], ids[right], scores[worst], ids[worst])) {
+                worst = right;
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private static boolean isWorse(double score, int id, double otherScore, int otherId) {
+        return score < otherScore || (score == otherScore && id > otherId);
+    }
+
+    private void swap(int i, int j) {
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
@@ -13,6 +13,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Getter
 @Setter
@@ -40,6 +41,10 @@ public class Item {
     @JoinColumn(name = "request_id")
     private ItemRequest request; // если вещь добавляется по запросу, то переменная request != null
 
+    @Version
+    @Column(name = "version")
+    private long version; // версия строки для оптимистической блокировки
+
     public Item() { // конструктор без параметров для работы hibernate
     }
 
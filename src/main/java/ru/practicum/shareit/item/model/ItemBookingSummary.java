@@ -0,0 +1,48 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+// последнее и следующее бронирование вещи из таблицы item_booking_summaries; строки изменяются только
+// запросами пересчета ItemBookingSummaryRepository, поэтому сущность доступна лишь для чтения
+@Getter
+@Entity
+@Immutable
+@Table(name = "item_booking_summaries")
+public class ItemBookingSummary {
+    @Id
+    @Column(name = "item_id")
+    private int itemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    private Booking lastBooking; // последнее начавшееся бронирование (по дате окончания)
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    private Booking nextBooking; // ближайшее будущее бронирование
+
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil; // до этого момента строка актуальна, null - будущих бронирований нет
+
+    public ItemBookingSummary() { // конструктор без параметров для работы hibernate
+    }
+
+    public ItemBookingSummary(int itemIdArg, Booking lastBookingArg, Booking nextBookingArg,
+                              LocalDateTime validUntilArg) {
+        itemId = itemIdArg;
+        lastBooking = lastBookingArg;
+        nextBooking = nextBookingArg;
+        validUntil = validUntilArg;
+    }
+}
@@ -1,9 +1,12 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -15,7 +18,12 @@ public interface ItemService {
 
     ItemDtoWithBookingAndComment getItem(int itemId, int userId);
 
-    List<ItemDto> searchItems(int userId, String text, int from, int size);
+    ItemAvailabilityDto getAvailability(int userId, int itemId, LocalDateTime from, LocalDateTime to);
+
+    List<ItemDto> searchItems(int userId, String text, LocalDateTime start, LocalDateTime end, boolean ranked,
+                              int from, int size);
+
+    List<ItemSuggestionDto> suggestItems(int userId, String prefix, int limit);
 
     CommentDto createComment(int bookerId, int itemId, CommentDto commentDto);
 }
@@ -1,55 +1,76 @@
 package ru.practicum.shareit.item.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.DateTimeBookingException;
 import ru.practicum.shareit.exception.NotItemOwnerException;
 import ru.practicum.shareit.exception.ObjectNotAvailableException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.OwnerItemView;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.user.model.User;
-import ru.practicum.shareit.util.FutureBookingComparator;
-import ru.practicum.shareit.util.PastBookingComparator;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
-import static ru.practicum.shareit.util.Page.getPage;
+import java.util.function.UnaryOperator;
 
 @Service
 public class ItemServiceImpl implements ItemService {
+    private static final int DEFAULT_AVAILABILITY_DAYS = 30; // период календаря, если не указана дата окончания
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+
     private final ItemRepository itemRepository;
     private final ItemMapper itemMapper;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemBookingSummaries itemBookingSummaries;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemSuggestions itemSuggestions;
 
     @Autowired
     public ItemServiceImpl(UserRepository userRepositoryArg, ItemRepository itemRepositoryArg,
                            ItemMapper itemMapperArg, BookingRepository bookingRepositoryArg,
-                           CommentRepository commentRepositoryArg, CommentMapper commentMapperArg) {
+                           CommentRepository commentRepositoryArg, CommentMapper commentMapperArg,
+                           ItemSearchIndex itemSearchIndexArg, ItemBookingSummaries itemBookingSummariesArg,
+                           BookingIntervalIndex bookingIntervalIndexArg, ItemSuggestions itemSuggestionsArg) {
         itemRepository = itemRepositoryArg;
         itemMapper = itemMapperArg;
         userRepository = userRepositoryArg;
         bookingRepository = bookingRepositoryArg;
         commentRepository = commentRepositoryArg;
         commentMapper = commentMapperArg;
+        itemSearchIndex = itemSearchIndexArg;
+        itemBookingSummaries = itemBookingSummariesArg;
+        bookingIntervalIndex = bookingIntervalIndexArg;
+        itemSuggestions = itemSuggestionsArg;
     }
 
     @Override
@@ -58,12 +79,14 @@ public class ItemServiceImpl implements ItemService {
         Item newItem = itemMapper.toItem(itemDto);
         newItem.setOwnerId(userId);// добавляем id пользователя, т.е привязываем вещь к пользователю
         Item createdItem = itemRepository.save(newItem);// добавляем новую запись в таблицу items
+        itemSearchIndex.index(createdItem);// добавляем вещь в поисковый индекс
+        itemSuggestions.index(createdItem);// и в подсказки названий
         return itemMapper.toItemDto(createdItem);
     }
 
     @Override
     public ItemDto updateItem(int userId, int itemId, ItemDto itemDto) {
-        Optional<Item> optionalSavedItem = itemRepository.findById(itemId);
+        Optional<Item> optionalSavedItem = itemRepository.findItemById(itemId);
         if (optionalSavedItem.isEmpty()) {
             String message = String.format("Вещь с id=%d не найдена!", itemId);
             throw new ObjectNotFoundException(message);
@@ -74,35 +97,53 @@ public class ItemServiceImpl implements ItemService {
         checkItemOwner(userId, savedItem);// проверяем является ли пользователь владельцем вещи
 
         Item item = itemMapper.toItem(itemDto);// получаем обновленные данные вещи, которые нужно обновить в БД
-        Item updatedItem = updateItemInDb(savedItem, item);// обновляем запись в таблицу items
+        Item updatedItem;
+        try {
+            updatedItem = updateItemInDb(savedItem, item);// обновляем запись в таблицу items
+        } finally {
+            // запись кэша сбрасывается после сохранения, в том числе неудачного: снимок, прочитанный параллельно
+            // до изменения, в кэше не останется
+            itemRepository.evictItem(itemId);
+        }
+        itemSearchIndex.index(updatedItem);// обновляем вещь в поисковом индексе
+        itemSuggestions.index(updatedItem);// и в подсказках названий (название или доступность могли измениться)
         return itemMapper.toItemDto(updatedItem);
     }
 
     @Override
     public List<ItemDtoWithBookingAndComment> getItems(int userId, int from, int size) { // метод для просмотра списка всех вещей владельца
         List<ItemDtoWithBookingAndComment> result = new ArrayList<>();
-        List<Item> items = itemRepository.findItemsByOwnerId(userId); // получаем список всех вещей владельца
-        // получаем список всех бронирований для всех вещей владельца
-        Pageable pageable = getPage(from, size);
-        List<Booking> bookings = bookingRepository.findBookingsByItemOwnerId(userId, pageable); // пагинация
-        // получаем список всех комментариев для всех вещей владельца
-        List<Comment> comments = commentRepository.findCommentsByItemOwner(userId);
-
-        for (Item item : items) {
-            int itemId = item.getId();
-            // находим последнее завершенное бронирование текущей вещи
-            Optional<Booking> optionalLastBooking = findLastPastBooking(bookings, itemId);
-            Booking last = optionalLastBooking.orElse(null);
-            // находим ближайшее следующее бронироване текущей вещи
-            Optional<Booking> optionalNextBooking = findNearestFutureBooking(bookings, itemId);
-            Booking next = optionalNextBooking.orElse(null);
-            // находим список комментариев для текущей вещи
-            List<Comment> commentsForCurrentItem = findCommentsForCurrentItem(comments, itemId);
-            List<CommentDto> commentDtoList = commentMapper.toCommentDtoList(commentsForCurrentItem);
+        // получаем страницу вещей владельца вместе с последним и следующим бронированием каждой вещи
+        List<OwnerItemView> items = itemRepository.findOwnerItemsWithLastAndNextBookings(userId, from, size);
+        if (items.isEmpty()) {
+            return result;
+        }
+        // если у части вещей страницы наступило ближайшее бронирование, а плановый пересчет до них еще не дошел,
+        // пересчитываем их и перечитываем страницу
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> expiredItemIds = new ArrayList<>();
+        for (OwnerItemView item : items) {
+            if (itemBookingSummaries.isExpired(item.getSummaryValidUntil(), now)) {
+                expiredItemIds.add(item.getId());
+            }
+        }
+        if (!expiredItemIds.isEmpty()) {
+            itemBookingSummaries.refresh(expiredItemIds);
+            items = itemRepository.findOwnerItemsWithLastAndNextBookings(userId, from, size);
+        }
+        // получаем комментарии только для вещей текущей страницы и группируем их по вещам
+        List<Integer> itemIds = new ArrayList<>();
+        for (OwnerItemView item : items) {
+            itemIds.add(item.getId());
+        }
+        Map<Integer, List<CommentDto>> commentsByItemId = new HashMap<>();
+        for (CommentDto comment : commentRepository.findCommentDtosByItemIdIn(itemIds)) {
+            commentsByItemId.computeIfAbsent(comment.getItemId(), id -> new ArrayList<>()).add(comment);
+        }
 
-            ItemDtoWithBookingAndComment itemDto = itemMapper
-                    .toItemDtoWithBookingAndComment(item, last, next, commentDtoList);
-            result.add(itemDto);
+        for (OwnerItemView item : items) {
+            List<CommentDto> commentDtoList = commentsByItemId.getOrDefault(item.getId(), new ArrayList<>());
+            result.add(itemMapper.toItemDtoWithBookingAndComment(item, commentDtoList));
         }
         return result;
     }
@@ -115,36 +156,117 @@ public class ItemServiceImpl implements ItemService {
             throw new ObjectNotFoundException(message);
         }
         Item item = optionalItem.get(); // получаем значение содержащиеся в optionalItem
-
-        // находим список всех бронирований определенной вещи
-        List<Booking> bookings = bookingRepository.findBookingsByItemIdAndStatusNot(itemId, Status.REJECTED,
-                Sort.by(Sort.Direction.DESC, "startBookingDate"));
-        // находим последнее завершенное бронирование вещи
-        Optional<Booking> optionalLastBooking = findLastPastBooking(bookings, itemId);
-        Booking last = optionalLastBooking.orElse(null);
-        // находим ближайшее следующее бронироване вещи
-        Optional<Booking> optionalNextBooking = findNearestFutureBooking(bookings, itemId);
-        Booking next = optionalNextBooking.orElse(null);
         // находим список комментариев для опреденной вещи
-        List<Comment> comments = commentRepository.findCommentsByItemId(itemId);
-        List<CommentDto> commentDtoList = commentMapper.toCommentDtoList(comments);
+        List<CommentDto> commentDtoList = commentRepository.findCommentDtosByItemId(itemId);
 
-        if (userId != item.getOwnerId()) {
+        if (userId != item.getOwnerId()) { // бронирования вещи видит только ее владелец
             return itemMapper.toItemDtoWithBookingAndComment(item, null, null, commentDtoList);
         }
+        // последнее и следующее бронирование вещи рассчитаны заранее и читаются одним запросом
+        Optional<ItemBookingSummary> summary = itemBookingSummaries.getSummary(itemId);
+        Booking last = summary.map(ItemBookingSummary::getLastBooking).orElse(null);
+        Booking next = summary.map(ItemBookingSummary::getNextBooking).orElse(null);
         return itemMapper.toItemDtoWithBookingAndComment(item, last, next, commentDtoList);
     }
 
     @Override
-    public List<ItemDto> searchItems(int userId, String text, int from, int size) {
+    public ItemAvailabilityDto getAvailability(int userId, int itemId, LocalDateTime from, LocalDateTime to) {
         checkUserExistence(userId);// проверяем наличие пользователя в БД
+        Optional<Item> optionalItem = itemRepository.findById(itemId);
+        if (optionalItem.isEmpty()) {
+            String message = String.format("Вещь с id=%d не найдена!", itemId);
+            throw new ObjectNotFoundException(message);
+        }
+        Item item = optionalItem.get();
+        LocalDateTime periodStart = from != null ? from : LocalDateTime.now().withNano(0);
+        LocalDateTime periodEnd = to != null ? to : periodStart.plusDays(DEFAULT_AVAILABILITY_DAYS);
+        if (!periodEnd.isAfter(periodStart)) {
+            String message = String.format("Дата окончания периода %s должна быть позже даты начала %s!",
+                    periodEnd, periodStart);
+            throw new DateTimeBookingException(message);
+        }
+        if (periodEnd.isAfter(periodStart.plusDays(MAX_AVAILABILITY_DAYS))) {
+            String message = String.format("Календарь вещи можно запросить не более чем на %d дней!",
+                    MAX_AVAILABILITY_DAYS);
+            throw new DateTimeBookingException(message);
+        }
+
+        // занятые интервалы отсортированы по дате начала, свободные отрезки - промежутки между ними.
+        // Бронирования, созданные до появления индекса, могут пересекаться: часть интервала, уже покрытая
+        // предыдущими, пропускается, поэтому отрезки ответа не пересекаются и курсор не идет назад
+        boolean isOwner = userId == item.getOwnerId();
+        List<AvailabilityIntervalDto> intervals = new ArrayList<>();
+        LocalDateTime cursor = periodStart;
+        for (BookingInterval occupied : bookingIntervalIndex.findOccupied(itemId, periodStart, periodEnd)) {
+            // крайние бронирования могут выходить за границы периода, их отрезки обрезаются
+            LocalDateTime occupiedStart = max(occupied.getStart(), periodStart);
+            LocalDateTime occupiedEnd = min(occupied.getEnd(), periodEnd);
+            if (!occupiedEnd.isAfter(cursor)) {
+                continue;
+            }
+            if (cursor.isBefore(occupiedStart)) {
+                intervals.add(new AvailabilityIntervalDto(cursor, occupiedStart, AvailabilityIntervalDto.FREE, null));
+            }
+            // удержание периода занимает его так же, как бронирование, но бронирования за ним еще нет
+            intervals.add(new AvailabilityIntervalDto(max(occupiedStart, cursor), occupiedEnd,
+                    AvailabilityIntervalDto.OCCUPIED, isOwner && !occupied.isHold() ? occupied.getBookingId() : null));
+            cursor = occupiedEnd;
+        }
+        if (cursor.isBefore(periodEnd)) {
+            intervals.add(new AvailabilityIntervalDto(cursor, periodEnd, AvailabilityIntervalDto.FREE, null));
+        }
+        return new ItemAvailabilityDto(itemId, item.getIsAvailable(), periodStart, periodEnd, intervals);
+    }
+
+    @Override
+    public List<ItemDto> searchItems(int userId, String text, LocalDateTime start, LocalDateTime end,
+                                     boolean ranked, int from, int size) {
+        checkUserExistence(userId);// проверяем наличие пользователя в БД
+        if ((start == null) != (end == null)) {
+            throw new DateTimeBookingException("Для поиска свободных вещей нужно указать и начало, и окончание!");
+        }
+        if (start != null && !end.isAfter(start)) {
+            String message = String.format("Дата окончания периода %s должна быть позже даты начала %s!", end, start);
+            throw new DateTimeBookingException(message);
+        }
         if (text.isBlank()) {
             return new ArrayList<>();
         }
-        String editText = text.toLowerCase();// приводим текст к нижнему регистру
-        Pageable pageable = getPage(from, size);
-        List<Item> items = itemRepository.searchItems(editText, pageable); // пагинация
-        return itemMapper.toItemDtoList(items);
+        List<Integer> itemIds; // идентификаторы вещей страницы
+        if (start == null) {
+            itemIds = ranked ? itemSearchIndex.searchRanked(text, from, size) : itemSearchIndex.search(text, from, size);
+        } else {
+            // найденные по тексту вещи пачками проверяются по индексу занятых интервалов, страница набирается
+            // только из вещей, свободных весь период
+            UnaryOperator<List<Integer>> freeOnly = candidates -> bookingIntervalIndex.filterFree(candidates, start, end);
+            itemIds = ranked ? itemSearchIndex.searchRanked(text, from, size, freeOnly)
+                    : itemSearchIndex.search(text, from, size, freeOnly);
+        }
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // читаем вещи страницы одним запросом сразу в ItemDto и восстанавливаем порядок, в котором их вернул индекс
+        Map<Integer, ItemDto> itemsById = new HashMap<>();
+        for (ItemDto item : itemRepository.findItemDtosByIdIn(itemIds)) {
+            itemsById.put(item.getId(), item);
+        }
+        List<ItemDto> items = new ArrayList<>();
+        for (Integer itemId : itemIds) {
+            ItemDto item = itemsById.get(itemId);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public List<ItemSuggestionDto> suggestItems(int userId, String prefix, int limit) {
+        checkUserExistence(userId);// проверяем наличие пользователя в БД
+        if (prefix.isBlank()) {
+            return new ArrayList<>();
+        }
+        return itemSuggestions.suggest(prefix, limit);
     }
 
     @Override
@@ -191,17 +313,30 @@ public class ItemServiceImpl implements ItemService {
         String updatedName = updatedDateForItem.getName();
         String updatedDescription = updatedDateForItem.getDescription();
         Boolean isAvailable = updatedDateForItem.getIsAvailable();
+        // изменения вносятся в копию, прочитанный экземпляр не должен содержать несохраненные данные
+        Item item = new Item(savedItem.getId(), savedItem.getName(), savedItem.getDescription(),
+                savedItem.getIsAvailable(), savedItem.getOwnerId());
+        item.setRequest(savedItem.getRequest());
+        item.setVersion(savedItem.getVersion()); // сохранение пройдет, только если вещь не изменили после чтения
 
         if (updatedName != null) {
-            savedItem.setName(updatedName);
+            item.setName(updatedName);
         }
         if (updatedDescription != null) {
-            savedItem.setDescription(updatedDescription);
+            item.setDescription(updatedDescription);
         }
         if (isAvailable != null) {
-            savedItem.setIsAvailable(isAvailable);
+            item.setIsAvailable(isAvailable);
         }
-        return itemRepository.save(savedItem);
+        return itemRepository.save(item);
+    }
+
+    private LocalDateTime max(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
     }
 
     private void checkBookingsExistence(int bookerId, int itemId) {
@@ -223,73 +358,4 @@ public class ItemServiceImpl implements ItemService {
             }
         }
     }
-
-    private Optional<Booking> findLastPastBooking(List<Booking> bookings, int itemId) {
-        List<Booking> pastBookings = new ArrayList<>();
-        if (bookings.isEmpty()) {
-            return Optional.empty();
-        }
-
-        for (Booking currentBooking : bookings) {
-            if (currentBooking.getItem().getId() != itemId) {
-                continue;
-            }
-            LocalDateTime endDateCurrentBooking = currentBooking.getEndBookingDate();
-            LocalDateTime startDateCurrentBooking = currentBooking.getStartBookingDate();
-            if (endDateCurrentBooking.isAfter(LocalDateTime.now())) {
-                if (startDateCurrentBooking.isBefore(LocalDateTime.now())) {
-                    pastBookings.add(currentBooking);
-                }
-                continue;
-            }
-            pastBookings.add(currentBooking);
-        }
-
-        pastBookings.sort(new PastBookingComparator());
-        if (pastBookings.isEmpty()) {
-            return Optional.empty();
-        }
-        Booking lastBooking = pastBookings.get(0);
-        return Optional.of(lastBooking);
-    }
-
-    private Optional<Booking> findNearestFutureBooking(List<Booking> bookings, int itemId) {
-        List<Booking> futureBookings = new ArrayList<>();
-        if (bookings.isEmpty()) {
-            return Optional.empty();
-        }
-
-        for (Booking currentBooking : bookings) {
-            if (currentBooking.getItem().getId() != itemId) {
-                continue;
-            }
-            LocalDateTime endDateCurrentBooking = currentBooking.getEndBookingDate();
-            LocalDateTime startDateCurrentBooking = currentBooking.getStartBookingDate();
-            if (endDateCurrentBooking.isAfter(LocalDateTime.now()) &&
-                    startDateCurrentBooking.isAfter(LocalDateTime.now())) {
-                futureBookings.add(currentBooking);
-            }
-        }
-
-        futureBookings.sort(new FutureBookingComparator());
-        if (futureBookings.isEmpty()) {
-            return Optional.empty();
-        }
-        Booking nextBooking = futureBookings.get(0);
-        return Optional.of(nextBooking);
-    }
-
-    private List<Comment> findCommentsForCurrentItem(List<Comment> comments, int itemId) {
-        List<Comment> result = new ArrayList<>();
-        if (comments.isEmpty()) {
-            return result;
-        }
-        for (Comment comment : comments) {
-            if (comment.getItem().getId() != itemId) {
-                continue;
-            }
-            result.add(comment);
-        }
-        return result;
-    }
 }
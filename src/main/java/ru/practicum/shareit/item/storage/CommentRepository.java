@@ -2,15 +2,27 @@ package ru.practicum.shareit.item.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
-    List<Comment> findCommentsByItemId(int itemId);
+    // комментарии читаются сразу в CommentDto вместе с именем автора, без загрузки сущностей Comment и User
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.item.dto.CommentDto(c.id, c.text, a.name, c.creationDate) " +
+            "FROM Comment AS c JOIN c.author AS a " +
+            "WHERE c.item.id = :itemId " +
+            "ORDER BY c.id")
+    List<CommentDto> findCommentDtosByItemId(int itemId);
 
-    @Query(value = "SELECT * FROM comments " +
-            "WHERE item_id IN ( SELECT id FROM items " +
-                                "WHERE owner_id = :ownerId)", nativeQuery = true)
-    List<Comment> findCommentsByItemOwner(int ownerId);
+    // комментарии для страницы вещей, идентификатор вещи нужен, чтобы разложить их по вещам
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.item.dto.CommentDto(c.id, c.item.id, c.text, a.name, c.creationDate) " +
+            "FROM Comment AS c JOIN c.author AS a " +
+            "WHERE c.item.id IN :itemIds " +
+            "ORDER BY c.id")
+    List<CommentDto> findCommentDtosByItemIdIn(Collection<Integer> itemIds);
 }
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Integer> {
+    // пересчет строк по бронированиям вещи на момент now теми же правилами, что и раньше при чтении:
+    // отклоненные и просроченные бронирования не учитываются, последнее - начавшееся с самой поздней датой окончания,
+    // следующее - будущее с самой ранней датой начала. Строка актуальна до начала ближайшего будущего бронирования
+    String RECOMPUTE = "UPDATE item_booking_summaries AS s SET " +
+            "last_booking_id = (SELECT b.id FROM bookings AS b " +
+                               "WHERE b.item_id = s.item_id AND b.booking_status NOT IN ('REJECTED', 'EXPIRED') " +
+                               "AND b.start_booking_date < :now " +
+                               "ORDER BY b.end_booking_date DESC LIMIT 1), " +
+            "next_booking_id = (SELECT b.id FROM bookings AS b " +
+                               "WHERE b.item_id = s.item_id AND b.booking_status NOT IN ('REJECTED', 'EXPIRED') " +
+                               "AND b.start_booking_date > :now " +
+                               "ORDER BY b.start_booking_date LIMIT 1), " +
+            "valid_until = (SELECT MIN(b.start_booking_date) FROM bookings AS b " +
+                           "WHERE b.item_id = s.item_id AND b.booking_status NOT IN ('REJECTED', 'EXPIRED') " +
+                           "AND b.start_booking_date >= :now) ";
+
+    @EntityGraph(attributePaths = {"lastBooking", "nextBooking"})
+    Optional<ItemBookingSummary> findSummaryByItemId(int itemId);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = RECOMPUTE + "WHERE s.item_id IN :itemIds", nativeQuery = true)
+    int recomputeSummaries(Collection<Integer> itemIds, LocalDateTime now);
+
+    // плановый пересчет: только строки, срок которых истек к моменту now
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = RECOMPUTE + "WHERE s.valid_until <= :now", nativeQuery = true)
+    int recomputeExpiredSummaries(LocalDateTime now);
+
+    // создает пустые строки для вещей, у которых их еще нет (первое бронирование вещи)
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO item_booking_summaries (item_id) " +
+            "SELECT i.id FROM items AS i WHERE i.id IN :itemIds " +
+            "AND NOT EXISTS (SELECT 1 FROM item_booking_summaries AS s WHERE s.item_id = i.id)", nativeQuery = true)
+    int insertMissingSummaries(Collection<Integer> itemIds);
+}
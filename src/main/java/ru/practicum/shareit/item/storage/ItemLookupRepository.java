@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Optional;
+
+public interface ItemLookupRepository {
+    // поиск вещи по id через кэш CacheNames.ITEMS: в кэше хранятся неизменяемые снимки,
+    // а findById каждый раз возвращает новую отсоединенную сущность
+    Optional<Item> findById(Integer id);
+
+    // сбрасывают записи кэша; вызываются после того, как изменение или удаление сохранено в БД
+    void evictItem(int id);
+
+    void evictAllItems();
+}
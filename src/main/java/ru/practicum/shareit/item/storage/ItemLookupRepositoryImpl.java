@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.CacheNames;
+import ru.practicum.shareit.util.SnapshotCache;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class ItemLookupRepositoryImpl implements ItemLookupRepository {
+    private final SnapshotCache<ItemSnapshot> items;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ItemLookupRepositoryImpl(CacheManager cacheManagerArg) {
+        items = new SnapshotCache<>(cacheManagerArg.getCache(CacheNames.ITEMS));
+    }
+
+    @Override
+    public Optional<Item> findById(Integer id) {
+        return items.get(id, this::loadItem).map(ItemSnapshot::toItem);
+    }
+
+    @Override
+    public void evictItem(int id) {
+        items.evict(id);
+    }
+
+    @Override
+    public void evictAllItems() {
+        items.clear();
+    }
+
+    // id запроса читается тем же запросом, что и вещь, без загрузки самого запроса
+    private Optional<ItemSnapshot> loadItem(int id) {
+        return entityManager.createQuery("SELECT i, r.id FROM Item i LEFT JOIN i.request r WHERE i.id = :id",
+                        Object[].class)
+                .setParameter("id", id)
+                .getResultList() // без транзакции курсор потока закрылся бы вместе с EntityManager
+                .stream()
+                .findFirst()
+                .map(row -> new ItemSnapshot((Item) row[0], (Integer) row[1]));
+    }
+}
@@ -1,37 +1,68 @@
 package ru.practicum.shareit.item.storage;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemRepository extends JpaRepository<Item, Integer> {
-    @Query(value = "SELECT * FROM items " +
-            "WHERE (LOWER(name) LIKE %:text% OR LOWER(description) LIKE %:text%) AND is_available = true",
-            nativeQuery = true)
-    List<Item> searchItems(String text, Pageable pageable);
-
-    List<Item> findItemsByOwnerId(int ownerId);
-
-    List<Item> findItemsByRequestId(int requestId);
-
-    @Query(value = "SELECT item.id, item.name, item.description, item.is_available, item.owner_id, item.request_id, " +
-                          "item_req.id, " +
-                          "item_req.description, " +
-                          "item_req.creation_date " +
-            "FROM (SELECT * FROM item_requests WHERE requester_id = :userId) AS item_req " +
-            "INNER JOIN items AS item ON item_req.id = item.request_id " +
-            "WHERE item.id IS NOT NULL", nativeQuery = true)
-    List<Item> findItemsByRequesterId(int userId);
-
-    @Query(value = "SELECT item.id, item.name, item.description, item.is_available, item.owner_id, item.request_id, " +
-                          "item_req.id, " +
-                          "item_req.description, " +
-                          "item_req.creation_date " +
-            "FROM (SELECT * FROM item_requests WHERE requester_id IN :requestIds) AS item_req " +
-            "INNER JOIN items AS item ON item_req.id = item.request_id " +
-            "WHERE item.id IS NOT NULL", nativeQuery = true)
-    List<Item> findItemsByRequestIdIn(List<Integer> requestIds);
+public interface ItemRepository extends JpaRepository<Item, Integer>, ItemLookupRepository {
+    // объявлен повторно, чтобы вызовы однозначно шли через кэш ItemLookupRepository
+    @Override
+    Optional<Item> findById(Integer id);
+
+    // чтение мимо кэша для изменения вещи: версия для проверки при сохранении берется из БД
+    Optional<Item> findItemById(int id);
+
+    boolean existsByOwnerId(int ownerId);
+
+    // страница вещей владельца вместе с последним и следующим бронированием каждой вещи: их идентификаторы
+    // заранее рассчитаны в item_booking_summaries, поэтому бронирования присоединяются по первичному ключу
+    @Query(value = "SELECT p.id AS \"id\", p.name AS \"name\", p.description AS \"description\", " +
+                   "p.is_available AS \"available\", p.request_id AS \"requestId\", " +
+                   "l.id AS \"lastBookingId\", l.booker_id AS \"lastBookerId\", " +
+                   "l.start_booking_date AS \"lastStart\", l.end_booking_date AS \"lastEnd\", " +
+                   "n.id AS \"nextBookingId\", n.booker_id AS \"nextBookerId\", " +
+                   "n.start_booking_date AS \"nextStart\", n.end_booking_date AS \"nextEnd\", " +
+                   "s.valid_until AS \"summaryValidUntil\" " +
+            "FROM (SELECT * FROM items WHERE owner_id = :ownerId ORDER BY id LIMIT :size OFFSET :offset) AS p " +
+            "LEFT JOIN item_booking_summaries AS s ON s.item_id = p.id " +
+            "LEFT JOIN bookings AS l ON l.id = s.last_booking_id " +
+            "LEFT JOIN bookings AS n ON n.id = s.next_booking_id " +
+            "ORDER BY p.id", nativeQuery = true)
+    List<OwnerItemView> findOwnerItemsWithLastAndNextBookings(int ownerId, int offset, int size);
+
+    // Запросы ниже только для чтения списков: конструктор в SELECT строит ItemDto прямо из строк результата,
+    // без сущностей в контексте сохранения, их снимков и проверки изменений при flush
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.isAvailable, r.id) " +
+            "FROM Item AS i LEFT JOIN i.request AS r " +
+            "WHERE i.id IN :ids")
+    List<ItemDto> findItemDtosByIdIn(Collection<Integer> ids);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.isAvailable, r.id) " +
+            "FROM Item AS i JOIN i.request AS r " +
+            "WHERE r.id = :requestId " +
+            "ORDER BY i.id")
+    List<ItemDto> findItemDtosByRequestId(int requestId);
+
+    // вещи, добавленные в ответ на любой из запросов пользователя userId
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.isAvailable, r.id) " +
+            "FROM Item AS i JOIN i.request AS r " +
+            "WHERE r.requester.id = :userId " +
+            "ORDER BY i.id")
+    List<ItemDto> findItemDtosByRequesterId(int userId);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.isAvailable, r.id) " +
+            "FROM Item AS i JOIN i.request AS r " +
+            "WHERE r.id IN :requestIds " +
+            "ORDER BY i.id")
+    List<ItemDto> findItemDtosByRequestIdIn(Collection<Integer> requestIds);
 }
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+
+// Неизменяемая копия строки items для кэша: каждый читатель получает из нее собственную сущность
+final class ItemSnapshot {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final Boolean isAvailable;
+    private final int ownerId;
+    private final Integer requestId;
+    private final long version;
+
+    ItemSnapshot(Item item, Integer requestIdArg) {
+        id = item.getId();
+        name = item.getName();
+        description = item.getDescription();
+        isAvailable = item.getIsAvailable();
+        ownerId = item.getOwnerId();
+        requestId = requestIdArg;
+        version = item.getVersion();
+    }
+
+    Item toItem() {
+        Item item = new Item(id, name, description, isAvailable, ownerId);
+        item.setVersion(version);
+        if (requestId != null) { // от запроса у вещи используется только id, ленивая загрузка не нужна
+            ItemRequest request = new ItemRequest();
+            request.setId(requestId);
+            item.setRequest(request);
+        }
+        return item;
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.storage;
+
+import java.time.LocalDateTime;
+
+// строка списка вещей владельца: вещь вместе с последним и следующим бронированием, выбранными тем же запросом
+public interface OwnerItemView {
+    Integer getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Integer getRequestId();
+
+    Integer getLastBookingId();
+
+    Integer getLastBookerId();
+
+    LocalDateTime getLastStart();
+
+    LocalDateTime getLastEnd();
+
+    Integer getNextBookingId();
+
+    Integer getNextBookerId();
+
+    LocalDateTime getNextStart();
+
+    LocalDateTime getNextEnd();
+
+    LocalDateTime getSummaryValidUntil(); // срок актуальности последнего и следующего бронирования
+}
@@ -0,0 +1,149 @@
+package ru.practicum.shareit.item.suggest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingCountView;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Подсказки названий доступных вещей по началу названия (без учета регистра), самые популярные первыми.
+// Популярность - число созданных бронирований вещи. Названия хранятся в сжатом префиксном дереве, которое
+// строится из БД при первом обращении и далее меняется точечно: при создании и изменении вещи, смене ее
+// доступности и каждом новом бронировании
+@Component
+public class ItemSuggestions {
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final int topK;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, SuggestedItem> itemsById = new HashMap<>(); // все вещи, в дереве - доступные
+    private final NameTrie trie;
+    private volatile boolean loaded;
+
+    @Autowired
+    public ItemSuggestions(ItemRepository itemRepositoryArg, BookingRepository bookingRepositoryArg,
+                           @Value("${shareit.item-suggest.top-k:10}") int topKArg) {
+        itemRepository = itemRepositoryArg;
+        bookingRepository = bookingRepositoryArg;
+        topK = topKArg;
+        trie = new NameTrie(topKArg);
+    }
+
+    // не более limit подсказок (и не более top-k, хранимых в узлах дерева)
+    public List<ItemSuggestionDto> suggest(String prefix, int limit) {
+        loadIfNecessary();
+        String normalizedPrefix = SuggestedItem.normalize(prefix);
+        List<ItemSuggestionDto> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (SuggestedItem item : trie.find(normalizedPrefix, Math.min(limit, topK))) {
+                result.add(new ItemSuggestionDto(item.getId(), item.getName()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // новая вещь или новое состояние вещи; дерево меняется, только если изменились название или доступность
+    public void index(Item item) {
+        loadIfNecessary();
+        lock.writeLock().lock();
+        try {
+            SuggestedItem previous = itemsById.get(item.getId());
+            boolean available = Boolean.TRUE.equals(item.getIsAvailable());
+            if (previous != null && previous.isAvailable() == available && previous.getName().equals(item.getName())) {
+                return;
+            }
+            long bookingCount = 0;
+            if (previous != null) {
+                bookingCount = previous.getBookingCount();
+                if (previous.isAvailable()) {
+                    trie.remove(previous);
+                }
+            }
+            put(new SuggestedItem(item.getId(), item.getOwnerId(), item.getName(), available, bookingCount));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // у вещи создано бронирование
+    public void addBooking(int itemId) {
+        loadIfNecessary();
+        lock.writeLock().lock();
+        try {
+            SuggestedItem item = itemsById.get(itemId);
+            if (item == null) {
+                return;
+            }
+            item.addBooking();
+            if (item.isAvailable()) {
+                trie.promote(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // вещи удаленного пользователя удаляются из БД каскадно
+    public void removeItemsOfOwner(int ownerId) {
+        loadIfNecessary();
+        lock.writeLock().lock();
+        try {
+            List<SuggestedItem> removed = new ArrayList<>();
+            for (SuggestedItem item : itemsById.values()) {
+                if (item.getOwnerId() == ownerId) {
+                    removed.add(item);
+                }
+            }
+            for (SuggestedItem item : removed) {
+                itemsById.remove(item.getId());
+                if (item.isAvailable()) {
+                    trie.remove(item);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadIfNecessary() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                Map<Integer, Long> bookingCounts = new HashMap<>();
+                for (ItemBookingCountView count : bookingRepository.countBookingsByItem()) {
+                    bookingCounts.put(count.getItemId(), count.getBookingCount());
+                }
+                for (Item item : itemRepository.findAll()) {
+                    put(new SuggestedItem(item.getId(), item.getOwnerId(), item.getName(),
+                            Boolean.TRUE.equals(item.getIsAvailable()), bookingCounts.getOrDefault(item.getId(), 0L)));
+                }
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(SuggestedItem item) {
+        itemsById.put(item.getId(), item);
+        if (item.isAvailable()) {
+            trie.add(item);
+        }
+    }
+}
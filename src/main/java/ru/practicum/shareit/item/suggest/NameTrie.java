@@ -0,0 +1,268 @@
+package ru.practicum.shareit.item.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Сжатое префиксное дерево названий: ребро хранит строку, а не один символ, поэтому узлы есть только в точках
+// ветвления и в концах названий. Каждый узел хранит до topK самых популярных вещей своего поддерева, так что
+// подсказка по префиксу - это спуск по дереву на длину префикса без обхода поддерева.
+// Не потокобезопасно, доступ синхронизирует ItemSuggestions
+class NameTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final SuggestedItem[] NO_ITEMS = new SuggestedItem[0];
+
+    private final int topK;
+    private final Node root = new Node("");
+
+    NameTrie(int topKArg) {
+        topK = topKArg;
+    }
+
+    // не более limit самых популярных вещей, название которых начинается с normalizedPrefix
+    List<SuggestedItem> find(String normalizedPrefix, int limit) {
+        Node node = root;
+        int pos = 0;
+        while (pos < normalizedPrefix.length()) {
+            int index = node.childIndex(normalizedPrefix.charAt(pos));
+            if (index < 0) {
+                return List.of();
+            }
+            Node child = node.children[index];
+            // префикс может закончиться посреди ребра: тогда подходит все поддерево потомка
+            int length = Math.min(child.label.length(), normalizedPrefix.length() - pos);
+            if (!child.label.regionMatches(0, normalizedPrefix, pos, length)) {
+                return List.of();
+            }
+            node = child;
+            pos += length;
+        }
+        SuggestedItem[] top = node.top;
+        return Arrays.asList(top).subList(0, Math.min(limit, top.length));
+    }
+
+    void add(SuggestedItem item) {
+        String key = item.getKey();
+        Node node = root;
+        offer(node, item);
+        int pos = 0;
+        while (pos < key.length()) {
+            int index = node.childIndex(key.charAt(pos));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(pos));
+                node.insertChild(-index - 1, leaf);
+                node = leaf;
+                pos = key.length();
+            } else {
+                Node child = node.children[index];
+                int common = commonPrefixLength(child.label, key, pos);
+                if (common < child.label.length()) {
+                    // название расходится с ребром посередине: ребро делится, у нового узла то же поддерево
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children = new Node[]{child};
+                    middle.top = child.top.clone();
+                    node.children[index] = middle;
+                    child = middle;
+                }
+                node = child;
+                pos += common;
+            }
+            offer(node, item);
+        }
+        node.items = append(node.items, item);
+    }
+
+    // популярность вещи выросла: вещь поднимается в списках узлов на пути к ее названию
+    void promote(SuggestedItem item) {
+        for (Node node : findPath(item.getKey())) {
+            offer(node, item);
+        }
+    }
+
+    void remove(SuggestedItem item) {
+        List<Node> path = findPath(item.getKey());
+        Node terminal = path.get(path.size() - 1);
+        terminal.items = without(terminal.items, item);
+        // снизу вверх: список узла собирается из уже пересчитанных списков потомков
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (indexOf(node.top, item) >= 0) {
+                recomputeTop(node);
+            }
+        }
+        prune(path);
+    }
+
+    // узлы от корня до узла, в котором заканчивается название key (название должно быть в дереве)
+    private List<Node> findPath(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < key.length()) {
+            node = node.children[node.childIndex(key.charAt(pos))];
+            pos += node.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    // вещь попала в поддерево узла или стала популярнее: вставка в список или подъем на свое место
+    private void offer(Node node, SuggestedItem item) {
+        SuggestedItem[] top = node.top;
+        int index = indexOf(top, item);
+        if (index < 0) {
+            if (top.length < topK) {
+                top = Arrays.copyOf(top, top.length + 1);
+                node.top = top;
+            } else if (SuggestedItem.BY_POPULARITY.compare(item, top[top.length - 1]) >= 0) {
+                return;
+            }
+            index = top.length - 1;
+            top[index] = item;
+        }
+        while (index > 0 && SuggestedItem.BY_POPULARITY.compare(top[index], top[index - 1]) < 0) {
+            SuggestedItem previous = top[index - 1];
+            top[index - 1] = top[index];
+            top[index] = previous;
+            index--;
+        }
+    }
+
+    // лучшие вещи поддерева - лучшие из названий, заканчивающихся в узле, и списков потомков
+    private void recomputeTop(Node node) {
+        SuggestedItem[] top = new SuggestedItem[topK];
+        int size = 0;
+        for (SuggestedItem item : node.items) {
+            size = insertBounded(top, size, item);
+        }
+        for (Node child : node.children) {
+            for (SuggestedItem item : child.top) {
+                size = insertBounded(top, size, item);
+            }
+        }
+        node.top = size == 0 ? NO_ITEMS : Arrays.copyOf(top, size);
+    }
+
+    private int insertBounded(SuggestedItem[] top, int size, SuggestedItem item) {
+        if (size == top.length && SuggestedItem.BY_POPULARITY.compare(item, top[size - 1]) >= 0) {
+            return size;
+        }
+        int pos = size < top.length ? size : size - 1;
+        while (pos > 0 && SuggestedItem.BY_POPULARITY.compare(item, top[pos - 1]) < 0) {
+            top[pos] = top[pos - 1];
+            pos--;
+        }
+        top[pos] = item;
+        return Math.min(size + 1, top.length);
+    }
+
+    // после удаления названия убирает опустевший лист и склеивает узел с единственным потомком,
+    // чтобы дерево оставалось сжатым
+    private void prune(List<Node> path) {
+        Node node = path.get(path.size() - 1);
+        if (node == root || node.items.length > 0) {
+            return;
+        }
+        Node parent = path.get(path.size() - 2);
+        if (node.children.length == 0) {
+            parent.removeChild(node);
+            if (parent != root && parent.items.length == 0 && parent.children.length == 1) {
+                merge(path.get(path.size() - 3), parent);
+            }
+        } else if (node.children.length == 1) {
+            merge(parent, node);
+        }
+    }
+
+    // у узла без названий один потомок: ребра склеиваются, список лучших у потомка тот же
+    private void merge(Node parent, Node node) {
+        Node child = node.children[0];
+        child.label = node.label + child.label;
+        parent.children[parent.childIndex(node.label.charAt(0))] = child;
+    }
+
+    private static int commonPrefixLength(String label, String key, int keyPos) {
+        int length = Math.min(label.length(), key.length() - keyPos);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(keyPos + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static int indexOf(SuggestedItem[] items, SuggestedItem item) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == item) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static SuggestedItem[] append(SuggestedItem[] items, SuggestedItem item) {
+        SuggestedItem[] result = Arrays.copyOf(items, items.length + 1);
+        result[items.length] = item;
+        return result;
+    }
+
+    private static SuggestedItem[] without(SuggestedItem[] items, SuggestedItem item) {
+        int index = indexOf(items, item);
+        if (index < 0) {
+            return items;
+        }
+        if (items.length == 1) {
+            return NO_ITEMS;
+        }
+        SuggestedItem[] result = new SuggestedItem[items.length - 1];
+        System.arraycopy(items, 0, result, 0, index);
+        System.arraycopy(items, index + 1, result, index, result.length - index);
+        return result;
+    }
+
+    private static final class Node {
+        private String label; // строка ребра от родителя
+        private Node[] children = NO_CHILDREN; // по возрастанию первого символа ребра
+        private SuggestedItem[] items = NO_ITEMS; // вещи, название которых заканчивается в узле
+        private SuggestedItem[] top = NO_ITEMS; // лучшие вещи поддерева по популярности
+
+        private Node(String labelArg) {
+            label = labelArg;
+        }
+
+        // индекс потомка с ребром на символ c или (-(точка вставки) - 1), как в Arrays.binarySearch
+        private int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(int index, Node child) {
+            Node[] result = new Node[children.length + 1];
+            System.arraycopy(children, 0, result, 0, index);
+            result[index] = child;
+            System.arraycopy(children, index, result, index + 1, children.length - index);
+            children = result;
+        }
+
+        private void removeChild(Node child) {
+            int index = childIndex(child.label.charAt(0));
+            Node[] result = new Node[children.length - 1];
+            System.arraycopy(children, 0, result, 0, index);
+            System.arraycopy(children, index + 1, result, index, result.length - index);
+            children = result;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.suggest;
+
+import java.util.Comparator;
+
+// Вещь в подсказках: название для ответа, ключ в дереве (название в нижнем регистре) и популярность.
+// Поля меняются только под блокировкой записи ItemSuggestions
+class SuggestedItem {
+    // сначала самые популярные, при равной популярности - созданные раньше
+    static final Comparator<SuggestedItem> BY_POPULARITY = Comparator
+            .comparingLong(SuggestedItem::getBookingCount).reversed()
+            .thenComparingInt(SuggestedItem::getId);
+
+    private final int id;
+    private final int ownerId;
+    private final String name;
+    private final String key;
+    private final boolean available;
+    private long bookingCount;
+
+    SuggestedItem(int idArg, int ownerIdArg, String nameArg, boolean availableArg, long bookingCountArg) {
+        id = idArg;
+        ownerId = ownerIdArg;
+        name = nameArg == null ? "" : nameArg;
+        key = normalize(name);
+        available = availableArg;
+        bookingCount = bookingCountArg;
+    }
+
+    static String normalize(String text) {
+        return text.toLowerCase();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int getOwnerId() {
+        return ownerId;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    long getBookingCount() {
+        return bookingCount;
+    }
+
+    void addBooking() {
+        bookingCount++;
+    }
+}
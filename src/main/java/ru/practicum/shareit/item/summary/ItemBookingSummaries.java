@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item.summary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.storage.ItemBookingSummaryRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Последнее и следующее бронирование вещей, рассчитанные при записи: карточка вещи читает их одним запросом
+// по первичному ключу вместо выборки и сортировки всех бронирований вещи. Строки пересчитываются при создании
+// бронирований и смене их статуса, а с течением времени - плановым пересчетом строк с истекшим сроком
+@Component
+public class ItemBookingSummaries {
+    private static final Logger log = LoggerFactory.getLogger(ItemBookingSummaries.class);
+
+    private final ItemBookingSummaryRepository summaryRepository;
+
+    @Autowired
+    public ItemBookingSummaries(ItemBookingSummaryRepository summaryRepositoryArg) {
+        summaryRepository = summaryRepositoryArg;
+    }
+
+    // пересчитывает строки вещей после изменения их бронирований
+    public void refresh(Collection<Integer> itemIds) {
+        Set<Integer> distinctItemIds = new HashSet<>(itemIds);
+        if (distinctItemIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int updatedRows = summaryRepository.recomputeSummaries(distinctItemIds, now);
+        if (updatedRows < distinctItemIds.size()) { // у части вещей это первые бронирования, строк еще нет
+            try {
+                summaryRepository.insertMissingSummaries(distinctItemIds);
+            } catch (DataIntegrityViolationException exc) {
+                // первые бронирования одной вещи создавались одновременно, и строку успел вставить параллельный
+                // запрос (в PostgreSQL NOT EXISTS не видит его незавершенную вставку): строка уже есть,
+                // остается ее пересчитать
+                log.debug("Строки последних и следующих бронирований вещей {} уже созданы", distinctItemIds);
+            }
+            summaryRepository.recomputeSummaries(distinctItemIds, now);
+        }
+    }
+
+    // последнее и следующее бронирование вещи на текущий момент; если срок строки истек, а плановый пересчет
+    // до нее еще не дошел, строка пересчитывается сразу
+    public Optional<ItemBookingSummary> getSummary(int itemId) {
+        Optional<ItemBookingSummary> summary = summaryRepository.findSummaryByItemId(itemId);
+        if (summary.isPresent() && isExpired(summary.get().getValidUntil(), LocalDateTime.now())) {
+            refresh(List.of(itemId));
+            summary = summaryRepository.findSummaryByItemId(itemId);
+        }
+        return summary;
+    }
+
+    public boolean isExpired(LocalDateTime validUntil, LocalDateTime now) {
+        return validUntil != null && !validUntil.isAfter(now);
+    }
+
+    // ближайшее будущее бронирование вещи началось: оно становится последним, а следующим - бронирование за ним
+    @Scheduled(fixedDelayString = "${shareit.item-booking-summaries.roll-forward-delay-ms:60000}",
+            initialDelayString = "${shareit.item-booking-summaries.roll-forward-delay-ms:60000}")
+    public void rollForward() {
+        int updatedRows = summaryRepository.recomputeExpiredSummaries(LocalDateTime.now());
+        if (updatedRows > 0) {
+            log.info("Пересчитаны последние и следующие бронирования {} вещей", updatedRows);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Setter;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
@@ -12,6 +13,11 @@ import java.util.List;
 public class ItemRequestDtoWithAnswers extends ItemRequestDto {
     private List<ItemDto> items;
 
+    // запрос без ответов: так его строит запрос-проекция, вещи добавляются следующим запросом
+    public ItemRequestDtoWithAnswers(Integer idArg, String descriptionArg, LocalDateTime createdArg) {
+        this(idArg, descriptionArg, createdArg, new ArrayList<>());
+    }
+
     public ItemRequestDtoWithAnswers(
             Integer idArg, String descriptionArg, LocalDateTime createdArg, List<ItemDto> itemsArg) {
         super(idArg, descriptionArg, createdArg);
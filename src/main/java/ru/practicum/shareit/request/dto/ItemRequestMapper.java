@@ -1,6 +1,6 @@
 package ru.practicum.shareit.request.dto;
 
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
@@ -11,5 +11,5 @@ public interface ItemRequestMapper {
 
     ItemRequest toItemRequest(User requester, ItemRequestDto itemRequestDto);
 
-    ItemRequestDtoWithAnswers toItemRequestDtoWithAnswers(ItemRequest itemRequest, List<Item> answers);
+    ItemRequestDtoWithAnswers toItemRequestDtoWithAnswers(ItemRequest itemRequest, List<ItemDto> answers);
 }
@@ -5,7 +5,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.storage.ItemRepository;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithAnswers;
 import ru.practicum.shareit.request.dto.ItemRequestMapper;
@@ -15,7 +15,9 @@ import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static ru.practicum.shareit.util.Page.getSortedPage;
@@ -54,48 +56,35 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public List<ItemRequestDtoWithAnswers> getRequestsWithItemsForRequester(int userId) {
         checkUserExistence(userId);
 
-        List<ItemRequestDtoWithAnswers> result = new ArrayList<>();
         // находим все запросы у определенного пользователя, отсортированные по дате создания
         Sort sortedByCreationDate = Sort.by(Sort.Direction.DESC, "creationDate");
-        List<ItemRequest> requests = itemRequestRepository.findItemsRequestsByRequesterId(userId, sortedByCreationDate);
+        List<ItemRequestDtoWithAnswers> requests = itemRequestRepository
+                .findRequestDtosByRequesterId(userId, sortedByCreationDate);
         if (requests.isEmpty()) {
-            return result;
+            return requests;
         }
         // находим все добавленные вещи на запрос определенного пользователя
-        List<Item> items = itemRepository.findItemsByRequesterId(userId);
-
-        for (ItemRequest request : requests) {
-            int id = request.getId();
-            List<Item> answers = findItemsForCurrentRequest(id, items);
-            ItemRequestDtoWithAnswers dtoWithAnswers = itemRequestMapper.toItemRequestDtoWithAnswers(request, answers);
-            result.add(dtoWithAnswers);
-        }
-        return result;
+        List<ItemDto> items = itemRepository.findItemDtosByRequesterId(userId);
+        addAnswers(requests, items);
+        return requests;
     }
 
     @Override
     public List<ItemRequestDtoWithAnswers> getOtherRequestsWithItems(int userId, int page, int size) {
         checkUserExistence(userId);
 
-        List<ItemRequestDtoWithAnswers> result = new ArrayList<>();
         Sort sortedByCreationDate = Sort.by(Sort.Direction.DESC, "creationDate");
         // находим список запросов, созданных другими пользователями, размера size
-        List<ItemRequest> requests = itemRequestRepository
-                .findItemsRequestsByRequesterIdNot(userId, getSortedPage(page, size, sortedByCreationDate));
+        List<ItemRequestDtoWithAnswers> requests = itemRequestRepository
+                .findRequestDtosByRequesterIdNot(userId, getSortedPage(page, size, sortedByCreationDate));
         if (requests.isEmpty()) {
-            return result;
+            return requests;
         }
         // находим вещи, которые добавили другие пользователи на запрос
         List<Integer> requestIds = getRequestIds(requests);
-        List<Item> items = itemRepository.findItemsByRequestIdIn(requestIds);
-
-        for (ItemRequest request : requests) {
-            int id = request.getId();
-            List<Item> answers = findItemsForCurrentRequest(id, items);
-            ItemRequestDtoWithAnswers dtoWithAnswers = itemRequestMapper.toItemRequestDtoWithAnswers(request, answers);
-            result.add(dtoWithAnswers);
-        }
-        return result;
+        List<ItemDto> items = itemRepository.findItemDtosByRequestIdIn(requestIds);
+        addAnswers(requests, items);
+        return requests;
     }
 
     @Override
@@ -108,7 +97,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
         ItemRequest itemRequest = optionalItemRequest.get();
         int id = itemRequest.getId();
-        List<Item> items = itemRepository.findItemsByRequestId(id);
+        List<ItemDto> items = itemRepository.findItemDtosByRequestId(id);
         return itemRequestMapper.toItemRequestDtoWithAnswers(itemRequest, items);
     }
 
@@ -120,22 +109,23 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
     }
 
-    private List<Item> findItemsForCurrentRequest(int requestId, List<Item> items) {
-        List<Item> result = new ArrayList<>();
-        if (items.isEmpty()) {
-            return result;
+    // раскладывает найденные вещи по запросам, на которые они добавлены
+    private void addAnswers(List<ItemRequestDtoWithAnswers> requests, List<ItemDto> items) {
+        Map<Integer, ItemRequestDtoWithAnswers> requestsById = new HashMap<>();
+        for (ItemRequestDtoWithAnswers request : requests) {
+            requestsById.put(request.getId(), request);
         }
-        for (Item item : items) {
-            if (item.getRequest().getId() == requestId) {
-                result.add(item);
+        for (ItemDto item : items) {
+            ItemRequestDtoWithAnswers request = requestsById.get(item.getRequestId());
+            if (request != null) {
+                request.getItems().add(item);
             }
         }
-        return result;
     }
 
-    private List<Integer> getRequestIds(List<ItemRequest> requests) {
+    private List<Integer> getRequestIds(List<ItemRequestDtoWithAnswers> requests) {
         List<Integer> result = new ArrayList<>();
-        for (ItemRequest request : requests) {
+        for (ItemRequestDtoWithAnswers request : requests) {
             Integer id = request.getId();
             result.add(id);
         }
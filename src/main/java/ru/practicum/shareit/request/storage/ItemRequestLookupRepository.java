@@ -0,0 +1,14 @@
+package ru.practicum.shareit.request.storage;
+
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.util.Optional;
+
+public interface ItemRequestLookupRepository {
+    // поиск запроса по id через кэш CacheNames.ITEM_REQUESTS: в кэше хранятся неизменяемые снимки,
+    // а findById каждый раз возвращает новую отсоединенную сущность
+    Optional<ItemRequest> findById(Integer id);
+
+    // сбрасывает кэш; вызывается после того, как запросы удалены из БД
+    void evictAllItemRequests();
+}
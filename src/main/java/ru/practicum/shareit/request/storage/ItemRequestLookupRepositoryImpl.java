@@ -0,0 +1,44 @@
+package ru.practicum.shareit.request.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.util.CacheNames;
+import ru.practicum.shareit.util.SnapshotCache;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class ItemRequestLookupRepositoryImpl implements ItemRequestLookupRepository {
+    private final SnapshotCache<ItemRequestSnapshot> itemRequests;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ItemRequestLookupRepositoryImpl(CacheManager cacheManagerArg) {
+        itemRequests = new SnapshotCache<>(cacheManagerArg.getCache(CacheNames.ITEM_REQUESTS));
+    }
+
+    @Override
+    public Optional<ItemRequest> findById(Integer id) {
+        return itemRequests.get(id, this::loadItemRequest).map(ItemRequestSnapshot::toItemRequest);
+    }
+
+    @Override
+    public void evictAllItemRequests() {
+        itemRequests.clear();
+    }
+
+    // id автора читается тем же запросом, что и запрос, без загрузки самого пользователя
+    private Optional<ItemRequestSnapshot> loadItemRequest(int id) {
+        return entityManager.createQuery("SELECT r, u.id FROM ItemRequest r LEFT JOIN r.requester u " +
+                        "WHERE r.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultList() // без транзакции курсор потока закрылся бы вместе с EntityManager
+                .stream()
+                .findFirst()
+                .map(row -> new ItemRequestSnapshot((ItemRequest) row[0], (Integer) row[1]));
+    }
+}
@@ -3,12 +3,31 @@ package ru.practicum.shareit.request.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.request.dto.ItemRequestDtoWithAnswers;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
+import java.util.Optional;
 
-public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer> {
-    List<ItemRequest> findItemsRequestsByRequesterId(int requesterId, Sort sort);
+public interface ItemRequestRepository extends JpaRepository<ItemRequest, Integer>, ItemRequestLookupRepository {
+    // объявлен повторно, чтобы вызовы однозначно шли через кэш ItemRequestLookupRepository
+    @Override
+    Optional<ItemRequest> findById(Integer id);
 
-    List<ItemRequest> findItemsRequestsByRequesterIdNot(int requesterId, Pageable pageable);
+    // запросы для списков читаются сразу в ItemRequestDtoWithAnswers с пустым списком ответов
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestDtoWithAnswers(r.id, r.description, " +
+            "r.creationDate) " +
+            "FROM ItemRequest AS r " +
+            "WHERE r.requester.id = :requesterId")
+    List<ItemRequestDtoWithAnswers> findRequestDtosByRequesterId(int requesterId, Sort sort);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestDtoWithAnswers(r.id, r.description, " +
+            "r.creationDate) " +
+            "FROM ItemRequest AS r " +
+            "WHERE r.requester.id <> :requesterId")
+    List<ItemRequestDtoWithAnswers> findRequestDtosByRequesterIdNot(int requesterId, Pageable pageable);
 }
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.request.storage;
+
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+// Неизменяемая копия строки item_requests для кэша: каждый читатель получает из нее собственную сущность
+final class ItemRequestSnapshot {
+    private final int id;
+    private final String description;
+    private final Integer requesterId;
+    private final LocalDateTime creationDate;
+
+    ItemRequestSnapshot(ItemRequest itemRequest, Integer requesterIdArg) {
+        id = itemRequest.getId();
+        description = itemRequest.getDescription();
+        requesterId = requesterIdArg;
+        creationDate = itemRequest.getCreationDate();
+    }
+
+    ItemRequest toItemRequest() {
+        User requester = null;
+        if (requesterId != null) { // от автора запроса используется только id, ленивая загрузка не нужна
+            requester = new User();
+            requester.setId(requesterId);
+        }
+        return new ItemRequest(id, description, requester, creationDate);
+    }
+}
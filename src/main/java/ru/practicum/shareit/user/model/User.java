@@ -9,6 +9,7 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Getter
 @Setter
@@ -26,6 +27,10 @@ public class User {
     @Column(name = "email", unique = true)
     private String email;
 
+    @Version
+    @Column(name = "version")
+    private long version; // версия строки для оптимистической блокировки
+
     public User() { // конструктор без параметров для работы hibernate
     }
 
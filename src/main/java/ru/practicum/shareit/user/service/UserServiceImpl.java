@@ -4,6 +4,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.EmailValidationException;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -16,11 +20,21 @@ import java.util.Optional;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSuggestions itemSuggestions;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository itemRequestRepository;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepositoryArg, UserMapper userMapperArg) {
+    public UserServiceImpl(UserRepository userRepositoryArg, UserMapper userMapperArg,
+                           ItemSearchIndex itemSearchIndexArg, ItemSuggestions itemSuggestionsArg,
+                           ItemRepository itemRepositoryArg, ItemRequestRepository itemRequestRepositoryArg) {
         userRepository = userRepositoryArg;
         userMapper = userMapperArg;
+        itemSearchIndex = itemSearchIndexArg;
+        itemSuggestions = itemSuggestionsArg;
+        itemRepository = itemRepositoryArg;
+        itemRequestRepository = itemRequestRepositoryArg;
     }
 
     @Override
@@ -38,7 +52,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDto updateUser(int id, UserDto userDto) {
-        Optional<User> optionalSavedUser = userRepository.findById(id);
+        Optional<User> optionalSavedUser = userRepository.findUserById(id);
         if (optionalSavedUser.isEmpty()) {
             String message = String.format("Пользователь с id=%d не найден! Операция обновления невозможна", id);
             throw new ObjectNotFoundException(message);
@@ -46,8 +60,14 @@ public class UserServiceImpl implements UserService {
         // получаем сохраненного в таблице users пользователя, данные которого нужно обновить
         User savedUser = optionalSavedUser.get();
         User user = userMapper.toUser(userDto);// получаем обновленные данные пользователя, которые нужно обновить в БД
-        User updatedUser = updateUserInDb(savedUser, user);// обновляем запись в таблице users
-        return userMapper.toUserDto(updatedUser);
+        try {
+            User updatedUser = updateUserInDb(savedUser, user);// обновляем запись в таблице users
+            return userMapper.toUserDto(updatedUser);
+        } finally {
+            // запись кэша сбрасывается после сохранения, в том числе неудачного: снимок, прочитанный параллельно
+            // до изменения, в кэше не останется
+            userRepository.evictUser(id);
+        }
     }
 
     @Override
@@ -74,19 +94,32 @@ public class UserServiceImpl implements UserService {
             String message = String.format("Пользователь с id=%d не найден! Операция удаления невозможна", id);
             throw new ObjectNotFoundException(message);
         }
-        userRepository.deleteById(id);// удаляем запись в таблице users
+        try {
+            userRepository.deleteById(id);// удаляем запись в таблице users
+        } finally {
+            userRepository.evictUser(id);
+            // вещи и запросы пользователя удаляются из БД каскадно
+            itemRepository.evictAllItems();
+            itemRequestRepository.evictAllItemRequests();
+        }
+        itemSearchIndex.removeItemsOfOwner(id);// вещи пользователя удаляются каскадно, убираем их из индекса
+        itemSuggestions.removeItemsOfOwner(id);// и из подсказок названий
     }
 
     private User updateUserInDb(User savedUser, User updatedDataForUser) {
         String updatedName = updatedDataForUser.getName();
         String updatedEmail = updatedDataForUser.getEmail();
+        // изменения вносятся в копию: при ошибке сохранения (например, занятой почте) прочитанный
+        // экземпляр не должен содержать несохраненные данные
+        User user = new User(savedUser.getId(), savedUser.getName(), savedUser.getEmail());
+        user.setVersion(savedUser.getVersion()); // сохранение пройдет, только если пользователя не изменили после чтения
 
         if (updatedName != null) {
-            savedUser.setName(updatedName);
+            user.setName(updatedName);
         }
         if (updatedEmail != null) {
-            savedUser.setEmail(updatedEmail);
+            user.setEmail(updatedEmail);
         }
-        return userRepository.save(savedUser);
+        return userRepository.save(user);
     }
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.user.storage;
+
+import ru.practicum.shareit.user.model.User;
+
+import java.util.Optional;
+
+public interface UserLookupRepository {
+    // поиск и проверка наличия пользователя по id через кэш (CacheNames.USERS и CacheNames.USER_EXISTENCE):
+    // в кэше хранятся неизменяемые снимки, а findById каждый раз возвращает новую отсоединенную сущность
+    Optional<User> findById(Integer id);
+
+    boolean existsById(Integer id);
+
+    // сбрасывает записи кэша пользователя; вызывается после того, как изменение или удаление сохранено в БД
+    void evictUser(int id);
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.user.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.CacheNames;
+import ru.practicum.shareit.util.SnapshotCache;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class UserLookupRepositoryImpl implements UserLookupRepository {
+    private final SnapshotCache<UserSnapshot> users;
+    private final SnapshotCache<Boolean> userExistence; // только положительные ответы
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public UserLookupRepositoryImpl(CacheManager cacheManagerArg) {
+        users = new SnapshotCache<>(cacheManagerArg.getCache(CacheNames.USERS));
+        userExistence = new SnapshotCache<>(cacheManagerArg.getCache(CacheNames.USER_EXISTENCE));
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        return users.get(id, this::loadUser).map(UserSnapshot::toUser);
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return userExistence.get(id, this::loadExistence).isPresent();
+    }
+
+    @Override
+    public void evictUser(int id) {
+        users.evict(id);
+        userExistence.evict(id);
+    }
+
+    private Optional<UserSnapshot> loadUser(int id) {
+        User user = entityManager.find(User.class, id);
+        if (user == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new UserSnapshot(user.getId(), user.getName(), user.getEmail(), user.getVersion()));
+    }
+
+    private Optional<Boolean> loadExistence(int id) {
+        Long count = entityManager.createQuery("SELECT COUNT(u) FROM User u WHERE u.id = :id", Long.class)
+                .setParameter("id", id)
+                .getSingleResult();
+        return count > 0 ? Optional.of(Boolean.TRUE) : Optional.empty();
+    }
+}
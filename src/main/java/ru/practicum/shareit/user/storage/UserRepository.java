@@ -3,5 +3,17 @@ package ru.practicum.shareit.user.storage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.user.model.User;
 
-public interface UserRepository extends JpaRepository<User, Integer> {
+import java.util.Optional;
+
+public interface UserRepository extends JpaRepository<User, Integer>, UserLookupRepository {
+    // объявлены повторно, чтобы вызовы однозначно шли через кэш UserLookupRepository
+    @Override
+    Optional<User> findById(Integer id);
+
+    @Override
+    boolean existsById(Integer id);
+
+    // чтение мимо кэша для изменения пользователя: версия для проверки при сохранении берется из БД,
+    // а не из записи кэша, которая может оказаться устаревшей
+    Optional<User> findUserById(int id);
 }
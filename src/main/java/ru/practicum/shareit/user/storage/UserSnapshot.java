@@ -0,0 +1,24 @@
+package ru.practicum.shareit.user.storage;
+
+import ru.practicum.shareit.user.model.User;
+
+// Неизменяемая копия строки users для кэша: каждый читатель получает из нее собственную сущность
+final class UserSnapshot {
+    private final int id;
+    private final String name;
+    private final String email;
+    private final long version;
+
+    UserSnapshot(int idArg, String nameArg, String emailArg, long versionArg) {
+        id = idArg;
+        name = nameArg;
+        email = emailArg;
+        version = versionArg;
+    }
+
+    User toUser() {
+        User user = new User(id, name, email);
+        user.setVersion(version);
+        return user;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.util;
+
+// Имена кэшей поиска по id. Размер и время жизни записей задаются в application.properties
+public final class CacheNames {
+    public static final String USERS = "users";
+    public static final String USER_EXISTENCE = "userExistence";
+    public static final String ITEMS = "items";
+    public static final String ITEM_REQUESTS = "itemRequests";
+}
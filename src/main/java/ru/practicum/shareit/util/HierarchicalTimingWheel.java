@@ -0,0 +1,110 @@
+package ru.practicum.shareit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Иерархическое колесо таймеров: уровень 0 делит время на такты по tickMs, каждый следующий уровень - на такты
+// в wheelSize раз длиннее. Элемент кладется в ячейку уровня, на котором до его срока меньше одного оборота,
+// и по мере приближения срока опускается на нижние уровни. Добавление и продвижение на такт не зависят
+// от количества элементов, поэтому миллионы коротких таймеров обходятся без отдельной задачи на каждый.
+// Отмена не поддерживается: владелец элемента сам проверяет, актуален ли он, когда срок наступит
+public class HierarchicalTimingWheel<T> {
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTicks; // длина такта каждого уровня в тактах уровня 0
+    private final List<List<List<Entry<T>>>> levels = new ArrayList<>();
+    private long currentTick; // последний обработанный такт уровня 0
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMsArg, int wheelSizeArg, int levelCount, long startMs) {
+        tickMs = tickMsArg;
+        wheelSize = wheelSizeArg;
+        levelTicks = new long[levelCount];
+        long ticks = 1;
+        for (int level = 0; level < levelCount; level++) {
+            levelTicks[level] = ticks;
+            ticks *= wheelSize;
+            List<List<Entry<T>>> buckets = new ArrayList<>();
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            levels.add(buckets);
+        }
+        currentTick = startMs / tickMs;
+    }
+
+    // добавляет элемент со сроком deadlineMs; возвращает false, если срок уже наступил и элемент не добавлен
+    public synchronized boolean add(long deadlineMs, T element) {
+        return place(new Entry<>(deadlineMs / tickMs, element));
+    }
+
+    // продвигает колесо до момента nowMs и возвращает элементы, срок которых наступил
+    public synchronized List<T> advance(long nowMs) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // сначала опускаем элементы с верхних уровней, чей оборот закончился, затем срабатывает ячейка уровня 0
+            for (int level = levelTicks.length - 1; level > 0; level--) {
+                if (currentTick % levelTicks[level] == 0) {
+                    List<Entry<T>> bucket = takeBucket(level, (int) (currentTick / levelTicks[level] % wheelSize));
+                    for (Entry<T> entry : bucket) {
+                        size--;
+                        if (!place(entry)) {
+                            expired.add(entry.element);
+                        }
+                    }
+                }
+            }
+            for (Entry<T> entry : takeBucket(0, (int) (currentTick % wheelSize))) {
+                size--;
+                expired.add(entry.element);
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private boolean place(Entry<T> entry) {
+        long delay = entry.deadlineTick - currentTick;
+        if (delay <= 0) {
+            return false;
+        }
+        int top = levelTicks.length - 1;
+        for (int level = 0; level <= top; level++) {
+            if (delay < levelTicks[level] * wheelSize) {
+                levels.get(level).get((int) (entry.deadlineTick / levelTicks[level] % wheelSize)).add(entry);
+                size++;
+                return true;
+            }
+        }
+        // срок дальше полного оборота верхнего уровня: элемент ждет в последней ячейке оборота
+        // и при ее обработке будет размещен заново
+        long lastBucketTick = (currentTick / levelTicks[top] + wheelSize - 1) * levelTicks[top];
+        levels.get(top).get((int) (lastBucketTick / levelTicks[top] % wheelSize)).add(entry);
+        size++;
+        return true;
+    }
+
+    private List<Entry<T>> takeBucket(int level, int index) {
+        List<Entry<T>> bucket = levels.get(level).get(index);
+        if (bucket.isEmpty()) {
+            return bucket;
+        }
+        levels.get(level).set(index, new ArrayList<>());
+        return bucket;
+    }
+
+    private static class Entry<T> {
+        private final long deadlineTick;
+        private final T element;
+
+        Entry(long deadlineTickArg, T elementArg) {
+            deadlineTick = deadlineTickArg;
+            element = elementArg;
+        }
+    }
+}
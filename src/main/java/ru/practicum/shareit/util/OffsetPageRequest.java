@@ -0,0 +1,35 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+// Страница, которая начинается ровно с элемента from, даже если from не кратно size
+public class OffsetPageRequest extends PageRequest {
+    private final long offset;
+
+    public OffsetPageRequest(int fromArg, int sizeArg, Sort sortArg) {
+        super(fromArg / sizeArg, sizeArg, sortArg);
+        offset = fromArg;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OffsetPageRequest)) {
+            return false;
+        }
+        return super.equals(obj) && offset == ((OffsetPageRequest) obj).offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Long.hashCode(offset);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.cache.Cache;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+// Кэш неизменяемых снимков строк по id поверх кэша Spring (CacheNames); отсутствие строки не кэшируется.
+// Читатель, промахнувшийся мимо кэша, может прочитать строку до изменения, а положить снимок уже после сброса
+// записи писателем. Поэтому каждый сброс увеличивает поколение кэша, и снимок, прочитанный в другом поколении,
+// сразу после записи в кэш удаляется: либо это делает сам читатель, либо его запись стирает сброс писателя
+public class SnapshotCache<V> {
+    private final Cache cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public SnapshotCache(Cache cacheArg) {
+        cache = cacheArg;
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<V> get(int id, IntFunction<Optional<V>> loader) {
+        Cache.ValueWrapper cached = cache.get(id);
+        if (cached != null) {
+            return Optional.of((V) cached.get());
+        }
+        long readGeneration = generation.get();
+        Optional<V> loaded = loader.apply(id);
+        if (loaded.isPresent()) {
+            cache.put(id, loaded.get());
+            if (generation.get() != readGeneration) { // пока читали строку, ее могли изменить
+                cache.evict(id);
+            }
+        }
+        return loaded;
+    }
+
+    // вызывается после изменения или удаления строки, когда новое состояние уже сохранено в БД
+    public void evict(int id) {
+        generation.incrementAndGet();
+        cache.evict(id);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+}
@@ -1,13 +1,11 @@
- DROP TABLE IF EXISTS users, items, bookings, comments, item_requests;
-
- CREATE TABLE IF NOT EXISTS users (
+CREATE TABLE IF NOT EXISTS users (
     id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR,
     email VARCHAR(50),
     CONSTRAINT UNI_USER_EMAIL UNIQUE (email)
- );
+);
 
- CREATE TABLE IF NOT EXISTS item_requests (
+CREATE TABLE IF NOT EXISTS item_requests (
     id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     description VARCHAR(255),
     creation_date TIMESTAMP WITHOUT TIME ZONE,
@@ -38,4 +36,4 @@ CREATE TABLE IF NOT EXISTS comments (
     creation_date TIMESTAMP WITHOUT TIME ZONE,
     item_id INTEGER REFERENCES items (id),
     author_id INTEGER REFERENCES users (id)
-);
\ No newline at end of file
+);
@@ -0,0 +1,16 @@
+-- списки бронирований арендатора: фильтр по booker_id, сортировка по дате начала и id (как у курсора)
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_booking_date DESC, id DESC);
+
+-- бронирования вещи: последнее/следующее бронирование, проверка пересечений, проверка права на отзыв
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, booking_status, start_booking_date);
+
+-- вещи владельца, в том числе при выборке бронирований и комментариев владельца
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+
+-- вещи, добавленные по запросам
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item ON comments (item_id);
+
+-- собственные запросы пользователя в порядке создания
+CREATE INDEX IF NOT EXISTS idx_item_requests_requester_created ON item_requests (requester_id, creation_date DESC);
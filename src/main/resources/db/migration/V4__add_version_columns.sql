@@ -0,0 +1,7 @@
+-- версии строк для оптимистической блокировки: изменение проходит, только если строку с момента чтения
+-- никто не изменил, иначе запрос получает конфликт вместо потерянного обновления
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
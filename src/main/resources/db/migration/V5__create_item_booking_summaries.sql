@@ -0,0 +1,16 @@
+-- последнее и следующее бронирование вещи, рассчитанные заранее (модель для чтения карточек вещей).
+-- Строка пересчитывается при создании бронирований вещи и смене их статуса, а также после valid_until -
+-- начала ближайшего будущего бронирования, когда оно становится текущим. Нет строки - нет бронирований
+CREATE TABLE IF NOT EXISTS item_booking_summaries (
+    item_id INTEGER PRIMARY KEY REFERENCES items (id) ON DELETE CASCADE,
+    last_booking_id INTEGER REFERENCES bookings (id) ON DELETE SET NULL,
+    next_booking_id INTEGER REFERENCES bookings (id) ON DELETE SET NULL,
+    valid_until TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- поиск строк с истекшим сроком плановым пересчетом
+CREATE INDEX IF NOT EXISTS idx_item_booking_summaries_valid_until ON item_booking_summaries (valid_until);
+
+-- строки для уже забронированных вещей создаются устаревшими и рассчитываются при первом обращении
+INSERT INTO item_booking_summaries (item_id, valid_until)
+SELECT DISTINCT item_id, TIMESTAMP '1970-01-01 00:00:00' FROM bookings WHERE item_id IS NOT NULL;
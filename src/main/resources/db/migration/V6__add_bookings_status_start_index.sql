@@ -0,0 +1,2 @@
+-- поиск ожидающих подтверждения бронирований, которые уже начались (BookingExpirySweeper)
+CREATE INDEX IF NOT EXISTS idx_bookings_status_start ON bookings (booking_status, start_booking_date);
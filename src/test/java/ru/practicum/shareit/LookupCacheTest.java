@@ -0,0 +1,155 @@
+package ru.practicum.shareit;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.CacheNames;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@Sql(value = {"/clean-tables.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class LookupCacheTest {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.getCache(cacheName).clear();
+        }
+    }
+
+    @Test
+    void getUser_whenRepeated_thenSecondLookupServedFromCache() {
+        UserDto user = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        CacheStats before = stats(CacheNames.USERS);
+
+        userService.getUser(user.getId());
+        userService.getUser(user.getId());
+
+        CacheStats after = stats(CacheNames.USERS);
+        assertEquals(1, after.missCount() - before.missCount());
+        assertEquals(1, after.hitCount() - before.hitCount());
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", CacheNames.USERS).tag("result", "hit")
+                .functionCounter());
+    }
+
+    @Test
+    void updateUser_whenUserCached_thenEvictAndReturnUpdatedUser() {
+        UserDto user = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        userService.getUser(user.getId());
+
+        userService.updateUser(user.getId(), new UserDto(null, "UpdatedUser", null));
+
+        assertEquals("UpdatedUser", userService.getUser(user.getId()).getName());
+    }
+
+    @Test
+    void updateUser_whenEmailTaken_thenCachedUserStaysUnchanged() {
+        UserDto user = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        userService.createUser(new UserDto(null, "Other", "Other@mail.ru"));
+        userService.getUser(user.getId());
+
+        try {
+            userService.updateUser(user.getId(), new UserDto(null, null, "Other@mail.ru"));
+        } catch (RuntimeException exc) {
+            // ожидаемое нарушение уникальности почты
+        }
+
+        assertEquals("User@mail.ru", userService.getUser(user.getId()).getEmail());
+    }
+
+    @Test
+    void updateItem_whenItemCached_thenEvictAndReturnUpdatedItem() {
+        UserDto owner = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        ItemDto item = itemService.createItem(owner.getId(),
+                new ItemDto(null, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, null));
+        itemService.getItem(item.getId(), owner.getId());
+
+        itemService.updateItem(owner.getId(), item.getId(), new ItemDto(null, "Дальномер", null, null, null));
+
+        assertEquals("Дальномер", itemService.getItem(item.getId(), owner.getId()).getName());
+    }
+
+    @Test
+    void updateUser_whenCacheHoldsStaleVersion_thenUpdateWithVersionFromDbAndReadUpdatedUser() {
+        UserDto user = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        userService.getUser(user.getId());
+        // строку изменили мимо кэша: в кэше остался снимок со старой версией
+        jdbcTemplate.update("UPDATE users SET name = 'Other', version = version + 1 WHERE id = ?", user.getId());
+
+        userService.updateUser(user.getId(), new UserDto(null, "RenamedUser", null));
+
+        assertEquals("RenamedUser", userService.getUser(user.getId()).getName());
+    }
+
+    @Test
+    void updateItem_whenCacheHoldsStaleVersion_thenUpdateWithVersionFromDbAndReadUpdatedItem() {
+        UserDto owner = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        ItemDto item = itemService.createItem(owner.getId(),
+                new ItemDto(null, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, null));
+        itemService.getItem(item.getId(), owner.getId());
+        jdbcTemplate.update("UPDATE items SET name = 'Дальномер', version = version + 1 WHERE id = ?", item.getId());
+
+        itemService.updateItem(owner.getId(), item.getId(), new ItemDto(null, "Нивелир", null, null, null));
+
+        assertEquals("Нивелир", itemService.getItem(item.getId(), owner.getId()).getName());
+    }
+
+    @Test
+    void findById_whenCallerChangesReturnedEntity_thenCachedSnapshotUnchanged() {
+        UserDto user = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        User first = userRepository.findById(user.getId()).orElseThrow();
+
+        first.setName("ChangedByCaller");
+        User second = userRepository.findById(user.getId()).orElseThrow();
+
+        assertNotSame(first, second); // каждый читатель получает собственную сущность
+        assertEquals("User", second.getName());
+    }
+
+    @Test
+    void deleteUser_whenUserCached_thenEvictUserAndCascadedItems() {
+        UserDto owner = userService.createUser(new UserDto(null, "User", "User@mail.ru"));
+        ItemDto item = itemService.createItem(owner.getId(),
+                new ItemDto(null, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, null));
+        itemService.getItem(item.getId(), owner.getId());
+
+        userService.deleteUser(owner.getId());
+
+        assertNull(cacheManager.getCache(CacheNames.USERS).get(owner.getId()));
+        assertNull(cacheManager.getCache(CacheNames.USER_EXISTENCE).get(owner.getId()));
+        assertNull(cacheManager.getCache(CacheNames.ITEMS).get(item.getId()));
+    }
+
+    private CacheStats stats(String cacheName) {
+        return ((CaffeineCache) cacheManager.getCache(cacheName)).getNativeCache().stats();
+    }
+}
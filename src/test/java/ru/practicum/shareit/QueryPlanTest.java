@@ -0,0 +1,134 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// проверяет, что частые запросы не приводят к полному просмотру таблиц. H2 сама индексирует столбцы внешних
+// ключей, PostgreSQL - нет, поэтому отдельно проверяется, что индексы из миграции V2 созданы
+@DataJpaTest
+class QueryPlanTest {
+    private static final String TABLE_SCAN = "tableScan";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void migrationIndexes_whenSchemaMigrated_thenAllCreated() {
+        List<?> indexes = entityManager.getEntityManager()
+                .createNativeQuery("SELECT LOWER(index_name) FROM information_schema.indexes " +
+                        "WHERE table_schema = 'PUBLIC'")
+                .getResultList();
+
+        assertTrue(indexes.containsAll(List.of("idx_bookings_booker_start", "idx_bookings_item_status_start",
+                "idx_items_owner", "idx_items_request", "idx_comments_item",
+                "idx_item_requests_requester_created")), indexes.toString());
+    }
+
+    @Test
+    void bookingsOfBooker_whenSortedByStart_thenNoTableScan() {
+        String plan = explain("SELECT * FROM bookings WHERE booker_id = 1 " +
+                "ORDER BY start_booking_date DESC, id DESC LIMIT 10");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void bookingsOfOwner_whenJoinedWithItems_thenNoTableScan() {
+        String plan = explain("SELECT b.* FROM bookings b " +
+                "JOIN items i ON i.id = b.item_id " +
+                "JOIN users u ON u.id = b.booker_id " +
+                "WHERE i.owner_id = 1 AND b.booking_status = 'WAITING' " +
+                "ORDER BY b.start_booking_date DESC, b.id DESC LIMIT 10");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void bookingsOfItem_whenFilteredByStatus_thenNoTableScan() {
+        String plan = explain("SELECT * FROM bookings WHERE item_id = 1 AND booking_status IN ('WAITING', 'APPROVED')");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void bookingsOfItemAndBooker_whenCheckingCommentRight_thenNoTableScan() {
+        String plan = explain("SELECT * FROM bookings " +
+                "WHERE item_id = 1 AND booker_id = 2 AND booking_status = 'APPROVED'");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void commentsOfItemsPage_thenNoTableScan() {
+        String plan = explain("SELECT c.*, u.* FROM comments c LEFT JOIN users u ON u.id = c.author_id " +
+                "WHERE c.item_id IN (1, 2, 3)");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void ownerItemsWithLastAndNextBookings_thenNoTableScan() {
+        String plan = explain("SELECT p.id, l.id FROM " +
+                "(SELECT * FROM items WHERE owner_id = 1 ORDER BY id LIMIT 10 OFFSET 0) AS p " +
+                "LEFT JOIN bookings AS l ON l.id = (SELECT b.id FROM bookings AS b " +
+                "WHERE b.item_id = p.id AND b.booking_status <> 'REJECTED' " +
+                "AND b.start_booking_date < TIMESTAMP '2030-01-01 00:00:00' " +
+                "ORDER BY b.end_booking_date DESC LIMIT 1)");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void commentsOfItem_thenNoTableScan() {
+        String plan = explain("SELECT * FROM comments WHERE item_id = 1");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void itemsOfOwner_thenNoTableScan() {
+        String plan = explain("SELECT * FROM items WHERE owner_id = 1");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void itemsOfRequest_thenNoTableScan() {
+        String plan = explain("SELECT * FROM items WHERE request_id = 1");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void itemsOfRequester_whenJoinedWithRequests_thenNoTableScan() {
+        String plan = explain("SELECT item.* FROM (SELECT * FROM item_requests WHERE requester_id = 1) AS item_req " +
+                "INNER JOIN items AS item ON item_req.id = item.request_id");
+
+        assertNoTableScan(plan);
+    }
+
+    @Test
+    void requestsOfRequester_whenSortedByCreationDate_thenNoTableScan() {
+        String plan = explain("SELECT * FROM item_requests WHERE requester_id = 1 ORDER BY creation_date DESC");
+
+        assertNoTableScan(plan);
+    }
+
+    private String explain(String sql) {
+        return entityManager.getEntityManager()
+                .createNativeQuery("EXPLAIN " + sql)
+                .getSingleResult()
+                .toString();
+    }
+
+    private void assertNoTableScan(String plan) {
+        assertFalse(plan.contains(TABLE_SCAN), plan);
+    }
+}
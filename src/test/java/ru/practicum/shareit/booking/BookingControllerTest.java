@@ -10,13 +10,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreateRequestDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.BookingException;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.UnknownStateException;
+import ru.practicum.shareit.idempotency.IdempotencyFilter;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -25,14 +36,22 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -74,6 +93,89 @@ public class BookingControllerTest {
         assertEquals(expectedDto, result);
     }
 
+    @Test
+    @SneakyThrows
+    void createBookings_whenInvoke_thenStatusOkAndResultForEachBooking() {
+        List<BookingBatchResultDto> results = List.of(BookingBatchResultDto.created(0, bookingResponseDto),
+                BookingBatchResultDto.failed(1, "Вещь с id=2 не найдена в БД!"));
+        String expectedBody = objectMapper.writeValueAsString(results);
+        Mockito.when(bookingService.createBookings(anyInt(), anyList())).thenReturn(results);
+
+        String result = mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(inputBookingDto, inputBookingDto))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(expectedBody, result);
+    }
+
+    @Test
+    @SneakyThrows
+    void createBookings_whenListIsEmptyOrElementInvalid_thenStatusBadRequest() {
+        inputBookingDto.setItemId(null);
+
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(inputBookingDto))))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(bookingService, never()).createBookings(anyInt(), anyList());
+    }
+
+    @Test
+    @SneakyThrows
+    void createHold_whenInvoke_thenStatusCreatedAndHoldWithExpiration() {
+        BookingHoldDto hold = new BookingHoldDto(5L, 1, inputBookingDto.getStart(), inputBookingDto.getEnd(),
+                LocalDateTime.now().plusMinutes(5));
+        Mockito.when(bookingService.createHold(anyInt(), any())).thenReturn(hold);
+
+        String result = mockMvc.perform(post("/bookings/holds")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(inputBookingDto)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(objectMapper.writeValueAsString(hold), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void confirmHold_whenHoldExpired_thenStatusNotFound() {
+        Mockito.when(bookingService.confirmHold(1, 5L)).thenReturn(bookingResponseDto);
+        Mockito.when(bookingService.confirmHold(1, 6L))
+                .thenThrow(new ObjectNotFoundException("Удержание с id=6 не найдено или его срок истек!"));
+
+        mockMvc.perform(post("/bookings/holds/5/confirm")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/bookings/holds/6/confirm")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SneakyThrows
+    void releaseHold_whenInvoke_thenStatusOk() {
+        mockMvc.perform(delete("/bookings/holds/5")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(status().isOk());
+
+        Mockito.verify(bookingService).releaseHold(1, 5L);
+        Mockito.verify(bookingService, never()).confirmHold(anyInt(), anyLong());
+    }
+
     @Test
     @SneakyThrows
     void createBooking_whenBookerNotFound_thenStatusNotFound() {
@@ -146,6 +248,55 @@ public class BookingControllerTest {
         assertEquals(expectedDto, result);
     }
 
+    @Test
+    @SneakyThrows
+    void approveOrRejectBookings_whenInvoke_thenStatusOkAndResultForEachBooking() {
+        List<BookingDecisionResultDto> results = List.of(
+                new BookingDecisionResultDto(1, BookingDecisionResultDto.UPDATED, "APPROVED"),
+                new BookingDecisionResultDto(2, BookingDecisionResultDto.NOT_FOUND, null));
+        String expectedBody = objectMapper.writeValueAsString(results);
+        Mockito.when(bookingService.approveOrRejectBookings(1, List.of(1, 2), true)).thenReturn(results);
+
+        String result = mockMvc.perform(patch("/bookings/approve-batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingDecisionRequestDto(List.of(1, 2), true))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(expectedBody, result);
+    }
+
+    @Test
+    @SneakyThrows
+    void approveOrRejectBookings_whenIdsEmptyOrApprovedMissing_thenStatusBadRequest() {
+        mockMvc.perform(patch("/bookings/approve-batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingDecisionRequestDto(List.of(), true))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/bookings/approve-batch")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BookingDecisionRequestDto(List.of(1), null))))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(bookingService, never()).approveOrRejectBookings(anyInt(), anyList(), anyBoolean());
+    }
+
+    @Test
+    @SneakyThrows
+    void approveOrRejectBooking_whenBookingChangedConcurrently_thenStatusConflict() {
+        Mockito.when(bookingService.approveOrRejectBooking(anyInt(), anyInt(), anyBoolean()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1));
+
+        mockMvc.perform(patch("/bookings/{bookingId}", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("approved", "true"))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     @SneakyThrows
     void approveOrRejectBooking_whenBookingNotFound_thenStatusNotFound() {
@@ -240,6 +391,56 @@ public class BookingControllerTest {
         assertEquals(expectedDto, result);
     }
 
+    @Test
+    @SneakyThrows
+    void getBookingsForBooker_whenPageIsFull_thenHasNextCursorHeader() {
+        Mockito.when(bookingService.getBookingsForBooker(anyInt(), anyString(), anyInt(), anyInt()))
+                .thenReturn(List.of(bookingResponseDto));
+
+        String nextCursor = mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(BookingController.NEXT_CURSOR_HEADER);
+
+        assertEquals(BookingCursor.of(bookingResponseDto).encode(), nextCursor);
+    }
+
+    @Test
+    @SneakyThrows
+    void getBookingsForBooker_whenCursorPassed_thenUseCursorPagination() {
+        String cursor = BookingCursor.of(bookingResponseDto).encode();
+        Mockito.when(bookingService.getBookingsForBookerByCursor(anyInt(), anyString(), anyString(), anyInt()))
+                .thenReturn(List.of());
+
+        String nextCursor = mockMvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", cursor)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(BookingController.NEXT_CURSOR_HEADER);
+
+        assertNull(nextCursor);
+        Mockito.verify(bookingService).getBookingsForBookerByCursor(1, "ALL", cursor, 2);
+        Mockito.verify(bookingService, never()).getBookingsForBooker(anyInt(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SneakyThrows
+    void getBookingsForItemsOwner_whenCursorMalformed_thenStatusBadRequest() {
+        Mockito.when(bookingService.getBookingsForItemsOwnerByCursor(anyInt(), anyString(), anyString(), anyInt()))
+                .thenThrow(new InvalidCursorException("Некорректное значение курсора: abc"));
+
+        mockMvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("cursor", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     void getBookingsForBooker_whenBookerNotFound_thenStatusNotFound() {
@@ -371,4 +572,92 @@ public class BookingControllerTest {
 
         Mockito.verify(bookingService, never()).getBookingsForItemsOwner(anyInt(), anyString(), anyInt(), anyInt());
     }
+
+    @Test
+    @SneakyThrows
+    void exportBookings_whenInvoke_thenStreamOneJsonBookingPerLine() {
+        BookingResponseDto secondDto = new BookingResponseDto(2, bookingResponseDto.getStartBookingDate(),
+                bookingResponseDto.getEndBookingDate(), "APPROVED", null, null);
+        Mockito.when(bookingService.exportBookings(1, "owner", "ALL")).thenReturn(action -> {
+            action.accept(bookingResponseDto);
+            action.accept(secondDto);
+        });
+
+        MvcResult asyncResult = mockMvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("role", "owner"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String result = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        String expected = objectMapper.writeValueAsString(bookingResponseDto) + "\n" +
+                objectMapper.writeValueAsString(secondDto) + "\n";
+        assertEquals(expected, result);
+    }
+
+    @Test
+    @SneakyThrows
+    void exportBookings_whenRoleUnknown_thenStatusBadRequestWithoutStreaming() {
+        Mockito.when(bookingService.exportBookings(1, "renter", "ALL"))
+                .thenThrow(new UnknownStateException("Unknown role: RENTER"));
+
+        mockMvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("role", "renter"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void streamBookingEvents_whenInvoke_thenOpenEventStreamForUser() {
+        Mockito.when(bookingService.subscribeToEvents(1)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted()); // соединение остается открытым для событий
+
+        Mockito.verify(bookingService).subscribeToEvents(1);
+    }
+
+    @Test
+    @SneakyThrows
+    void streamBookingEvents_whenUserNotFound_thenStatusNotFound() {
+        Mockito.when(bookingService.subscribeToEvents(99))
+                .thenThrow(new ObjectNotFoundException("Пользователь с id=99 не найден!"));
+
+        mockMvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 99))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SneakyThrows
+    void createBooking_whenRetriedWithSameIdempotencyKey_thenCreateOnceAndReplayResponse() {
+        Mockito.when(bookingService.createNewBooking(anyInt(), any())).thenReturn(bookingResponseDto);
+        String body = objectMapper.writeValueAsString(inputBookingDto);
+
+        String first = mockMvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "create-booking-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        String retry = mockMvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", 1)
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "create-booking-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(first, retry);
+        Mockito.verify(bookingService, Mockito.times(1)).createNewBooking(anyInt(), any());
+    }
 }
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingCursorTest {
+    @Test
+    void decode_whenCursorEncoded_thenReturnSamePosition() {
+        LocalDateTime start = LocalDateTime.of(2030, 5, 17, 10, 30, 15, 123456789);
+        BookingResponseDto booking = new BookingResponseDto(42, start, start.plusDays(1), "WAITING",
+                null, null);
+
+        BookingCursor result = BookingCursor.decode(BookingCursor.of(booking).encode());
+
+        assertEquals(start, result.getStartBookingDate());
+        assertEquals(42, result.getId());
+    }
+
+    @Test
+    void decode_whenCursorMalformed_thenThrowInvalidCursorException() {
+        assertThrows(InvalidCursorException.class, () -> BookingCursor.decode("%%%"));
+        assertThrows(InvalidCursorException.class, () -> BookingCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
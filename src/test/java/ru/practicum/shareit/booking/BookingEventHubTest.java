@@ -0,0 +1,135 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingEventHubTest {
+    private final BookingEventHub bookingEventHub = new BookingEventHub(60_000, 2, 500, 4);
+
+    @AfterEach
+    void tearDown() {
+        bookingEventHub.shutdown();
+    }
+
+    @Test
+    void publish_whenBookerAndOwnerSubscribed_thenDeliverEventToBothInOrder() throws InterruptedException {
+        RecordingEmitter booker = new RecordingEmitter(2);
+        RecordingEmitter owner = new RecordingEmitter(2);
+        RecordingEmitter stranger = new RecordingEmitter(1);
+        bookingEventHub.register(1, booker);
+        bookingEventHub.register(2, owner);
+        bookingEventHub.register(3, stranger);
+
+        bookingEventHub.publish(new BookingEventDto(BookingEventDto.CREATED, 10, 5, 1, 2, "WAITING"));
+        bookingEventHub.publish(new BookingEventDto(BookingEventDto.STATUS_CHANGED, 10, 5, 1, 2, "APPROVED"));
+
+        assertTrue(booker.delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(owner.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(BookingEventDto.CREATED, BookingEventDto.STATUS_CHANGED), booker.events);
+        assertEquals(List.of(BookingEventDto.CREATED, BookingEventDto.STATUS_CHANGED), owner.events);
+        assertTrue(stranger.events.isEmpty());
+    }
+
+    @Test
+    void publish_whenSubscriberDoesNotKeepUp_thenDisconnectItWithoutBlockingPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(1) {
+            @Override
+            public void send(SseEventBuilder builder) {
+                try { // клиент не читает события, отправка первого события висит
+                    release.await();
+                } catch (InterruptedException exc) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        bookingEventHub.register(1, slow);
+
+        for (int i = 0; i < 10; i++) { // очередь на два события переполняется, публикация не ждет клиента
+            bookingEventHub.publish(new BookingEventDto(BookingEventDto.CREATED, i, 5, 1, 2, "WAITING"));
+        }
+
+        assertEquals(0, bookingEventHub.countSubscribers(1));
+        release.countDown(); // соединение завершает задача отправки, когда зависшая запись вернется
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void publish_whenSubscribersStalledOnSend_thenDeliverToOthersAndDisconnectStalledAfterDeadline()
+            throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordingEmitter> stalled = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) { // зависшие клиенты занимают три из четырех потоков пула
+            RecordingEmitter emitter = new RecordingEmitter(1) {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    try { // клиент перестал читать сокет, запись не возвращается
+                        release.await();
+                    } catch (InterruptedException exc) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            stalled.add(emitter);
+            bookingEventHub.register(1, emitter);
+        }
+        RecordingEmitter owner = new RecordingEmitter(2);
+        bookingEventHub.register(2, owner);
+
+        bookingEventHub.publish(new BookingEventDto(BookingEventDto.CREATED, 10, 5, 1, 2, "WAITING"));
+        bookingEventHub.publish(new BookingEventDto(BookingEventDto.STATUS_CHANGED, 10, 5, 1, 2, "APPROVED"));
+
+        assertTrue(owner.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(BookingEventDto.CREATED, BookingEventDto.STATUS_CHANGED), owner.events);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bookingEventHub.countSubscribers(1) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bookingEventHub.countSubscribers(1)); // зависшие подписчики отключены по сроку отправки
+        assertEquals(1, bookingEventHub.countSubscribers(2));
+        release.countDown();
+        for (RecordingEmitter emitter : stalled) {
+            assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch delivered;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(int expectedEvents) {
+            delivered = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String event = builder.build().iterator().next().getData().toString(); // строка "event:<тип>\n..."
+            events.add(event.substring("event:".length(), event.indexOf('\n')));
+            delivered.countDown();
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+            super.complete();
+        }
+
+        @Override
+        public synchronized void completeWithError(Throwable ex) {
+            completed.countDown();
+            super.completeWithError(ex);
+        }
+    }
+}
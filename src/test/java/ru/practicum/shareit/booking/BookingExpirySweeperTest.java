@@ -0,0 +1,141 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.expiry.BookingExpirySweeper;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingStatusView;
+import ru.practicum.shareit.booking.timeline.BookingTimelines;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpirySweeperTest {
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemBookingSummaries itemBookingSummaries;
+    @Mock
+    private BookingEventHub bookingEventHub;
+    @Mock
+    private BookingTimelines bookingTimelines;
+    @Captor
+    private ArgumentCaptor<BookingEventDto> eventCaptor;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void sweep_whenSeveralChunksStale_thenExpireChunkByChunkAndReleasePeriods() {
+        BookingExpirySweeper sweeper = newSweeper(2, 1.0);
+        List<BookingStatusView> firstChunk = List.of(view(1, Status.WAITING, 10), view(2, Status.WAITING, 11));
+        List<BookingStatusView> secondChunk = List.of(view(3, Status.WAITING, 10));
+        Mockito.when(bookingRepository.findStaleWaitingBookings(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(firstChunk)
+                .thenReturn(secondChunk);
+        Mockito.when(bookingRepository.expireWaitingBookings(anyList(), any(LocalDateTime.class)))
+                .thenReturn(2, 1);
+        Mockito.when(bookingRepository.findOldestStaleWaitingStart(any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+
+        sweeper.sweep();
+
+        Mockito.verify(bookingRepository).expireWaitingBookings(eq(List.of(1, 2)), any(LocalDateTime.class));
+        Mockito.verify(bookingRepository).expireWaitingBookings(eq(List.of(3)), any(LocalDateTime.class));
+        Mockito.verify(bookingIntervalIndex).release(10, 1);
+        Mockito.verify(bookingIntervalIndex).release(11, 2);
+        Mockito.verify(bookingIntervalIndex).release(10, 3);
+        Mockito.verify(itemBookingSummaries).refresh(Set.of(10, 11));
+        Mockito.verify(bookingEventHub, times(3)).publish(eventCaptor.capture());
+        assertEquals(Status.EXPIRED.toString(), eventCaptor.getValue().getStatus());
+        assertEquals(3.0, meterRegistry.get(BookingExpirySweeper.EXPIRED_METRIC).counter().count());
+        assertEquals(0L, sweeper.getLagSeconds());
+    }
+
+    @Test
+    void sweep_whenOwnerDecidedMeanwhile_thenSkipBookingsNotExpiredByUpdate() {
+        BookingExpirySweeper sweeper = newSweeper(10, 1.0);
+        List<BookingStatusView> stale = List.of(view(1, Status.WAITING, 10), view(2, Status.WAITING, 11));
+        List<BookingStatusView> current = List.of(view(1, Status.EXPIRED, 10), view(2, Status.APPROVED, 11));
+        Mockito.when(bookingRepository.findStaleWaitingBookings(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(stale);
+        Mockito.when(bookingRepository.expireWaitingBookings(anyList(), any(LocalDateTime.class))).thenReturn(1);
+        Mockito.when(bookingRepository.findBookingStatuses(List.of(1, 2))).thenReturn(current);
+        Mockito.when(bookingRepository.findOldestStaleWaitingStart(any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+
+        sweeper.sweep();
+
+        Mockito.verify(bookingIntervalIndex).release(10, 1);
+        Mockito.verify(bookingIntervalIndex, never()).release(11, 2);
+        Mockito.verify(bookingTimelines).updateStatus(1, 2, 1, Status.EXPIRED);
+        Mockito.verify(bookingTimelines, never()).updateStatus(eq(2), anyInt(), anyInt(), any());
+        Mockito.verify(itemBookingSummaries).refresh(Set.of(10));
+    }
+
+    @Test
+    void sweep_whenBudgetExhausted_thenLeaveRestForNextRunAndReportLag() {
+        // доля пула 0 - бюджет запуска нулевой, обрабатывается только одна пачка
+        BookingExpirySweeper sweeper = newSweeper(2, 0.0);
+        LocalDateTime oldestStart = LocalDateTime.now().minusMinutes(10);
+        List<BookingStatusView> stale = List.of(view(1, Status.WAITING, 10), view(2, Status.WAITING, 10));
+        Mockito.when(bookingRepository.findStaleWaitingBookings(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(stale);
+        Mockito.when(bookingRepository.expireWaitingBookings(anyList(), any(LocalDateTime.class))).thenReturn(2);
+        Mockito.when(bookingRepository.findOldestStaleWaitingStart(any(LocalDateTime.class)))
+                .thenReturn(Optional.of(oldestStart));
+
+        sweeper.sweep();
+
+        Mockito.verify(bookingRepository, times(1)).findStaleWaitingBookings(any(LocalDateTime.class),
+                any(Pageable.class));
+        long lag = (long) meterRegistry.get(BookingExpirySweeper.LAG_METRIC).gauge().value();
+        assertEquals(sweeper.getLagSeconds(), lag);
+        assertEquals(600, lag, 5);
+    }
+
+    private BookingExpirySweeper newSweeper(int chunkSize, double maxPoolShare) {
+        return new BookingExpirySweeper(bookingRepository, bookingIntervalIndex, itemBookingSummaries,
+                bookingEventHub, bookingTimelines, meterRegistry, chunkSize, 10000, maxPoolShare, 10);
+    }
+
+    private BookingStatusView view(int id, Status status, int itemId) {
+        BookingStatusView view = Mockito.mock(BookingStatusView.class, Mockito.withSettings().lenient());
+        Mockito.when(view.getId()).thenReturn(id);
+        Mockito.when(view.getStatus()).thenReturn(status);
+        Mockito.when(view.getItemId()).thenReturn(itemId);
+        Mockito.when(view.getOwnerId()).thenReturn(1);
+        Mockito.when(view.getBookerId()).thenReturn(2);
+        return view;
+    }
+}
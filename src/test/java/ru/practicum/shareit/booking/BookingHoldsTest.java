@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.hold.BookingHold;
+import ru.practicum.shareit.booking.hold.BookingHolds;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.exception.BookingOverlapException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class BookingHoldsTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final long TTL_SECONDS = 60;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    private BookingHolds bookingHolds;
+
+    @BeforeEach
+    void setUp() {
+        bookingHolds = new BookingHolds(bookingIntervalIndex, TTL_SECONDS, 100);
+    }
+
+    @Test
+    void expireHolds_whenTtlPassed_thenReleaseHeldPeriod() {
+        BookingHold hold = bookingHolds.hold(2, 1, START, START.plusDays(1));
+        long now = System.currentTimeMillis();
+
+        bookingHolds.expireHolds(now + TTL_SECONDS * 1000 - 1000);
+        Mockito.verify(bookingIntervalIndex, never()).releaseHold(anyInt(), anyLong());
+
+        bookingHolds.expireHolds(now + TTL_SECONDS * 1000 + 1000);
+        Mockito.verify(bookingIntervalIndex).releaseHold(1, hold.getId());
+        assertEquals(0, bookingHolds.size());
+        assertTrue(bookingHolds.take(2, hold.getId()).isEmpty());
+    }
+
+    @Test
+    void take_whenHoldTakenBeforeExpiration_thenTimerDoesNotReleasePeriod() {
+        BookingHold hold = bookingHolds.hold(2, 1, START, START.plusDays(1));
+
+        assertTrue(bookingHolds.take(3, hold.getId()).isEmpty()); // чужое удержание не выдается
+        assertEquals(hold, bookingHolds.take(2, hold.getId()).orElseThrow());
+        bookingHolds.expireHolds(System.currentTimeMillis() + TTL_SECONDS * 1000 + 1000);
+
+        Mockito.verify(bookingIntervalIndex, never()).releaseHold(anyInt(), anyLong());
+    }
+
+    @Test
+    void release_whenHoldActive_thenReleasePeriodOnce() {
+        BookingHold hold = bookingHolds.hold(2, 1, START, START.plusDays(1));
+
+        assertTrue(bookingHolds.release(2, hold.getId()));
+        assertFalse(bookingHolds.release(2, hold.getId()));
+
+        Mockito.verify(bookingIntervalIndex).releaseHold(1, hold.getId());
+    }
+
+    @Test
+    void hold_whenPeriodOccupied_thenThrowAndNotRegisterHold() {
+        Mockito.doThrow(new BookingOverlapException("Вещь с id=1 уже забронирована"))
+                .when(bookingIntervalIndex).hold(anyInt(), anyLong(), any(), any());
+
+        assertThrows(BookingOverlapException.class, () -> bookingHolds.hold(2, 1, START, START.plusDays(1)));
+        assertEquals(0, bookingHolds.size());
+    }
+}
@@ -0,0 +1,340 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+    private final AtomicInteger idSequence = new AtomicInteger();
+    private final UnaryOperator<Booking> saveAction = booking -> {
+        booking.setId(idSequence.incrementAndGet());
+        return booking;
+    };
+    private Item item;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 1);
+        booker = new User(2, "User", "User@mail.ru");
+    }
+
+    @Test
+    void reserve_whenPeriodIsFree_thenSaveBooking() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+
+        Booking result = bookingIntervalIndex.reserve(newBooking(0, 2), saveAction);
+
+        assertEquals(1, result.getId());
+    }
+
+    @Test
+    void reserve_whenPeriodOverlapsSavedBooking_thenThrowBookingOverlapException() {
+        Booking savedBooking = new Booking(10, item, booker, BASE, BASE.plusHours(4), Status.APPROVED);
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of(savedBooking));
+
+        assertThrows(BookingOverlapException.class,
+                () -> bookingIntervalIndex.reserve(newBooking(3, 5), saveAction));
+        assertThrows(BookingOverlapException.class,
+                () -> bookingIntervalIndex.reserve(newBooking(-1, 1), saveAction));
+        assertThrows(BookingOverlapException.class,
+                () -> bookingIntervalIndex.reserve(newBooking(1, 2), saveAction));
+        assertEquals(0, idSequence.get());
+    }
+
+    @Test
+    void reserve_whenLegacyBookingsOverlapEachOther_thenCheckAllEarlierBookings() {
+        // бронирования, сохраненные до появления индекса: короткое лежит внутри длинного
+        Booking longBooking = new Booking(10, item, booker, BASE, BASE.plusHours(10), Status.APPROVED);
+        Booking shortBooking = new Booking(11, item, booker, BASE.plusHours(2), BASE.plusHours(3), Status.WAITING);
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of(longBooking, shortBooking));
+
+        assertThrows(BookingOverlapException.class,
+                () -> bookingIntervalIndex.reserve(newBooking(5, 6), saveAction));
+        Booking result = bookingIntervalIndex.reserve(newBooking(10, 12), saveAction);
+
+        assertEquals(1, result.getId());
+    }
+
+    @Test
+    void reserve_whenPeriodAdjoinsSavedBookings_thenSaveBooking() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+
+        bookingIntervalIndex.reserve(newBooking(0, 2), saveAction);
+        bookingIntervalIndex.reserve(newBooking(4, 6), saveAction);
+        Booking result = bookingIntervalIndex.reserve(newBooking(2, 4), saveAction);
+
+        assertEquals(3, result.getId());
+        Mockito.verify(bookingRepository).findBookingsByItemIdAndStatusIn(anyInt(), anyCollection());
+    }
+
+    @Test
+    void release_whenBookingRejected_thenPeriodBecomesFree() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+        Booking first = bookingIntervalIndex.reserve(newBooking(0, 2), saveAction);
+
+        bookingIntervalIndex.release(item.getId(), first.getId());
+        Booking result = bookingIntervalIndex.reserve(newBooking(1, 3), saveAction);
+
+        assertEquals(2, result.getId());
+    }
+
+    @Test
+    void findOccupied_whenBookingsAroundPeriod_thenReturnOnlyOverlappingInOrder() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of(new Booking(10, item, booker, BASE, BASE.plusHours(2), Status.APPROVED),
+                        new Booking(11, item, booker, BASE.plusHours(3), BASE.plusHours(5), Status.WAITING),
+                        new Booking(12, item, booker, BASE.plusHours(6), BASE.plusHours(8), Status.APPROVED),
+                        new Booking(13, item, booker, BASE.plusHours(9), BASE.plusHours(10), Status.APPROVED)));
+
+        List<BookingInterval> result = bookingIntervalIndex.findOccupied(item.getId(), BASE.plusHours(1),
+                BASE.plusHours(6));
+        List<BookingInterval> adjoining = bookingIntervalIndex.findOccupied(item.getId(), BASE.plusHours(5),
+                BASE.plusHours(6));
+
+        assertEquals(List.of(10, 11), result.stream().map(BookingInterval::getBookingId)
+                .collect(Collectors.toList()));
+        assertTrue(adjoining.isEmpty()); // интервалы не включают дату окончания
+        Mockito.verify(bookingRepository).findBookingsByItemIdAndStatusIn(anyInt(), anyCollection());
+    }
+
+    @Test
+    void findOccupied_whenLegacyBookingsOverlapEachOther_thenReturnEarlierLongBookingToo() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of(new Booking(10, item, booker, BASE, BASE.plusHours(10), Status.APPROVED),
+                        new Booking(11, item, booker, BASE.plusHours(2), BASE.plusHours(3), Status.WAITING),
+                        new Booking(12, item, booker, BASE.plusHours(6), BASE.plusHours(8), Status.APPROVED)));
+
+        List<BookingInterval> result = bookingIntervalIndex.findOccupied(item.getId(), BASE.plusHours(5),
+                BASE.plusHours(7));
+
+        assertEquals(List.of(10, 12), result.stream().map(BookingInterval::getBookingId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void findOccupied_whenBookingReleased_thenPeriodIsFree() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+        Booking booking = bookingIntervalIndex.reserve(newBooking(0, 2), saveAction);
+
+        List<BookingInterval> beforeRelease = bookingIntervalIndex.findOccupied(item.getId(), BASE, BASE.plusDays(1));
+        bookingIntervalIndex.release(item.getId(), booking.getId());
+        List<BookingInterval> afterRelease = bookingIntervalIndex.findOccupied(item.getId(), BASE, BASE.plusDays(1));
+
+        assertEquals(1, beforeRelease.size());
+        assertTrue(afterRelease.isEmpty());
+    }
+
+    @Test
+    void filterFree_whenSeveralItemsNotLoaded_thenLoadThemByOneQueryAndKeepOnlyFree() {
+        Item otherItem = new Item(2, "Дрель", "Ударная дрель с набором сверл", true, 1);
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+        bookingIntervalIndex.reserve(newBooking(0, 2), saveAction); // вещь 1 уже загружена
+        Mockito.when(bookingRepository.findBookingsByItemIdInAndStatusIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(new Booking(10, otherItem, booker, BASE.plusHours(4), BASE.plusHours(6),
+                        Status.WAITING)));
+
+        List<Integer> busyBoth = bookingIntervalIndex.filterFree(List.of(1, 2, 3), BASE.plusHours(1),
+                BASE.plusHours(5));
+        List<Integer> busyFirst = bookingIntervalIndex.filterFree(List.of(1, 2, 3), BASE, BASE.plusHours(3));
+
+        assertEquals(List.of(3), busyBoth);
+        assertEquals(List.of(2, 3), busyFirst);
+        // вещи 2 и 3 загружены одним запросом, повторная проверка обходится без БД
+        Mockito.verify(bookingRepository).findBookingsByItemIdInAndStatusIn(List.of(2, 3),
+                List.of(Status.WAITING, Status.APPROVED));
+        Mockito.verify(bookingRepository).findBookingsByItemIdAndStatusIn(anyInt(), anyCollection());
+    }
+
+    @Test
+    void reserve_whenSaveFailed_thenPeriodStaysFree() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> bookingIntervalIndex.reserve(newBooking(0, 2),
+                booking -> {
+                    throw new IllegalStateException("БД недоступна");
+                }));
+        Booking result = bookingIntervalIndex.reserve(newBooking(0, 2), saveAction);
+
+        assertEquals(1, result.getId());
+    }
+
+    @Test
+    void reserveAll_whenBookingsOverlapSavedOrEarlierBookingsOfBatch_thenSaveOnlyFreePeriods() {
+        Booking savedBooking = new Booking(10, item, booker, BASE, BASE.plusHours(2), Status.APPROVED);
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of(savedBooking));
+        List<List<Booking>> saveCalls = new ArrayList<>();
+
+        List<Booking> result = bookingIntervalIndex.reserveAll(
+                List.of(newBooking(1, 3), newBooking(2, 4), newBooking(4, 6), newBooking(5, 7)),
+                bookings -> {
+                    saveCalls.add(bookings);
+                    bookings.forEach(saveAction::apply);
+                    return bookings;
+                });
+
+        assertEquals(1, saveCalls.size());
+        assertEquals(2, saveCalls.get(0).size());
+        assertNull(result.get(0));
+        assertEquals(1, result.get(1).getId());
+        assertEquals(2, result.get(2).getId());
+        assertNull(result.get(3));
+        assertThrows(BookingOverlapException.class,
+                () -> bookingIntervalIndex.reserve(newBooking(3, 5), saveAction));
+    }
+
+    @Test
+    void reserveAll_whenSaveFailed_thenPeriodsStayFree() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> bookingIntervalIndex.reserveAll(
+                List.of(newBooking(0, 2), newBooking(2, 4)),
+                bookings -> {
+                    throw new IllegalStateException("БД недоступна");
+                }));
+        Booking result = bookingIntervalIndex.reserve(newBooking(1, 3), saveAction);
+
+        assertEquals(1, result.getId());
+    }
+
+    @Test
+    void hold_whenPeriodHeld_thenBookingOfOverlappingPeriodRejectedUntilHoldReleased() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+
+        bookingIntervalIndex.hold(item.getId(), 7L, BASE, BASE.plusHours(2));
+
+        assertThrows(BookingOverlapException.class, () -> bookingIntervalIndex.reserve(newBooking(1, 3), saveAction));
+        assertThrows(BookingOverlapException.class,
+                () -> bookingIntervalIndex.hold(item.getId(), 8L, BASE.plusHours(1), BASE.plusHours(3)));
+        List<BookingInterval> occupied = bookingIntervalIndex.findOccupied(item.getId(), BASE, BASE.plusDays(1));
+        assertEquals(1, occupied.size());
+        assertTrue(occupied.get(0).isHold());
+
+        bookingIntervalIndex.releaseHold(item.getId(), 7L);
+
+        assertEquals(1, bookingIntervalIndex.reserve(newBooking(1, 3), saveAction).getId());
+    }
+
+    @Test
+    void confirmHold_whenPeriodHeld_thenReplaceHoldWithSavedBooking() {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+        bookingIntervalIndex.hold(item.getId(), 7L, BASE, BASE.plusHours(2));
+
+        Booking result = bookingIntervalIndex.confirmHold(7L, newBooking(0, 2), saveAction);
+
+        assertEquals(1, result.getId());
+        List<BookingInterval> occupied = bookingIntervalIndex.findOccupied(item.getId(), BASE, BASE.plusDays(1));
+        assertEquals(1, occupied.size());
+        assertEquals(1, occupied.get(0).getBookingId());
+        bookingIntervalIndex.releaseHold(item.getId(), 7L); // удержания больше нет, бронирование остается
+        assertEquals(1, bookingIntervalIndex.findOccupied(item.getId(), BASE, BASE.plusDays(1)).size());
+    }
+
+    @Test
+    void reserve_whenManyThreadsBookPopularItem_thenAcceptedBookingsNeverOverlap() throws Exception {
+        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusIn(anyInt(), anyCollection()))
+                .thenReturn(List.of());
+        int threads = 16;
+        int attemptsPerThread = 500;
+        Queue<Booking> accepted = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    int startHour = random.nextInt(2000);
+                    int duration = 1 + random.nextInt(12);
+                    try {
+                        accepted.add(bookingIntervalIndex.reserve(newBooking(startHour, startHour + duration),
+                                saveAction));
+                    } catch (BookingOverlapException exc) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Booking> bookings = new ArrayList<>(accepted);
+        bookings.sort((first, second) -> first.getStartBookingDate().compareTo(second.getStartBookingDate()));
+        for (int i = 1; i < bookings.size(); i++) {
+            Booking previous = bookings.get(i - 1);
+            Booking current = bookings.get(i);
+            assertFalse(current.getStartBookingDate().isBefore(previous.getEndBookingDate()),
+                    "Пересекающиеся бронирования: " + previous.getId() + " и " + current.getId());
+        }
+        assertEquals(threads * attemptsPerThread, bookings.size() + rejected.get());
+        assertEquals(bookings.size(), idSequence.get());
+        assertTrue(rejected.get() > 0);
+        Mockito.verify(bookingRepository).findBookingsByItemIdAndStatusIn(anyInt(), anyCollection());
+    }
+
+    private Booking newBooking(int startHour, int endHour) {
+        return new Booking(0, item, booker, BASE.plusHours(startHour), BASE.plusHours(endHour), Status.WAITING);
+    }
+}
@@ -0,0 +1,329 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingPeriodView;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingStatusView;
+import ru.practicum.shareit.booking.storage.ItemBookingCountView;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.util.Page;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Sql(value = {"/clean-tables.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class BookingRepositoryTest {
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User booker;
+    private List<Booking> savedBookings;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(new User(0, "Owner", "Owner@mail.ru"));
+        booker = userRepository.save(new User(0, "Booker", "Booker@mail.ru"));
+        Item item = itemRepository.save(new Item(0, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
+                true, owner.getId()));
+        // бронирования 2 и 3 начинаются одновременно, их порядок определяется идентификатором;
+        // идентификаторы выдаются последовательностью, которая не сбрасывается между тестами
+        savedBookings = bookingRepository.saveAll(List.of(
+                new Booking(0, item, booker, START, START.plusDays(1), Status.WAITING),
+                new Booking(0, item, booker, START.plusDays(2), START.plusDays(3), Status.APPROVED),
+                new Booking(0, item, booker, START.plusDays(2), START.plusDays(4), Status.WAITING),
+                new Booking(0, item, booker, START.plusDays(5), START.plusDays(6), Status.WAITING)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findBookings_whenStartDatesEqual_thenSeekByIdWithoutGapsOrDuplicates() {
+        Pageable pageable = Page.getPage(0, 2);
+
+        List<Booking> firstPage = bookingRepository.findBookings(Role.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now(), null, pageable);
+        Booking last = firstPage.get(firstPage.size() - 1);
+        BookingCursor cursor = new BookingCursor(last.getStartBookingDate(), last.getId());
+        List<Booking> secondPage = bookingRepository.findBookings(Role.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now(), cursor, pageable);
+
+        assertEquals(numbers(4, 3), ids(firstPage));
+        assertEquals(numbers(2, 1), ids(secondPage));
+    }
+
+    @Test
+    void findBookings_whenOwnerAndStatusWithCursor_thenReturnOnlyBookingsAfterCursor() {
+        BookingCursor cursor = new BookingCursor(START.plusDays(2), savedBookings.get(2).getId());
+
+        List<Booking> result = bookingRepository.findBookings(Role.OWNER, 1, State.WAITING, LocalDateTime.now(),
+                cursor, Page.getPage(0, 10));
+
+        assertEquals(numbers(1), ids(result));
+    }
+
+    @Test
+    void findBookings_whenStateIsCurrent_thenReturnBookingsCoveringNow() {
+        List<Booking> result = bookingRepository.findBookings(Role.BOOKER, booker.getId(), State.CURRENT,
+                START.plusDays(2).plusHours(12), null, Page.getPage(0, 10));
+
+        assertEquals(numbers(3, 2), ids(result));
+    }
+
+    @Test
+    void findBookings_whenStateIsPastOrFuture_thenCompareWithNow() {
+        LocalDateTime now = START.plusDays(3).plusHours(12);
+
+        List<Booking> past = bookingRepository.findBookings(Role.OWNER, 1, State.PAST, now, null,
+                Page.getPage(0, 10));
+        List<Booking> future = bookingRepository.findBookings(Role.OWNER, 1, State.FUTURE, now, null,
+                Page.getPage(0, 10));
+
+        assertEquals(numbers(2, 1), ids(past));
+        assertEquals(numbers(4), ids(future));
+    }
+
+    @Test
+    void findBookings_whenFromNotMultipleOfSize_thenSkipExactlyFromRows() {
+        List<Booking> result = bookingRepository.findBookings(Role.BOOKER, booker.getId(), State.ALL,
+                LocalDateTime.now(), null, Page.getPage(1, 2));
+
+        assertEquals(numbers(3, 2), ids(result));
+    }
+
+    @Test
+    void findBookings_whenMapped_thenItemAndBookerLoadedByOneStatement() {
+        Statistics statistics = startStatistics();
+
+        List<Booking> result = bookingRepository.findBookings(Role.OWNER, 1, State.ALL, LocalDateTime.now(),
+                null, Page.getPage(0, 25));
+        touchItemsAndBookers(result);
+
+        assertEquals(4, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findBookings_whenSameShapeWithOtherValues_thenReuseQueryPlan() {
+        bookingRepository.findBookings(Role.BOOKER, booker.getId(), State.FUTURE, START, null, Page.getPage(0, 5));
+        Statistics statistics = startStatistics();
+
+        bookingRepository.findBookings(Role.BOOKER, 1, State.FUTURE, START.plusDays(1), null, Page.getPage(5, 10));
+
+        assertEquals(0, statistics.getQueryPlanCacheMissCount());
+        assertEquals(1, statistics.getQueryPlanCacheHitCount());
+    }
+
+    @Test
+    void findBookingsByItemIdAndStatusNot_whenMapped_thenItemAndBookerLoadedByOneStatement() {
+        Statistics statistics = startStatistics();
+
+        List<Booking> result = bookingRepository.findBookingsByItemIdAndStatusNot(1, Status.REJECTED,
+                Sort.by(Sort.Direction.DESC, "startBookingDate"));
+        touchItemsAndBookers(result);
+
+        assertEquals(4, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void saveAll_whenManyBookings_thenInsertWithJdbcBatches() {
+        Item item = itemRepository.findById(1).orElseThrow();
+        List<Booking> newBookings = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            newBookings.add(new Booking(0, item, booker, START.plusDays(10 + i), START.plusDays(11 + i),
+                    Status.WAITING));
+        }
+        Statistics statistics = startStatistics();
+
+        bookingRepository.saveAll(newBookings);
+        entityManager.flush();
+
+        // 120 вставок уходят тремя пакетами через один подготовленный оператор, а идентификаторы
+        // выдаются блоками по 50 значений: без пакетов и блоков здесь было бы 240 операторов
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 5);
+    }
+
+    @Test
+    void updateStatusOfWaitingBookings_whenSomeBookingsNotWaitingOrNotOwned_thenUpdateOnlyOwnersWaitingBookings() {
+        List<Integer> bookingIds = numbers(1, 2, 3);
+
+        int notOwnerRows = bookingRepository.updateStatusOfWaitingBookings(bookingIds, booker.getId(),
+                Status.APPROVED);
+        int ownerRows = bookingRepository.updateStatusOfWaitingBookings(bookingIds, 1, Status.APPROVED);
+
+        assertEquals(0, notOwnerRows);
+        assertEquals(2, ownerRows); // бронирование 2 уже было подтверждено
+        List<BookingStatusView> statuses = bookingRepository.findBookingStatuses(numbers(1, 2, 3, 4));
+        assertEquals(4, statuses.size());
+        for (BookingStatusView view : statuses) {
+            Status expected = view.getId() == savedBookings.get(3).getId() ? Status.WAITING : Status.APPROVED;
+            assertEquals(expected, view.getStatus());
+            assertEquals(1, view.getOwnerId());
+        }
+    }
+
+    @Test
+    void decideWaitingBookings_whenSomeBookingsAlreadyDecided_thenReturnOnlyIdsChangedByThisCall() {
+        List<Integer> bookingIds = numbers(1, 2, 3);
+        bookingRepository.updateStatusOfWaitingBookings(numbers(3), 1, Status.APPROVED); // то же решение успело
+
+        List<Integer> notOwnerIds = bookingRepository.decideWaitingBookings(bookingIds, booker.getId(),
+                Status.APPROVED);
+        List<Integer> updatedIds = bookingRepository.decideWaitingBookings(bookingIds, 1, Status.APPROVED);
+        List<Integer> repeatedIds = bookingRepository.decideWaitingBookings(bookingIds, 1, Status.APPROVED);
+
+        assertTrue(notOwnerIds.isEmpty());
+        assertEquals(numbers(1), updatedIds); // бронирование 2 было подтверждено заранее, а 3 - другим запросом
+        assertTrue(repeatedIds.isEmpty());
+        Booking booking = bookingRepository.findById(numbers(1).get(0)).orElseThrow();
+        assertEquals(Status.APPROVED, booking.getStatus());
+        assertEquals(savedBookings.get(0).getVersion() + 1, booking.getVersion());
+    }
+
+    @Test
+    void save_whenBookingChangedByConditionalUpdateAfterRead_thenThrowOptimisticLockingFailure() {
+        int bookingId = savedBookings.get(0).getId();
+        Booking staleBooking = bookingRepository.findById(bookingId).orElseThrow();
+        entityManager.detach(staleBooking);
+
+        bookingRepository.updateStatusOfWaitingBookings(List.of(bookingId), 1, Status.APPROVED);
+        staleBooking.setStatus(Status.REJECTED);
+
+        // устаревшая копия не перезаписывает решение, принятое условным обновлением
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingRepository.save(staleBooking));
+        Booking currentBooking = bookingRepository.findById(bookingId).orElseThrow();
+        assertEquals(Status.APPROVED, currentBooking.getStatus());
+        assertEquals(staleBooking.getVersion() + 1, currentBooking.getVersion());
+    }
+
+    @Test
+    void forEachBooking_whenFetchSizeSmallerThanResult_thenPassAllBookingsInOrderAndClearContext() {
+        List<Booking> received = new ArrayList<>();
+        List<Boolean> managedOnReceive = new ArrayList<>();
+
+        bookingRepository.forEachBooking(Role.OWNER, 1, State.ALL, LocalDateTime.now(), 2, booking -> {
+            received.add(booking);
+            managedOnReceive.add(entityManager.getEntityManager().contains(booking));
+        });
+
+        assertEquals(numbers(4, 3, 2, 1), ids(received));
+        assertEquals(List.of(true, true, true, true), managedOnReceive);
+        // после каждой пачки из двух строк контекст очищается, поэтому полученные бронирования не удерживаются
+        assertTrue(received.stream().noneMatch(booking -> entityManager.getEntityManager().contains(booking)));
+        assertEquals("Booker", received.get(0).getBooker().getName()); // связи прочитаны тем же запросом
+    }
+
+    @Test
+    void expireWaitingBookings_whenStartPassed_thenExpireOnlyWaitingBookingsInStartOrder() {
+        LocalDateTime now = START.plusDays(3);
+
+        List<BookingStatusView> stale = bookingRepository.findStaleWaitingBookings(now, Page.getPage(0, 10));
+        List<Integer> staleIds = stale.stream().map(BookingStatusView::getId).collect(Collectors.toList());
+        // бронирование 2 уже подтверждено, а 4 еще не началось
+        assertEquals(numbers(1, 3), staleIds);
+        assertEquals(START, bookingRepository.findOldestStaleWaitingStart(now).orElseThrow());
+
+        bookingRepository.updateStatusOfWaitingBookings(numbers(3), 1, Status.REJECTED); // решение владельца успело
+        int expiredRows = bookingRepository.expireWaitingBookings(staleIds, now);
+
+        assertEquals(1, expiredRows);
+        assertEquals(Status.EXPIRED, bookingRepository.findById(numbers(1).get(0)).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingRepository.findById(numbers(3).get(0)).orElseThrow().getStatus());
+        assertTrue(bookingRepository.findStaleWaitingBookings(now, Page.getPage(0, 10)).isEmpty());
+        assertTrue(bookingRepository.findOldestStaleWaitingStart(now).isEmpty());
+        List<Booking> expired = bookingRepository.findBookings(Role.OWNER, 1, State.EXPIRED, now, null,
+                Page.getPage(0, 10));
+        assertEquals(numbers(1), ids(expired));
+    }
+
+    @Test
+    void findBookerPeriodsAndBookingsByIdIn_whenTimelineBuilt_thenReadPeriodsAndPageWithOneStatementEach() {
+        Statistics statistics = startStatistics();
+
+        List<BookingPeriodView> bookerPeriods = bookingRepository.findBookerPeriods(booker.getId());
+        List<BookingPeriodView> ownerPeriods = bookingRepository.findOwnerPeriods(1);
+        List<Booking> page = bookingRepository.findBookingsByIdIn(numbers(2, 4));
+        touchItemsAndBookers(page);
+
+        assertEquals(4, bookerPeriods.size());
+        assertEquals(4, ownerPeriods.size());
+        BookingPeriodView first = bookerPeriods.stream()
+                .filter(period -> period.getId() == savedBookings.get(1).getId()).findFirst().orElseThrow();
+        assertEquals(START.plusDays(2), first.getStart());
+        assertEquals(START.plusDays(3), first.getEnd());
+        assertEquals(Status.APPROVED, first.getStatus());
+        assertEquals(2, page.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void countBookingsByItem_whenItemBooked_thenReturnBookingCountOfItem() {
+        List<ItemBookingCountView> counts = bookingRepository.countBookingsByItem();
+
+        assertEquals(1, counts.size());
+        assertEquals(savedBookings.get(0).getItem().getId(), counts.get(0).getItemId());
+        assertEquals(4L, counts.get(0).getBookingCount());
+    }
+
+    private Statistics startStatistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    // обращаемся к тем же связям, что и BookingMapperImpl: без графа загрузки здесь были бы дополнительные запросы
+    private void touchItemsAndBookers(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            booking.getItem().getName();
+            booking.getBooker().getName();
+        }
+    }
+
+    // идентификаторы бронирований из setUp по их порядковым номерам (с единицы)
+    private List<Integer> numbers(int... numbers) {
+        List<Integer> ids = new ArrayList<>();
+        for (int number : numbers) {
+            ids.add(savedBookings.get(number - 1).getId());
+        }
+        return ids;
+    }
+
+    private List<Integer> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+}
@@ -8,38 +8,67 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.event.BookingEventHub;
+import ru.practicum.shareit.booking.hold.BookingHold;
+import ru.practicum.shareit.booking.hold.BookingHolds;
+import ru.practicum.shareit.booking.service.BookingExport;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.BookingStatusView;
+import ru.practicum.shareit.booking.timeline.BookingTimelines;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingCreateRequestDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.dto.BookingHoldDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.BookingException;
 import ru.practicum.shareit.exception.BookingIsApprovedException;
+import ru.practicum.shareit.exception.BookingOverlapException;
+import ru.practicum.shareit.exception.DateTimeBookingException;
+import ru.practicum.shareit.exception.InvalidCursorException;
 import ru.practicum.shareit.exception.NotItemOwnerException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.UnknownStateException;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.storage.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
-import static ru.practicum.shareit.util.Page.getSortedPage;
+import static ru.practicum.shareit.util.Page.getPage;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceImplTest {
@@ -51,10 +80,28 @@ class BookingServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ItemRepository itemRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemBookingSummaries itemBookingSummaries;
+    @Mock
+    private BookingEventHub bookingEventHub;
+    @Mock
+    private BookingHolds bookingHolds;
+    @Mock
+    private BookingTimelines bookingTimelines;
+    @Mock
+    private ItemSuggestions itemSuggestions;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
     @InjectMocks
     private BookingServiceImpl bookingService;
     @Captor
     private ArgumentCaptor<Booking> bookingArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<BookingCursor> cursorCaptor;
+    @Captor
+    private ArgumentCaptor<BookingEventDto> eventCaptor;
 
     @Test
     void createNewBooking_whenUserAndItemFound_thenSaveBooking() {
@@ -67,13 +114,17 @@ class BookingServiceImplTest {
                 item.getIsAvailable(), item.getOwnerId());
         BookingCreateRequestDto inputBookingDto = new BookingCreateRequestDto(
                 1, LocalDateTime.now(), LocalDateTime.now().plusDays(2));
-        Booking booking = new Booking();
+        Booking booking = new Booking(1, item, booker, inputBookingDto.getStart(), inputBookingDto.getEnd(),
+                Status.WAITING);
         BookingResponseDto expectedBookingResponseDto = new BookingResponseDto(1, LocalDateTime.now(),
                 LocalDateTime.now().plusDays(2), "WAITING", userDto, itemDto);
 
         Mockito.when(itemRepository.findById(inputBookingDto.getItemId())).thenReturn(Optional.of(item));
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
         Mockito.when(bookingMapper.toBooking(inputBookingDto, item, booker)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(any(Booking.class), any()))
+                .thenAnswer(invocation -> invocation.<UnaryOperator<Booking>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
         Mockito.when(bookingRepository.save(booking)).thenReturn(booking);
         Mockito.when(bookingMapper.toBookingResponseDto(any(Booking.class))).thenReturn(expectedBookingResponseDto);
 
@@ -83,8 +134,174 @@ class BookingServiceImplTest {
         Mockito.verify(itemRepository).findById(inputBookingDto.getItemId());
         Mockito.verify(userRepository).findById(userId);
         Mockito.verify(bookingMapper).toBooking(inputBookingDto, item, booker);
+        Mockito.verify(bookingIntervalIndex).reserve(any(Booking.class), any());
         Mockito.verify(bookingRepository).save(booking);
+        Mockito.verify(itemSuggestions).addBooking(item.getId());
+        Mockito.verify(itemSearchIndex).addBooking(item.getId());
         Mockito.verify(bookingMapper).toBookingResponseDto(booking);
+        Mockito.verify(bookingEventHub).publish(eventCaptor.capture()); // арендатор и владелец узнают о бронировании
+        assertEquals(BookingEventDto.CREATED, eventCaptor.getValue().getType());
+        assertEquals(booker.getId(), eventCaptor.getValue().getBookerId());
+        assertEquals(item.getOwnerId(), eventCaptor.getValue().getOwnerId());
+    }
+
+    @Test
+    void createNewBooking_whenSummaryRefreshFails_thenBookingAlreadyInTimelinesAndPublished() {
+        int userId = 1;
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 2);
+        BookingCreateRequestDto inputBookingDto = new BookingCreateRequestDto(
+                1, LocalDateTime.now(), LocalDateTime.now().plusDays(2));
+        Booking booking = new Booking(1, item, booker, inputBookingDto.getStart(), inputBookingDto.getEnd(),
+                Status.WAITING);
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(item));
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+        Mockito.when(bookingMapper.toBooking(inputBookingDto, item, booker)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(any(Booking.class), any())).thenReturn(booking);
+        Mockito.doThrow(new DataIntegrityViolationException("summary")).when(itemBookingSummaries)
+                .refresh(List.of(1));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookingService.createNewBooking(userId, inputBookingDto));
+        // сохраненное бронирование попадает в ленты и события независимо от пересчета карточки вещи
+        Mockito.verify(bookingTimelines).add(booking);
+        Mockito.verify(bookingEventHub).publish(any(BookingEventDto.class));
+    }
+
+    @Test
+    void createHold_whenBookingDataValid_thenHoldPeriodWithoutSavingBooking() {
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 2);
+        BookingCreateRequestDto inputBookingDto = new BookingCreateRequestDto(
+                1, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        BookingHold hold = new BookingHold(5L, 1, 1, inputBookingDto.getStart(), inputBookingDto.getEnd(),
+                LocalDateTime.now().plusMinutes(5));
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(item));
+        Mockito.when(userRepository.findById(1)).thenReturn(Optional.of(booker));
+        Mockito.when(bookingHolds.hold(1, 1, inputBookingDto.getStart(), inputBookingDto.getEnd())).thenReturn(hold);
+
+        BookingHoldDto result = bookingService.createHold(1, inputBookingDto);
+
+        assertEquals(5L, result.getId());
+        assertEquals(hold.getExpiresAt(), result.getExpiresAt());
+        Mockito.verify(bookingMapper).toBooking(inputBookingDto, item, booker); // те же проверки, что у бронирования
+        Mockito.verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    @Test
+    void confirmHold_whenHoldActive_thenReplaceHoldWithBooking() {
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 2);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingHold hold = new BookingHold(5L, 1, 1, start, start.plusDays(1), LocalDateTime.now().plusMinutes(5));
+        Booking booking = new Booking(0, item, booker, start, start.plusDays(1), Status.WAITING);
+        Mockito.when(bookingHolds.take(1, 5L)).thenReturn(Optional.of(hold));
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(item));
+        Mockito.when(userRepository.findById(1)).thenReturn(Optional.of(booker));
+        Mockito.when(bookingMapper.toBooking(any(BookingCreateRequestDto.class), eq(item), eq(booker)))
+                .thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.confirmHold(eq(5L), eq(booking), any())).thenReturn(booking);
+
+        bookingService.confirmHold(1, 5L);
+
+        Mockito.verify(itemBookingSummaries).refresh(List.of(1));
+        Mockito.verify(bookingEventHub).publish(eventCaptor.capture());
+        assertEquals(BookingEventDto.CREATED, eventCaptor.getValue().getType());
+    }
+
+    @Test
+    void confirmHold_whenHoldExpiredOrNotOwn_thenThrowObjectNotFoundException() {
+        Mockito.when(bookingHolds.take(1, 5L)).thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> bookingService.confirmHold(1, 5L));
+        Mockito.verify(bookingIntervalIndex, never()).confirmHold(Mockito.anyLong(), any(), any());
+    }
+
+    @Test
+    void confirmHold_whenItemBecameUnavailable_thenReleaseHeldPeriod() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingHold hold = new BookingHold(5L, 1, 1, start, start.plusDays(1), LocalDateTime.now().plusMinutes(5));
+        Mockito.when(bookingHolds.take(1, 5L)).thenReturn(Optional.of(hold));
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> bookingService.confirmHold(1, 5L));
+        Mockito.verify(bookingIntervalIndex).releaseHold(1, 5L);
+    }
+
+    @Test
+    void createBookings_whenSomeBookingsInvalid_thenReturnResultForEachBookingInRequestOrder() {
+        int userId = 1;
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 2);
+        BookingCreateRequestDto valid = new BookingCreateRequestDto(1, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingCreateRequestDto unknownItem = new BookingCreateRequestDto(5, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2));
+        BookingCreateRequestDto invalidDates = new BookingCreateRequestDto(1, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(1));
+        BookingCreateRequestDto overlapping = new BookingCreateRequestDto(1, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(3));
+        Booking validBooking = new Booking(0, item, booker, valid.getStart(), valid.getEnd(), Status.WAITING);
+        Booking overlappingBooking = new Booking(0, item, booker, overlapping.getStart(), overlapping.getEnd(),
+                Status.WAITING);
+        Booking createdBooking = new Booking(7, item, booker, valid.getStart(), valid.getEnd(), Status.WAITING);
+        BookingResponseDto createdDto = new BookingResponseDto(7, valid.getStart(), valid.getEnd(), "WAITING",
+                null, null);
+
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+        Mockito.when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        Mockito.when(bookingMapper.toBooking(valid, item, booker)).thenReturn(validBooking);
+        Mockito.when(bookingMapper.toBooking(invalidDates, item, booker))
+                .thenThrow(new DateTimeBookingException("Дата окончания раньше даты начала"));
+        Mockito.when(bookingMapper.toBooking(overlapping, item, booker)).thenReturn(overlappingBooking);
+        Mockito.when(bookingIntervalIndex.reserveAll(eq(List.of(validBooking, overlappingBooking)), any()))
+                .thenReturn(Arrays.asList(createdBooking, null));
+        Mockito.when(bookingMapper.toBookingResponseDto(createdBooking)).thenReturn(createdDto);
+
+        List<BookingBatchResultDto> result = bookingService.createBookings(userId,
+                List.of(valid, unknownItem, invalidDates, overlapping));
+
+        assertEquals(4, result.size());
+        assertEquals(BookingBatchResultDto.CREATED, result.get(0).getResult());
+        assertEquals(createdDto, result.get(0).getBooking());
+        assertEquals(BookingBatchResultDto.FAILED, result.get(1).getResult());
+        assertEquals("Вещь с id=5 не найдена в БД!", result.get(1).getError());
+        assertEquals("Дата окончания раньше даты начала", result.get(2).getError());
+        assertEquals(BookingBatchResultDto.FAILED, result.get(3).getResult());
+        assertEquals(3, result.get(3).getIndex());
+        Mockito.verify(itemRepository).findAllById(any());
+        Mockito.verify(itemRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    void createBookings_whenBookerNotFound_thenThrowObjectNotFoundException() {
+        Mockito.when(userRepository.findById(1)).thenReturn(Optional.empty());
+
+        assertThrows(ObjectNotFoundException.class, () -> bookingService.createBookings(1,
+                List.of(new BookingCreateRequestDto(1, LocalDateTime.now(), LocalDateTime.now().plusDays(1)))));
+        Mockito.verify(bookingIntervalIndex, never()).reserveAll(anyList(), any());
+    }
+
+    @Test
+    void createNewBooking_whenPeriodOverlapsOtherBooking_thenThrowBookingOverlapExceptionAndNotSaveBooking() {
+        int userId = 1;
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
+                true, 2);
+        BookingCreateRequestDto inputBookingDto = new BookingCreateRequestDto(
+                1, LocalDateTime.now(), LocalDateTime.now().plusDays(2));
+        Booking booking = new Booking();
+
+        Mockito.when(itemRepository.findById(inputBookingDto.getItemId())).thenReturn(Optional.of(item));
+        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+        Mockito.when(bookingMapper.toBooking(inputBookingDto, item, booker)).thenReturn(booking);
+        Mockito.when(bookingIntervalIndex.reserve(any(Booking.class), any()))
+                .thenThrow(new BookingOverlapException("Вещь с id=1 уже забронирована"));
+
+        assertThrows(BookingOverlapException.class,
+                () -> bookingService.createNewBooking(userId, inputBookingDto));
+        Mockito.verify(bookingRepository, never()).save(any(Booking.class));
+        Mockito.verify(bookingMapper, never()).toBookingResponseDto(any(Booking.class));
     }
 
     @Test
@@ -137,31 +354,27 @@ class BookingServiceImplTest {
         ItemDto itemDto = new ItemDto(item.getId(), item.getName(), item.getDescription(),
                 item.getIsAvailable(), item.getOwnerId());
 
-        Booking booking = new Booking(1, item, booker,
-                null, null, Status.WAITING);
         Booking updatedBooking = new Booking(1, item, booker, null,
                 null, Status.APPROVED);
         BookingResponseDto expectedBookingResponseDto = new BookingResponseDto(1, null,
                 null, updatedBooking.getStatus().toString(), userDto, itemDto);
 
-        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(bookingRepository.save(any())).thenReturn(updatedBooking);
+        Mockito.when(bookingRepository.updateStatusOfWaitingBookings(List.of(bookingId), userId, Status.APPROVED))
+                .thenReturn(1);
+        Mockito.when(bookingRepository.findBookingById(bookingId)).thenReturn(Optional.of(updatedBooking));
         Mockito.when(bookingMapper.toBookingResponseDto(updatedBooking)).thenReturn(expectedBookingResponseDto);
 
         BookingResponseDto result = bookingService.approveOrRejectBooking(userId, bookingId, isApproved);
 
-        Mockito.verify(bookingRepository).save(bookingArgumentCaptor.capture());
-        Booking updatedBookingInDb = bookingArgumentCaptor.getValue();
-        assertEquals(updatedBooking.getStatus(), updatedBookingInDb.getStatus());
-        assertEquals(booking.getId(), updatedBookingInDb.getId());
-        assertEquals(booking.getItem().getId(), updatedBookingInDb.getItem().getId());
-        assertEquals(booking.getBooker().getId(), updatedBookingInDb.getBooker().getId());
-
         assertEquals(expectedBookingResponseDto, result);
-        Mockito.verify(bookingRepository).findById(bookingId);
-        Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingMapper).toBookingResponseDto(updatedBooking);
+        Mockito.verify(bookingRepository).updateStatusOfWaitingBookings(List.of(bookingId), userId,
+                Status.APPROVED);
+        Mockito.verify(bookingRepository, never()).findById(anyInt());
+        Mockito.verify(bookingRepository, never()).save(any(Booking.class));
+        Mockito.verify(bookingIntervalIndex, never()).release(anyInt(), anyInt());
+        Mockito.verify(bookingEventHub).publish(eventCaptor.capture());
+        assertEquals(BookingEventDto.STATUS_CHANGED, eventCaptor.getValue().getType());
+        assertEquals("APPROVED", eventCaptor.getValue().getStatus());
     }
 
     @Test
@@ -176,31 +389,134 @@ class BookingServiceImplTest {
         ItemDto itemDto = new ItemDto(item.getId(), item.getName(), item.getDescription(),
                 item.getIsAvailable(), item.getOwnerId());
 
-        Booking booking = new Booking(1, item, booker,
-                null, null, Status.WAITING);
         Booking updatedBooking = new Booking(1, item, booker, null,
                 null, Status.REJECTED);
         BookingResponseDto expectedBookingResponseDto = new BookingResponseDto(1, null,
                 null, "REJECTED", userDto, itemDto);
 
-        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
-        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(bookingRepository.save(any(Booking.class))).thenReturn(updatedBooking);
+        Mockito.when(bookingRepository.updateStatusOfWaitingBookings(List.of(bookingId), userId, Status.REJECTED))
+                .thenReturn(1);
+        Mockito.when(bookingRepository.findBookingById(bookingId)).thenReturn(Optional.of(updatedBooking));
         Mockito.when(bookingMapper.toBookingResponseDto(updatedBooking)).thenReturn(expectedBookingResponseDto);
 
         BookingResponseDto result = bookingService.approveOrRejectBooking(userId, bookingId, isApproved);
 
-        Mockito.verify(bookingRepository).save(bookingArgumentCaptor.capture());
-        Booking updatedBookingInDb = bookingArgumentCaptor.getValue();
-        assertEquals(updatedBooking.getStatus(), updatedBookingInDb.getStatus());
-        assertEquals(booking.getId(), updatedBookingInDb.getId());
-        assertEquals(booking.getItem().getId(), updatedBookingInDb.getItem().getId());
-        assertEquals(booking.getBooker().getId(), updatedBookingInDb.getBooker().getId());
-
         assertEquals(expectedBookingResponseDto, result);
-        Mockito.verify(bookingRepository).findById(bookingId);
-        Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingMapper).toBookingResponseDto(updatedBooking);
+        Mockito.verify(bookingRepository, never()).save(any(Booking.class));
+        Mockito.verify(bookingIntervalIndex).release(item.getId(), bookingId);
+    }
+
+    @Test
+    void approveOrRejectBookings_whenSomeBookingsNotChangeable_thenReturnResultForEachBooking() {
+        int userId = 1;
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        List<BookingStatusView> statuses = List.of(statusView(1, Status.WAITING, 10, userId),
+                statusView(2, Status.APPROVED, 10, userId), statusView(3, Status.WAITING, 20, 2),
+                statusView(5, Status.WAITING, 30, userId));
+        Mockito.when(bookingRepository.findBookingStatuses(anyCollection())).thenReturn(statuses);
+        Mockito.when(bookingRepository.decideWaitingBookings(List.of(5, 1), userId, Status.REJECTED))
+                .thenReturn(List.of(1, 5));
+
+        List<BookingDecisionResultDto> result = bookingService.approveOrRejectBookings(userId,
+                List.of(5, 1, 2, 3, 4, 1), false);
+
+        assertEquals(List.of(5, 1, 2, 3, 4), result.stream().map(BookingDecisionResultDto::getBookingId)
+                .collect(Collectors.toList()));
+        assertEquals(List.of(BookingDecisionResultDto.UPDATED, BookingDecisionResultDto.UPDATED,
+                        BookingDecisionResultDto.NOT_WAITING, BookingDecisionResultDto.NOT_OWNER,
+                        BookingDecisionResultDto.NOT_FOUND),
+                result.stream().map(BookingDecisionResultDto::getResult).collect(Collectors.toList()));
+        assertEquals("REJECTED", result.get(0).getStatus());
+        assertNull(result.get(4).getStatus());
+        Mockito.verify(bookingRepository).findBookingStatuses(anyCollection());
+        Mockito.verify(bookingIntervalIndex).release(30, 5);
+        Mockito.verify(bookingIntervalIndex).release(10, 1);
+        Mockito.verify(bookingEventHub, Mockito.times(2)).publish(eventCaptor.capture()); // только по измененным
+        assertEquals(List.of(5, 1), eventCaptor.getAllValues().stream().map(BookingEventDto::getBookingId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void approveOrRejectBookings_whenBookingChangedConcurrently_thenReportItNotWaiting() {
+        int userId = 1;
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        List<BookingStatusView> statusesBefore = List.of(statusView(1, Status.WAITING, 10, userId),
+                statusView(2, Status.WAITING, 10, userId));
+        List<BookingStatusView> statusesAfter = List.of(statusView(1, Status.APPROVED, 10, userId),
+                statusView(2, Status.REJECTED, 10, userId));
+        Mockito.when(bookingRepository.findBookingStatuses(anyCollection()))
+                .thenReturn(statusesBefore)
+                .thenReturn(statusesAfter);
+        Mockito.when(bookingRepository.decideWaitingBookings(List.of(1, 2), userId, Status.APPROVED))
+                .thenReturn(List.of(1));
+
+        List<BookingDecisionResultDto> result = bookingService.approveOrRejectBookings(userId, List.of(1, 2), true);
+
+        assertEquals(BookingDecisionResultDto.UPDATED, result.get(0).getResult());
+        assertEquals(BookingDecisionResultDto.NOT_WAITING, result.get(1).getResult());
+        assertEquals("REJECTED", result.get(1).getStatus());
+        Mockito.verify(bookingRepository, Mockito.times(2)).findBookingStatuses(anyCollection());
+        Mockito.verify(bookingIntervalIndex, never()).release(anyInt(), anyInt());
+    }
+
+    @Test
+    void approveOrRejectBookings_whenSameDecisionMadeConcurrently_thenReportOnlyOwnChangesAsUpdated() {
+        int userId = 1;
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        List<BookingStatusView> statusesBefore = List.of(statusView(1, Status.WAITING, 10, userId),
+                statusView(2, Status.WAITING, 20, userId));
+        // повторный запрос с тем же решением успел изменить бронирование 2: после него оно тоже отклонено
+        List<BookingStatusView> statusesAfter = List.of(statusView(1, Status.REJECTED, 10, userId),
+                statusView(2, Status.REJECTED, 20, userId));
+        Mockito.when(bookingRepository.findBookingStatuses(anyCollection()))
+                .thenReturn(statusesBefore)
+                .thenReturn(statusesAfter);
+        Mockito.when(bookingRepository.decideWaitingBookings(List.of(1, 2), userId, Status.REJECTED))
+                .thenReturn(List.of(1));
+
+        List<BookingDecisionResultDto> result = bookingService.approveOrRejectBookings(userId, List.of(1, 2), false);
+
+        assertEquals(BookingDecisionResultDto.UPDATED, result.get(0).getResult());
+        assertEquals(BookingDecisionResultDto.NOT_WAITING, result.get(1).getResult());
+        assertEquals("REJECTED", result.get(1).getStatus());
+        // освобождение периода, лента и событие - только для бронирования, которое изменил этот запрос
+        Mockito.verify(bookingIntervalIndex).release(10, 1);
+        Mockito.verify(bookingIntervalIndex, never()).release(20, 2);
+        Mockito.verify(bookingTimelines).updateStatus(1, 101, userId, Status.REJECTED);
+        Mockito.verify(bookingTimelines, never()).updateStatus(eq(2), anyInt(), anyInt(), any());
+        Mockito.verify(bookingEventHub).publish(eventCaptor.capture());
+        assertEquals(1, eventCaptor.getValue().getBookingId());
+        Mockito.verify(itemBookingSummaries).refresh(Set.of(10));
+    }
+
+    @Test
+    void approveOrRejectBookings_whenUserNotFound_thenThrowObjectNotFoundException() {
+        Mockito.when(userRepository.existsById(1)).thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class,
+                () -> bookingService.approveOrRejectBookings(1, List.of(1), true));
+        Mockito.verify(bookingRepository, never()).decideWaitingBookings(anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void approveOrRejectBooking_whenRejectedBookingApproved_thenReservePeriodAgain() {
+        int userId = 1;
+        int bookingId = 1;
+        User booker = new User(2, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
+                true, 1);
+        Booking booking = new Booking(1, item, booker, null,
+                null, Status.REJECTED);
+
+        Mockito.when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        Mockito.when(bookingIntervalIndex.reserve(any(Booking.class), any()))
+                .thenThrow(new BookingOverlapException("Вещь с id=1 уже забронирована"));
+
+        assertThrows(BookingOverlapException.class,
+                () -> bookingService.approveOrRejectBooking(userId, bookingId, true));
+        Mockito.verify(bookingIntervalIndex).reserve(any(Booking.class), any());
+        Mockito.verify(bookingRepository, never()).save(any(Booking.class));
     }
 
     @Test
@@ -285,6 +601,20 @@ class BookingServiceImplTest {
         Mockito.verify(bookingMapper, never()).toBookingResponseDto(any(Booking.class));
     }
 
+    @Test
+    void approveOrRejectBooking_whenBookingExpired_thenThrowBookingExceptionAndKeepPeriodFree() {
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 2);
+        Booking booking = new Booking(3, item, booker, null, null, Status.EXPIRED);
+        Mockito.when(bookingRepository.updateStatusOfWaitingBookings(List.of(3), 2, Status.APPROVED)).thenReturn(0);
+        Mockito.when(bookingRepository.findById(3)).thenReturn(Optional.of(booking));
+        Mockito.when(userRepository.existsById(2)).thenReturn(true);
+
+        assertThrows(BookingException.class, () -> bookingService.approveOrRejectBooking(2, 3, true));
+        Mockito.verify(bookingIntervalIndex, never()).reserve(any(Booking.class), any());
+        Mockito.verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
     @Test
     void getBooking_whenBookingAndUserFound_thenReturnedBookingResponseDto() {
         int userId = 1;
@@ -371,61 +701,64 @@ class BookingServiceImplTest {
         String state = "ALL";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
+        Pageable pageable = getPage(from, size);
         Booking booking = new Booking();
         BookingResponseDto expectedResponseDto = new BookingResponseDto(1, LocalDateTime.now(),
                 LocalDateTime.now().plusDays(2), "WAITING", null, null);
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(bookingRepository.findBookingsByBookerId(userId, pageable)).thenReturn(List.of(booking));
+        Mockito.when(bookingRepository.findBookings(eq(Role.BOOKER), eq(userId), eq(State.ALL),
+                any(LocalDateTime.class), isNull(), eq(pageable))).thenReturn(List.of(booking));
         Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
 
         bookingService.getBookingsForBooker(userId, state, from, size);
 
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingRepository).findBookingsByBookerId(userId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-                        userId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateAfter(userId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndEndBookingDateBefore(userId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable);
+        Mockito.verify(bookingRepository).findBookings(eq(Role.BOOKER), eq(userId), eq(State.ALL),
+                any(LocalDateTime.class), isNull(), eq(pageable));
         Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
     }
 
+    @Test
+    void getBookingsForItemsOwner_whenTimelineAnswers_thenLoadOnlyPageBookingsInTimelineOrder() {
+        User booker = new User(1, "User", "User@mail.ru");
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 2);
+        Booking first = new Booking(5, item, booker, LocalDateTime.now().plusDays(3), null, Status.WAITING);
+        Booking second = new Booking(4, item, booker, LocalDateTime.now().plusDays(2), null, Status.WAITING);
+        Mockito.when(userRepository.existsById(2)).thenReturn(true);
+        Mockito.when(itemRepository.existsByOwnerId(2)).thenReturn(true);
+        Mockito.when(bookingTimelines.findPage(eq(Role.OWNER), eq(2), eq(State.FUTURE), any(LocalDateTime.class),
+                isNull(), eq(0), eq(10))).thenReturn(Optional.of(List.of(5, 4)));
+        Mockito.when(bookingRepository.findBookingsByIdIn(List.of(5, 4))).thenReturn(List.of(second, first));
+
+        bookingService.getBookingsForItemsOwner(2, "FUTURE", 0, 10);
+
+        Mockito.verify(bookingMapper).toBookingDtoList(List.of(first, second));
+        Mockito.verify(bookingRepository, never()).findBookings(any(), anyInt(), any(), any(), any(), any());
+    }
+
     @Test
     void getBookingsForBooker_whenUserFoundAndStateIsRejected_thenReturnedAnswer() {
         int userId = 1;
         String state = "REJECTED";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
+        Pageable pageable = getPage(from, size);
         Booking booking = new Booking();
         BookingResponseDto expectedResponseDto = new BookingResponseDto(1, LocalDateTime.now(),
                 LocalDateTime.now().plusDays(2), "REJECTED", null, null);
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(bookingRepository.findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable))
+        Mockito.when(bookingRepository.findBookings(eq(Role.BOOKER), eq(userId), eq(State.REJECTED),
+                any(LocalDateTime.class), isNull(), eq(pageable)))
                 .thenReturn(List.of(booking));
         Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
 
         bookingService.getBookingsForBooker(userId, state, from, size);
 
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerId(userId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(userId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateAfter(userId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndEndBookingDateBefore(userId, null, pageable);
-        Mockito.verify(bookingRepository).findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable);
+        Mockito.verify(bookingRepository).findBookings(eq(Role.BOOKER), eq(userId), eq(State.REJECTED),
+                any(LocalDateTime.class), isNull(), eq(pageable));
         Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
     }
 
@@ -435,30 +768,22 @@ class BookingServiceImplTest {
         String state = "WAITING";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
+        Pageable pageable = getPage(from, size);
         Booking booking = new Booking();
         BookingResponseDto expectedResponseDto = new BookingResponseDto(1, LocalDateTime.now(),
                 LocalDateTime.now().plusDays(2), "WAITING", null, null);
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(bookingRepository.findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable))
+        Mockito.when(bookingRepository.findBookings(eq(Role.BOOKER), eq(userId), eq(State.WAITING),
+                any(LocalDateTime.class), isNull(), eq(pageable)))
                 .thenReturn(List.of(booking));
         Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
 
         bookingService.getBookingsForBooker(userId, state, from, size);
 
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerId(userId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-                        userId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateAfter(userId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndEndBookingDateBefore(userId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository).findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable);
+        Mockito.verify(bookingRepository).findBookings(eq(Role.BOOKER), eq(userId), eq(State.WAITING),
+                any(LocalDateTime.class), isNull(), eq(pageable));
         Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
     }
 
@@ -468,24 +793,13 @@ class BookingServiceImplTest {
         String state = "WAITING";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getBookingsForBooker(userId, state, from, size));
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerId(userId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-                        userId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateAfter(userId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndEndBookingDateBefore(userId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable);
+        Mockito.verify(bookingRepository, never()).findBookings(any(), anyInt(), any(), any(), any(), any());
         Mockito.verify(bookingMapper, never()).toBookingDtoList(anyList());
     }
 
@@ -495,24 +809,13 @@ class BookingServiceImplTest {
         String state = "EAGER";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
 
         assertThrows(UnknownStateException.class,
                 () -> bookingService.getBookingsForBooker(userId, state, from, size));
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerId(userId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateBeforeAndEndBookingDateAfter(
-                        userId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndStartBookingDateAfter(userId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByBookerIdAndEndBookingDateBefore(userId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByBookerIdAndStatus(userId, Status.WAITING, pageable);
+        Mockito.verify(bookingRepository, never()).findBookings(any(), anyInt(), any(), any(), any(), any());
         Mockito.verify(bookingMapper, never()).toBookingDtoList(anyList());
     }
 
@@ -522,8 +825,7 @@ class BookingServiceImplTest {
         String state = "ALL";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
+        Pageable pageable = getPage(from, size);
         Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
                 true, 2);
         Booking booking = new Booking();
@@ -531,23 +833,17 @@ class BookingServiceImplTest {
                 LocalDateTime.now().plusDays(2), "WAITING", null, null);
 
         Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
-        Mockito.when(itemRepository.findItemsByOwnerId(ownerId)).thenReturn(List.of(item));
-        Mockito.when(bookingRepository.findBookingsByItemOwnerId(ownerId, pageable)).thenReturn(List.of(booking));
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookings(eq(Role.OWNER), eq(ownerId), eq(State.ALL),
+                any(LocalDateTime.class), isNull(), eq(pageable))).thenReturn(List.of(booking));
         Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
 
         bookingService.getBookingsForItemsOwner(ownerId, state, from, size);
 
         Mockito.verify(userRepository).existsById(ownerId);
-        Mockito.verify(itemRepository).findItemsByOwnerId(ownerId);
-        Mockito.verify(bookingRepository).findBookingsByItemOwnerId(ownerId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(ownerId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
+        Mockito.verify(itemRepository).existsByOwnerId(ownerId);
+        Mockito.verify(bookingRepository).findBookings(eq(Role.OWNER), eq(ownerId), eq(State.ALL),
+                any(LocalDateTime.class), isNull(), eq(pageable));
         Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
     }
 
@@ -557,8 +853,7 @@ class BookingServiceImplTest {
         String state = "REJECTED";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
+        Pageable pageable = getPage(from, size);
         Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
                 true, 2);
         Booking booking = new Booking();
@@ -566,24 +861,18 @@ class BookingServiceImplTest {
                 LocalDateTime.now().plusDays(2), "REJECTED", null, null);
 
         Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
-        Mockito.when(itemRepository.findItemsByOwnerId(ownerId)).thenReturn(List.of(item));
-        Mockito.when(bookingRepository.findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED,pageable))
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookings(eq(Role.OWNER), eq(ownerId), eq(State.REJECTED),
+                any(LocalDateTime.class), isNull(), eq(pageable)))
                 .thenReturn(List.of(booking));
         Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
 
         bookingService.getBookingsForItemsOwner(ownerId, state, from, size);
 
         Mockito.verify(userRepository).existsById(ownerId);
-        Mockito.verify(itemRepository).findItemsByOwnerId(ownerId);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerId(ownerId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(ownerId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, null, pageable);
-        Mockito.verify(bookingRepository).findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
+        Mockito.verify(itemRepository).existsByOwnerId(ownerId);
+        Mockito.verify(bookingRepository).findBookings(eq(Role.OWNER), eq(ownerId), eq(State.REJECTED),
+                any(LocalDateTime.class), isNull(), eq(pageable));
         Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
     }
 
@@ -593,8 +882,7 @@ class BookingServiceImplTest {
         String state = "WAITING";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
+        Pageable pageable = getPage(from, size);
         Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
                 true, 2);
         Booking booking = new Booking();
@@ -602,24 +890,18 @@ class BookingServiceImplTest {
                 LocalDateTime.now().plusDays(2), "WAITING", null, null);
 
         Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
-        Mockito.when(itemRepository.findItemsByOwnerId(ownerId)).thenReturn(List.of(item));
-        Mockito.when(bookingRepository.findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING,pageable))
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookings(eq(Role.OWNER), eq(ownerId), eq(State.WAITING),
+                any(LocalDateTime.class), isNull(), eq(pageable)))
                 .thenReturn(List.of(booking));
         Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
 
         bookingService.getBookingsForItemsOwner(ownerId, state, from, size);
 
         Mockito.verify(userRepository).existsById(ownerId);
-        Mockito.verify(itemRepository).findItemsByOwnerId(ownerId);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerId(ownerId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(ownerId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository).findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
+        Mockito.verify(itemRepository).existsByOwnerId(ownerId);
+        Mockito.verify(bookingRepository).findBookings(eq(Role.OWNER), eq(ownerId), eq(State.WAITING),
+                any(LocalDateTime.class), isNull(), eq(pageable));
         Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
     }
 
@@ -629,24 +911,14 @@ class BookingServiceImplTest {
         String state = "WAITING";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
 
         Mockito.when(userRepository.existsById(ownerId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class,
                 () -> bookingService.getBookingsForItemsOwner(ownerId, state, from, size));
         Mockito.verify(userRepository).existsById(ownerId);
-        Mockito.verify(itemRepository, never()).findItemsByOwnerId(ownerId);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerId(ownerId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(ownerId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
+        Mockito.verify(itemRepository, never()).existsByOwnerId(ownerId);
+        Mockito.verify(bookingRepository, never()).findBookings(any(), anyInt(), any(), any(), any(), any());
         Mockito.verify(bookingMapper, never()).toBookingDtoList(anyList());
     }
 
@@ -656,25 +928,15 @@ class BookingServiceImplTest {
         String state = "WAITING";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
 
         Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
-        Mockito.when(itemRepository.findItemsByOwnerId(ownerId)).thenReturn(anyList());
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(false);
 
         assertThrows(NotItemOwnerException.class,
                 () -> bookingService.getBookingsForItemsOwner(ownerId, state, from, size));
         Mockito.verify(userRepository).existsById(ownerId);
-        Mockito.verify(itemRepository).findItemsByOwnerId(ownerId);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerId(ownerId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(ownerId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
+        Mockito.verify(itemRepository).existsByOwnerId(ownerId);
+        Mockito.verify(bookingRepository, never()).findBookings(any(), anyInt(), any(), any(), any(), any());
         Mockito.verify(bookingMapper, never()).toBookingDtoList(anyList());
     }
 
@@ -684,27 +946,126 @@ class BookingServiceImplTest {
         String state = "EAGER";
         int from = 0;
         int size = 10;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
-        Pageable pageable = getSortedPage(from, size, sort);
         Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
                 true, 2);
 
         Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
-        Mockito.when(itemRepository.findItemsByOwnerId(ownerId)).thenReturn(List.of(item));
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
 
         assertThrows(UnknownStateException.class,
                 () -> bookingService.getBookingsForItemsOwner(ownerId, state, from, size));
         Mockito.verify(userRepository).existsById(ownerId);
-        Mockito.verify(itemRepository).findItemsByOwnerId(ownerId);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerId(ownerId, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateBeforeAndEndBookingDateAfter(ownerId, null, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndStartBookingDateAfter(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never())
-                .findBookingsByItemOwnerIdAndEndBookingDateBefore(ownerId, null, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.REJECTED, pageable);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemOwnerIdAndStatus(ownerId, Status.WAITING, pageable);
+        Mockito.verify(itemRepository).existsByOwnerId(ownerId);
+        Mockito.verify(bookingRepository, never()).findBookings(any(), anyInt(), any(), any(), any(), any());
+        Mockito.verify(bookingMapper, never()).toBookingDtoList(anyList());
+    }
+
+    @Test
+    void getBookingsForBookerByCursor_whenStateIsWaiting_thenSeekAfterCursor() {
+        int userId = 1;
+        int size = 10;
+        LocalDateTime cursorStart = LocalDateTime.of(2030, 1, 1, 12, 0);
+        String cursor = new BookingCursor(cursorStart, 5).encode();
+        Pageable pageable = getPage(0, size);
+        Booking booking = new Booking();
+        BookingResponseDto expectedResponseDto = new BookingResponseDto(4, cursorStart.minusDays(1),
+                cursorStart, "WAITING", null, null);
+
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookings(eq(Role.BOOKER), eq(userId), eq(State.WAITING),
+                any(LocalDateTime.class), cursorCaptor.capture(), eq(pageable))).thenReturn(List.of(booking));
+        Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of(expectedResponseDto));
+
+        List<BookingResponseDto> result = bookingService.getBookingsForBookerByCursor(userId, "WAITING", cursor, size);
+
+        assertEquals(List.of(expectedResponseDto), result);
+        assertEquals(cursorStart, cursorCaptor.getValue().getStartBookingDate());
+        assertEquals(5, cursorCaptor.getValue().getId());
+    }
+
+    @Test
+    void getBookingsForBookerByCursor_whenCursorMalformed_thenThrowInvalidCursorException() {
+        int userId = 1;
+
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class,
+                () -> bookingService.getBookingsForBookerByCursor(userId, "ALL", "not-a-cursor", 10));
         Mockito.verify(bookingMapper, never()).toBookingDtoList(anyList());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingsForItemsOwnerByCursor_whenStateIsAll_thenSeekAfterCursor() {
+        int ownerId = 2;
+        int size = 5;
+        LocalDateTime cursorStart = LocalDateTime.of(2030, 1, 1, 12, 0);
+        String cursor = new BookingCursor(cursorStart, 7).encode();
+        Pageable pageable = getPage(0, size);
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
+                true, 2);
+        Booking booking = new Booking();
+
+        Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookings(eq(Role.OWNER), eq(ownerId), eq(State.ALL),
+                any(LocalDateTime.class), cursorCaptor.capture(), eq(pageable))).thenReturn(List.of(booking));
+        Mockito.when(bookingMapper.toBookingDtoList(List.of(booking))).thenReturn(List.of());
+
+        bookingService.getBookingsForItemsOwnerByCursor(ownerId, "ALL", cursor, size);
+
+        assertEquals(cursorStart, cursorCaptor.getValue().getStartBookingDate());
+        assertEquals(7, cursorCaptor.getValue().getId());
+        Mockito.verify(bookingMapper).toBookingDtoList(List.of(booking));
+    }
+
+    private BookingStatusView statusView(int id, Status status, int itemId, int ownerId) {
+        BookingStatusView view = Mockito.mock(BookingStatusView.class, Mockito.withSettings().lenient());
+        Mockito.when(view.getId()).thenReturn(id);
+        Mockito.when(view.getStatus()).thenReturn(status);
+        Mockito.when(view.getItemId()).thenReturn(itemId);
+        Mockito.when(view.getOwnerId()).thenReturn(ownerId);
+        Mockito.when(view.getBookerId()).thenReturn(ownerId + 100);
+        return view;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportBookings_whenOwnerFound_thenStreamMappedBookingsOnlyOnForEach() {
+        int ownerId = 2;
+        Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, ownerId);
+        Booking first = new Booking();
+        Booking second = new Booking();
+        BookingResponseDto firstDto = new BookingResponseDto(1, LocalDateTime.now(), LocalDateTime.now().plusDays(1),
+                "WAITING", null, null);
+        BookingResponseDto secondDto = new BookingResponseDto(2, LocalDateTime.now(), LocalDateTime.now().plusDays(2),
+                "APPROVED", null, null);
+        Mockito.when(userRepository.existsById(ownerId)).thenReturn(true);
+        Mockito.when(itemRepository.existsByOwnerId(ownerId)).thenReturn(true);
+        Mockito.when(bookingMapper.toBookingResponseDto(first)).thenReturn(firstDto);
+        Mockito.when(bookingMapper.toBookingResponseDto(second)).thenReturn(secondDto);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Booking> action = invocation.getArgument(5);
+            action.accept(first);
+            action.accept(second);
+            return null;
+        }).when(bookingRepository).forEachBooking(eq(Role.OWNER), eq(ownerId), eq(State.FUTURE),
+                any(LocalDateTime.class), anyInt(), any());
+
+        BookingExport export = bookingService.exportBookings(ownerId, "owner", "future");
+        Mockito.verify(bookingRepository, never()).forEachBooking(any(), anyInt(), any(), any(), anyInt(), any());
+        List<BookingResponseDto> result = new ArrayList<>();
+        export.forEach(result::add);
+
+        assertEquals(List.of(firstDto, secondDto), result);
+    }
+
+    @Test
+    void exportBookings_whenRoleUnknownOrUserNotFound_thenThrowBeforeExport() {
+        Mockito.when(userRepository.existsById(99)).thenReturn(false);
+
+        assertThrows(UnknownStateException.class, () -> bookingService.exportBookings(1, "renter", "ALL"));
+        assertThrows(UnknownStateException.class, () -> bookingService.exportBookings(1, "booker", "SOON"));
+        assertThrows(ObjectNotFoundException.class, () -> bookingService.exportBookings(99, "booker", "ALL"));
+        Mockito.verify(bookingRepository, never()).forEachBooking(any(), anyInt(), any(), any(), anyInt(), any());
+    }
+}
@@ -0,0 +1,166 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.enums.Role;
+import ru.practicum.shareit.booking.enums.State;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingPeriodView;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimelines;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+@ExtendWith(MockitoExtension.class)
+class BookingTimelinesTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+    private BookingTimelines bookingTimelines;
+    private final List<Booking> bookings = new ArrayList<>();
+    private final User booker = new User(2, "Booker", "Booker@mail.ru");
+    private final Item item = new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 1);
+
+    @BeforeEach
+    void setUp() {
+        bookingTimelines = new BookingTimelines(bookingRepository, 1000, 500);
+    }
+
+    @Test
+    void findPage_whenRandomBookings_thenMatchRepositoryOrderAndFiltersForEveryState() {
+        Random random = new Random(7);
+        Status[] statuses = Status.values();
+        for (int id = 1; id <= 300; id++) {
+            // даты начала повторяются, чтобы порядок при равных датах определялся id
+            LocalDateTime start = NOW.plusHours(random.nextInt(200) - 100);
+            LocalDateTime end = start.plusHours(1 + random.nextInt(48));
+            bookings.add(new Booking(id, item, booker, start, end, statuses[random.nextInt(statuses.length)]));
+        }
+        stubPeriods();
+
+        for (State state : State.values()) {
+            List<Integer> expected = expected(state);
+            assertEquals(expected, page(state, null, 0, 1000), state.toString());
+            assertEquals(limit(expected, 7, 10), page(state, null, 7, 10), state.toString());
+            if (expected.size() > 20) {
+                Booking last = bookingById(expected.get(19));
+                BookingCursor cursor = new BookingCursor(last.getStartBookingDate(), last.getId());
+                assertEquals(limit(expected, 20, 25), page(state, cursor, 0, 25), state.toString());
+            }
+        }
+        Mockito.verify(bookingRepository).findBookerPeriods(anyInt()); // лента загружена один раз
+    }
+
+    @Test
+    void add_whenTimelineLoaded_thenNewBookingAndStatusChangeVisibleWithoutReload() {
+        bookings.add(new Booking(1, item, booker, NOW.minusDays(2), NOW.minusDays(1), Status.APPROVED));
+        stubPeriods();
+        assertEquals(List.of(), page(State.FUTURE, null, 0, 10));
+
+        Booking created = new Booking(2, item, booker, NOW.plusDays(1), NOW.plusDays(2), Status.WAITING);
+        bookingTimelines.add(created);
+        bookingTimelines.updateStatus(2, booker.getId(), item.getOwnerId(), Status.REJECTED);
+
+        assertEquals(List.of(2), page(State.FUTURE, null, 0, 10));
+        assertEquals(List.of(2), page(State.REJECTED, null, 0, 10));
+        assertEquals(List.of(), page(State.WAITING, null, 0, 10));
+        List<BookingPeriodView> ownerPeriods = List.of(period(1, NOW.minusDays(2), NOW.minusDays(1), Status.APPROVED),
+                period(2, NOW.plusDays(1), NOW.plusDays(2), Status.REJECTED));
+        Mockito.when(bookingRepository.findOwnerPeriods(item.getOwnerId())).thenReturn(ownerPeriods);
+        Optional<List<Integer>> ownerPage = bookingTimelines.findPage(Role.OWNER, item.getOwnerId(), State.ALL,
+                NOW, null, 0, 10);
+        assertEquals(List.of(2, 1), ownerPage.orElseThrow());
+        Mockito.verify(bookingRepository).findBookerPeriods(anyInt());
+    }
+
+    @Test
+    void findPage_whenTimelineTooLarge_thenReturnEmptyForRepositoryFallback() {
+        for (int id = 1; id <= 501; id++) {
+            bookings.add(new Booking(id, item, booker, NOW.plusHours(id), NOW.plusHours(id + 1), Status.WAITING));
+        }
+        stubPeriods();
+
+        assertTrue(bookingTimelines.findPage(Role.BOOKER, booker.getId(), State.ALL, NOW, null, 0, 10).isEmpty());
+        assertTrue(bookingTimelines.findPage(Role.BOOKER, booker.getId(), State.ALL, NOW, null, 0, 10).isEmpty());
+        Mockito.verify(bookingRepository).findBookerPeriods(anyInt());
+    }
+
+    private List<Integer> page(State state, BookingCursor cursor, int from, int size) {
+        return bookingTimelines.findPage(Role.BOOKER, booker.getId(), state, NOW, cursor, from, size).orElseThrow();
+    }
+
+    // те же условия и порядок, что у запросов BookingQueryRepositoryImpl
+    private List<Integer> expected(State state) {
+        Predicate<Booking> filter;
+        switch (state) {
+            case CURRENT:
+                filter = b -> b.getStartBookingDate().isBefore(NOW) && b.getEndBookingDate().isAfter(NOW);
+                break;
+            case FUTURE:
+                filter = b -> b.getStartBookingDate().isAfter(NOW);
+                break;
+            case PAST:
+                filter = b -> b.getEndBookingDate().isBefore(NOW);
+                break;
+            case WAITING:
+            case REJECTED:
+            case EXPIRED:
+                filter = b -> b.getStatus().name().equals(state.name());
+                break;
+            default:
+                filter = b -> true;
+                break;
+        }
+        return bookings.stream()
+                .filter(filter)
+                .sorted(Comparator.comparing(Booking::getStartBookingDate).thenComparing(Booking::getId).reversed())
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> limit(List<Integer> ids, int from, int size) {
+        return ids.subList(Math.min(from, ids.size()), Math.min(from + size, ids.size()));
+    }
+
+    private Booking bookingById(int id) {
+        return bookings.stream().filter(b -> b.getId() == id).findFirst().orElseThrow();
+    }
+
+    private void stubPeriods() {
+        List<BookingPeriodView> periods = new ArrayList<>();
+        for (Booking booking : bookings) {
+            periods.add(period(booking.getId(), booking.getStartBookingDate(), booking.getEndBookingDate(),
+                    booking.getStatus()));
+        }
+        Mockito.when(bookingRepository.findBookerPeriods(booker.getId())).thenReturn(periods);
+    }
+
+    private BookingPeriodView period(int id, LocalDateTime start, LocalDateTime end, Status status) {
+        BookingPeriodView period = Mockito.mock(BookingPeriodView.class, Mockito.withSettings().lenient());
+        Mockito.when(period.getId()).thenReturn(id);
+        Mockito.when(period.getStart()).thenReturn(start);
+        Mockito.when(period.getEnd()).thenReturn(end);
+        Mockito.when(period.getStatus()).thenReturn(status);
+        return period;
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyFilterTest {
+    private final IdempotencyFilter filter = new IdempotencyFilter(new ObjectMapper(), 60, 1000, 5000);
+    private final AtomicInteger executions = new AtomicInteger();
+    // цепочка, создающая новую запись при каждом выполнении
+    private final FilterChain createdChain = (request, response) -> {
+        int number = executions.incrementAndGet();
+        ((HttpServletResponse) response).setStatus(201);
+        response.setContentType("application/json");
+        response.getOutputStream().write(("{\"id\":" + number + "}").getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    void doFilter_whenSameKeyRepeated_thenReplayFirstResponseWithoutExecution() throws Exception {
+        MockHttpServletResponse first = perform(1, "key-1", createdChain);
+        MockHttpServletResponse repeated = perform(1, "key-1", createdChain);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, repeated.getStatus());
+        assertEquals("application/json", repeated.getContentType());
+        assertArrayEquals(first.getContentAsByteArray(), repeated.getContentAsByteArray());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", repeated.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void doFilter_whenSameKeyFromOtherUserOrWithoutKey_thenExecuteEachRequest() throws Exception {
+        perform(1, "key-1", createdChain);
+        MockHttpServletResponse otherUser = perform(2, "key-1", createdChain);
+        MockHttpServletResponse withoutKey = perform(1, null, createdChain);
+
+        assertEquals(3, executions.get());
+        assertEquals("{\"id\":2}", otherUser.getContentAsString());
+        assertEquals("{\"id\":3}", withoutKey.getContentAsString());
+    }
+
+    @Test
+    void doFilter_whenDuplicateArrivesDuringFirstRequest_thenWaitForItsResponse() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowChain = (request, response) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            createdChain.doFilter(request, response);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> perform(1, "key-1", slowChain));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> duplicate = executor.submit(() -> perform(1, "key-1", slowChain));
+            release.countDown();
+
+            assertEquals("{\"id\":1}", first.get(5, TimeUnit.SECONDS).getContentAsString());
+            assertEquals("{\"id\":1}", duplicate.get(5, TimeUnit.SECONDS).getContentAsString());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void doFilter_whenFirstResponseIsServerError_thenRetryExecutesAgain() throws Exception {
+        FilterChain failingOnce = (request, response) -> {
+            if (executions.incrementAndGet() == 1) {
+                ((HttpServletResponse) response).setStatus(500);
+                return;
+            }
+            ((HttpServletResponse) response).setStatus(201);
+        };
+
+        perform(1, "key-1", failingOnce);
+        MockHttpServletResponse retry = perform(1, "key-1", failingOnce);
+
+        assertEquals(2, executions.get());
+        assertEquals(201, retry.getStatus());
+    }
+
+    @Test
+    void doFilter_whenSameKeyWithOtherBody_thenRejectWithoutReplayOrExecution() throws Exception {
+        FilterChain echoChain = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(201);
+            response.getOutputStream().write(request.getInputStream().readAllBytes()); // тело доступно контроллеру
+        };
+
+        MockHttpServletResponse first = perform(1, "key-1", "{\"itemId\":1}", echoChain);
+        MockHttpServletResponse same = perform(1, "key-1", "{\"itemId\":1}", echoChain);
+        MockHttpServletResponse other = perform(1, "key-1", "{\"itemId\":2}", echoChain);
+
+        assertEquals(1, executions.get());
+        assertEquals("{\"itemId\":1}", first.getContentAsString());
+        assertEquals("true", same.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(422, other.getStatus());
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    private MockHttpServletResponse perform(int userId, String idempotencyKey, FilterChain chain) throws Exception {
+        return perform(userId, idempotencyKey, "{}", chain);
+    }
+
+    private MockHttpServletResponse perform(int userId, String idempotencyKey, String body, FilterChain chain)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("X-Sharer-User-Id", userId);
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
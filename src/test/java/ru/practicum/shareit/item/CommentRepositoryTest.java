@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
 import ru.practicum.shareit.item.model.Comment;
@@ -21,7 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
-@Sql(value = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/clean-tables.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class CommentRepositoryTest {
     @Autowired
     UserRepository userRepository;
@@ -43,19 +44,31 @@ class CommentRepositoryTest {
     }
 
     @Test
-    void findCommentsByItemOwner() {
-        List<Comment> result = commentRepository.findCommentsByItemOwner(1);
+    void findCommentDtosByItemId_whenInvoke_thenReturnCommentDtoWithAuthorName() {
+        List<CommentDto> result = commentRepository.findCommentDtosByItemId(1);
+
+        assertEquals(1, result.size());
+        assertEquals("Отличный нивелир!!", result.get(0).getText());
+        assertEquals("User", result.get(0).getAuthorName());
+        assertNotNull(result.get(0).getCreated());
+    }
+
+    @Test
+    void findCommentDtosByItemIdIn() {
+        List<CommentDto> result = commentRepository.findCommentDtosByItemIdIn(List.of(1, 2));
 
         assertNotNull(result);
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
+        assertEquals("User", result.get(0).getAuthorName());
+        assertEquals(1, result.get(0).getItemId());
     }
 
     @Test
-    void findCommentsByItemOwner_whenUserNotItemOwner_thenReturnEmptyCommentsList() {
-        List<Comment> result = commentRepository.findCommentsByItemOwner(2);
+    void findCommentDtosByItemIdIn_whenItemsHaveNoComments_thenReturnEmptyCommentsList() {
+        List<CommentDto> result = commentRepository.findCommentDtosByItemIdIn(List.of(2));
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+}
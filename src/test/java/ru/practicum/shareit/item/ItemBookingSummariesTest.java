@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.item.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class ItemBookingSummariesTest {
+    @Mock
+    private ItemBookingSummaryRepository summaryRepository;
+    @InjectMocks
+    private ItemBookingSummaries itemBookingSummaries;
+
+    @Test
+    void refresh_whenRowsExist_thenOnlyRecompute() {
+        Mockito.when(summaryRepository.recomputeSummaries(eq(Set.of(1, 2)), any(LocalDateTime.class)))
+                .thenReturn(2);
+
+        itemBookingSummaries.refresh(List.of(1, 2, 1));
+
+        Mockito.verify(summaryRepository, never()).insertMissingSummaries(any());
+    }
+
+    @Test
+    void refresh_whenRowInsertedConcurrently_thenRecomputeExistingRow() {
+        Mockito.when(summaryRepository.recomputeSummaries(eq(Set.of(1)), any(LocalDateTime.class)))
+                .thenReturn(0)
+                .thenReturn(1);
+        // параллельный запрос успел вставить строку первого бронирования той же вещи
+        Mockito.when(summaryRepository.insertMissingSummaries(Set.of(1)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key item_id"));
+
+        itemBookingSummaries.refresh(List.of(1));
+
+        Mockito.verify(summaryRepository, Mockito.times(2)).recomputeSummaries(eq(Set.of(1)),
+                any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.storage.ItemBookingSummaryRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Sql(value = {"/clean-tables.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+class ItemBookingSummaryRepositoryTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    private Item item;
+    private Booking past;
+    private Booking next;
+    private Booking afterNext;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(new User(0, "Owner", "Owner@mail.ru"));
+        User booker = userRepository.save(new User(0, "Booker", "Booker@mail.ru"));
+        item = itemRepository.save(new Item(0, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
+                true, owner.getId()));
+        past = bookingRepository.save(new Booking(0, item, booker, NOW.minusDays(2), NOW.minusDays(1),
+                Status.APPROVED));
+        bookingRepository.save(new Booking(0, item, booker, NOW.plusHours(1), NOW.plusHours(2), Status.REJECTED));
+        next = bookingRepository.save(new Booking(0, item, booker, NOW.plusDays(1), NOW.plusDays(2),
+                Status.WAITING));
+        afterNext = bookingRepository.save(new Booking(0, item, booker, NOW.plusDays(3), NOW.plusDays(4),
+                Status.APPROVED));
+    }
+
+    @Test
+    void insertMissingSummaries_whenRowExists_thenInsertOnlyMissingRows() {
+        Item otherItem = itemRepository.save(new Item(0, "Дрель", "Дрель ударная", true, item.getOwnerId()));
+
+        int firstInsert = summaryRepository.insertMissingSummaries(List.of(item.getId()));
+        int secondInsert = summaryRepository.insertMissingSummaries(List.of(item.getId(), otherItem.getId()));
+
+        assertEquals(1, firstInsert);
+        assertEquals(1, secondInsert);
+        assertEquals(0, summaryRepository.recomputeSummaries(List.of(100), NOW)); // строки для вещи нет
+    }
+
+    @Test
+    void recomputeSummaries_whenItemHasBookings_thenSkipRejectedAndValidUntilNextStart() {
+        summaryRepository.insertMissingSummaries(List.of(item.getId()));
+
+        int updatedRows = summaryRepository.recomputeSummaries(List.of(item.getId()), NOW);
+        ItemBookingSummary summary = summaryRepository.findSummaryByItemId(item.getId()).orElseThrow();
+
+        assertEquals(1, updatedRows);
+        assertEquals(past.getId(), summary.getLastBooking().getId());
+        assertEquals(next.getId(), summary.getNextBooking().getId());
+        assertEquals(next.getStartBookingDate(), summary.getValidUntil());
+    }
+
+    @Test
+    void recomputeSummaries_whenLastBookingExpired_thenSkipExpiredBooking() {
+        summaryRepository.insertMissingSummaries(List.of(item.getId()));
+        LocalDateTime later = NOW.plusDays(1).plusHours(1);
+        bookingRepository.expireWaitingBookings(List.of(next.getId()), later); // владелец не успел принять решение
+
+        summaryRepository.recomputeSummaries(List.of(item.getId()), later);
+        ItemBookingSummary summary = summaryRepository.findSummaryByItemId(item.getId()).orElseThrow();
+
+        assertEquals(past.getId(), summary.getLastBooking().getId());
+        assertEquals(afterNext.getId(), summary.getNextBooking().getId());
+    }
+
+    @Test
+    void recomputeExpiredSummaries_whenNextBookingStarted_thenRollSummaryForward() {
+        summaryRepository.insertMissingSummaries(List.of(item.getId()));
+        summaryRepository.recomputeSummaries(List.of(item.getId()), NOW);
+
+        int notExpiredRows = summaryRepository.recomputeExpiredSummaries(NOW.plusHours(12));
+        int expiredRows = summaryRepository.recomputeExpiredSummaries(NOW.plusDays(1).plusHours(1));
+        ItemBookingSummary summary = summaryRepository.findSummaryByItemId(item.getId()).orElseThrow();
+
+        assertEquals(0, notExpiredRows);
+        assertEquals(1, expiredRows);
+        assertEquals(next.getId(), summary.getLastBooking().getId());
+        assertEquals(afterNext.getId(), summary.getNextBooking().getId());
+        assertEquals(afterNext.getStartBookingDate(), summary.getValidUntil());
+    }
+
+    @Test
+    void recomputeExpiredSummaries_whenNoFutureBookings_thenValidUntilIsNull() {
+        summaryRepository.insertMissingSummaries(List.of(item.getId()));
+        summaryRepository.recomputeSummaries(List.of(item.getId()), NOW.plusDays(5));
+
+        ItemBookingSummary summary = summaryRepository.findSummaryByItemId(item.getId()).orElseThrow();
+
+        assertEquals(afterNext.getId(), summary.getLastBooking().getId());
+        assertNull(summary.getNextBooking());
+        assertNull(summary.getValidUntil());
+        assertEquals(1, summaryRepository.count());
+    }
+}
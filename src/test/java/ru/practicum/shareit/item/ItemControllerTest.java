@@ -10,13 +10,17 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.exception.DateTimeBookingException;
 import ru.practicum.shareit.exception.NotItemOwnerException;
 import ru.practicum.shareit.exception.ObjectNotAvailableException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -25,6 +29,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
@@ -266,13 +271,78 @@ class ItemControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @SneakyThrows
+    void getAvailability_whenInvoke_thenParseIsoDatesAndReturnCalendar() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime to = from.plusDays(2);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(1, true, from, to,
+                List.of(new AvailabilityIntervalDto(from, to, AvailabilityIntervalDto.FREE, null)));
+        String expectedDto = objectMapper.writeValueAsString(availability);
+        Mockito.when(itemService.getAvailability(1, 1, from, to)).thenReturn(availability);
+
+        String result = mockMvc.perform(get("/items/{itemId}/availability", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2030-01-01T12:00:00")
+                        .param("to", "2030-01-03T12:00:00"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(expectedDto, result);
+    }
+
+    @Test
+    @SneakyThrows
+    void getAvailability_whenPeriodInvalid_thenStatusBadRequest() {
+        Mockito.when(itemService.getAvailability(anyInt(), anyInt(), any(), any()))
+                .thenThrow(new DateTimeBookingException("Дата окончания периода должна быть позже даты начала!"));
+
+        mockMvc.perform(get("/items/{itemId}/availability", 1)
+                        .header("X-Sharer-User-Id", 1)
+                        .param("from", "2030-01-03T12:00:00")
+                        .param("to", "2030-01-01T12:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    void suggestItems_whenInvoke_thenStatusOkAndHasBodyResponse() {
+        List<ItemSuggestionDto> suggestions = List.of(new ItemSuggestionDto(1, "Лазерный нивелир"));
+        Mockito.when(itemService.suggestItems(1, "лаз", 5)).thenReturn(suggestions);
+
+        String result = mockMvc.perform(get("/items/suggest")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("prefix", "лаз")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(objectMapper.writeValueAsString(suggestions), result);
+    }
+
+    @Test
+    @SneakyThrows
+    void suggestItems_whenLimitTooBig_thenStatusBadRequest() {
+        mockMvc.perform(get("/items/suggest")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("prefix", "лаз")
+                        .param("limit", "11"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(itemService, never()).suggestItems(anyInt(), anyString(), anyInt());
+    }
+
     @Test
     @SneakyThrows
     void searchItemsForUser_whenInvoke_thenStatusOkAndHasBodyResponse() {
         String text = "нивелир";
         List<ItemDto> items = List.of(itemResponseDto);
         String expectedDto = objectMapper.writeValueAsString(items);
-        Mockito.when(itemService.searchItems(anyInt(), anyString(), anyInt(), anyInt()))
+        Mockito.when(itemService.searchItems(anyInt(), anyString(), any(), any(), anyBoolean(), anyInt(), anyInt()))
                 .thenReturn(items);
 
         String result = mockMvc.perform(get("/items/search")
@@ -294,7 +364,7 @@ class ItemControllerTest {
         String text = "";
         List<ItemDto> items = new ArrayList<>();
         String expectedDto = objectMapper.writeValueAsString(items);
-        Mockito.when(itemService.searchItems(anyInt(), anyString(), anyInt(), anyInt()))
+        Mockito.when(itemService.searchItems(anyInt(), anyString(), any(), any(), anyBoolean(), anyInt(), anyInt()))
                 .thenReturn(items);
 
         String result = mockMvc.perform(get("/items/search")
@@ -310,6 +380,36 @@ class ItemControllerTest {
         assertEquals(expectedDto, result);
     }
 
+    @Test
+    @SneakyThrows
+    void searchItemsForUser_whenStartAndEnd_thenParseIsoDatesAndSearchFreeItems() {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 3, 12, 0);
+        Mockito.when(itemService.searchItems(1, "нивелир", start, end, false, 0, 10)).thenReturn(List.of(itemResponseDto));
+
+        mockMvc.perform(get("/items/search")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("text", "нивелир")
+                        .param("start", "2030-01-01T12:00:00")
+                        .param("end", "2030-01-03T12:00:00"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(itemService).searchItems(1, "нивелир", start, end, false, 0, 10);
+    }
+
+    @Test
+    @SneakyThrows
+    void searchItemsForUser_whenOnlyStart_thenStatusBadRequest() {
+        Mockito.when(itemService.searchItems(anyInt(), anyString(), any(), any(), anyBoolean(), anyInt(), anyInt()))
+                .thenThrow(new DateTimeBookingException("Для поиска свободных вещей нужно указать и начало, и окончание!"));
+
+        mockMvc.perform(get("/items/search")
+                        .header("X-Sharer-User-Id", 1)
+                        .param("text", "нивелир")
+                        .param("start", "2030-01-01T12:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     void searchItemsForUser_whenIncorrectParamFrom_thenStatusBadRequest() {
@@ -322,7 +422,7 @@ class ItemControllerTest {
                         .param("size", "10"))
                 .andExpect(status().isBadRequest());
 
-        Mockito.verify(itemService, never()).searchItems(anyInt(), anyString(), anyInt(), anyInt());
+        Mockito.verify(itemService, never()).searchItems(anyInt(), anyString(), any(), any(), anyBoolean(), anyInt(), anyInt());
     }
 
     @Test
@@ -337,13 +437,13 @@ class ItemControllerTest {
                         .param("size", size))
                 .andExpect(status().isBadRequest());
 
-        Mockito.verify(itemService, never()).searchItems(anyInt(), anyString(), anyInt(), anyInt());
+        Mockito.verify(itemService, never()).searchItems(anyInt(), anyString(), any(), any(), anyBoolean(), anyInt(), anyInt());
     }
 
     @Test
     @SneakyThrows
     void searchItemsForUser_whenUserNotFound_thenStatusNotFound() {
-        Mockito.when(itemService.searchItems(anyInt(), anyString(), anyInt(), anyInt()))
+        Mockito.when(itemService.searchItems(anyInt(), anyString(), any(), any(), anyBoolean(), anyInt(), anyInt()))
                 .thenThrow(new ObjectNotFoundException(String.format("Пользователь с id=%d не найден!", 0)));
 
         mockMvc.perform(get("/items/search")
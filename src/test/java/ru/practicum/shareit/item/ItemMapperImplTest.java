@@ -16,6 +16,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
 import ru.practicum.shareit.item.dto.ItemMapperImpl;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.OwnerItemView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -240,4 +241,30 @@ class ItemMapperImplTest {
         assertTrue(result.getComments().isEmpty());
         assertNull(result.getRequestId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void toItemDtoWithBookingAndComment_whenOwnerItemViewHasOnlyNextBooking_thenReturnItemDtoWithNextBooking() {
+        OwnerItemView view = Mockito.mock(OwnerItemView.class);
+        Mockito.when(view.getId()).thenReturn(1);
+        Mockito.when(view.getName()).thenReturn("Лазерный нивелир");
+        Mockito.when(view.getAvailable()).thenReturn(true);
+        Mockito.when(view.getRequestId()).thenReturn(3);
+        Mockito.when(view.getLastBookingId()).thenReturn(null);
+        Mockito.when(view.getNextBookingId()).thenReturn(2);
+        Mockito.when(view.getNextBookerId()).thenReturn(4);
+        Mockito.when(view.getNextStart()).thenReturn(LocalDateTime.MIN);
+        Mockito.when(view.getNextEnd()).thenReturn(LocalDateTime.MAX);
+
+        ItemDtoWithBookingAndComment result = itemMapper.toItemDtoWithBookingAndComment(view, List.of(commentDto));
+
+        assertEquals(1, result.getId());
+        assertEquals("Лазерный нивелир", result.getName());
+        assertTrue(result.getIsAvailable());
+        assertEquals(3, result.getRequestId());
+        assertNull(result.getLastBooking());
+        assertEquals(2, result.getNextBooking().getId());
+        assertEquals(4, result.getNextBooking().getBookerId());
+        assertEquals(LocalDateTime.MIN, result.getNextBooking().getStart());
+        assertEquals(1, result.getComments().size());
+    }
+}
@@ -4,15 +4,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemBookingSummaryRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.OwnerItemView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
-import ru.practicum.shareit.util.Page;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,10 +24,11 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
-@Sql(value = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/clean-tables.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class ItemRepositoryTest {
     @Autowired
     private UserRepository userRepository;
@@ -31,6 +36,10 @@ class ItemRepositoryTest {
     private ItemRepository itemRepository;
     @Autowired
     private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
 
     @BeforeEach
     void setUp() {
@@ -46,39 +55,107 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void searchItems() {
-        String text = "лаз";
-        Pageable pageable = Page.getPage(0,3);
-        List<Item> result = itemRepository.searchItems(text, pageable);
+    void findItemDtosByRequesterId_whenInvoke_thenReturnItemDtoList() {
+        List<ItemDto> result = itemRepository.findItemDtosByRequesterId(1);
 
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
         assertEquals(1, result.size());
+        ItemDto item = result.get(0);
+        assertEquals(1, item.getId());
+        assertEquals("Лазерный нивелир", item.getName());
+        assertEquals("Лазерный нивелир EX600-Pro", item.getDescription());
+        assertTrue(item.getIsAvailable());
+        assertEquals(1, item.getRequestId());
     }
 
     @Test
-    void findItemsByRequesterId_whenInvoke_thenReturnItemsList() {
-        List<Item> result = itemRepository.findItemsByRequesterId(1);
+    void findItemDtosByRequesterId_whenRequesterNotFound_thenReturnEmptyItemDtoList() {
+        List<ItemDto> result = itemRepository.findItemDtosByRequesterId(2);
 
         assertNotNull(result);
-        assertFalse(result.isEmpty());
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void findItemDtosByRequestIdIn_whenInvoke_thenReturnOnlyAnswersToRequests() {
+        // идентификатор запроса не совпадает с идентификатором его автора
+        User other = userRepository.save(new User(0, "Other", "Other@mail.ru"));
+        ItemRequest otherRequest = itemRequestRepository.save(new ItemRequest(0, "Нужна дрель", other,
+                LocalDateTime.now().withNano(0)));
+        Item answer = new Item(0, "Дрель", "Дрель ударная", true, 1);
+        answer.setRequest(otherRequest);
+        itemRepository.save(answer);
+        itemRepository.save(new Item(0, "Пила", "Пила цепная", true, 1));
+
+        List<ItemDto> result = itemRepository.findItemDtosByRequestIdIn(List.of(otherRequest.getId()));
+
         assertEquals(1, result.size());
+        assertEquals(answer.getId(), result.get(0).getId());
+        assertEquals(otherRequest.getId(), result.get(0).getRequestId());
+        assertEquals(1, itemRepository.findItemDtosByRequestId(otherRequest.getId()).size());
     }
 
     @Test
-    void findItemsByRequesterId_whenRequesterNotFound_thenReturnEmptyItemsList() {
-        List<Item> result = itemRepository.findItemsByRequesterId(2);
+    void findItemDtosByIdIn_whenItemWithoutRequest_thenReturnItemDtoWithNullRequestId() {
+        Item item = itemRepository.save(new Item(0, "Дрель", "Дрель ударная", false, 1));
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+        List<ItemDto> result = itemRepository.findItemDtosByIdIn(List.of(item.getId(), 100));
+
+        assertEquals(1, result.size());
+        assertEquals("Дрель", result.get(0).getName());
+        assertFalse(result.get(0).getIsAvailable());
+        assertNull(result.get(0).getRequestId());
     }
 
     @Test
-    void findItemsByRequestIdIn_whenInvoke_thenReturnItemsList() {
-        List<Item> result = itemRepository.findItemsByRequestIdIn(List.of(1));
+    void existsByOwnerId_whenInvoke_thenReturnWhetherUserOwnsItems() {
+        assertTrue(itemRepository.existsByOwnerId(1));
+        assertFalse(itemRepository.existsByOwnerId(2));
+    }
+
+    @Test
+    void findOwnerItemsWithLastAndNextBookings_whenItemHasBookings_thenReturnLastAndNextBookings() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        User booker = userRepository.save(new User(0, "Booker", "Booker@mail.ru"));
+        Item item = itemRepository.findById(1).orElseThrow();
+        itemRepository.save(new Item(0, "Дрель", "Дрель ударная", true, 1));
+        itemRepository.save(new Item(0, "Пила", "Пила цепная", true, booker.getId()));
+        bookingRepository.save(new Booking(0, item, booker, now.minusDays(3), now.minusDays(2), Status.APPROVED));
+        Booking current = bookingRepository.save(new Booking(0, item, booker, now.minusHours(1), now.plusHours(1),
+                Status.APPROVED));
+        bookingRepository.save(new Booking(0, item, booker, now.plusHours(12), now.plusDays(1), Status.REJECTED));
+        Booking next = bookingRepository.save(new Booking(0, item, booker, now.plusDays(1), now.plusDays(2),
+                Status.WAITING));
+        bookingRepository.save(new Booking(0, item, booker, now.plusDays(3), now.plusDays(4), Status.APPROVED));
+        summaryRepository.insertMissingSummaries(List.of(1)); // у второй вещи бронирований и строки нет
+        summaryRepository.recomputeSummaries(List.of(1), now);
+
+        List<OwnerItemView> result = itemRepository.findOwnerItemsWithLastAndNextBookings(1, 0, 10);
+
+        assertEquals(2, result.size());
+        OwnerItemView first = result.get(0);
+        assertEquals(1, first.getId());
+        assertEquals(1, first.getRequestId());
+        assertEquals(current.getId(), first.getLastBookingId());
+        assertEquals(booker.getId(), first.getLastBookerId());
+        assertEquals(current.getEndBookingDate(), first.getLastEnd());
+        assertEquals(next.getId(), first.getNextBookingId());
+        assertEquals(next.getStartBookingDate(), first.getNextStart());
+        assertEquals(next.getStartBookingDate(), first.getSummaryValidUntil());
+        OwnerItemView second = result.get(1);
+        assertEquals(2, second.getId());
+        assertNull(second.getLastBookingId());
+        assertNull(second.getNextBookingId());
+        assertNull(second.getSummaryValidUntil());
+    }
+
+    @Test
+    void findOwnerItemsWithLastAndNextBookings_whenFromAndSize_thenReturnOnlyRequestedPage() {
+        itemRepository.save(new Item(0, "Дрель", "Дрель ударная", true, 1));
+        itemRepository.save(new Item(0, "Пила", "Пила цепная", true, 1));
+
+        List<OwnerItemView> result = itemRepository.findOwnerItemsWithLastAndNextBookings(1, 1, 1);
 
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
         assertEquals(1, result.size());
+        assertEquals(2, result.get(0).getId());
     }
-}
\ No newline at end of file
+}
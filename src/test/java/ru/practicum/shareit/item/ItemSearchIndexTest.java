@@ -0,0 +1,273 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingCountView;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemSearchIndex = new ItemSearchIndex(itemRepository, bookingRepository, meterRegistry, 100, 30);
+        Mockito.when(itemRepository.findAll()).thenReturn(List.of(
+                new Item(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, 1),
+                new Item(2, "Дрель", "Ударная дрель с набором сверл", true, 1),
+                new Item(3, "Нивелир оптический", "Нивелир для разметки", false, 2),
+                new Item(4, "Шуруповерт", "Аккумуляторная дрель-шуруповерт", true, 2)));
+    }
+
+    @Test
+    void search_whenTextInNameOrDescription_thenReturnAvailableItemsIgnoringCase() {
+        assertEquals(List.of(1), itemSearchIndex.search("НИВЕЛИР", 0, 10));
+        assertEquals(List.of(2, 4), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(1), itemSearchIndex.search("ex600", 0, 10));
+    }
+
+    @Test
+    void search_whenAllGramsPresentButNoSubstring_thenReturnEmptyList() {
+        // все триграммы запроса есть в тексте вещи 2, но сама строка в нем не встречается
+        assertTrue(itemSearchIndex.search("дрель с набором дрель", 0, 10).isEmpty());
+        assertTrue(itemSearchIndex.search("пила", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_whenTextShorterThanTrigram_thenSearchByShortGram() {
+        assertEquals(List.of(1, 2, 4), itemSearchIndex.search("р", 0, 10));
+        assertEquals(List.of(2, 4), itemSearchIndex.search("др", 0, 10));
+    }
+
+    @Test
+    void search_whenFromAndSize_thenReturnOnlyRequestedPage() {
+        assertEquals(List.of(1, 2), itemSearchIndex.search("р", 0, 2));
+        assertEquals(List.of(2, 4), itemSearchIndex.search("р", 1, 2));
+        assertTrue(itemSearchIndex.search("р", 3, 2).isEmpty());
+    }
+
+    @Test
+    void search_whenCandidateFilter_thenPageBuiltOnlyFromAcceptedItems() {
+        List<List<Integer>> batches = new ArrayList<>();
+        UnaryOperator<List<Integer>> withoutItem2 = candidates -> {
+            batches.add(candidates);
+            return candidates.stream().filter(id -> id != 2).collect(Collectors.toList());
+        };
+
+        assertEquals(List.of(1, 4), itemSearchIndex.search("р", 0, 10, withoutItem2));
+        assertEquals(List.of(4), itemSearchIndex.search("р", 1, 1, withoutItem2));
+        assertEquals(List.of(List.of(1, 2, 4), List.of(1, 2, 4)), batches); // фильтр получает кандидатов пачкой
+    }
+
+    @Test
+    void search_whenCandidatesExceedBatch_thenContinueAfterLastCandidate() {
+        for (int id = 10; id < 210; id++) {
+            itemSearchIndex.index(new Item(id, "Рулетка " + id, "Измерительная рулетка", true, 3));
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+        UnaryOperator<List<Integer>> evenOnly = candidates -> {
+            batchSizes.add(candidates.size());
+            return candidates.stream().filter(id -> id % 2 == 0).collect(Collectors.toList());
+        };
+
+        List<Integer> result = itemSearchIndex.search("рулетка", 90, 5, evenOnly);
+
+        // четных вещей 100, страница начинается с 91-й из них; курсор не теряет и не повторяет кандидатов
+        assertEquals(List.of(190, 192, 194, 196, 198), result);
+        assertEquals(List.of(95, 95), batchSizes);
+    }
+
+    @Test
+    void index_whenItemUpdated_thenReplaceOldTextAndAvailability() {
+        itemSearchIndex.index(new Item(3, "Нивелир оптический", "Нивелир для разметки", true, 2));
+        itemSearchIndex.index(new Item(1, "Дальномер", "Лазерный дальномер", true, 1));
+
+        assertEquals(List.of(3), itemSearchIndex.search("нивелир", 0, 10));
+        assertEquals(List.of(1), itemSearchIndex.search("дальномер", 0, 10));
+        Mockito.verify(itemRepository).findAll();
+    }
+
+    @Test
+    void index_whenItemCreated_thenFindItem() {
+        itemSearchIndex.index(new Item(5, "Перфоратор", "Перфоратор с тремя режимами", true, 1));
+
+        assertEquals(List.of(5), itemSearchIndex.search("перфо", 0, 10));
+    }
+
+    @Test
+    void removeItemsOfOwner_whenOwnerDeleted_thenExcludeHisItems() {
+        itemSearchIndex.removeItemsOfOwner(1);
+
+        assertEquals(List.of(4), itemSearchIndex.search("дрель", 0, 10));
+        assertTrue(itemSearchIndex.search("лазер", 0, 10).isEmpty());
+    }
+
+    @Test
+    void search_whenSameQueryRepeated_thenReturnCachedPageAndCountHit() {
+        assertEquals(List.of(2, 4), itemSearchIndex.search("Дрель", 0, 10));
+        assertEquals(List.of(2, 4), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(4), itemSearchIndex.search("дрель", 1, 10)); // другая страница - другой ключ
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "itemSearch").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "itemSearch").tag("result", "miss")
+                .functionCounter().count());
+        assertEquals(1.0 / 3, meterRegistry.get("items.search.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void index_whenItemEntersOrLeavesResults_thenDropOnlyAffectedPages() {
+        itemSearchIndex.search("дрель", 0, 10);
+        itemSearchIndex.search("нивелир", 0, 10);
+        itemSearchIndex.search("шуруповерт", 0, 10);
+
+        // вещь 4 теряет слово "дрель" и становится недоступной: страница "нивелир" ее не касается
+        itemSearchIndex.index(new Item(4, "Шуруповерт", "Аккумуляторный шуруповерт", false, 2));
+        // вещь 3 становится доступной и входит в выдачу "нивелир"
+        itemSearchIndex.index(new Item(3, "Нивелир оптический", "Нивелир для разметки", true, 2));
+
+        assertEquals(List.of(2), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(1, 3), itemSearchIndex.search("нивелир", 0, 10));
+        assertTrue(itemSearchIndex.search("шуруповерт", 0, 10).isEmpty());
+        assertEquals(0.0, meterRegistry.get("cache.gets").tag("cache", "itemSearch").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void index_whenChangeDoesNotAffectQuery_thenKeepCachedPage() {
+        itemSearchIndex.search("дрель", 0, 10);
+
+        // текст вещи меняется, но совпадение с "дрель" сохраняется, а новая вещь "дрель" не содержит
+        itemSearchIndex.index(new Item(2, "Дрель ударная", "Дрель с набором сверл", true, 1));
+        itemSearchIndex.index(new Item(5, "Перфоратор", "Перфоратор с тремя режимами", true, 1));
+
+        assertEquals(List.of(2, 4), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "itemSearch").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void index_whenItemTextContainsCachedQuery_thenDropPageWhateverQueryLength() {
+        assertEquals(List.of(2, 4), itemSearchIndex.search("ль", 0, 10));
+        assertEquals(List.of(2, 4), itemSearchIndex.search("рель", 0, 10));
+        assertEquals(List.of(1), itemSearchIndex.search("ex600", 0, 10));
+
+        // "ль" и "рель" встречаются в тексте новой вещи не с начала, "ex600" ее не касается
+        itemSearchIndex.index(new Item(5, "Мольберт", "Мольберт и акварель", true, 1));
+
+        assertEquals(List.of(2, 4, 5), itemSearchIndex.search("ль", 0, 10));
+        assertEquals(List.of(2, 4, 5), itemSearchIndex.search("рель", 0, 10));
+        assertEquals(List.of(1), itemSearchIndex.search("ex600", 0, 10));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "itemSearch").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void index_whenManyQueriesEvictedFromCache_thenStillDropAffectedPage() {
+        itemSearchIndex = new ItemSearchIndex(itemRepository, bookingRepository, meterRegistry, 2, 30);
+        for (int i = 0; i < 20; i++) {
+            itemSearchIndex.search("запрос " + i, 0, 10);
+        }
+        assertEquals(List.of(2, 4), itemSearchIndex.search("дрель", 0, 10));
+
+        itemSearchIndex.index(new Item(5, "Дрель", "Дрель аккумуляторная", true, 1));
+
+        assertEquals(List.of(2, 4, 5), itemSearchIndex.search("дрель", 0, 10));
+    }
+
+    @Test
+    void removeItemsOfOwner_whenCachedPageContainsOwnerItems_thenDropPage() {
+        assertEquals(List.of(2, 4), itemSearchIndex.search("дрель", 0, 10));
+
+        itemSearchIndex.removeItemsOfOwner(2);
+
+        assertEquals(List.of(2), itemSearchIndex.search("дрель", 0, 10));
+    }
+
+    @Test
+    void searchRanked_whenTextInNameAndRepeated_thenRankByHitsThenById() {
+        itemSearchIndex.index(new Item(5, "Дрель дрель", "Дрель", true, 3));
+
+        // название весит больше описания, повторы прибавляют: 5 - дважды в названии, 2 - в названии, 4 - в описании
+        assertEquals(List.of(5, 2, 4), itemSearchIndex.searchRanked("дрель", 0, 10));
+        assertEquals(List.of(4, 1, 5, 2), itemSearchIndex.searchRanked("р", 0, 10));
+        assertEquals(List.of(2), itemSearchIndex.searchRanked("дрель", 1, 1));
+        assertTrue(itemSearchIndex.searchRanked("дрель", 3, 10).isEmpty());
+        assertTrue(itemSearchIndex.searchRanked("пила", 0, 10).isEmpty());
+    }
+
+    @Test
+    void searchRanked_whenItemRecentlyBooked_thenRaiseItem() {
+        itemSearchIndex.index(new Item(5, "Дрель дрель", "Дрель", true, 3));
+        for (int i = 0; i < 30; i++) {
+            itemSearchIndex.addBooking(4);
+        }
+
+        assertEquals(List.of(5, 4, 2), itemSearchIndex.searchRanked("дрель", 0, 10));
+        assertEquals(List.of(2, 4, 5), itemSearchIndex.search("дрель", 0, 10)); // обычный поиск - по id
+    }
+
+    @Test
+    void searchRanked_whenRecentBookingsInDb_thenLoadPopularityWithIndex() {
+        ItemBookingCountView count = Mockito.mock(ItemBookingCountView.class);
+        Mockito.when(count.getItemId()).thenReturn(4);
+        Mockito.when(count.getBookingCount()).thenReturn(30L);
+        Mockito.when(bookingRepository.countBookingsByItemSince(any(LocalDateTime.class))).thenReturn(List.of(count));
+
+        assertEquals(List.of(4, 2), itemSearchIndex.searchRanked("дрель", 0, 10));
+    }
+
+    @Test
+    void searchRanked_whenCandidateFilter_thenRankOnlyAcceptedItems() {
+        UnaryOperator<List<Integer>> withoutItem2 = candidates ->
+                candidates.stream().filter(id -> id != 2).collect(Collectors.toList());
+
+        assertEquals(List.of(4, 1), itemSearchIndex.searchRanked("р", 0, 10, withoutItem2));
+        assertEquals(List.of(1), itemSearchIndex.searchRanked("р", 1, 10, withoutItem2));
+    }
+
+    @Test
+    void searchRanked_whenManyMatches_thenPageEqualsSliceOfFullRanking() {
+        for (int id = 10; id < 410; id++) {
+            int hits = id * 7 % 11 + 1;
+            String description = String.join(" ", Collections.nCopies(hits, "пила"));
+            itemSearchIndex.index(new Item(id, "Вещь " + id, description, true, 3));
+        }
+        List<Integer> expected = IntStream.range(10, 410).boxed()
+                .sorted(Comparator.<Integer>comparingInt(id -> id * 7 % 11 + 1).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+
+        assertEquals(expected.subList(0, 25), itemSearchIndex.searchRanked("пила", 0, 25));
+        assertEquals(expected.subList(190, 215), itemSearchIndex.searchRanked("пила", 190, 25));
+        assertEquals(expected.subList(390, 400), itemSearchIndex.searchRanked("пила", 390, 25));
+        assertEquals(expected.subList(300, 325), itemSearchIndex.searchRanked("пила", 300, 25, UnaryOperator.identity()));
+    }
+}
@@ -9,38 +9,51 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Sort;
 import ru.practicum.shareit.booking.dto.BookingDtoWithoutItemField;
+import ru.practicum.shareit.booking.index.BookingInterval;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.DateTimeBookingException;
 import ru.practicum.shareit.exception.NotItemOwnerException;
 import ru.practicum.shareit.exception.ObjectNotAvailableException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.item.storage.CommentRepository;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.OwnerItemView;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingAndComment;
 import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemBookingSummary;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.item.summary.ItemBookingSummaries;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 
 @ExtendWith(MockitoExtension.class)
 class ItemServiceImplTest {
@@ -56,6 +69,14 @@ class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private CommentMapper commentMapper;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemBookingSummaries itemBookingSummaries;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemSuggestions itemSuggestions;
     @InjectMocks
     private ItemServiceImpl itemService;
     private ItemDto inputItemDto;
@@ -99,6 +120,8 @@ class ItemServiceImplTest {
         Mockito.verify(userRepository).existsById(userId);
         Mockito.verify(itemMapper).toItem(inputItemDto);
         Mockito.verify(itemRepository).save(any());
+        Mockito.verify(itemSearchIndex).index(savedItem);
+        Mockito.verify(itemSuggestions).index(savedItem);
         Mockito.verify(itemMapper).toItemDto(any());
     }
 
@@ -111,6 +134,7 @@ class ItemServiceImplTest {
         Mockito.verify(userRepository).existsById(userId);
         Mockito.verify(itemMapper, never()).toItem(inputItemDto);
         Mockito.verify(itemRepository, never()).save(any());
+        Mockito.verify(itemSearchIndex, never()).index(any());
         Mockito.verify(itemMapper, never()).toItemDto(any());
     }
 
@@ -123,7 +147,7 @@ class ItemServiceImplTest {
                 true, 1);
         ItemDto excpectedItemDto = new ItemDto(1, "Лазерный нивелир",
                 "Лазерный нивелир EX600-Pro", true, null);
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
+        Mockito.when(itemRepository.findItemById(itemId)).thenReturn(Optional.of(savedItem));
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
         Mockito.when(itemMapper.toItem(inputItemDto))
                 .thenReturn(new Item(0, null, null, true, 0));
@@ -133,7 +157,8 @@ class ItemServiceImplTest {
         ItemDto result = itemService.updateItem(userId, itemId, inputItemDto);
 
         assertEquals(excpectedItemDto, result);
-        Mockito.verify(itemRepository).findById(itemId);
+        Mockito.verify(itemRepository, never()).findById(itemId); // версия для сохранения не берется из кэша
+        Mockito.verify(itemRepository).findItemById(itemId);
         Mockito.verify(userRepository).existsById(userId);
         Mockito.verify(itemMapper).toItem(inputItemDto);
         Mockito.verify(itemRepository).save(itemArgumentCaptor.capture());
@@ -141,17 +166,20 @@ class ItemServiceImplTest {
         assertEquals(savedItem.getName(), updatedItemInDb.getName());
         assertEquals(savedItem.getDescription(), updatedItemInDb.getDescription());
         assertEquals(true, updatedItemInDb.getIsAvailable());
+        Mockito.verify(itemSearchIndex).index(updatedItem);
+        Mockito.verify(itemSuggestions).index(updatedItem);
         Mockito.verify(itemMapper).toItemDto(updatedItem);
+        Mockito.verify(itemRepository).evictItem(itemId);
     }
 
     @Test
     void updateItem_whenItemNotFound_thenThrowObjectNotFoundExceptionAndNotUpdateItem() {
         int userId = 1;
         int itemId = 0;
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.empty());
+        Mockito.when(itemRepository.findItemById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.updateItem(userId, itemId, inputItemDto));
-        Mockito.verify(itemRepository).findById(itemId);
+        Mockito.verify(itemRepository).findItemById(itemId);
         Mockito.verify(userRepository, never()).existsById(userId);
         Mockito.verify(itemMapper, never()).toItem(inputItemDto);
         Mockito.verify(itemRepository, never()).save(any());
@@ -162,11 +190,11 @@ class ItemServiceImplTest {
     void updateItem_whenUserNotFound_thenThrowObjectNotFoundExceptionAndNotUpdateItem() {
         int userId = 0;
         int itemId = 1;
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
+        Mockito.when(itemRepository.findItemById(itemId)).thenReturn(Optional.of(savedItem));
         Mockito.when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.updateItem(userId, itemId, inputItemDto));
-        Mockito.verify(itemRepository).findById(itemId);
+        Mockito.verify(itemRepository).findItemById(itemId);
         Mockito.verify(userRepository).existsById(userId);
         Mockito.verify(itemMapper, never()).toItem(inputItemDto);
         Mockito.verify(itemRepository, never()).save(any());
@@ -177,11 +205,11 @@ class ItemServiceImplTest {
     void updateItem_whenUserIsNotItemOwner_thenThrowNotItemOwnerExceptionAndNotUpdateItem() {
         int userId = 4;
         int itemId = 1;
-        Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
+        Mockito.when(itemRepository.findItemById(itemId)).thenReturn(Optional.of(savedItem));
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
 
         assertThrows(NotItemOwnerException.class, () -> itemService.updateItem(userId, itemId, inputItemDto));
-        Mockito.verify(itemRepository).findById(itemId);
+        Mockito.verify(itemRepository).findItemById(itemId);
         Mockito.verify(userRepository).existsById(userId);
         Mockito.verify(itemMapper, never()).toItem(inputItemDto);
         Mockito.verify(itemRepository, never()).save(any());
@@ -193,38 +221,63 @@ class ItemServiceImplTest {
         int userId = 1;
         int from = 0;
         int size = 10;
-        List<Item> items = List.of(savedItem);
-        CommentDto commentDto = new CommentDto(comment.getId(), comment.getText(),"User",
+        OwnerItemView itemView = Mockito.mock(OwnerItemView.class);
+        CommentDto commentDto = new CommentDto(comment.getId(), 1, comment.getText(),"User",
                 comment.getCreationDate());
-        BookingDtoWithoutItemField bookingDtoWithoutItemField = new BookingDtoWithoutItemField(booking.getId(), any(),
-                booking.getStartBookingDate(), booking.getEndBookingDate());
         ItemDtoWithBookingAndComment itemDtoWithBookingAndComment = new ItemDtoWithBookingAndComment(
                 1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true,
-                null, bookingDtoWithoutItemField, List.of(commentDto), null);
+                null, null, List.of(commentDto), null);
 
-        Mockito.when(itemRepository.findItemsByOwnerId(userId)).thenReturn(items);
-        Mockito.when(bookingRepository.findBookingsByItemOwnerId(anyInt(), any())).thenReturn(List.of(booking));
-        Mockito.when(commentRepository.findCommentsByItemOwner(userId)).thenReturn(List.of(comment));
-        Mockito.when(commentMapper.toCommentDtoList(anyList())).thenReturn(List.of(commentDto));
-        Mockito.when(itemMapper.toItemDtoWithBookingAndComment(any(), any(), any(), anyList()))
+        Mockito.when(itemView.getId()).thenReturn(1);
+        Mockito.when(itemRepository.findOwnerItemsWithLastAndNextBookings(userId, from, size))
+                .thenReturn(List.of(itemView));
+        Mockito.when(commentRepository.findCommentDtosByItemIdIn(List.of(1))).thenReturn(List.of(commentDto));
+        Mockito.when(itemMapper.toItemDtoWithBookingAndComment(itemView, List.of(commentDto)))
                 .thenReturn(itemDtoWithBookingAndComment);
 
         List<ItemDtoWithBookingAndComment> result = itemService.getItems(userId, from, size);
 
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
-        Mockito.verify(itemRepository).findItemsByOwnerId(userId);
-        Mockito.verify(bookingRepository).findBookingsByItemOwnerId(anyInt(), any());
-        Mockito.verify(commentRepository).findCommentsByItemOwner(userId);
-        Mockito.verify(commentMapper, times(items.size())).toCommentDtoList(anyList());
-        Mockito.verify(itemMapper, times(items.size())).toItemDtoWithBookingAndComment(any(), any(), any(), anyList());
+        assertEquals(List.of(itemDtoWithBookingAndComment), result);
+        Mockito.verify(commentRepository).findCommentDtosByItemIdIn(List.of(1));
+        Mockito.verify(itemMapper).toItemDtoWithBookingAndComment(itemView, List.of(commentDto));
+        Mockito.verifyNoInteractions(bookingRepository);
+        Mockito.verify(itemBookingSummaries, never()).refresh(anyCollection());
+    }
+
+    @Test
+    void getItems_whenSummaryExpired_thenRefreshSummaryAndReadPageAgain() {
+        OwnerItemView expiredView = Mockito.mock(OwnerItemView.class);
+        OwnerItemView refreshedView = Mockito.mock(OwnerItemView.class);
+        LocalDateTime validUntil = LocalDateTime.now().minusMinutes(1);
+        Mockito.when(expiredView.getId()).thenReturn(1);
+        Mockito.when(expiredView.getSummaryValidUntil()).thenReturn(validUntil);
+        Mockito.when(refreshedView.getId()).thenReturn(1);
+        Mockito.when(itemBookingSummaries.isExpired(eq(validUntil), any(LocalDateTime.class))).thenReturn(true);
+        Mockito.when(itemRepository.findOwnerItemsWithLastAndNextBookings(1, 0, 10))
+                .thenReturn(List.of(expiredView))
+                .thenReturn(List.of(refreshedView));
+
+        itemService.getItems(1, 0, 10);
+
+        Mockito.verify(itemBookingSummaries).refresh(List.of(1));
+        Mockito.verify(itemRepository, Mockito.times(2)).findOwnerItemsWithLastAndNextBookings(1, 0, 10);
+        Mockito.verify(itemMapper).toItemDtoWithBookingAndComment(refreshedView, List.of());
+    }
+
+    @Test
+    void getItems_whenOwnerHasNoItemsOnPage_thenReturnEmptyListWithoutLoadingComments() {
+        Mockito.when(itemRepository.findOwnerItemsWithLastAndNextBookings(1, 20, 10)).thenReturn(List.of());
+
+        List<ItemDtoWithBookingAndComment> result = itemService.getItems(1, 20, 10);
+
+        assertTrue(result.isEmpty());
+        Mockito.verify(commentRepository, never()).findCommentDtosByItemIdIn(anyList());
     }
 
     @Test
     void getItem_whenItemIsBookedByUserAndHasComment_thenReturnItemWithBookingAndComment() {
         int userId = 1;
         int itemId = 1;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
         CommentDto commentDto = new CommentDto(comment.getId(), comment.getText(),"User",
                 comment.getCreationDate());
         BookingDtoWithoutItemField bookingDtoWithoutItemField = new BookingDtoWithoutItemField(booking.getId(), any(),
@@ -234,11 +287,11 @@ class ItemServiceImplTest {
                 true, null, bookingDtoWithoutItemField, List.of(commentDto),null);
 
         Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
-        Mockito.when(bookingRepository.findBookingsByItemIdAndStatusNot(itemId, Status.REJECTED, sort))
-                .thenReturn(List.of(booking));
-        Mockito.when(commentRepository.findCommentsByItemId(itemId)).thenReturn(List.of(comment));
-        Mockito.when(commentMapper.toCommentDtoList(anyList())).thenReturn(List.of(commentDto));
-        Mockito.when(itemMapper.toItemDtoWithBookingAndComment(any(), any(), any(), anyList())).thenReturn(expectedDto);
+        Mockito.when(itemBookingSummaries.getSummary(itemId))
+                .thenReturn(Optional.of(new ItemBookingSummary(itemId, null, booking, booking.getStartBookingDate())));
+        Mockito.when(commentRepository.findCommentDtosByItemId(itemId)).thenReturn(List.of(commentDto));
+        Mockito.when(itemMapper.toItemDtoWithBookingAndComment(eq(savedItem), isNull(), eq(booking), anyList()))
+                .thenReturn(expectedDto);
 
         ItemDtoWithBookingAndComment result = itemService.getItem(itemId, userId);
 
@@ -253,24 +306,21 @@ class ItemServiceImplTest {
         assertEquals(expectedDto.getComments().size(), result.getComments().size());
         assertNull(result.getRequestId());
         Mockito.verify(itemRepository).findById(itemId);
-        Mockito.verify(bookingRepository).findBookingsByItemIdAndStatusNot(itemId, Status.REJECTED, sort);
-        Mockito.verify(commentRepository).findCommentsByItemId(itemId);
-        Mockito.verify(commentMapper).toCommentDtoList(anyList());
-        Mockito.verify(itemMapper).toItemDtoWithBookingAndComment(any(), any(), any(), anyList());
+        Mockito.verify(itemBookingSummaries).getSummary(itemId);
+        Mockito.verifyNoInteractions(bookingRepository);
+        Mockito.verify(commentRepository).findCommentDtosByItemId(itemId);
     }
 
     @Test
     void getItem_whenItemNotFound_thenThrowObjectNotFoundException() {
         int userId = 1;
         int itemId = 0;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
         Mockito.when(itemRepository.findById(anyInt())).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> itemService.getItem(itemId, userId));
         Mockito.verify(itemRepository).findById(itemId);
-        Mockito.verify(bookingRepository, never()).findBookingsByItemIdAndStatusNot(itemId, Status.REJECTED, sort);
-        Mockito.verify(commentRepository, never()).findCommentsByItemId(itemId);
-        Mockito.verify(commentMapper, never()).toCommentDtoList(anyList());
+        Mockito.verify(itemBookingSummaries, never()).getSummary(itemId);
+        Mockito.verify(commentRepository, never()).findCommentDtosByItemId(itemId);
         Mockito.verify(itemMapper, never()).toItemDtoWithBookingAndComment(any(), any(), any(), anyList());
     }
 
@@ -278,7 +328,6 @@ class ItemServiceImplTest {
     void getItem_whenUserIsNotItemOwner_thenReturnItemWithoutBooking() {
         int userId = 3;
         int itemId = 1;
-        Sort sort = Sort.by(Sort.Direction.DESC, "startBookingDate");
         CommentDto commentDto = new CommentDto(comment.getId(), comment.getText(),"User",
                 comment.getCreationDate());
         ItemDtoWithBookingAndComment expectedDto = new ItemDtoWithBookingAndComment(
@@ -286,8 +335,7 @@ class ItemServiceImplTest {
                 true, null, null, List.of(commentDto), null);
 
         Mockito.when(itemRepository.findById(itemId)).thenReturn(Optional.of(savedItem));
-        Mockito.when(commentRepository.findCommentsByItemId(itemId)).thenReturn(List.of(comment));
-        Mockito.when(commentMapper.toCommentDtoList(anyList())).thenReturn(List.of(commentDto));
+        Mockito.when(commentRepository.findCommentDtosByItemId(itemId)).thenReturn(List.of(commentDto));
         Mockito.when(itemMapper.toItemDtoWithBookingAndComment(any(), any(), any(), anyList())).thenReturn(expectedDto);
 
         ItemDtoWithBookingAndComment result = itemService.getItem(itemId, userId);
@@ -303,12 +351,90 @@ class ItemServiceImplTest {
         assertEquals(expectedDto.getComments().size(), result.getComments().size());
         assertNull(result.getRequestId());
         Mockito.verify(itemRepository).findById(itemId);
-        Mockito.verify(bookingRepository).findBookingsByItemIdAndStatusNot(itemId, Status.REJECTED, sort);
-        Mockito.verify(commentRepository).findCommentsByItemId(itemId);
-        Mockito.verify(commentMapper).toCommentDtoList(anyList());
+        Mockito.verify(itemBookingSummaries, never()).getSummary(itemId); // бронирования видит только владелец
+        Mockito.verify(commentRepository).findCommentDtosByItemId(itemId);
         Mockito.verify(itemMapper).toItemDtoWithBookingAndComment(any(), any(), any(), anyList());
     }
 
+    @Test
+    void getAvailability_whenOwnerRequestsPeriod_thenReturnFreeAndOccupiedIntervalsCoveringPeriod() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        Mockito.when(userRepository.existsById(1)).thenReturn(true);
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(savedItem));
+        Mockito.when(bookingIntervalIndex.findOccupied(1, from, to)).thenReturn(List.of(
+                new BookingInterval(5, from.minusDays(1), from.plusDays(1)),
+                new BookingInterval(6, from.plusDays(3), from.plusDays(4)),
+                new BookingInterval(7, from.plusDays(4), from.plusDays(12))));
+
+        ItemAvailabilityDto result = itemService.getAvailability(1, 1, from, to);
+
+        List<AvailabilityIntervalDto> intervals = result.getIntervals();
+        assertEquals(4, intervals.size());
+        assertEquals(from, intervals.get(0).getStart()); // бронирование обрезано по началу периода
+        assertEquals(AvailabilityIntervalDto.OCCUPIED, intervals.get(0).getState());
+        assertEquals(5, intervals.get(0).getBookingId());
+        assertEquals(AvailabilityIntervalDto.FREE, intervals.get(1).getState());
+        assertEquals(from.plusDays(1), intervals.get(1).getStart());
+        assertEquals(from.plusDays(3), intervals.get(1).getEnd());
+        assertEquals(from.plusDays(4), intervals.get(3).getStart()); // смежные бронирования без свободного отрезка
+        assertEquals(to, intervals.get(3).getEnd());
+        assertFalse(result.getAvailable());
+    }
+
+    @Test
+    void getAvailability_whenLegacyBookingsOverlap_thenNeverReportBookedTimeAsFree() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        Mockito.when(userRepository.existsById(1)).thenReturn(true);
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(savedItem));
+        Mockito.when(bookingIntervalIndex.findOccupied(1, from, to)).thenReturn(List.of(
+                new BookingInterval(5, from.plusDays(1), from.plusDays(6)),
+                new BookingInterval(6, from.plusDays(2), from.plusDays(3)), // внутри бронирования 5
+                new BookingInterval(7, from.plusDays(5), from.plusDays(8)))); // заходит за его окончание
+
+        ItemAvailabilityDto result = itemService.getAvailability(1, 1, from, to);
+
+        List<AvailabilityIntervalDto> intervals = result.getIntervals();
+        assertEquals(4, intervals.size());
+        assertEquals(AvailabilityIntervalDto.FREE, intervals.get(0).getState());
+        assertEquals(from.plusDays(1), intervals.get(0).getEnd());
+        assertEquals(5, intervals.get(1).getBookingId());
+        assertEquals(from.plusDays(6), intervals.get(1).getEnd());
+        assertEquals(7, intervals.get(2).getBookingId());
+        assertEquals(from.plusDays(6), intervals.get(2).getStart()); // без части, уже покрытой бронированием 5
+        assertEquals(from.plusDays(8), intervals.get(2).getEnd());
+        assertEquals(AvailabilityIntervalDto.FREE, intervals.get(3).getState());
+        assertEquals(from.plusDays(8), intervals.get(3).getStart());
+    }
+
+    @Test
+    void getAvailability_whenNotOwnerAndNoBookings_thenReturnOneFreeIntervalWithoutBookingIds() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        Mockito.when(userRepository.existsById(2)).thenReturn(true);
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(savedItem));
+        Mockito.when(bookingIntervalIndex.findOccupied(1, from, from.plusDays(30)))
+                .thenReturn(List.of(new BookingInterval(5, from.plusDays(1), from.plusDays(2))));
+
+        ItemAvailabilityDto result = itemService.getAvailability(2, 1, from, null);
+
+        assertEquals(from.plusDays(30), result.getTo());
+        assertEquals(3, result.getIntervals().size());
+        assertNull(result.getIntervals().get(1).getBookingId());
+    }
+
+    @Test
+    void getAvailability_whenPeriodInvalid_thenThrowDateTimeBookingException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        Mockito.when(userRepository.existsById(1)).thenReturn(true);
+        Mockito.when(itemRepository.findById(1)).thenReturn(Optional.of(savedItem));
+
+        assertThrows(DateTimeBookingException.class, () -> itemService.getAvailability(1, 1, from, from));
+        assertThrows(DateTimeBookingException.class,
+                () -> itemService.getAvailability(1, 1, from, from.plusYears(2)));
+        Mockito.verifyNoInteractions(bookingIntervalIndex);
+    }
+
     @Test
     void searchItems_whenUserFound_thenReturnFoundedItems() {
         int userId = 1;
@@ -318,16 +444,33 @@ class ItemServiceImplTest {
         ItemDto expectedDto = new ItemDto(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
                 true, null);
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(itemRepository.searchItems(anyString(), any())).thenReturn(List.of(savedItem));
-        Mockito.when(itemMapper.toItemDtoList(anyList())).thenReturn(List.of(expectedDto));
+        Mockito.when(itemSearchIndex.search(text, from, size)).thenReturn(List.of(1));
+        Mockito.when(itemRepository.findItemDtosByIdIn(List.of(1))).thenReturn(List.of(expectedDto));
 
-        List<ItemDto> result = itemService.searchItems(userId, text, from, size);
+        List<ItemDto> result = itemService.searchItems(userId, text, null, null, false, from, size);
 
         assertEquals(List.of(expectedDto), result);
         assertTrue(result.size() <= size);
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(itemRepository).searchItems(anyString(), any());
-        Mockito.verify(itemMapper).toItemDtoList(anyList());
+        Mockito.verify(itemSearchIndex).search(text, from, size);
+        Mockito.verify(itemRepository).findItemDtosByIdIn(List.of(1));
+        Mockito.verify(itemMapper, never()).toItemDtoList(anyList());
+    }
+
+    @Test
+    void searchItems_whenRanked_thenKeepOrderOfRankedIndex() {
+        int userId = 1;
+        ItemDto firstDto = new ItemDto(2, "Нивелир", "Оптический нивелир", true, null);
+        ItemDto secondDto = new ItemDto(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro", true, null);
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        Mockito.when(itemSearchIndex.searchRanked("нивелир", 0, 10)).thenReturn(List.of(2, 1));
+        // база возвращает вещи в своем порядке, порядок страницы задает индекс
+        Mockito.when(itemRepository.findItemDtosByIdIn(List.of(2, 1))).thenReturn(List.of(secondDto, firstDto));
+
+        List<ItemDto> result = itemService.searchItems(userId, "нивелир", null, null, true, 0, 10);
+
+        assertEquals(List.of(firstDto, secondDto), result);
+        Mockito.verify(itemSearchIndex, never()).search(anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -338,10 +481,38 @@ class ItemServiceImplTest {
         int size = 10;
         Mockito.when(userRepository.existsById(userId)).thenReturn(false);
 
-        assertThrows(ObjectNotFoundException.class, () -> itemService.searchItems(userId, text, from, size));
+        assertThrows(ObjectNotFoundException.class, () -> itemService.searchItems(userId, text, null, null, false, from, size));
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(itemRepository, never()).searchItems(anyString(), any());
-        Mockito.verify(itemMapper, never()).toItemDtoList(anyList());
+        Mockito.verify(itemSearchIndex, never()).search(anyString(), anyInt(), anyInt());
+        Mockito.verify(itemRepository, never()).findItemDtosByIdIn(anyList());
+    }
+
+    @Test
+    void suggestItems_whenUserFound_thenReturnSuggestions() {
+        int userId = 1;
+        List<ItemSuggestionDto> suggestions = List.of(new ItemSuggestionDto(1, "Лазерный нивелир"));
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        Mockito.when(itemSuggestions.suggest("лаз", 5)).thenReturn(suggestions);
+
+        assertEquals(suggestions, itemService.suggestItems(userId, "лаз", 5));
+    }
+
+    @Test
+    void suggestItems_whenPrefixIsBlank_thenReturnEmptyList() {
+        int userId = 1;
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertTrue(itemService.suggestItems(userId, " ", 5).isEmpty());
+        Mockito.verify(itemSuggestions, never()).suggest(anyString(), anyInt());
+    }
+
+    @Test
+    void suggestItems_whenUserNotFound_thenThrowObjectNotFoundException() {
+        int userId = 1;
+        Mockito.when(userRepository.existsById(userId)).thenReturn(false);
+
+        assertThrows(ObjectNotFoundException.class, () -> itemService.suggestItems(userId, "лаз", 5));
+        Mockito.verify(itemSuggestions, never()).suggest(anyString(), anyInt());
     }
 
     @Test
@@ -352,11 +523,75 @@ class ItemServiceImplTest {
         int size = 10;
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
 
-        List<ItemDto> result = itemService.searchItems(userId, text, from, size);
+        List<ItemDto> result = itemService.searchItems(userId, text, null, null, false, from, size);
 
         assertTrue(result.isEmpty());
-        Mockito.verify(itemRepository, never()).searchItems(anyString(), any());
-        Mockito.verify(itemMapper, never()).toItemDtoList(anyList());
+        Mockito.verify(itemSearchIndex, never()).search(anyString(), anyInt(), anyInt());
+        Mockito.verify(itemRepository, never()).findItemDtosByIdIn(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchItems_whenStartAndEnd_thenFilterCandidatesByIntervalIndex() {
+        int userId = 1;
+        String text = "Нивелир";
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime end = start.plusDays(2);
+        ItemDto expectedDto = new ItemDto(1, "Лазерный нивелир", "Лазерный нивелир EX600-Pro",
+                true, null);
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        // индекс поиска передает фильтру найденных по тексту кандидатов, фильтр оставляет свободные вещи
+        Mockito.when(itemSearchIndex.search(eq(text), eq(0), eq(10), any())).thenAnswer(invocation ->
+                ((UnaryOperator<List<Integer>>) invocation.getArgument(3)).apply(List.of(1, 2)));
+        Mockito.when(bookingIntervalIndex.filterFree(List.of(1, 2), start, end)).thenReturn(List.of(1));
+        Mockito.when(itemRepository.findItemDtosByIdIn(List.of(1))).thenReturn(List.of(expectedDto));
+
+        List<ItemDto> result = itemService.searchItems(userId, text, start, end, false, 0, 10);
+
+        assertEquals(List.of(expectedDto), result);
+        Mockito.verify(bookingIntervalIndex).filterFree(List.of(1, 2), start, end);
+        Mockito.verify(itemSearchIndex, never()).search(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchItems_whenStartAndEndAndLegacyBookingsOverlap_thenSkipItemBookedByEarlierLongBooking() {
+        int userId = 1;
+        String text = "Нивелир";
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime end = start.plusDays(1);
+        ItemDto otherDto = new ItemDto(2, "Оптический нивелир", "Оптический нивелир ADA", true, null);
+        // поиск с настоящим индексом занятых интервалов: у вещи 1 короткое бронирование лежит внутри длинного,
+        // созданного до появления индекса, и ни одно из них не является соседом слева периода поиска
+        ItemServiceImpl searchService = new ItemServiceImpl(userRepository, itemRepository, itemMapper,
+                bookingRepository, commentRepository, commentMapper, itemSearchIndex, itemBookingSummaries,
+                new BookingIntervalIndex(bookingRepository), itemSuggestions);
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+        Mockito.when(bookingRepository.findBookingsByItemIdInAndStatusIn(eq(List.of(1, 2)), anyCollection()))
+                .thenReturn(List.of(
+                        new Booking(10, savedItem, savedUser, start.minusDays(2), start.plusDays(5), Status.APPROVED),
+                        new Booking(11, savedItem, savedUser, start.minusDays(1), start.minusHours(1),
+                                Status.WAITING)));
+        Mockito.when(itemSearchIndex.search(eq(text), eq(0), eq(10), any())).thenAnswer(invocation ->
+                ((UnaryOperator<List<Integer>>) invocation.getArgument(3)).apply(List.of(1, 2)));
+        Mockito.when(itemRepository.findItemDtosByIdIn(List.of(2))).thenReturn(List.of(otherDto));
+
+        List<ItemDto> result = searchService.searchItems(userId, text, start, end, false, 0, 10);
+
+        assertEquals(List.of(otherDto), result);
+    }
+
+    @Test
+    void searchItems_whenOnlyStartOrEndBeforeStart_thenThrowDateTimeBookingException() {
+        int userId = 1;
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        Mockito.when(userRepository.existsById(userId)).thenReturn(true);
+
+        assertThrows(DateTimeBookingException.class, () -> itemService.searchItems(userId, "Нивелир", start, null,
+                false, 0, 10));
+        assertThrows(DateTimeBookingException.class, () -> itemService.searchItems(userId, "Нивелир", start,
+                start.minusHours(1), false, 0, 10));
+        Mockito.verifyNoInteractions(itemSearchIndex, bookingIntervalIndex);
     }
 
     @Test
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingCountView;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSuggestionsTest {
+    private static final int TOP_K = 3;
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    private ItemSuggestions itemSuggestions;
+
+    @BeforeEach
+    void setUp() {
+        itemSuggestions = new ItemSuggestions(itemRepository, bookingRepository, TOP_K);
+    }
+
+    @Test
+    void suggest_whenPrefixMatches_thenReturnAvailableItemsByPopularityIgnoringCase() {
+        loadItems(List.of(
+                new Item(1, "Дрель ударная", "", true, 1),
+                new Item(2, "Дрель аккумуляторная", "", true, 1),
+                new Item(3, "Дрожжи", "", true, 2),
+                new Item(4, "Дрель старая", "", false, 2),
+                new Item(5, "Пила", "", true, 2)),
+                Map.of(1, 2L, 2, 5L, 3, 1L, 4, 100L));
+
+        assertEquals(List.of(2, 1, 3), ids(itemSuggestions.suggest("ДР", 10)));
+        assertEquals(List.of(2, 1), ids(itemSuggestions.suggest("дрель", 10)));
+        assertEquals(List.of(2), ids(itemSuggestions.suggest("дрель а", 10)));
+        assertEquals(List.of(2), ids(itemSuggestions.suggest("д", 1)));
+        assertEquals("Дрель аккумуляторная", itemSuggestions.suggest("д", 1).get(0).getName());
+        assertTrue(itemSuggestions.suggest("дрелька", 10).isEmpty());
+        assertTrue(itemSuggestions.suggest("молоток", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_whenMoreMatchesThanTopK_thenReturnOnlyTopK() {
+        loadItems(List.of(
+                new Item(1, "Лопата 1", "", true, 1),
+                new Item(2, "Лопата 2", "", true, 1),
+                new Item(3, "Лопата 3", "", true, 1),
+                new Item(4, "Лопата 4", "", true, 1)),
+                Map.of(4, 1L));
+
+        // при равной популярности первыми идут созданные раньше вещи
+        assertEquals(List.of(4, 1, 2), ids(itemSuggestions.suggest("лопата", 10)));
+    }
+
+    @Test
+    void index_whenNameOrAvailabilityChanged_thenUpdateSuggestions() {
+        loadItems(List.of(
+                new Item(1, "Дрель", "", true, 1),
+                new Item(2, "Палатка", "", false, 1)),
+                Map.of(1, 3L));
+
+        itemSuggestions.index(new Item(2, "Палатка", "", true, 1));
+        itemSuggestions.index(new Item(1, "Перфоратор", "", true, 1));
+        itemSuggestions.index(new Item(3, "Пила", "", true, 2));
+
+        assertTrue(itemSuggestions.suggest("дрель", 10).isEmpty());
+        // популярность вещи сохраняется после переименования
+        assertEquals(List.of(1, 2, 3), ids(itemSuggestions.suggest("п", 10)));
+
+        itemSuggestions.index(new Item(1, "Перфоратор", "", false, 1));
+
+        assertEquals(List.of(2, 3), ids(itemSuggestions.suggest("п", 10)));
+    }
+
+    @Test
+    void addBooking_whenItemBooked_thenRaiseItemInSuggestions() {
+        loadItems(List.of(
+                new Item(1, "Сапборд", "", true, 1),
+                new Item(2, "Самокат", "", true, 1)),
+                Map.of());
+
+        itemSuggestions.addBooking(2);
+
+        assertEquals(List.of(2, 1), ids(itemSuggestions.suggest("са", 10)));
+    }
+
+    @Test
+    void removeItemsOfOwner_whenOwnerDeleted_thenExcludeHisItems() {
+        loadItems(List.of(
+                new Item(1, "Дрель", "", true, 1),
+                new Item(2, "Дрель", "", true, 2)),
+                Map.of(1, 5L));
+
+        itemSuggestions.removeItemsOfOwner(1);
+
+        assertEquals(List.of(2), ids(itemSuggestions.suggest("дрель", 10)));
+    }
+
+    @Test
+    void suggest_whenRandomChanges_thenMatchBruteForce() {
+        Random random = new Random(7);
+        String[] words = {"дрель", "дрожжи", "др", "пила", "пилот", "палатка", "п", "дре"};
+        loadItems(List.of(), Map.of());
+        Map<Integer, Item> items = new HashMap<>();
+        Map<Integer, Long> bookingCounts = new HashMap<>();
+        for (int step = 0; step < 3_000; step++) {
+            int itemId = 1 + random.nextInt(60);
+            int action = random.nextInt(10);
+            if (action < 5) {
+                String name = words[random.nextInt(words.length)] + (random.nextBoolean() ? "" : " " +
+                        words[random.nextInt(words.length)]);
+                Item item = new Item(itemId, name, "", random.nextInt(4) > 0, 1 + itemId % 3);
+                items.put(itemId, item);
+                itemSuggestions.index(item);
+            } else if (action < 9) {
+                if (items.containsKey(itemId)) {
+                    bookingCounts.merge(itemId, 1L, Long::sum);
+                    itemSuggestions.addBooking(itemId);
+                }
+            } else {
+                int ownerId = 1 + random.nextInt(3);
+                items.values().removeIf(item -> {
+                    boolean removed = item.getOwnerId() == ownerId;
+                    if (removed) { // вещь удалена вместе с бронированиями
+                        bookingCounts.remove(item.getId());
+                    }
+                    return removed;
+                });
+                itemSuggestions.removeItemsOfOwner(ownerId);
+            }
+
+            String word = words[random.nextInt(words.length)];
+            String prefix = word.substring(0, 1 + random.nextInt(word.length()));
+            List<Integer> expected = items.values().stream()
+                    .filter(item -> item.getIsAvailable() && item.getName().startsWith(prefix))
+                    .sorted(Comparator.<Item>comparingLong(item -> bookingCounts.getOrDefault(item.getId(), 0L))
+                            .reversed().thenComparingInt(Item::getId))
+                    .map(Item::getId)
+                    .limit(TOP_K)
+                    .collect(Collectors.toList());
+            assertEquals(expected, ids(itemSuggestions.suggest(prefix, TOP_K)), "prefix '" + prefix + "'");
+        }
+    }
+
+    private void loadItems(List<Item> items, Map<Integer, Long> bookingCounts) {
+        List<ItemBookingCountView> counts = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : bookingCounts.entrySet()) {
+            ItemBookingCountView count = Mockito.mock(ItemBookingCountView.class);
+            Mockito.when(count.getItemId()).thenReturn(entry.getKey());
+            Mockito.when(count.getBookingCount()).thenReturn(entry.getValue());
+            counts.add(count);
+        }
+        Mockito.when(bookingRepository.countBookingsByItem()).thenReturn(counts);
+        Mockito.when(itemRepository.findAll()).thenReturn(items);
+    }
+
+    private List<Integer> ids(List<ItemSuggestionDto> suggestions) {
+        return suggestions.stream().map(ItemSuggestionDto::getId).collect(Collectors.toList());
+    }
+}
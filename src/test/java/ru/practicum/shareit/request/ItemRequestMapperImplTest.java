@@ -4,12 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.dto.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithAnswers;
 import ru.practicum.shareit.request.dto.ItemRequestMapperImpl;
@@ -25,13 +21,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.Mockito.never;
 
 @ExtendWith(MockitoExtension.class)
 class ItemRequestMapperImplTest {
-    @Mock
-    private ItemMapper itemMapper;
     @InjectMocks
     ItemRequestMapperImpl itemRequestMapper;
     private ItemRequestDto inputItemRequestDto;
@@ -78,12 +70,11 @@ class ItemRequestMapperImplTest {
 
     @Test
     void toItemRequestDtoWithAnswers_whenInvoke_thenReturnItemRequestWithItemsList() {
-        Mockito.when(itemMapper.toItemDtoList(anyList())).thenReturn(List.of(itemDto));
         ItemRequestDtoWithAnswers expected = new ItemRequestDtoWithAnswers(
                 1, "Нужен лазерный нивелир", creationDate, List.of(itemDto));
 
         ItemRequestDtoWithAnswers result = itemRequestMapper
-                .toItemRequestDtoWithAnswers(itemRequest, List.of(new Item()));
+                .toItemRequestDtoWithAnswers(itemRequest, List.of(itemDto));
 
         assertNotNull(result);
         assertEquals(expected.getId(), result.getId());
@@ -92,7 +83,7 @@ class ItemRequestMapperImplTest {
         assertNotNull(result.getItems());
         assertFalse(result.getItems().isEmpty());
         assertEquals(expected.getItems().size(), result.getItems().size());
-        Mockito.verify(itemMapper).toItemDtoList(anyList());
+        assertEquals(itemDto, result.getItems().get(0));
     }
 
     @Test
@@ -109,6 +100,5 @@ class ItemRequestMapperImplTest {
         assertEquals(expected.getCreated(), result.getCreated());
         assertNotNull(result.getItems());
         assertTrue(result.getItems().isEmpty());
-        Mockito.verify(itemMapper, never()).toItemDtoList(anyList());
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import ru.practicum.shareit.user.model.User;
 
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,7 +32,6 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static ru.practicum.shareit.util.Page.getSortedPage;
 
 @ExtendWith(MockitoExtension.class)
@@ -107,16 +107,16 @@ class ItemRequestServiceImplTest {
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
         Mockito.when(itemRequestRepository.findById(requestId)).thenReturn(Optional.of(savedItemRequest));
-        Mockito.when(itemRepository.findItemsByRequestId(requestId)).thenReturn(List.of(item));
-        Mockito.when(itemRequestMapper.toItemRequestDtoWithAnswers(savedItemRequest, List.of(item)))
+        Mockito.when(itemRepository.findItemDtosByRequestId(requestId)).thenReturn(List.of(itemDto));
+        Mockito.when(itemRequestMapper.toItemRequestDtoWithAnswers(savedItemRequest, List.of(itemDto)))
                 .thenReturn(expectedDto);
 
         ItemRequestDtoWithAnswers result = itemRequestService.getRequest(userId, requestId);
 
         assertEquals(expectedDto, result);
         Mockito.verify(itemRequestRepository).findById(requestId);
-        Mockito.verify(itemRepository).findItemsByRequestId(requestId);
-        Mockito.verify(itemRequestMapper).toItemRequestDtoWithAnswers(savedItemRequest, List.of(item));
+        Mockito.verify(itemRepository).findItemDtosByRequestId(requestId);
+        Mockito.verify(itemRequestMapper).toItemRequestDtoWithAnswers(savedItemRequest, List.of(itemDto));
     }
 
     @Test
@@ -128,7 +128,7 @@ class ItemRequestServiceImplTest {
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getRequest(userId, requestId));
         Mockito.verify(itemRequestRepository, never()).findById(requestId);
-        Mockito.verify(itemRepository, never()).findItemsByRequestId(requestId);
+        Mockito.verify(itemRepository, never()).findItemDtosByRequestId(requestId);
         Mockito.verify(itemRequestMapper, never()).toItemRequestDtoWithAnswers(any(), anyList());
     }
 
@@ -142,31 +142,33 @@ class ItemRequestServiceImplTest {
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getRequest(userId, requestId));
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(itemRepository, never()).findItemsByRequestId(requestId);
+        Mockito.verify(itemRepository, never()).findItemDtosByRequestId(requestId);
         Mockito.verify(itemRequestMapper, never()).toItemRequestDtoWithAnswers(any(), anyList());
     }
 
     @Test
-    void getRequestsWithItemsForRequester_whenUserAndItemsRequestsListAndAddedItemsListFound_thenInvoke4Methods() {
+    void getRequestsWithItemsForRequester_whenUserAndItemsRequestsListAndAddedItemsListFound_thenAddItemsToRequests() {
         int userId = 1;
         Sort sort = Sort.by(Sort.Direction.DESC, "creationDate");
-        ItemRequestDtoWithAnswers expectedDto = new ItemRequestDtoWithAnswers(
-                1, "Нужен лазерный нивелир", LocalDateTime.now(), List.of(itemDto));
+        ItemRequestDtoWithAnswers firstRequest = new ItemRequestDtoWithAnswers(
+                2, "Нужна дрель", LocalDateTime.now());
+        ItemRequestDtoWithAnswers secondRequest = new ItemRequestDtoWithAnswers(
+                1, "Нужен лазерный нивелир", LocalDateTime.now().minusDays(1));
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(itemRequestRepository.findItemsRequestsByRequesterId(userId, sort))
-                .thenReturn(List.of(savedItemRequest));
-        Mockito.when(itemRepository.findItemsByRequesterId(userId)).thenReturn(List.of(item));
-        Mockito.when(itemRequestMapper.toItemRequestDtoWithAnswers(savedItemRequest, List.of(item)))
-                .thenReturn(expectedDto);
+        Mockito.when(itemRequestRepository.findRequestDtosByRequesterId(userId, sort))
+                .thenReturn(List.of(firstRequest, secondRequest));
+        Mockito.when(itemRepository.findItemDtosByRequesterId(userId)).thenReturn(List.of(itemDto));
 
-        itemRequestService.getRequestsWithItemsForRequester(userId);
+        List<ItemRequestDtoWithAnswers> result = itemRequestService.getRequestsWithItemsForRequester(userId);
 
+        assertEquals(List.of(firstRequest, secondRequest), result);
+        assertTrue(result.get(0).getItems().isEmpty());
+        assertEquals(List.of(itemDto), result.get(1).getItems());
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(itemRequestRepository).findItemsRequestsByRequesterId(userId, sort);
-        Mockito.verify(itemRepository).findItemsByRequesterId(userId);
-        Mockito.verify(itemRequestMapper, times(List.of(savedItemRequest).size()))
-                .toItemRequestDtoWithAnswers(savedItemRequest, List.of(item));
+        Mockito.verify(itemRequestRepository).findRequestDtosByRequesterId(userId, sort);
+        Mockito.verify(itemRepository).findItemDtosByRequesterId(userId);
+        Mockito.verifyNoInteractions(itemRequestMapper);
     }
 
     @Test
@@ -177,9 +179,8 @@ class ItemRequestServiceImplTest {
         Mockito.when(userRepository.existsById(userId)).thenReturn(false);
 
         assertThrows(ObjectNotFoundException.class, () -> itemRequestService.getRequestsWithItemsForRequester(userId));
-        Mockito.verify(itemRequestRepository, never()).findItemsRequestsByRequesterId(userId, sort);
-        Mockito.verify(itemRepository, never()).findItemsByRequesterId(userId);
-        Mockito.verify(itemRequestMapper, never()).toItemRequestDtoWithAnswers(any(), anyList());
+        Mockito.verify(itemRequestRepository, never()).findRequestDtosByRequesterId(userId, sort);
+        Mockito.verify(itemRepository, never()).findItemDtosByRequesterId(userId);
     }
 
     @Test
@@ -188,43 +189,39 @@ class ItemRequestServiceImplTest {
         Sort sort = Sort.by(Sort.Direction.DESC, "creationDate");
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(itemRequestRepository.findItemsRequestsByRequesterId(userId, sort)).thenReturn(anyList());
+        Mockito.when(itemRequestRepository.findRequestDtosByRequesterId(userId, sort)).thenReturn(new ArrayList<>());
 
         List<ItemRequestDtoWithAnswers> result = itemRequestService.getRequestsWithItemsForRequester(userId);
 
         assertTrue(result.isEmpty());
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(itemRequestRepository).findItemsRequestsByRequesterId(userId, sort);
-        Mockito.verify(itemRepository, never()).findItemsByRequesterId(userId);
-        Mockito.verify(itemRequestMapper, never()).toItemRequestDtoWithAnswers(any(ItemRequest.class), anyList());
+        Mockito.verify(itemRequestRepository).findRequestDtosByRequesterId(userId, sort);
+        Mockito.verify(itemRepository, never()).findItemDtosByRequesterId(userId);
     }
 
     @Test
-    void getOtherRequestsWithItems_whenUserExistAndItemsRequestsListAndAddedItemsListFound_thenInvoke4Methods() {
+    void getOtherRequestsWithItems_whenUserExistAndItemsRequestsListAndAddedItemsListFound_thenAddItemsToRequests() {
         int userId = 3;
         int page = 0;
         int size = 10;
         Sort sort = Sort.by(Sort.Direction.DESC, "creationDate");
         Pageable pageable = getSortedPage(page, size, sort);
-        List<Integer> requestsIdsList = List.of(savedItemRequest.getId());
-        ItemRequestDtoWithAnswers expectedDto = new ItemRequestDtoWithAnswers(
-                1, "Нужен лазерный нивелир", LocalDateTime.now(), List.of(itemDto));
+        ItemRequestDtoWithAnswers request = new ItemRequestDtoWithAnswers(
+                1, "Нужен лазерный нивелир", LocalDateTime.now());
 
         Mockito.when(userRepository.existsById(userId)).thenReturn(true);
-        Mockito.when(itemRequestRepository.findItemsRequestsByRequesterIdNot(userId, pageable))
-                .thenReturn(List.of(savedItemRequest));
-        Mockito.when(itemRepository.findItemsByRequestIdIn(requestsIdsList)).thenReturn(List.of(item));
-        Mockito.when(itemRequestMapper.toItemRequestDtoWithAnswers(savedItemRequest, List.of(item)))
-                .thenReturn(expectedDto);
+        Mockito.when(itemRequestRepository.findRequestDtosByRequesterIdNot(userId, pageable))
+                .thenReturn(List.of(request));
+        Mockito.when(itemRepository.findItemDtosByRequestIdIn(List.of(1))).thenReturn(List.of(itemDto));
 
         List<ItemRequestDtoWithAnswers> result = itemRequestService.getOtherRequestsWithItems(userId, page, size);
 
-        assertTrue(result.size() <= size);
+        assertEquals(List.of(request), result);
+        assertEquals(List.of(itemDto), result.get(0).getItems());
         Mockito.verify(userRepository).existsById(userId);
-        Mockito.verify(itemRequestRepository).findItemsRequestsByRequesterIdNot(userId, pageable);
-        Mockito.verify(itemRepository).findItemsByRequestIdIn(requestsIdsList);
-        Mockito.verify(itemRequestMapper, times(List.of(savedItemRequest).size()))
-                .toItemRequestDtoWithAnswers(savedItemRequest, List.of(item));
+        Mockito.verify(itemRequestRepository).findRequestDtosByRequesterIdNot(userId, pageable);
+        Mockito.verify(itemRepository).findItemDtosByRequestIdIn(List.of(1));
+        Mockito.verifyNoInteractions(itemRequestMapper);
     }
 
     @Test
@@ -239,8 +236,7 @@ class ItemRequestServiceImplTest {
 
         assertThrows(ObjectNotFoundException.class,
                 () -> itemRequestService.getOtherRequestsWithItems(userId, page, size));
-        Mockito.verify(itemRequestRepository, never()).findItemsRequestsByRequesterIdNot(userId, pageable);
-        Mockito.verify(itemRepository, never()).findItemsByRequestIdIn(anyList());
-        Mockito.verify(itemRequestMapper, never()).toItemRequestDtoWithAnswers(any(ItemRequest.class), anyList());
+        Mockito.verify(itemRequestRepository, never()).findRequestDtosByRequesterIdNot(userId, pageable);
+        Mockito.verify(itemRepository, never()).findItemDtosByRequestIdIn(anyList());
     }
 }
\ No newline at end of file
@@ -10,6 +10,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exception.EmailValidationException;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.suggest.ItemSuggestions;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
@@ -31,6 +35,14 @@ class UserServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemSuggestions itemSuggestions;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
     @InjectMocks
     private UserServiceImpl userService;
     private UserDto inputUserDto;
@@ -79,7 +91,7 @@ class UserServiceImplTest {
         inputUserDto = new UserDto(null, "UpdatedUser", "User@gmail.com");
         User updatedUser = new User(1, "UpdatedUser", "User@gmail.com");
         UserDto expectedUserDto = new UserDto(1, "UpdatedUser", "User@gmail.com");
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(savedUser));
+        Mockito.when(userRepository.findUserById(userId)).thenReturn(Optional.of(savedUser));
         Mockito.when(userMapper.toUser(inputUserDto))
                 .thenReturn(new User(0, "UpdatedUser", "User@gmail.com"));
         Mockito.when(userRepository.save(any())).thenReturn(updatedUser);
@@ -88,22 +100,24 @@ class UserServiceImplTest {
         UserDto result = userService.updateUser(userId, inputUserDto);
 
         assertEquals(expectedUserDto, result);
-        Mockito.verify(userRepository).findById(userId);
+        Mockito.verify(userRepository, never()).findById(userId); // версия для сохранения не берется из кэша
+        Mockito.verify(userRepository).findUserById(userId);
         Mockito.verify(userMapper).toUser(inputUserDto);
         Mockito.verify(userRepository).save(userArgumentCaptor.capture());
         User updatedUserInDb = userArgumentCaptor.getValue();
         assertEquals("UpdatedUser", updatedUserInDb.getName());
         assertEquals("User@gmail.com", updatedUserInDb.getEmail());
         Mockito.verify(userMapper).toUserDto(updatedUser);
+        Mockito.verify(userRepository).evictUser(userId);
     }
 
     @Test
     void updateUser_whenUserNotFound_thenThrowObjectNotFoundExceptionAndNotUpdateUser() {
         int userId = 0;
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findUserById(userId)).thenReturn(Optional.empty());
 
         assertThrows(ObjectNotFoundException.class, () -> userService.updateUser(userId, inputUserDto));
-        Mockito.verify(userRepository).findById(userId);
+        Mockito.verify(userRepository).findUserById(userId);
         Mockito.verify(userMapper, never()).toUser(any());
         Mockito.verify(userRepository, never()).save(any());
         Mockito.verify(userMapper, never()).toUserDto(any());
@@ -171,6 +185,11 @@ class UserServiceImplTest {
 
         Mockito.verify(userRepository).findById(userId);
         Mockito.verify(userRepository).deleteById(userId);
+        Mockito.verify(itemSearchIndex).removeItemsOfOwner(userId);
+        Mockito.verify(itemSuggestions).removeItemsOfOwner(userId);
+        Mockito.verify(userRepository).evictUser(userId);
+        Mockito.verify(itemRepository).evictAllItems(); // вещи и запросы пользователя удалены каскадно
+        Mockito.verify(itemRequestRepository).evictAllItemRequests();
     }
 
     @Test
@@ -181,5 +200,7 @@ class UserServiceImplTest {
         assertThrows(ObjectNotFoundException.class, () -> userService.deleteUser(userId));
         Mockito.verify(userRepository).findById(userId);
         Mockito.verify(userRepository, never()).deleteById(userId);
+        Mockito.verify(itemSearchIndex, never()).removeItemsOfOwner(userId);
+        Mockito.verify(itemSuggestions, never()).removeItemsOfOwner(userId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+    private static final long START_MS = 1_000_000;
+
+    @Test
+    void advance_whenDeadlinesOnDifferentLevels_thenReturnEachElementAtItsTick() {
+        // такт 10 мс, 4 ячейки, 3 уровня: уровни охватывают 40, 160 и 640 мс
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, START_MS);
+        wheel.add(START_MS + 30, "level0");
+        wheel.add(START_MS + 130, "level1");
+        wheel.add(START_MS + 500, "level2");
+
+        assertEquals(List.of(), wheel.advance(START_MS + 20));
+        assertEquals(List.of("level0"), wheel.advance(START_MS + 30));
+        assertEquals(List.of(), wheel.advance(START_MS + 120));
+        assertEquals(List.of("level1"), wheel.advance(START_MS + 139));
+        assertEquals(List.of(), wheel.advance(START_MS + 490));
+        assertEquals(List.of("level2"), wheel.advance(START_MS + 500));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void add_whenDeadlineReached_thenNotAdded() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, START_MS);
+
+        assertFalse(wheel.add(START_MS + 5, "now"));
+        assertTrue(wheel.add(START_MS + 10, "next"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advance_whenDeadlineBeyondTopLevel_thenWaitSeveralTurnsAndExpireOnTime() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 3, START_MS);
+        wheel.add(START_MS + 2000, "far");
+
+        assertEquals(List.of(), wheel.advance(START_MS + 1990));
+        assertEquals(List.of("far"), wheel.advance(START_MS + 2000));
+    }
+
+    @Test
+    void advance_whenManyRandomDeadlines_thenEachElementExpiresInTickOfItsDeadline() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 3, START_MS);
+        Random random = new Random(42);
+        int added = 0;
+        int expired = 0;
+        long now = START_MS;
+        while (expired < 5000) {
+            now += 1 + random.nextInt(7);
+            for (Long deadline : wheel.advance(now)) {
+                assertEquals(deadline / 10, now / 10, "Срок " + deadline + " наступил в " + now);
+                expired++;
+            }
+            if (added < 5000) {
+                long deadline = now + 10 + random.nextInt(20_000);
+                wheel.add(deadline, deadline);
+                added++;
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+}
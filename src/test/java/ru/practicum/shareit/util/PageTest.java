@@ -35,4 +35,12 @@ class PageTest {
         assertEquals(0, pageable.getPageNumber());
         assertEquals(2, pageable.getPageSize());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getSortedPage_whenFromNotMultipleOfSize_thenOffsetEqualsFrom() {
+        Pageable pageable = Page.getSortedPage(3, size, sort);
+
+        assertEquals(3, pageable.getOffset());
+        assertEquals(2, pageable.getPageSize());
+    }
+}
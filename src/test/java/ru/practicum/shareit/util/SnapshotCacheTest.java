@@ -0,0 +1,40 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SnapshotCacheTest {
+    private final ConcurrentMapCache cache = new ConcurrentMapCache("test");
+    private final SnapshotCache<String> snapshotCache = new SnapshotCache<>(cache);
+
+    @Test
+    void get_whenRepeated_thenLoadOnce() {
+        assertEquals(Optional.of("User"), snapshotCache.get(1, id -> Optional.of("User")));
+        assertEquals(Optional.of("User"), snapshotCache.get(1, id -> Optional.of("Other")));
+    }
+
+    @Test
+    void get_whenRowChangedWhileLoading_thenStaleSnapshotNotCached() {
+        // читатель прочитал строку до изменения, писатель сохранил изменение и сбросил запись раньше,
+        // чем читатель положил снимок в кэш
+        Optional<String> stale = snapshotCache.get(1, id -> {
+            snapshotCache.evict(id);
+            return Optional.of("User");
+        });
+
+        assertEquals(Optional.of("User"), stale); // читатель отвечает тем, что прочитал
+        assertNull(cache.get(1));
+        assertEquals(Optional.of("UpdatedUser"), snapshotCache.get(1, id -> Optional.of("UpdatedUser")));
+    }
+
+    @Test
+    void get_whenRowAbsent_thenNotCached() {
+        assertEquals(Optional.empty(), snapshotCache.get(1, id -> Optional.empty()));
+        assertEquals(Optional.of("User"), snapshotCache.get(1, id -> Optional.of("User")));
+    }
+}
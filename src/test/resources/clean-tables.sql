@@ -0,0 +1,8 @@
+SET REFERENTIAL_INTEGRITY FALSE;
+TRUNCATE TABLE item_booking_summaries;
+TRUNCATE TABLE comments RESTART IDENTITY;
+TRUNCATE TABLE bookings RESTART IDENTITY;
+TRUNCATE TABLE items RESTART IDENTITY;
+TRUNCATE TABLE item_requests RESTART IDENTITY;
+TRUNCATE TABLE users RESTART IDENTITY;
+SET REFERENTIAL_INTEGRITY TRUE;